@@ -0,0 +1,33 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.api;
+
+/**
+ * Estimates the remaining cost from a node to the target node of an A* search.
+ * The estimate must never exceed the actual cost for the search to return a lowest-cost path.
+ *
+ * @param <T>
+ */
+public interface DistanceHeuristic<T> {
+    /**
+     * Returns a lower bound of the cost from node to target.
+     *
+     * @param node The node being expanded
+     * @param target The search target
+     * @return The estimated remaining cost
+     */
+    double estimate(GraphNode<T> node, GraphNode<T> target);
+}
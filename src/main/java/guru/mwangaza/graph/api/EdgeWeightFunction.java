@@ -0,0 +1,33 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.api;
+
+/**
+ * Returns the cost of traversing the edge from a parent node to one of its children.
+ * Weights must be non-negative.
+ *
+ * @param <T>
+ */
+public interface EdgeWeightFunction<T> {
+    /**
+     * Returns the weight of the edge from source to target.
+     *
+     * @param source The parent node
+     * @param target The child node
+     * @return The non-negative edge weight
+     */
+    double getWeight(GraphNode<T> source, GraphNode<T> target);
+}
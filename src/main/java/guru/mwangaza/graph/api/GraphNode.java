@@ -49,6 +49,13 @@ public interface GraphNode<T> extends guru.mwangaza.graph.api.BaseNode<T>, Seria
      * @param child
      */
     void addChildIfNotExist(GraphNode<T> child);
+    /**
+     * Removes child from this node's children and this node from the child's parents.
+     *
+     * @param child
+     * @return True if child was a child of this node
+     */
+    boolean removeChild(GraphNode<T> child);
     /**
      * Returns the node's first child.
      *
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.api;
+
+/**
+ * Tree node whose payload is stored as an unboxed {@code int}. The boxed {@link #getPayload()} and
+ * {@link #setPayload(Object)} remain available and convert on each call; a null payload is stored as zero.
+ */
+public interface IntTreeNode extends TreeNode<Integer> {
+    /**
+     * Returns the node's payload without boxing.
+     *
+     * @return The payload value
+     */
+    int getIntPayload();
+
+    /**
+     * Sets the node's payload without boxing.
+     *
+     * @param payload The payload value
+     */
+    void setIntPayload(int payload);
+
+    /**
+     * Returns the sum of the payloads of this node and all of its descendants.
+     *
+     * @return The subtree payload sum
+     */
+    long getSubtreeSum();
+
+    /**
+     * Returns the smallest payload among this node and all of its descendants.
+     *
+     * @return The subtree payload minimum
+     */
+    int getSubtreeMin();
+
+    /**
+     * Returns the largest payload among this node and all of its descendants.
+     *
+     * @return The subtree payload maximum
+     */
+    int getSubtreeMax();
+}
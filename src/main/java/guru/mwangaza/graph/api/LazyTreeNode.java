@@ -0,0 +1,64 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.api;
+
+/**
+ * Tree node whose children are loaded from a backing store on first access through a
+ * {@link TreeNodeLoader}. A node may know its child count before its children are loaded, so that
+ * {@link #hasChildren()} and {@link #isLeaf()} can be answered without loading.
+ *
+ * @param <T>
+ */
+public interface LazyTreeNode<T> extends TreeNode<T> {
+    /**
+     * Marks a child count that is not known until the children are loaded.
+     */
+    int UNKNOWN_CHILD_COUNT = -1;
+
+    /**
+     * Returns the key identifying this node in the backing store.
+     *
+     * @return The loader key
+     */
+    String getLoaderKey();
+
+    /**
+     * Returns true if the node's children are currently in memory.
+     *
+     * @return True if loaded
+     */
+    boolean isLoaded();
+
+    /**
+     * Returns the number of children known without loading them, or {@link #UNKNOWN_CHILD_COUNT}.
+     *
+     * @return The known child count
+     */
+    int getKnownChildCount();
+
+    /**
+     * Returns true if the subtree was changed in memory since it was loaded. Modified nodes are never unloaded.
+     *
+     * @return True if modified
+     */
+    boolean isModified();
+
+    /**
+     * Releases the node's children and, recursively, all loaded descendants. The children are loaded
+     * again on next access.
+     */
+    void unload();
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.api;
+
+/**
+ * An associative combine operation with an identity element. Used to maintain aggregates of
+ * node payloads over subtrees.
+ *
+ * @param <A> The aggregate type
+ */
+public interface Monoid<A> {
+    /**
+     * Returns the identity element, i.e., the aggregate of an empty set of values.
+     *
+     * @return The identity element
+     */
+    A identity();
+
+    /**
+     * Combines two aggregates. The operation must be associative.
+     *
+     * @param left The first aggregate
+     * @param right The second aggregate
+     * @return The combined aggregate
+     */
+    A combine(A left, A right);
+}
@@ -49,6 +49,18 @@ public interface TreeNode<T> extends guru.mwangaza.graph.api.BaseNode<T>, Serial
      * @param child Node's child
      */
     void addChildIfNotExist(TreeNode<T> child);
+    /**
+     * Removes child from this node's children and clears its parent. The removed subtree keeps its
+     * own children and can be added elsewhere.
+     *
+     * @param child Node's child
+     * @return True if child was a child of this node
+     */
+    boolean removeChild(TreeNode<T> child);
+    /**
+     * Removes this node from its parent's children. Does nothing for a root.
+     */
+    void detach();
     /**
      * Returns the first child or null if node has no children.
      *
@@ -229,4 +241,12 @@ public interface TreeNode<T> extends guru.mwangaza.graph.api.BaseNode<T>, Serial
      *
      */
     public List<String> getPathsFromNode();
+
+    /**
+     * Returns a counter that is incremented whenever the structure of the subtree rooted at this node changes.
+     * Indexes built over a tree compare this counter to detect that they are stale.
+     *
+     * @return The structural modification count of this subtree.
+     */
+    public long getModificationCount();
 }
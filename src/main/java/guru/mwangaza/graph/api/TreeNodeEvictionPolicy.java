@@ -0,0 +1,44 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.api;
+
+/**
+ * Decides when loaded {@link LazyTreeNode} subtrees are unloaded to bound memory use.
+ *
+ * @param <T>
+ */
+public interface TreeNodeEvictionPolicy<T> {
+    /**
+     * Called after the children of a node were loaded.
+     *
+     * @param node The loaded node
+     */
+    void nodeLoaded(LazyTreeNode<T> node);
+
+    /**
+     * Called whenever the children of a loaded node are accessed.
+     *
+     * @param node The accessed node
+     */
+    void nodeAccessed(LazyTreeNode<T> node);
+
+    /**
+     * Called after the children of a node were released.
+     *
+     * @param node The unloaded node
+     */
+    void nodeUnloaded(LazyTreeNode<T> node);
+}
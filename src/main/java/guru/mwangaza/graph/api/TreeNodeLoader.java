@@ -0,0 +1,34 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.api;
+
+import java.util.List;
+
+/**
+ * Service provider interface loading the children of a {@link LazyTreeNode} from a backing store.
+ * Children that are themselves lazy nodes inherit the loader and eviction policy of their parent.
+ *
+ * @param <T>
+ */
+public interface TreeNodeLoader<T> {
+    /**
+     * Loads the children of the node.
+     *
+     * @param node The node being expanded
+     * @return The node's children in order
+     */
+    List<TreeNode<T>> loadChildren(LazyTreeNode<T> node);
+}
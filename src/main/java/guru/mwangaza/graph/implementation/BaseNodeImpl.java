@@ -21,6 +21,7 @@ import guru.mwangaza.graph.api.BaseNode;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.*;
@@ -36,7 +37,7 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 	 */
 	private String payloadName;
 	/**
-	 * The node's descendants.
+	 * The node's descendants. Allocated when the first child is added.
 	 */
 	private List<BaseNode<T>> children;
 	/**
@@ -48,27 +49,24 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 	 */
 	private String pathDelimiter = DEFAULT_PATH_DELIMITER;
 	/**
-	 * The node's parents.
+	 * The node's parents. Allocated when the first parent is added.
 	 */
 	private List<BaseNode<T>> parents;
 	/**
-	 * Set of indexed ad-hoc properties that can be set on a graph node.
+	 * Set of indexed ad-hoc properties that can be set on a graph node. Allocated when the first property is added.
 	 */
 	private Map<String,Object> properties;
 	/**
-	 * Node's assigned UUID
+	 * Node's assigned UUID. Generated on first access.
 	 */
 	private String uuid;
 
 	/**
-	 * No-argument constructor.
+	 * No-argument constructor. Containers and the UUID are created on first use, so leaves without
+	 * properties hold no empty lists or maps.
 	 */
 	public BaseNodeImpl() {
 		super();
-		parents = new ArrayList<>();
-		children = new ArrayList<>();
-		properties = new LinkedHashMap<>();
-		uuid = UUID.randomUUID().toString();
 	}
 
 	/**
@@ -87,6 +85,9 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 	 */
 	@Override
 	public String getUuid() {
+		if(uuid == null) {
+			uuid = UUID.randomUUID().toString();
+		}
 		return uuid;
 	}
 
@@ -143,12 +144,13 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 
 	/**
 	 * Returns the node's children. Method is intended to be implemented in subclasses.
-	 * An implementation is provided for convenience.
+	 * An implementation is provided for convenience. Until a child is added, a view is returned
+	 * that allocates the node's children list on the first write.
 	 *
 	 * @return
 	 */
 	protected List<? extends BaseNode<T>> _getChildren() {
-		return children;
+		return children != null ? children : new UnallocatedList(false);
 	}
 
 	/**
@@ -168,10 +170,27 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 	 * @param node
 	 */
 	protected void _addChild(BaseNode<T> node) {
+		if(this.children == null) {
+			this.children = new ArrayList<>();
+		}
 		this.children.add(node);
 		((BaseNodeImpl)node)._addParent(this);
 	}
 
+	/**
+	 * Inserts a child node at the index argument of this node's children.
+	 *
+	 * @param index
+	 * @param node
+	 */
+	protected void _insertChild(int index, BaseNode<T> node) {
+		if(this.children == null) {
+			this.children = new ArrayList<>();
+		}
+		this.children.add(index, node);
+		((BaseNodeImpl<T>)node)._addParent(this);
+	}
+
 	/**
 	 * Method adds a child node argument to this node's children if no existing child node of the same name exists.
 	 *  Method is intended to be implemented in subclasses. An implementation is provided for convenience.
@@ -184,6 +203,28 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 		}
 	}
 
+	/**
+	 * Removes the child node argument from this node's children and this node from the child's parents.
+	 * Children are compared by identity.
+	 *
+	 * @param node
+	 * @return True if node was a child of this node
+	 */
+	protected boolean _removeChild(BaseNode<T> node) {
+		if(children != null) {
+			for(int index = 0; index < children.size(); index++) {
+				if(children.get(index) == node) {
+					children.remove(index);
+					if(node instanceof BaseNodeImpl) {
+						((BaseNodeImpl<T>)node)._removeParent(this);
+					}
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Returns the node's first child. Method is intended to be implemented in subclasses.
 	 * An implementation is provided for convenience.
@@ -191,7 +232,7 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 	 * @return
 	 */
 	protected BaseNode<T> _getFirstChild() {
-		if(children.size() >= 0) {
+		if(children != null && children.size() > 0) {
 			return children.get(0);
 		} else {
 			return null;
@@ -200,12 +241,13 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 
 	/**
 	 * Returns the node's parents. Method is intended to be implemented in subclasses.
-	 * An implementation is provided for convenience.
+	 * An implementation is provided for convenience. Until a parent is added, a view is returned
+	 * that allocates the node's parents list on the first write.
 	 *
 	 * @return
 	 */
 	protected List<BaseNode<T>> _getParents() {
-		return parents;
+		return parents != null ? parents : new UnallocatedList(true);
 	}
 
 	/**
@@ -239,9 +281,28 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 	 * @param parent
 	 */
 	protected void _addParent(BaseNode<T> parent) {
+		if(this.parents == null) {
+			this.parents = new ArrayList<>(1);
+		}
 		this.parents.add(parent);
 	}
 
+	/**
+	 * Removes the parent node argument from this node's parents. Parents are compared by identity.
+	 *
+	 * @param parent
+	 */
+	protected void _removeParent(BaseNode<T> parent) {
+		if(parents != null) {
+			for(int index = 0; index < parents.size(); index++) {
+				if(parents.get(index) == parent) {
+					parents.remove(index);
+					return;
+				}
+			}
+		}
+	}
+
 	/**
 	 * Returns true if a child node with the same name as node argument exists. Comparison is case-insensitive.
 	 *
@@ -250,7 +311,7 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 	 */
 	protected boolean _childWithNameAlreadyExists(BaseNode<T> node) {
 		boolean childWithNameAlreadyExists = false;
-		for(BaseNode<T> child : children) {
+		for(BaseNode<T> child : _getChildren()) {
 			if(child.getName() != null && node.getName() != null && child.getName().equalsIgnoreCase(node.getName())) {
 				childWithNameAlreadyExists = true;
 				break;
@@ -431,13 +492,14 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 	}
 
 	/**
-	 * Returns the set of ad-hoc node properties for this node.
+	 * Returns the set of ad-hoc node properties for this node. Until a property is added, a view is returned
+	 * that allocates the node's property map on the first write.
 	 *
 	 * @return Set of indexed ad-hoc properties
 	 */
 	@Override
 	public Map<String, Object> getProperties() {
-		return properties;
+		return properties != null ? properties : new UnallocatedProperties();
 	}
 
 	/**
@@ -459,11 +521,100 @@ public abstract class BaseNodeImpl<T> implements guru.mwangaza.graph.api.BaseNod
 	@Override
 	public void addProperty(String key, Object value) {
 		if(this.properties == null) {
-			this.properties = new LinkedHashMap<>();
+			this.properties = new SmallPropertyMap();
 		}
 		this.properties.put(key, value);
 	}
 
+	/**
+	 * Assigns the UUID before serialization so that copies keep the identity of the original node.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getUuid();
+		out.defaultWriteObject();
+	}
+
+	/**
+	 * Empty property view of a node without a property map. Writes allocate the node's map.
+	 */
+	private class UnallocatedProperties extends AbstractMap<String, Object> {
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return properties != null ? properties.entrySet() : Collections.<Entry<String, Object>>emptySet();
+		}
+
+		@Override
+		public Object get(Object key) {
+			return properties != null ? properties.get(key) : null;
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			if(properties != null) {
+				return properties.put(key, value);
+			}
+			addProperty(key, value);
+			return null;
+		}
+	}
+
+	/**
+	 * Empty view of a node's children or parents before the list is allocated. Writes allocate the
+	 * node's list; reads see the list once it exists.
+	 */
+	private class UnallocatedList extends AbstractList<BaseNode<T>> {
+
+		private final boolean parentList;
+
+		UnallocatedList(boolean parentList) {
+			this.parentList = parentList;
+		}
+
+		private List<BaseNode<T>> allocated() {
+			return parentList ? parents : children;
+		}
+
+		@Override
+		public BaseNode<T> get(int index) {
+			List<BaseNode<T>> list = allocated();
+			if(list == null) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+			}
+			return list.get(index);
+		}
+
+		@Override
+		public int size() {
+			List<BaseNode<T>> list = allocated();
+			return list != null ? list.size() : 0;
+		}
+
+		@Override
+		public BaseNode<T> set(int index, BaseNode<T> element) {
+			get(index);
+			return allocated().set(index, element);
+		}
+
+		@Override
+		public void add(int index, BaseNode<T> element) {
+			if(allocated() == null) {
+				if(parentList) {
+					parents = new ArrayList<>(1);
+				} else {
+					children = new ArrayList<>();
+				}
+			}
+			allocated().add(index, element);
+		}
+
+		@Override
+		public BaseNode<T> remove(int index) {
+			get(index);
+			return allocated().remove(index);
+		}
+	}
+
 	/**
 	 * This method makes a "deep clone" of any Java object it is given.
 	 */
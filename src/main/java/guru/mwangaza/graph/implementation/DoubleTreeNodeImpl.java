@@ -0,0 +1,124 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.DoubleTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+
+/**
+ * Tree node storing its payload as an unboxed {@code double} field. Subtree aggregates are computed
+ * iteratively over the primitive fields; descendants that are not {@link DoubleTreeNode}s contribute
+ * their boxed payload, with null treated as zero.
+ */
+public class DoubleTreeNodeImpl extends PrimitiveTreeNodeImpl<Double> implements DoubleTreeNode {
+
+    /**
+     * The node's payload.
+     */
+    private double value;
+
+    /**
+     * No-argument constructor.
+     */
+    public DoubleTreeNodeImpl() {
+    }
+
+    /**
+     * Constructor initializing the node with the constructor's name argument.
+     *
+     * @param name The name of the node.
+     */
+    public DoubleTreeNodeImpl(String name) {
+        super(name);
+    }
+
+    /**
+     * Constructor initializing the node's name and payload.
+     *
+     * @param name The name of the node.
+     * @param payload The payload of the node.
+     */
+    public DoubleTreeNodeImpl(String name, double payload) {
+        super(name);
+        this.value = payload;
+    }
+
+    @Override
+    public double getDoublePayload() {
+        return value;
+    }
+
+    @Override
+    public void setDoublePayload(double payload) {
+        double oldPayload = value;
+        this.value = payload;
+        _payloadSet(oldPayload, payload);
+    }
+
+    /**
+     * Returns the boxed payload.
+     *
+     * @return
+     */
+    @Override
+    public Double getPayload() {
+        return value;
+    }
+
+    /**
+     * Sets the payload from a boxed value. Null is stored as zero.
+     *
+     * @param payload
+     */
+    @Override
+    public void setPayload(Double payload) {
+        setDoublePayload(payload != null ? payload : 0);
+    }
+
+    @Override
+    public double getSubtreeSum() {
+        return _subtreeNodes().mapToDouble(DoubleTreeNodeImpl::valueOf).sum();
+    }
+
+    @Override
+    public double getSubtreeMin() {
+        return _subtreeNodes().mapToDouble(DoubleTreeNodeImpl::valueOf).min().getAsDouble();
+    }
+
+    @Override
+    public double getSubtreeMax() {
+        return _subtreeNodes().mapToDouble(DoubleTreeNodeImpl::valueOf).max().getAsDouble();
+    }
+
+    /**
+     * Creates children of the same primitive type when building paths.
+     *
+     * @param name The name of the new node
+     * @return The new node
+     */
+    @Override
+    protected TreeNodeImpl<Double> createNode(String name) {
+        return new DoubleTreeNodeImpl(name);
+    }
+
+    private static double valueOf(TreeNode<Double> node) {
+        if(node instanceof DoubleTreeNode) {
+            return ((DoubleTreeNode)node).getDoublePayload();
+        }
+        Double payload = node.getPayload();
+        return payload != null ? payload : 0;
+    }
+}
@@ -86,6 +86,11 @@ public class GraphNodeImpl<T> extends BaseNodeImpl<T> implements GraphNode<T> {
      *
      * @return
      */
+    @Override
+    public boolean removeChild(GraphNode<T> child) {
+        return super._removeChild(child);
+    }
+
     @Override
     public GraphNode<T> getFirstChild() {
         return (GraphNode<T>)super._getFirstChild();
@@ -128,7 +133,7 @@ public class GraphNodeImpl<T> extends BaseNodeImpl<T> implements GraphNode<T> {
      */
     @Override
     public void addParent(GraphNode<T> parent) {
-        super._getParents().add(parent);
+        super._addParent(parent);
     }
 
     /**
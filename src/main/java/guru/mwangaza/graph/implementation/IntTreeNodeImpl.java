@@ -0,0 +1,124 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.IntTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+
+/**
+ * Tree node storing its payload as an unboxed {@code int} field. Subtree aggregates are computed
+ * iteratively over the primitive fields; descendants that are not {@link IntTreeNode}s contribute
+ * their boxed payload, with null treated as zero.
+ */
+public class IntTreeNodeImpl extends PrimitiveTreeNodeImpl<Integer> implements IntTreeNode {
+
+    /**
+     * The node's payload.
+     */
+    private int value;
+
+    /**
+     * No-argument constructor.
+     */
+    public IntTreeNodeImpl() {
+    }
+
+    /**
+     * Constructor initializing the node with the constructor's name argument.
+     *
+     * @param name The name of the node.
+     */
+    public IntTreeNodeImpl(String name) {
+        super(name);
+    }
+
+    /**
+     * Constructor initializing the node's name and payload.
+     *
+     * @param name The name of the node.
+     * @param payload The payload of the node.
+     */
+    public IntTreeNodeImpl(String name, int payload) {
+        super(name);
+        this.value = payload;
+    }
+
+    @Override
+    public int getIntPayload() {
+        return value;
+    }
+
+    @Override
+    public void setIntPayload(int payload) {
+        int oldPayload = value;
+        this.value = payload;
+        _payloadSet(oldPayload, payload);
+    }
+
+    /**
+     * Returns the boxed payload.
+     *
+     * @return
+     */
+    @Override
+    public Integer getPayload() {
+        return value;
+    }
+
+    /**
+     * Sets the payload from a boxed value. Null is stored as zero.
+     *
+     * @param payload
+     */
+    @Override
+    public void setPayload(Integer payload) {
+        setIntPayload(payload != null ? payload : 0);
+    }
+
+    @Override
+    public long getSubtreeSum() {
+        return _subtreeNodes().mapToLong(IntTreeNodeImpl::valueOf).sum();
+    }
+
+    @Override
+    public int getSubtreeMin() {
+        return _subtreeNodes().mapToInt(IntTreeNodeImpl::valueOf).min().getAsInt();
+    }
+
+    @Override
+    public int getSubtreeMax() {
+        return _subtreeNodes().mapToInt(IntTreeNodeImpl::valueOf).max().getAsInt();
+    }
+
+    /**
+     * Creates children of the same primitive type when building paths.
+     *
+     * @param name The name of the new node
+     * @return The new node
+     */
+    @Override
+    protected TreeNodeImpl<Integer> createNode(String name) {
+        return new IntTreeNodeImpl(name);
+    }
+
+    private static int valueOf(TreeNode<Integer> node) {
+        if(node instanceof IntTreeNode) {
+            return ((IntTreeNode)node).getIntPayload();
+        }
+        Integer payload = node.getPayload();
+        return payload != null ? payload : 0;
+    }
+}
@@ -0,0 +1,336 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.LazyTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.api.TreeNodeEvictionPolicy;
+import guru.mwangaza.graph.api.TreeNodeLoader;
+import guru.mwangaza.graph.exception.InvalidStateException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tree node that loads its children through a {@link TreeNodeLoader} the first time they are
+ * accessed. When the child count is known up front, {@link #hasChildren()}, {@link #isLeaf()} and
+ * the other leaf tests do not trigger a load.
+ * <br>
+ * Loaded subtrees can be released with {@link #unload()}, typically by a {@link TreeNodeEvictionPolicy}.
+ * Subtrees changed in memory after loading (children added or replaced, payloads or names of
+ * descendants set) are flagged as modified and are never unloaded, so in-memory changes are not lost.
+ * A node without a loader behaves like a {@link TreeNodeImpl}.
+ *
+ * @param <T>
+ */
+public class LazyTreeNodeImpl<T> extends TreeNodeImpl<T> implements LazyTreeNode<T> {
+
+    /**
+     * The key identifying this node in the backing store.
+     */
+    private String loaderKey;
+    /**
+     * The number of children known without loading them.
+     */
+    private int knownChildCount = UNKNOWN_CHILD_COUNT;
+    /**
+     * True once the children are in memory.
+     */
+    private boolean loaded;
+    /**
+     * True if the subtree was changed in memory since it was loaded.
+     */
+    private boolean modified;
+    /**
+     * The loader of this node's children.
+     */
+    private transient TreeNodeLoader<T> loader;
+    /**
+     * The eviction policy notified of loads and accesses. May be null.
+     */
+    private transient TreeNodeEvictionPolicy<T> evictionPolicy;
+
+    /**
+     * No-argument constructor.
+     */
+    public LazyTreeNodeImpl() {
+    }
+
+    /**
+     * Creates a node whose children are loaded by the loader inherited from its parent.
+     *
+     * @param name The name of the node
+     * @param loaderKey The key identifying the node in the backing store
+     * @param knownChildCount The number of children, or {@link #UNKNOWN_CHILD_COUNT}
+     */
+    public LazyTreeNodeImpl(String name, String loaderKey, int knownChildCount) {
+        super(name);
+        this.loaderKey = loaderKey;
+        this.knownChildCount = knownChildCount;
+    }
+
+    /**
+     * Creates a node whose children are loaded by the loader argument.
+     *
+     * @param name The name of the node
+     * @param loaderKey The key identifying the node in the backing store
+     * @param knownChildCount The number of children, or {@link #UNKNOWN_CHILD_COUNT}
+     * @param loader The loader of the node's children
+     */
+    public LazyTreeNodeImpl(String name, String loaderKey, int knownChildCount, TreeNodeLoader<T> loader) {
+        this(name, loaderKey, knownChildCount);
+        this.loader = loader;
+    }
+
+    @Override
+    public String getLoaderKey() {
+        return loaderKey;
+    }
+
+    public void setLoaderKey(String loaderKey) {
+        this.loaderKey = loaderKey;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded || loader == null;
+    }
+
+    @Override
+    public int getKnownChildCount() {
+        return loaded ? _getChildren().size() : knownChildCount;
+    }
+
+    @Override
+    public boolean isModified() {
+        return modified;
+    }
+
+    public TreeNodeLoader<T> getLoader() {
+        return loader;
+    }
+
+    public void setLoader(TreeNodeLoader<T> loader) {
+        this.loader = loader;
+    }
+
+    public TreeNodeEvictionPolicy<T> getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    public void setEvictionPolicy(TreeNodeEvictionPolicy<T> evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    /**
+     * Returns the node's children, loading them on first access.
+     *
+     * @return
+     */
+    @Override
+    public List<TreeNode<T>> getChildren() {
+        ensureLoaded();
+        if(evictionPolicy != null && loader != null) {
+            evictionPolicy.nodeAccessed(this);
+        }
+        return super.getChildren();
+    }
+
+    /**
+     * Returns true if the node has children. Does not load the children when their count is known.
+     *
+     * @return
+     */
+    @Override
+    public boolean hasChildren() {
+        if(!loaded && loader != null && knownChildCount != UNKNOWN_CHILD_COUNT) {
+            return knownChildCount > 0;
+        }
+        ensureLoaded();
+        return super.hasChildren();
+    }
+
+    @Override
+    public TreeNode<T> getFirstChild() {
+        ensureLoaded();
+        return super.getFirstChild();
+    }
+
+    @Override
+    public void setChildren(List<TreeNode<T>> children) {
+        loaded = true;
+        markModified(this);
+        super.setChildren(children);
+    }
+
+    @Override
+    protected void _addChild(BaseNode<T> node) {
+        ensureLoaded();
+        markModified(this);
+        super._addChild(node);
+    }
+
+    @Override
+    public boolean removeChild(TreeNode<T> child) {
+        ensureLoaded();
+        if(!super.removeChild(child)) {
+            return false;
+        }
+        markModified(this);
+        return true;
+    }
+
+    @Override
+    protected boolean _childWithNameAlreadyExists(BaseNode<T> node) {
+        ensureLoaded();
+        return super._childWithNameAlreadyExists(node);
+    }
+
+    @Override
+    public void setPayload(T payload) {
+        markModified(getParent());
+        super.setPayload(payload);
+    }
+
+    @Override
+    public void setName(String name) {
+        markModified(getParent());
+        super.setName(name);
+    }
+
+    /**
+     * Returns a copy of this node. A node whose subtree can be read again from the backing store is
+     * copied unloaded, with the same loader key, loader and eviction policy, so copying does not load its
+     * children. A node changed in memory since it was loaded is copied as a {@link TreeNodeImpl}.
+     *
+     * @return The copy
+     */
+    @Override
+    public TreeNodeImpl<T> shallowCopy() {
+        if(loader == null || modified) {
+            return super.shallowCopy();
+        }
+        LazyTreeNodeImpl<T> copy = new LazyTreeNodeImpl<>(getName(), loaderKey, getKnownChildCount(), loader);
+        copy.evictionPolicy = evictionPolicy;
+        _copyContentTo(copy);
+        return copy;
+    }
+
+    /**
+     * Releases the children of this node and of all of its loaded descendants.
+     *
+     * @throws InvalidStateException if the subtree was modified since it was loaded
+     */
+    @Override
+    public void unload() {
+        if(!loaded || loader == null) {
+            return;
+        }
+        if(modified) {
+            throw new InvalidStateException("Node " + getName() + " was modified since it was loaded and cannot be unloaded");
+        }
+        ArrayDeque<LazyTreeNodeImpl<T>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while(!stack.isEmpty()) {
+            LazyTreeNodeImpl<T> node = stack.pop();
+            for(BaseNode<T> child : node._getChildren()) {
+                if(child instanceof LazyTreeNodeImpl && ((LazyTreeNodeImpl<T>)child).loaded) {
+                    stack.push((LazyTreeNodeImpl<T>)child);
+                }
+            }
+            node.release();
+        }
+        _subtreeChanged();
+    }
+
+    /**
+     * Drops the in-memory children, remembering their count.
+     */
+    private void release() {
+        knownChildCount = _getChildren().size();
+        _setChildren(null);
+        loaded = false;
+        if(evictionPolicy != null) {
+            evictionPolicy.nodeUnloaded(this);
+        }
+    }
+
+    /**
+     * Loads the children if they are not in memory. Lazy children inherit this node's loader and eviction policy.
+     * If the loader fails, the node stays unloaded and the next access retries the load.
+     */
+    private void ensureLoaded() {
+        if(loaded) {
+            return;
+        }
+        if(loader == null) {
+            loaded = true;
+            return;
+        }
+        // Set before loading, so that accesses made by the loader itself do not load again
+        loaded = true;
+        List<TreeNode<T>> children = null;
+        try {
+            children = TreeBatch.unrecorded(() -> loader.loadChildren(this));
+        } finally {
+            if(children == null) {
+                loaded = false;
+            }
+        }
+        List<BaseNode<T>> loadedChildren = new ArrayList<>(children.size());
+        for(TreeNode<T> child : children) {
+            if(child instanceof LazyTreeNodeImpl) {
+                LazyTreeNodeImpl<T> lazyChild = (LazyTreeNodeImpl<T>)child;
+                if(lazyChild.loader == null) {
+                    lazyChild.loader = loader;
+                }
+                if(lazyChild.evictionPolicy == null) {
+                    lazyChild.evictionPolicy = evictionPolicy;
+                }
+            }
+            if(child instanceof BaseNodeImpl) {
+                ((BaseNodeImpl<T>)child)._addParent(this);
+            } else {
+                child.setParent(this);
+            }
+            _shareTreeSettings(child);
+            loadedChildren.add(child);
+        }
+        _setChildren(loadedChildren);
+        knownChildCount = loadedChildren.size();
+        _subtreeChanged();
+        if(evictionPolicy != null) {
+            evictionPolicy.nodeLoaded(this);
+        }
+    }
+
+    /**
+     * Flags the node and its lazy ancestors as modified.
+     */
+    private void markModified(TreeNode<T> start) {
+        for(TreeNode<T> node = start; node != null; node = node.getParent()) {
+            if(node instanceof LazyTreeNodeImpl) {
+                LazyTreeNodeImpl<T> lazy = (LazyTreeNodeImpl<T>)node;
+                if(lazy.modified) {
+                    break;
+                }
+                lazy.modified = true;
+            }
+        }
+    }
+}
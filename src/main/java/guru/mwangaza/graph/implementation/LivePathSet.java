@@ -0,0 +1,339 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.exception.InvalidStateException;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Live view of the leaf paths of a tree, as returned by {@link TreeNode#getPathsFromNode()}, kept up
+ * to date as the tree changes.
+ * <br>
+ * Creating the view computes the paths once and registers it with the root. From then on, adding or
+ * removing a subtree only computes or drops the paths of that subtree, whatever the number of its
+ * siblings, and renaming a node recomputes the paths below it, so reading the paths of a slowly
+ * changing tree costs O(changes) rather than a full traversal per call. Changes that are not reported
+ * child by child, such as loading or unloading lazy children or rolling back a {@link TreeBatch}, are
+ * found by comparing the children of the changed node with the ones last seen.
+ * {@link Listener}s receive the path additions and removals as a change feed.
+ * <br>
+ * Paths are kept in the order they were added, which for a tree built once is the tree's depth-first order.
+ *
+ * @param <T>
+ */
+public class LivePathSet<T> implements SubtreeObserver<T> {
+
+    /**
+     * Receives path additions and removals.
+     */
+    public interface Listener {
+
+        void pathAdded(String path);
+
+        void pathRemoved(String path);
+    }
+
+    /**
+     * The root of the observed tree.
+     */
+    private final TreeNodeImpl<T> root;
+    /**
+     * The path and children last seen for each node of the tree.
+     */
+    private final Map<TreeNode<T>, NodeState<T>> states = new IdentityHashMap<>();
+    /**
+     * The path of each leaf, in the order the leaves were seen.
+     */
+    private final Map<TreeNode<T>, String> leafPaths = new LinkedHashMap<>();
+    /**
+     * The number of leaves with each path.
+     */
+    private final Map<String, Integer> pathCounts = new HashMap<>();
+    /**
+     * The nodes whose child additions and removals were reported since their last change.
+     */
+    private final Set<TreeNode<T>> reported = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * True while the view walks the tree, during which loads of lazy nodes are not reported separately.
+     */
+    private boolean updating;
+
+    /**
+     * Creates and registers a live path set over the tree rooted at root.
+     *
+     * @param root The root of the tree
+     */
+    public LivePathSet(TreeNode<T> root) {
+        if(!(root instanceof TreeNodeImpl)) {
+            throw new InvalidStateException("Live path sets can only be maintained over TreeNodeImpl trees");
+        }
+        this.root = (TreeNodeImpl<T>)root;
+        updating = true;
+        try {
+            addSubtree(root, root.buildPathComponent());
+        } finally {
+            updating = false;
+        }
+        this.root.addSubtreeObserver(this);
+    }
+
+    /**
+     * Returns a read-only view of the current leaf paths.
+     *
+     * @return The paths
+     */
+    public Collection<String> getPaths() {
+        return Collections.unmodifiableCollection(leafPaths.values());
+    }
+
+    /**
+     * Returns the number of leaf paths.
+     *
+     * @return
+     */
+    public int size() {
+        return leafPaths.size();
+    }
+
+    /**
+     * Returns true if a leaf of the tree has the path argument.
+     *
+     * @param path The path
+     * @return
+     */
+    public boolean contains(String path) {
+        return pathCounts.containsKey(path);
+    }
+
+    /**
+     * Returns the root of the observed tree.
+     *
+     * @return The root
+     */
+    public TreeNode<T> getRoot() {
+        return root;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops maintaining the view and releases its paths.
+     */
+    public void detach() {
+        root.removeSubtreeObserver(this);
+        states.clear();
+        leafPaths.clear();
+        pathCounts.clear();
+        reported.clear();
+    }
+
+    @Override
+    public void subtreeChanged(TreeNodeImpl<T> changed, boolean structural) {
+        if(!structural || updating) {
+            return;
+        }
+        boolean childrenReported = reported.remove(changed);
+        updating = true;
+        try {
+            update(changed, childrenReported);
+        } finally {
+            updating = false;
+        }
+    }
+
+    @Override
+    public void subtreeAdded(TreeNodeImpl<T> parent, TreeNode<T> added) {
+        NodeState<T> state = states.get(parent);
+        if(state == null || updating) {
+            return;
+        }
+        updating = true;
+        try {
+            if(state.children.isEmpty()) {
+                removeLeaf(parent);
+                state.children = Collections.newSetFromMap(new IdentityHashMap<>());
+            }
+            state.children.add(added);
+            addSubtree(added, state.path + added.buildPathComponent());
+            reported.add(parent);
+        } finally {
+            updating = false;
+        }
+    }
+
+    @Override
+    public void subtreeRemoved(TreeNodeImpl<T> parent, TreeNode<T> removed) {
+        forgetSubtree(removed);
+        NodeState<T> state = states.get(parent);
+        if(state != null && state.children.remove(removed)) {
+            if(state.children.isEmpty()) {
+                addLeaf(parent, state.path);
+            }
+            reported.add(parent);
+        }
+    }
+
+    /**
+     * Brings the paths of a node whose name or children changed up to date. Unless the additions and
+     * removals of its children were reported, the children are compared with the ones last seen.
+     */
+    private void update(TreeNode<T> changed, boolean childrenReported) {
+        NodeState<T> state = states.get(changed);
+        if(state == null) {
+            return;
+        }
+        String path = changed == root ? root.buildPathComponent() : states.get(changed.getParent()).path + changed.buildPathComponent();
+        if(!path.equals(state.path)) {
+            forgetSubtree(changed);
+            addSubtree(changed, path);
+            return;
+        }
+        if(childrenReported) {
+            return;
+        }
+        List<TreeNode<T>> children = changed.hasChildren() ? changed.getChildren() : Collections.<TreeNode<T>>emptyList();
+        Set<TreeNode<T>> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.addAll(children);
+        for(TreeNode<T> child : state.children) {
+            if(!current.contains(child)) {
+                forgetSubtree(child);
+            }
+        }
+        if(state.children.isEmpty() && !children.isEmpty()) {
+            removeLeaf(changed);
+        }
+        for(TreeNode<T> child : children) {
+            if(!state.children.contains(child)) {
+                addSubtree(child, path + child.buildPathComponent());
+            }
+        }
+        if(!state.children.isEmpty() && children.isEmpty()) {
+            addLeaf(changed, path);
+        }
+        state.children = snapshot(children);
+    }
+
+    /**
+     * Records the paths of a subtree joining the tree, replacing those recorded for its nodes so far.
+     */
+    private void addSubtree(TreeNode<T> subtreeRoot, String subtreePath) {
+        ArrayDeque<TreeNode<T>> nodes = new ArrayDeque<>();
+        ArrayDeque<String> paths = new ArrayDeque<>();
+        nodes.push(subtreeRoot);
+        paths.push(subtreePath);
+        while(!nodes.isEmpty()) {
+            TreeNode<T> node = nodes.pop();
+            String path = paths.pop();
+            if(states.containsKey(node)) {
+                forgetSubtree(node);
+            }
+            List<TreeNode<T>> children = node.hasChildren() ? node.getChildren() : Collections.<TreeNode<T>>emptyList();
+            states.put(node, new NodeState<>(path, snapshot(children)));
+            if(children.isEmpty()) {
+                addLeaf(node, path);
+            }
+            for(int index = children.size() - 1; index >= 0; index--) {
+                TreeNode<T> child = children.get(index);
+                nodes.push(child);
+                paths.push(path + child.buildPathComponent());
+            }
+        }
+    }
+
+    /**
+     * Drops the paths of a subtree that left the tree, walking the children last seen rather than the current ones.
+     */
+    private void forgetSubtree(TreeNode<T> subtreeRoot) {
+        ArrayDeque<TreeNode<T>> nodes = new ArrayDeque<>();
+        nodes.push(subtreeRoot);
+        while(!nodes.isEmpty()) {
+            TreeNode<T> node = nodes.pop();
+            NodeState<T> state = states.remove(node);
+            if(state == null) {
+                continue;
+            }
+            reported.remove(node);
+            if(state.children.isEmpty()) {
+                removeLeaf(node);
+            }
+            for(TreeNode<T> child : state.children) {
+                nodes.push(child);
+            }
+        }
+    }
+
+    private void addLeaf(TreeNode<T> leaf, String path) {
+        leafPaths.put(leaf, path);
+        pathCounts.merge(path, 1, Integer::sum);
+        for(Listener listener : listeners) {
+            listener.pathAdded(path);
+        }
+    }
+
+    private void removeLeaf(TreeNode<T> leaf) {
+        String path = leafPaths.remove(leaf);
+        if(path == null) {
+            return;
+        }
+        if(pathCounts.merge(path, -1, Integer::sum) == 0) {
+            pathCounts.remove(path);
+        }
+        for(Listener listener : listeners) {
+            listener.pathRemoved(path);
+        }
+    }
+
+    private static <T> Set<TreeNode<T>> snapshot(List<TreeNode<T>> children) {
+        if(children.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<TreeNode<T>> snapshot = Collections.newSetFromMap(new IdentityHashMap<>());
+        snapshot.addAll(children);
+        return snapshot;
+    }
+
+    /**
+     * The path and children of a node as last seen.
+     */
+    private static class NodeState<T> {
+
+        private final String path;
+        private Set<TreeNode<T>> children;
+
+        NodeState(String path, Set<TreeNode<T>> children) {
+            this.path = path;
+            this.children = children;
+        }
+    }
+}
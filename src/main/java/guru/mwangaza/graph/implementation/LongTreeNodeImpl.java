@@ -0,0 +1,124 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.LongTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+
+/**
+ * Tree node storing its payload as an unboxed {@code long} field. Subtree aggregates are computed
+ * iteratively over the primitive fields; descendants that are not {@link LongTreeNode}s contribute
+ * their boxed payload, with null treated as zero.
+ */
+public class LongTreeNodeImpl extends PrimitiveTreeNodeImpl<Long> implements LongTreeNode {
+
+    /**
+     * The node's payload.
+     */
+    private long value;
+
+    /**
+     * No-argument constructor.
+     */
+    public LongTreeNodeImpl() {
+    }
+
+    /**
+     * Constructor initializing the node with the constructor's name argument.
+     *
+     * @param name The name of the node.
+     */
+    public LongTreeNodeImpl(String name) {
+        super(name);
+    }
+
+    /**
+     * Constructor initializing the node's name and payload.
+     *
+     * @param name The name of the node.
+     * @param payload The payload of the node.
+     */
+    public LongTreeNodeImpl(String name, long payload) {
+        super(name);
+        this.value = payload;
+    }
+
+    @Override
+    public long getLongPayload() {
+        return value;
+    }
+
+    @Override
+    public void setLongPayload(long payload) {
+        long oldPayload = value;
+        this.value = payload;
+        _payloadSet(oldPayload, payload);
+    }
+
+    /**
+     * Returns the boxed payload.
+     *
+     * @return
+     */
+    @Override
+    public Long getPayload() {
+        return value;
+    }
+
+    /**
+     * Sets the payload from a boxed value. Null is stored as zero.
+     *
+     * @param payload
+     */
+    @Override
+    public void setPayload(Long payload) {
+        setLongPayload(payload != null ? payload : 0);
+    }
+
+    @Override
+    public long getSubtreeSum() {
+        return _subtreeNodes().mapToLong(LongTreeNodeImpl::valueOf).sum();
+    }
+
+    @Override
+    public long getSubtreeMin() {
+        return _subtreeNodes().mapToLong(LongTreeNodeImpl::valueOf).min().getAsLong();
+    }
+
+    @Override
+    public long getSubtreeMax() {
+        return _subtreeNodes().mapToLong(LongTreeNodeImpl::valueOf).max().getAsLong();
+    }
+
+    /**
+     * Creates children of the same primitive type when building paths.
+     *
+     * @param name The name of the new node
+     * @return The new node
+     */
+    @Override
+    protected TreeNodeImpl<Long> createNode(String name) {
+        return new LongTreeNodeImpl(name);
+    }
+
+    private static long valueOf(TreeNode<Long> node) {
+        if(node instanceof LongTreeNode) {
+            return ((LongTreeNode)node).getLongPayload();
+        }
+        Long payload = node.getPayload();
+        return payload != null ? payload : 0;
+    }
+}
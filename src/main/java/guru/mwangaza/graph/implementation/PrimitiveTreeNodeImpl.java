@@ -0,0 +1,83 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Base of the tree nodes storing their payload in an unboxed field declared by the subclass. The boxed
+ * payload field inherited from {@link BaseNodeImpl} is left null; the subclasses override the boxed
+ * accessors to convert from and to their primitive field.
+ *
+ * @param <T> The boxed payload type
+ */
+public abstract class PrimitiveTreeNodeImpl<T extends Number> extends TreeNodeImpl<T> {
+
+    /**
+     * No-argument constructor.
+     */
+    protected PrimitiveTreeNodeImpl() {
+    }
+
+    /**
+     * Constructor initializing the node with the constructor's name argument.
+     *
+     * @param name The name of the node.
+     */
+    protected PrimitiveTreeNodeImpl(String name) {
+        super(name);
+    }
+
+    /**
+     * Returns the nodes of the subtree rooted at this node, walked iteratively so that subtree
+     * aggregates can reduce them over the primitive payloads.
+     *
+     * @return The subtree nodes, starting with this node
+     */
+    protected Stream<TreeNode<T>> _subtreeNodes() {
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(this);
+        Iterator<TreeNode<T>> nodes = new Iterator<TreeNode<T>>() {
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public TreeNode<T> next() {
+                if(stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                TreeNode<T> node = stack.pop();
+                if(node.hasChildren()) {
+                    for(TreeNode<T> child : node.getChildren()) {
+                        stack.push(child);
+                    }
+                }
+                return node;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(nodes, Spliterator.NONNULL), false);
+    }
+}
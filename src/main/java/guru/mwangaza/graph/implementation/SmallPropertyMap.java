@@ -0,0 +1,194 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Insertion-ordered map for the few ad-hoc properties most nodes carry. Up to {@link #FLAT_CAPACITY}
+ * entries are stored in a single flat key/value array and looked up by linear scan; beyond that the
+ * entries move to a {@link LinkedHashMap}.
+ */
+public class SmallPropertyMap extends AbstractMap<String, Object> implements Serializable {
+
+    /**
+     * The number of entries stored in the flat array before switching to a hash map.
+     */
+    public static final int FLAT_CAPACITY = 8;
+
+    /**
+     * Keys at even and values at odd indexes. Null once the map switched to a hash map.
+     */
+    private Object[] entries = new Object[4];
+    private int size;
+    /**
+     * The hash map holding the entries once the flat array is full.
+     */
+    private LinkedHashMap<String, Object> map;
+
+    @Override
+    public int size() {
+        return map != null ? map.size() : size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map != null ? map.containsKey(key) : indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if(map != null) {
+            return map.get(key);
+        }
+        int index = indexOf(key);
+        return index >= 0 ? entries[index + 1] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if(map != null) {
+            return map.put(key, value);
+        }
+        int index = indexOf(key);
+        if(index >= 0) {
+            Object previous = entries[index + 1];
+            entries[index + 1] = value;
+            return previous;
+        }
+        if(size == FLAT_CAPACITY) {
+            map = new LinkedHashMap<>();
+            for(int entry = 0; entry < size; entry++) {
+                map.put((String)entries[2 * entry], entries[2 * entry + 1]);
+            }
+            map.put(key, value);
+            entries = null;
+            size = 0;
+            return null;
+        }
+        if(2 * size == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[2 * size] = key;
+        entries[2 * size + 1] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if(map != null) {
+            return map.remove(key);
+        }
+        int index = indexOf(key);
+        if(index < 0) {
+            return null;
+        }
+        Object previous = entries[index + 1];
+        removeAt(index);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        map = null;
+        entries = new Object[4];
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if(map != null) {
+            return map.entrySet();
+        }
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return map != null ? map.entrySet().iterator() : new FlatIterator();
+            }
+
+            @Override
+            public int size() {
+                return SmallPropertyMap.this.size();
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        for(int index = 0; index < 2 * size; index += 2) {
+            Object candidate = entries[index];
+            if(candidate == key || (candidate != null && candidate.equals(key))) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(entries, index + 2, entries, index, 2 * size - index - 2);
+        size--;
+        entries[2 * size] = null;
+        entries[2 * size + 1] = null;
+    }
+
+    /**
+     * Iterates over the flat array, writing values and removals through to the map.
+     */
+    private class FlatIterator implements Iterator<Entry<String, Object>> {
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < 2 * size;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int index = next;
+            last = index;
+            next += 2;
+            return new SimpleEntry<String, Object>((String)entries[index], entries[index + 1]) {
+                @Override
+                public Object setValue(Object value) {
+                    entries[index + 1] = value;
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if(last < 0) {
+                throw new IllegalStateException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+        }
+    }
+}
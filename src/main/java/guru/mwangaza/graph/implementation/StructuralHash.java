@@ -0,0 +1,232 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Merkle-style hashing of subtrees. The content hash of a node combines the hash of its payload
+ * with the structural hashes of its children in order; the structural hash adds the node's name.
+ * Names, string payloads and numeric payloads are hashed over their full value to 64 bits; other
+ * payloads contribute their hash code mixed with the name of their class.
+ * Hashes of {@link TreeNodeImpl} nodes are cached in the nodes and invalidated along the ancestor
+ * chain when the subtree changes, so only the changed paths are rehashed. Other nodes are hashed
+ * on each call.
+ * <br>
+ * {@link #equal} and {@link #contentEquals} trust the hashes and compare subtrees in constant time.
+ * Subtrees of strings and numbers collide with a probability of about 2<sup>-64</sup> per comparison;
+ * payloads of other types collide whenever their hash codes do. {@link #deepEquals} compares the
+ * subtrees node by node when a hash match must be confirmed.
+ */
+public final class StructuralHash {
+
+    private static final long NULL_HASH = 0x6A09E667F3BCC908L;
+
+    private StructuralHash() {
+    }
+
+    /**
+     * Returns the structural hash of the subtree rooted at node.
+     *
+     * @param node The subtree root
+     * @return The structural hash
+     */
+    public static long of(TreeNode<?> node) {
+        return combine(hashName(node.getName()), contentHash(node));
+    }
+
+    /**
+     * Returns the hash of the subtree rooted at node, ignoring the node's own name.
+     *
+     * @param node The subtree root
+     * @return The content hash
+     */
+    public static long contentHash(TreeNode<?> node) {
+        if(isCached(node)) {
+            return ((TreeNodeImpl<?>)node).contentHash;
+        }
+        List<TreeNode<?>> preOrder = new ArrayList<>();
+        List<TreeNode<?>> stack = new ArrayList<>();
+        stack.add(node);
+        while(!stack.isEmpty()) {
+            TreeNode<?> current = stack.remove(stack.size() - 1);
+            preOrder.add(current);
+            if(current.hasChildren()) {
+                for(TreeNode<?> child : current.getChildren()) {
+                    if(!isCached(child)) {
+                        stack.add(child);
+                    }
+                }
+            }
+        }
+        Map<TreeNode<?>, Long> uncached = new IdentityHashMap<>();
+        long value = 0;
+        for(int index = preOrder.size() - 1; index >= 0; index--) {
+            TreeNode<?> current = preOrder.get(index);
+            value = combine(hashPayload(current.getPayload()), 0);
+            if(current.hasChildren()) {
+                for(TreeNode<?> child : current.getChildren()) {
+                    long childContent = isCached(child) ? ((TreeNodeImpl<?>)child).contentHash : uncached.get(child);
+                    value = combine(value, combine(hashName(child.getName()), childContent));
+                }
+            }
+            if(value == 0) {
+                value = NULL_HASH;
+            }
+            if(current instanceof TreeNodeImpl) {
+                ((TreeNodeImpl<?>)current).contentHash = value;
+            } else {
+                uncached.put(current, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns true if the subtrees rooted at first and second have equal structural hashes, which is
+     * taken to mean that they have the same names, equal payloads and the same shape. Takes constant
+     * time once the hashes of {@link TreeNodeImpl} subtrees are cached.
+     *
+     * @param first The root of a subtree
+     * @param second The root of another subtree
+     * @return True if the subtrees are identical, up to hash collisions
+     * @see #deepEquals
+     */
+    public static boolean equal(TreeNode<?> first, TreeNode<?> second) {
+        return Objects.equals(first.getName(), second.getName()) && contentEquals(first, second);
+    }
+
+    /**
+     * Returns true if the subtrees rooted at first and second have equal content hashes, ignoring the
+     * names of the two roots. Takes constant time once the hashes are cached.
+     *
+     * @param first The root of a subtree
+     * @param second The root of another subtree
+     * @return True if the subtrees are identical apart from the roots' names, up to hash collisions
+     */
+    public static boolean contentEquals(TreeNode<?> first, TreeNode<?> second) {
+        return first == second || contentHash(first) == contentHash(second);
+    }
+
+    /**
+     * Returns true if the subtrees rooted at first and second have the same names, equal payloads and
+     * the same shape, comparing them node by node. Unlike {@link #equal}, the result does not depend on
+     * the hashes, at the cost of a walk over both subtrees when they are equal. Subtrees whose hashes
+     * differ are still rejected without a walk.
+     *
+     * @param first The root of a subtree
+     * @param second The root of another subtree
+     * @return True if the subtrees are identical
+     */
+    public static boolean deepEquals(TreeNode<?> first, TreeNode<?> second) {
+        if(!equal(first, second)) {
+            return false;
+        }
+        List<TreeNode<?>> stack = new ArrayList<>();
+        stack.add(first);
+        stack.add(second);
+        while(!stack.isEmpty()) {
+            TreeNode<?> right = stack.remove(stack.size() - 1);
+            TreeNode<?> left = stack.remove(stack.size() - 1);
+            if(left == right) {
+                continue;
+            }
+            if(!Objects.equals(left.getPayload(), right.getPayload())) {
+                return false;
+            }
+            List<? extends TreeNode<?>> leftChildren = left.hasChildren() ? left.getChildren() : null;
+            List<? extends TreeNode<?>> rightChildren = right.hasChildren() ? right.getChildren() : null;
+            int leftCount = leftChildren != null ? leftChildren.size() : 0;
+            int rightCount = rightChildren != null ? rightChildren.size() : 0;
+            if(leftCount != rightCount) {
+                return false;
+            }
+            for(int index = 0; index < leftCount; index++) {
+                TreeNode<?> leftChild = leftChildren.get(index);
+                TreeNode<?> rightChild = rightChildren.get(index);
+                if(!Objects.equals(leftChild.getName(), rightChild.getName())) {
+                    return false;
+                }
+                stack.add(leftChild);
+                stack.add(rightChild);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a 64-bit hash of the characters of a name.
+     *
+     * @param name The name, may be null
+     * @return The hash
+     */
+    public static long hashName(String name) {
+        if(name == null) {
+            return NULL_HASH;
+        }
+        long hash = 0xCBF29CE484222325L;
+        for(int index = 0; index < name.length(); index++) {
+            hash = (hash ^ name.charAt(index)) * 0x100000001B3L;
+        }
+        return combine(hash, name.length());
+    }
+
+    /**
+     * Returns a hash of a payload: 64 bits for strings and numbers, the hash code mixed with the name of
+     * the payload's class otherwise.
+     *
+     * @param payload The payload, may be null
+     * @return The hash
+     */
+    public static long hashPayload(Object payload) {
+        if(payload instanceof String) {
+            return hashName((String)payload);
+        } else if(payload instanceof Long || payload instanceof Integer || payload instanceof Short || payload instanceof Byte) {
+            return combine(((Number)payload).longValue(), 1);
+        } else if(payload instanceof Double || payload instanceof Float) {
+            return combine(Double.doubleToLongBits(((Number)payload).doubleValue()), 2);
+        }
+        return payload == null ? NULL_HASH : combine(hashName(payload.getClass().getName()), payload.hashCode());
+    }
+
+    /**
+     * Mixes a value into a hash.
+     *
+     * @param hash The hash
+     * @param value The value
+     * @return The combined hash
+     */
+    public static long combine(long hash, long value) {
+        long mixed = hash * 0x9E3779B97F4A7C15L + value;
+        mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        return mixed ^ (mixed >>> 31);
+    }
+
+    /**
+     * Returns true if the node holds a valid content hash. Zero marks a hash yet to be computed, so
+     * computed hashes are never zero.
+     */
+    static boolean isCached(TreeNode<?> node) {
+        return node instanceof TreeNodeImpl && ((TreeNodeImpl<?>)node).contentHash != 0;
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.Monoid;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.exception.InvalidStateException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Aggregate of node payloads maintained over every subtree of a tree. Each node's value is the
+ * combination, under a {@link Monoid}, of its own payload's value and its children's values.
+ * <br>
+ * Creating the aggregate computes all values once and registers it with the root. From then on,
+ * {@link TreeNodeImpl#setPayload}, {@link TreeNodeImpl#addChild} and the other mutators only
+ * recompute the values of the changed node and its ancestors, so keeping the root total current
+ * costs O(depth x fan-out) per change instead of a full post-order traversal.
+ *
+ * @param <T> The payload type
+ * @param <A> The aggregate type
+ */
+public class SubtreeAggregate<T, A> implements SubtreeObserver<T> {
+
+    /**
+     * The root of the aggregated tree.
+     */
+    private TreeNodeImpl<T> root;
+    /**
+     * The combine operation.
+     */
+    private Monoid<A> monoid;
+    /**
+     * Maps a node's payload to its own contribution to the aggregate.
+     */
+    private Function<? super T, ? extends A> valueFunction;
+    /**
+     * Cached subtree values.
+     */
+    private Map<TreeNode<T>, A> values;
+
+    /**
+     * Creates and registers an aggregate over the tree rooted at root.
+     *
+     * @param root The root of the tree
+     * @param monoid The combine operation
+     * @param valueFunction Maps each node's payload to its contribution
+     */
+    public SubtreeAggregate(TreeNode<T> root, Monoid<A> monoid, Function<? super T, ? extends A> valueFunction) {
+        if(!(root instanceof TreeNodeImpl)) {
+            throw new InvalidStateException("Subtree aggregates can only be maintained over TreeNodeImpl trees");
+        }
+        this.root = (TreeNodeImpl<T>)root;
+        this.monoid = monoid;
+        this.valueFunction = valueFunction;
+        this.values = new IdentityHashMap<>();
+        computeSubtree(root);
+        this.root.addSubtreeObserver(this);
+    }
+
+    /**
+     * Returns the aggregate of the whole tree.
+     *
+     * @return The root's subtree value
+     */
+    public A getValue() {
+        return values.get(root);
+    }
+
+    /**
+     * Returns the aggregate of the subtree rooted at node.
+     *
+     * @param node A node of the aggregated tree
+     * @return The node's subtree value
+     */
+    public A getValue(TreeNode<T> node) {
+        if(values.containsKey(node)) {
+            return values.get(node);
+        }
+        return computeSubtree(node);
+    }
+
+    /**
+     * Returns the root of the aggregated tree.
+     *
+     * @return The root
+     */
+    public TreeNode<T> getRoot() {
+        return root;
+    }
+
+    /**
+     * Stops maintaining the aggregate and releases its cached values.
+     */
+    public void detach() {
+        root.removeSubtreeObserver(this);
+        values.clear();
+    }
+
+    @Override
+    public void subtreeChanged(TreeNodeImpl<T> changed, boolean structural) {
+        update(changed);
+    }
+
+    @Override
+    public void subtreeRemoved(TreeNodeImpl<T> parent, TreeNode<T> removed) {
+        forget(removed);
+    }
+
+    /**
+     * Recomputes the values of the changed node and its ancestors up to the root of the aggregate.
+     *
+     * @param changed The node whose payload or children changed
+     */
+    void update(TreeNode<T> changed) {
+        for(TreeNode<T> node = changed; node != null; node = node.getParent()) {
+            values.put(node, combineChildren(node));
+            if(node == root) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Drops the cached values of a subtree that left the tree.
+     *
+     * @param subtreeRoot The root of the removed subtree
+     */
+    void forget(TreeNode<T> subtreeRoot) {
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(subtreeRoot);
+        while(!stack.isEmpty()) {
+            TreeNode<T> node = stack.pop();
+            if(values.remove(node) != null && node.hasChildren()) {
+                for(TreeNode<T> child : node.getChildren()) {
+                    stack.push(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the values of every node in the subtree that has no cached value, children first.
+     */
+    private A computeSubtree(TreeNode<T> subtreeRoot) {
+        List<TreeNode<T>> reversePostOrder = new ArrayList<>();
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(subtreeRoot);
+        while(!stack.isEmpty()) {
+            TreeNode<T> node = stack.pop();
+            reversePostOrder.add(node);
+            if(node.hasChildren()) {
+                for(TreeNode<T> child : node.getChildren()) {
+                    if(!values.containsKey(child)) {
+                        stack.push(child);
+                    }
+                }
+            }
+        }
+        for(int index = reversePostOrder.size() - 1; index >= 0; index--) {
+            TreeNode<T> node = reversePostOrder.get(index);
+            values.put(node, combineChildren(node));
+        }
+        return values.get(subtreeRoot);
+    }
+
+    /**
+     * Combines the node's own value with the cached values of its children.
+     */
+    private A combineChildren(TreeNode<T> node) {
+        A value = monoid.combine(monoid.identity(), valueFunction.apply(node.getPayload()));
+        if(node.hasChildren()) {
+            for(TreeNode<T> child : node.getChildren()) {
+                A childValue = values.containsKey(child) ? values.get(child) : computeSubtree(child);
+                value = monoid.combine(value, childValue);
+            }
+        }
+        return value;
+    }
+}
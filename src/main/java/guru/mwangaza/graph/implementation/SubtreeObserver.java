@@ -0,0 +1,69 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+/**
+ * Receives the changes made within the subtree of the {@link TreeNodeImpl} it is registered on.
+ * Used by structures maintained incrementally over a tree, such as {@link SubtreeAggregate} and
+ * property indexes. Observers are called synchronously by the changed node.
+ *
+ * @param <T>
+ */
+public interface SubtreeObserver<T> {
+
+    /**
+     * Called after the payload or the children of a node changed.
+     *
+     * @param changed The changed node
+     * @param structural True if the shape of the tree changed, false for a payload change
+     */
+    void subtreeChanged(TreeNodeImpl<T> changed, boolean structural);
+
+    /**
+     * Called after a property of a node was added, replaced or removed through
+     * {@link TreeNodeImpl#addProperty} or {@link TreeNodeImpl#setProperties}.
+     *
+     * @param node The changed node
+     * @param key The property key
+     * @param oldValue The previous value or null
+     * @param newValue The new value or null
+     */
+    default void propertyChanged(TreeNodeImpl<T> node, String key, Object oldValue, Object newValue) {
+    }
+
+    /**
+     * Called after a subtree was added to the tree, before the change of its new parent is reported
+     * through {@link #subtreeChanged}. Within a {@link TreeBatch}, additions are reported when the batch
+     * commits, once the tree is in its final state.
+     *
+     * @param parent The new parent
+     * @param added The root of the added subtree
+     */
+    default void subtreeAdded(TreeNodeImpl<T> parent, TreeNode<T> added) {
+    }
+
+    /**
+     * Called after a subtree was removed from the tree, before the change of its former parent is
+     * reported through {@link #subtreeChanged}.
+     *
+     * @param parent The former parent
+     * @param removed The root of the removed subtree
+     */
+    default void subtreeRemoved(TreeNodeImpl<T> parent, TreeNode<T> removed) {
+    }
+}
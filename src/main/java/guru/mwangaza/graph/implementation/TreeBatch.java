@@ -0,0 +1,224 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Scope of a transactional batch of tree mutations, opened with {@link TreeNodeImpl#batch(Consumer)}.
+ * <br>
+ * While a batch is open, the changes made by its thread to {@link TreeNodeImpl}s are applied at once,
+ * but their secondary work is deferred:
+ * <ul>
+ *     <li>modification counts and cached hashes are not updated, so indexes and caches rebuilt from
+ *     them are not invalidated,</li>
+ *     <li>{@link SubtreeObserver}s such as aggregates, indexes and live path sets are not notified,</li>
+ *     <li>change events of the tree the batch was opened on are held back.</li>
+ * </ul>
+ * On commit, each changed node is reported once, removals and property changes are replayed in
+ * order, and each change listener receives its events in a single notification. Derived state read
+ * inside the batch may be stale.
+ * <br>
+ * The batch is rolled back instead when {@link #rollback()} was called or the work throws: names,
+ * payloads, properties, children and parents changed in the batch are restored in reverse order,
+ * observers only learn that the changed nodes must be refreshed, and held-back events are dropped.
+ */
+public class TreeBatch {
+
+    /**
+     * The number of batches open on any thread, so that mutations outside batches skip the thread-local lookup.
+     */
+    private static final AtomicInteger OPEN_BATCH_COUNT = new AtomicInteger();
+    private static final ThreadLocal<TreeBatch> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Restores the state changed by each operation, in the order of the operations.
+     */
+    private final List<Runnable> undoLog = new ArrayList<>();
+    /**
+     * Removal and property notifications, replayed in order on commit.
+     */
+    private final List<Runnable> notifications = new ArrayList<>();
+    /**
+     * The changed nodes, and whether any of their changes was structural.
+     */
+    private final Map<TreeNodeImpl<?>, Boolean> changedNodes = new LinkedHashMap<>();
+    /**
+     * The nodes whose properties were saved for rollback.
+     */
+    private final Set<TreeNodeImpl<?>> savedProperties = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean rollbackOnly;
+    private boolean undoing;
+    /**
+     * The depth of nested {@link #unrecorded(Supplier)} calls in progress.
+     */
+    private int unrecordedDepth;
+
+    private TreeBatch() {
+    }
+
+    /**
+     * Marks the batch for rollback. Changes made so far and later in the batch are undone when the work completes.
+     */
+    public void rollback() {
+        rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    /**
+     * Returns the number of operations recorded in the batch.
+     *
+     * @return
+     */
+    public int getOperationCount() {
+        return undoLog.size();
+    }
+
+    /**
+     * Returns the number of distinct nodes changed in the batch.
+     *
+     * @return
+     */
+    public int getChangedNodeCount() {
+        return changedNodes.size();
+    }
+
+    /**
+     * Runs the work in a batch. A batch opened while another is open on the thread joins it.
+     *
+     * @param root The root of the tree whose change events are held back
+     * @param work The changes to make
+     * @return True if the batch was committed, false if it was rolled back
+     */
+    static <T> boolean run(TreeNodeImpl<T> root, Consumer<TreeBatch> work) {
+        TreeBatch outer = current();
+        if(outer != null) {
+            work.accept(outer);
+            return !outer.rollbackOnly;
+        }
+        TreeBatch batch = new TreeBatch();
+        TreeNodeImpl.EventBatch<T> events = root._openEventBatch();
+        CURRENT.set(batch);
+        OPEN_BATCH_COUNT.incrementAndGet();
+        boolean committed = false;
+        try {
+            work.accept(batch);
+            committed = !batch.rollbackOnly;
+        } finally {
+            try {
+                if(!committed) {
+                    batch.undo();
+                }
+            } finally {
+                CURRENT.remove();
+                OPEN_BATCH_COUNT.decrementAndGet();
+            }
+            batch.replay(committed);
+            root._closeEventBatch(events, committed);
+        }
+        return committed;
+    }
+
+    /**
+     * Returns the batch open on this thread, or null.
+     */
+    static TreeBatch current() {
+        return OPEN_BATCH_COUNT.get() == 0 ? null : CURRENT.get();
+    }
+
+    /**
+     * Runs the work without recording its changes in the batch open on this thread, if any. Used while
+     * building nodes that are not attached to the tree yet, such as the children created by a loader:
+     * undoing their initialization on rollback would destroy data that the batch only read.
+     *
+     * @param work The work building the nodes
+     * @return The result of the work
+     */
+    static <R> R unrecorded(Supplier<R> work) {
+        TreeBatch batch = current();
+        if(batch == null) {
+            return work.get();
+        }
+        batch.unrecordedDepth++;
+        try {
+            return work.get();
+        } finally {
+            batch.unrecordedDepth--;
+        }
+    }
+
+    void recordUndo(Runnable undo) {
+        if(!undoing && unrecordedDepth == 0) {
+            undoLog.add(undo);
+        }
+    }
+
+    /**
+     * Records the restoration of a node's properties before their first change in the batch.
+     */
+    void saveProperties(TreeNodeImpl<?> node, Runnable restore) {
+        if(!undoing && unrecordedDepth == 0 && savedProperties.add(node)) {
+            undoLog.add(restore);
+        }
+    }
+
+    void deferChange(TreeNodeImpl<?> node, boolean structural) {
+        changedNodes.merge(node, structural, Boolean::logicalOr);
+    }
+
+    void deferNotification(Runnable notification) {
+        if(!undoing && unrecordedDepth == 0) {
+            notifications.add(notification);
+        }
+    }
+
+    private void undo() {
+        undoing = true;
+        try {
+            for(int index = undoLog.size() - 1; index >= 0; index--) {
+                undoLog.get(index).run();
+            }
+        } finally {
+            undoing = false;
+        }
+    }
+
+    /**
+     * Performs the deferred work once the batch is closed.
+     */
+    private void replay(boolean committed) {
+        if(committed) {
+            for(Runnable notification : notifications) {
+                notification.run();
+            }
+        }
+        for(Map.Entry<TreeNodeImpl<?>, Boolean> entry : changedNodes.entrySet()) {
+            entry.getKey()._propagateChange(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.exception.InvalidStateException;
+import guru.mwangaza.graph.implementation.event.TreeChangeListener;
+import guru.mwangaza.graph.implementation.name.NameDictionary;
+import guru.mwangaza.graph.implementation.name.NameNormalizer;
+import guru.mwangaza.graph.implementation.property.PropertyStore;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The state a {@link TreeNodeImpl} keeps beside its own fields, referenced by a single field of the node:
+ * the tree's name dictionary, name normalizer and property store, and the observers, change listeners
+ * and event batch of the node. A null context stands for the default settings and no observers.
+ * <br>
+ * Contexts holding settings only are immutable and shared by all the nodes having these settings. A node
+ * with observers, listeners or an open event batch owns a context of its own, which copies the settings
+ * of a shared context and refers to it, so that the nodes added below keep sharing the shared one. The
+ * owned context is dropped when its last observer, listener or batch goes.
+ *
+ * @param <T>
+ */
+final class TreeContext<T> implements Serializable {
+
+    private final NameDictionary nameDictionary;
+    private final NameNormalizer nameNormalizer;
+    /**
+     * Not serialized: copies carry the stored values in their own property map.
+     */
+    private final transient PropertyStore<T> propertyStore;
+    /**
+     * For a context owned by a node, the shared context with the same settings, or null for the default settings.
+     */
+    private final TreeContext<T> shared;
+    private final boolean owned;
+
+    /**
+     * Observers registered on the owning node. Null when none are registered.
+     */
+    transient List<SubtreeObserver<T>> observers;
+    /**
+     * Change listeners registered on the owning node. Null when none are registered.
+     */
+    transient List<TreeChangeListener<T>> changeListeners;
+    /**
+     * The event batch open on the owning node, the root of its tree when the batch began. Null outside batches.
+     */
+    transient TreeNodeImpl.EventBatch<T> eventBatch;
+
+    private TreeContext(NameDictionary nameDictionary, NameNormalizer nameNormalizer, PropertyStore<T> propertyStore, TreeContext<T> shared, boolean owned) {
+        if(nameDictionary != null && !nameDictionary.getNormalizer().equals(nameNormalizer)) {
+            throw new InvalidStateException("A name dictionary cannot be used with a different normalizer");
+        }
+        this.nameDictionary = nameDictionary;
+        this.nameNormalizer = nameNormalizer;
+        this.propertyStore = propertyStore;
+        this.shared = shared;
+        this.owned = owned;
+    }
+
+    public NameDictionary getNameDictionary() {
+        return nameDictionary;
+    }
+
+    public NameNormalizer getNameNormalizer() {
+        return nameNormalizer;
+    }
+
+    public PropertyStore<T> getPropertyStore() {
+        return propertyStore;
+    }
+
+    /**
+     * Returns a shared context with the given settings, or null if all of them are defaults.
+     */
+    static <T> TreeContext<T> of(NameDictionary nameDictionary, NameNormalizer nameNormalizer, PropertyStore<T> propertyStore) {
+        if(nameDictionary == null && nameNormalizer == null && propertyStore == null) {
+            return null;
+        }
+        return new TreeContext<>(nameDictionary, nameNormalizer, propertyStore, null, false);
+    }
+
+    /**
+     * Returns the shared settings of a context: the context itself, or for an owned context the shared
+     * context it refers to.
+     */
+    static <T> TreeContext<T> settingsOf(TreeContext<T> context) {
+        return context != null && context.owned ? context.shared : context;
+    }
+
+    /**
+     * Returns the shared settings derived from a shared context by replacing the name dictionary. A
+     * dictionary brings its own normalizer; removing the dictionary keeps the normalizer.
+     */
+    static <T> TreeContext<T> withNameDictionary(TreeContext<T> settings, NameDictionary nameDictionary) {
+        NameNormalizer normalizer = nameDictionary != null ? nameDictionary.getNormalizer() : settings != null ? settings.nameNormalizer : null;
+        return of(nameDictionary, normalizer, settings != null ? settings.propertyStore : null);
+    }
+
+    /**
+     * Returns the shared settings derived from a shared context by replacing the name normalizer.
+     *
+     * @throws InvalidStateException if the context has a name dictionary using another normalizer
+     */
+    static <T> TreeContext<T> withNameNormalizer(TreeContext<T> settings, NameNormalizer nameNormalizer) {
+        return settings != null ? of(settings.nameDictionary, nameNormalizer, settings.propertyStore) : of(null, nameNormalizer, null);
+    }
+
+    /**
+     * Returns the shared settings derived from a shared context by replacing the property store.
+     */
+    static <T> TreeContext<T> withPropertyStore(TreeContext<T> settings, PropertyStore<T> propertyStore) {
+        return settings != null ? of(settings.nameDictionary, settings.nameNormalizer, propertyStore) : of(null, null, propertyStore);
+    }
+
+    /**
+     * Returns the shared settings of a node joining a tree: the settings of the tree, except those the
+     * tree leaves at their defaults, which the node keeps. The tree's context is returned when the result
+     * has the tree's settings, so that the node shares it.
+     *
+     * @throws InvalidStateException if the node keeps a name dictionary using another normalizer
+     */
+    static <T> TreeContext<T> joining(TreeContext<T> tree, TreeContext<T> node) {
+        if(tree == node || tree == null) {
+            return node;
+        }
+        NameDictionary dictionary = tree.nameDictionary != null || node == null ? tree.nameDictionary : node.nameDictionary;
+        NameNormalizer normalizer = tree.nameNormalizer != null || node == null ? tree.nameNormalizer : node.nameNormalizer;
+        PropertyStore<T> store = tree.propertyStore != null || node == null ? tree.propertyStore : node.propertyStore;
+        if(dictionary == tree.nameDictionary && Objects.equals(normalizer, tree.nameNormalizer) && store == tree.propertyStore) {
+            return tree;
+        }
+        return of(dictionary, normalizer, store);
+    }
+
+    /**
+     * Returns the context owned by a node, creating it from the node's shared settings if needed.
+     */
+    static <T> TreeContext<T> owned(TreeContext<T> context) {
+        if(context != null && context.owned) {
+            return context;
+        }
+        return context != null
+                ? new TreeContext<>(context.nameDictionary, context.nameNormalizer, context.propertyStore, context, true)
+                : new TreeContext<>(null, null, null, null, true);
+    }
+
+    /**
+     * Returns the context of a node switching to other shared settings. An owned context is replaced by
+     * one referring to the new settings and holding the same observers, listeners and batch.
+     */
+    static <T> TreeContext<T> withSettings(TreeContext<T> context, TreeContext<T> settings) {
+        if(context == null || !context.owned) {
+            return settings;
+        } else if(context.shared == settings) {
+            return context;
+        }
+        TreeContext<T> moved = owned(settings);
+        moved.observers = context.observers;
+        moved.changeListeners = context.changeListeners;
+        moved.eventBatch = context.eventBatch;
+        return moved;
+    }
+
+    /**
+     * Returns the shared settings in place of an owned context left without observers, listeners and batch.
+     */
+    static <T> TreeContext<T> released(TreeContext<T> context) {
+        if(context != null && context.owned && context.observers == null && context.changeListeners == null && context.eventBatch == null) {
+            return context.shared;
+        }
+        return context;
+    }
+}
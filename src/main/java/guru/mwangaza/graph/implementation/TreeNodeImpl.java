@@ -20,15 +20,37 @@ package guru.mwangaza.graph.implementation;
 import guru.mwangaza.graph.api.BaseNode;
 import guru.mwangaza.graph.api.TreeNode;
 import guru.mwangaza.graph.exception.InvalidStateException;
+import guru.mwangaza.graph.implementation.event.TreeChangeEvent;
+import guru.mwangaza.graph.implementation.event.TreeChangeListener;
+import guru.mwangaza.graph.implementation.event.TreeChangeType;
+import guru.mwangaza.graph.implementation.name.NameDictionary;
+import guru.mwangaza.graph.implementation.name.NameNormalizer;
+import guru.mwangaza.graph.implementation.property.PropertyStore;
+import guru.mwangaza.graph.implementation.visitor.NormalizedNameCriterion;
 import guru.mwangaza.graph.implementation.visitor.NameEqualToStringCriterion;
 import guru.mwangaza.graph.implementation.visitor.NodeCountVisitor;
 import guru.mwangaza.graph.implementation.visitor.TreeGraphPathAggregator;
 import guru.mwangaza.graph.implementation.visitor.SearchVisitor;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * Lightweight implementation of a tree graph. Each node in the graph can have a single parent and can
@@ -46,116 +68,980 @@ import java.util.function.Consumer;
  */
 public class TreeNodeImpl<T> extends BaseNodeImpl<T> implements TreeNode<T> {
 
+    /**
+     * Number of structural changes made within the subtree rooted at this node.
+     */
+    private long modificationCount;
+    /**
+     * The node's sole parent. Tree nodes keep a single reference instead of the parent list of {@link BaseNodeImpl}.
+     */
+    private TreeNode<T> parent;
+    /**
+     * The tree's name dictionary, name normalizer and property store, shared with the other nodes of the
+     * tree, along with the observers, change listeners and event batch of this node. Null for the default
+     * settings without observers. See {@link TreeContext}.
+     */
+    private TreeContext<T> context;
+    /**
+     * The number of change listeners registered on any tree, so that changes to unobserved trees skip event dispatch.
+     */
+    private static final AtomicInteger CHANGE_LISTENER_COUNT = new AtomicInteger();
+    /**
+     * Symbol of the node's name in the name dictionary.
+     */
+    private int nameSymbol = NameDictionary.NO_SYMBOL;
+    /**
+     * Normalized form of the node's name, computed when the name is set. Null when the tree has no normalizer.
+     */
+    private String nameKey;
+    /**
+     * The node's row in the property store, or -1.
+     */
+    private transient int propertyRow = -1;
+
+    /**
+     * Cached content hash of the subtree, see {@link StructuralHash}. Zero until the hash is computed and
+     * after any change within the subtree.
+     */
+    transient long contentHash;
+
     /**
      * No-argument constructor.
      */
-    public TreeNodeImpl() {
+    public TreeNodeImpl() {
+    }
+
+    /**
+     * Constructor initializing the node with the constructor's name argument.
+     *
+     * @param name The name of the node.
+     */
+    public TreeNodeImpl(String name) {
+        super(name);
+    }
+
+    /**
+     * Returns a node's children.
+     *
+     * @return
+     */
+    @Override
+    public List<TreeNode<T>> getChildren() {
+        return (List<TreeNode<T>>) super._getChildren();
+    }
+
+    /**
+     * Sets this node's children.
+     *
+     * @param children
+     */
+    @Override
+    public void setChildren(List<TreeNode<T>> children) {
+        TreeBatch batch = TreeBatch.current();
+        boolean observed = _isObserved();
+        List<TreeNode<T>> previous = (batch != null || observed) && _getChildren() != null ? new ArrayList<>(getChildren()) : null;
+        if(batch != null) {
+            batch.recordUndo(() -> setChildren(previous != null ? new ArrayList<>(previous) : null));
+        }
+        super._setChildren((List<BaseNode<T>>)(List<?>)children);
+        if(children != null) {
+            for(TreeNode<T> child : children) {
+                _shareTreeSettings(child);
+            }
+        }
+        if(!observed) {
+            _subtreeChanged();
+            return;
+        }
+        Set<TreeNode<T>> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+        if(children != null) {
+            retained.addAll(children);
+        }
+        Set<TreeNode<T>> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<TreeNode<T>> removed = new ArrayList<>();
+        if(previous != null) {
+            for(TreeNode<T> child : previous) {
+                if(retained.contains(child)) {
+                    kept.add(child);
+                } else {
+                    removed.add(child);
+                }
+            }
+        }
+        List<TreeNode<T>> added = new ArrayList<>();
+        if(children != null) {
+            for(TreeNode<T> child : children) {
+                if(!kept.contains(child)) {
+                    added.add(child);
+                }
+            }
+        }
+        for(TreeNode<T> child : removed) {
+            _reportSubtree(child, false);
+        }
+        for(TreeNode<T> child : added) {
+            _reportSubtree(child, true);
+        }
+        _subtreeChanged();
+        for(TreeNode<T> child : removed) {
+            _fireTreeChange(TreeChangeType.CHILD_REMOVED, child, null, null, null);
+        }
+        for(TreeNode<T> child : added) {
+            _fireTreeChange(TreeChangeType.CHILD_ADDED, child, null, null, null);
+        }
+    }
+
+    /**
+     * Adds a child to this node.
+     *
+     * @param child
+     */
+    @Override
+    public void addChild(TreeNode<T> child) {
+        _addChild(child);
+    }
+
+    /**
+     * Sets the node's payload and updates the aggregates maintained over its ancestors.
+     *
+     * @param payload
+     */
+    @Override
+    public void setPayload(T payload) {
+        T oldPayload = getPayload();
+        super.setPayload(payload);
+        _payloadSet(oldPayload, payload);
+    }
+
+    /**
+     * Adds child only if no child of that name already exists among the children.
+     *
+     * @param child
+     */
+    @Override
+    public void addChildIfNotExist(TreeNode<T> child) {
+        super._addChildIfNotExist(child);
+    }
+
+    /**
+     * Removes a child and its subtree from the tree. The child's parent link is cleared, subtree
+     * observers registered on this node and its ancestors are told about the removal, and nodes of the
+     * removed subtree leave the tree's property store, keeping their values in their own property maps.
+     *
+     * @param child
+     * @return True if child was a child of this node
+     */
+    @Override
+    public boolean removeChild(TreeNode<T> child) {
+        TreeBatch batch = TreeBatch.current();
+        int index = batch != null ? _indexOfChild(child) : -1;
+        if(!super._removeChild(child)) {
+            return false;
+        }
+        if(batch != null) {
+            batch.recordUndo(() -> _insertChild(index, child));
+        }
+        if(!(child instanceof BaseNodeImpl) && child.getParent() == this) {
+            child.setParent(null);
+        }
+        _childRemoved(child);
+        return true;
+    }
+
+    /**
+     * Removes this node and its subtree from its parent.
+     */
+    @Override
+    public void detach() {
+        if(parent != null) {
+            parent.removeChild(this);
+        }
+    }
+
+    /**
+     * Returns the first child with the name argument, compared as by {@link #isNameEqualTo(String)}, or null.
+     *
+     * @param name
+     * @return
+     */
+    public TreeNode<T> findChild(String name) {
+        return _findChildWithName(name);
+    }
+
+    /**
+     * Completes the removal of a child: notifies observers, releases property store rows and records the change.
+     */
+    protected void _childRemoved(TreeNode<T> child) {
+        _reportSubtree(child, false);
+        if(child instanceof TreeNodeImpl && ((TreeNodeImpl<T>)child).getPropertyStore() != null) {
+            ((TreeNodeImpl<T>)child).setPropertyStore(null);
+        }
+        _subtreeChanged();
+        _fireTreeChange(TreeChangeType.CHILD_REMOVED, child, null, null, null);
+        _fireReparented(child, this, null);
+    }
+
+    /**
+     * Tells the observers registered on this node and its ancestors that a child subtree was added or
+     * removed. Within a {@link TreeBatch}, the notification is replayed in order when the batch commits.
+     */
+    private void _reportSubtree(TreeNode<T> child, boolean added) {
+        TreeBatch batch = TreeBatch.current();
+        if(batch != null) {
+            batch.deferNotification(() -> _notifySubtree(child, added));
+        } else {
+            _notifySubtree(child, added);
+        }
+    }
+
+    private void _notifySubtree(TreeNode<T> child, boolean added) {
+        for(TreeNode<T> node = this; node != null; node = node.getParent()) {
+            List<SubtreeObserver<T>> observers = node instanceof TreeNodeImpl ? ((TreeNodeImpl<T>)node)._getObservers() : null;
+            if(observers != null) {
+                for(SubtreeObserver<T> observer : new ArrayList<>(observers)) {
+                    if(added) {
+                        observer.subtreeAdded(this, child);
+                    } else {
+                        observer.subtreeRemoved(this, child);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the child among this node's children, compared by identity, or -1.
+     */
+    private int _indexOfChild(TreeNode<T> child) {
+        List<? extends BaseNode<T>> children = _getChildren();
+        if(children != null) {
+            for(int index = 0; index < children.size(); index++) {
+                if(children.get(index) == child) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Puts a removed child back at its former index.
+     */
+    private void _insertChild(int index, TreeNode<T> child) {
+        super._insertChild(index, (BaseNode<T>)child);
+        _shareTreeSettings(child);
+        _subtreeChanged();
+    }
+
+    /**
+     * Adds the child and records the structural change.
+     *
+     * @param node
+     */
+    @Override
+    protected void _addChild(BaseNode<T> node) {
+        if(node instanceof TreeNodeImpl && ((TreeNodeImpl<T>)node).parent != null && ((TreeNodeImpl<T>)node).parent != this) {
+            throw new InvalidStateException("TreeNode can only have zero to one parent");
+        }
+        super._addChild(node);
+        _shareTreeSettings(node);
+        TreeBatch batch = TreeBatch.current();
+        if(batch != null && node instanceof TreeNode) {
+            batch.recordUndo(() -> removeChild((TreeNode<T>)node));
+        }
+        if(node instanceof TreeNode) {
+            _reportSubtree((TreeNode<T>)node, true);
+        }
+        _subtreeChanged();
+        if(node instanceof TreeNode) {
+            _fireTreeChange(TreeChangeType.CHILD_ADDED, (TreeNode<T>)node, null, null, null);
+            _fireReparented((TreeNode<T>)node, null, this);
+        }
+    }
+
+    /**
+     * Sets the node's name. When the tree interns its names, the dictionary's copy of the name is stored.
+     * When the tree normalizes its names, the normalized key of the name is computed here once.
+     * Renaming a node changes the paths of its subtree and is reported as a structural change.
+     *
+     * @param name
+     */
+    @Override
+    public void setName(String name) {
+        String previous = getName();
+        NameDictionary nameDictionary = getNameDictionary();
+        if(nameDictionary != null && name != null) {
+            nameSymbol = nameDictionary.getSymbol(name);
+            super.setName(nameDictionary.getName(nameSymbol));
+        } else {
+            nameSymbol = NameDictionary.NO_SYMBOL;
+            super.setName(name);
+        }
+        _updateNameKey();
+        if(!Objects.equals(previous, getName())) {
+            TreeBatch batch = TreeBatch.current();
+            if(batch != null) {
+                batch.recordUndo(() -> setName(previous));
+            }
+            _subtreeChanged();
+            _fireTreeChange(TreeChangeType.RENAMED, null, null, previous, getName());
+        }
+    }
+
+    /**
+     * Sets the node's payload original name, interned when the tree interns its names.
+     *
+     * @param originalName
+     */
+    @Override
+    public void setPayloadName(String originalName) {
+        NameDictionary nameDictionary = getNameDictionary();
+        super.setPayloadName(nameDictionary != null ? nameDictionary.intern(originalName) : originalName);
+    }
+
+    /**
+     * Sets the path delimiter, interned when the tree interns its names.
+     *
+     * @param pathDelimiter
+     */
+    @Override
+    public void setPathDelimiter(String pathDelimiter) {
+        NameDictionary nameDictionary = getNameDictionary();
+        super.setPathDelimiter(nameDictionary != null ? nameDictionary.intern(pathDelimiter) : pathDelimiter);
+    }
+
+    /**
+     * Returns true if the node's name is equal to the name argument. Equality is case-insensitive unless
+     * the tree was given another {@link NameNormalizer}. Names that are the node's own (interned) name
+     * instance match without comparing characters. When the tree interns its names, the name's dictionary
+     * key is compared with the key of the node's symbol.
+     *
+     * @param name
+     * @return
+     */
+    @Override
+    public boolean isNameEqualTo(String name) {
+        if(name == null) {
+            return false;
+        }
+        NameDictionary nameDictionary = getNameDictionary();
+        NameNormalizer nameNormalizer = getNameNormalizer();
+        if(name == getName()) {
+            return true;
+        } else if(nameDictionary != null && nameSymbol != NameDictionary.NO_SYMBOL) {
+            int key = nameDictionary.findKey(name);
+            return key != NameDictionary.NO_SYMBOL && key == nameDictionary.getKey(nameSymbol);
+        } else if(nameNormalizer != null) {
+            return nameKey != null && nameKey.equals(nameNormalizer.normalize(name));
+        } else {
+            return super.isNameEqualTo(name);
+        }
+    }
+
+    /**
+     * Returns the dictionary interning the names of this node's tree, or null.
+     *
+     * @return
+     */
+    public NameDictionary getNameDictionary() {
+        return context != null ? context.getNameDictionary() : null;
+    }
+
+    /**
+     * Interns the names, payload names and path delimiters of this node and all of its loaded descendants
+     * in the dictionary. The nodes also adopt the dictionary's name normalizer. Nodes added to the tree
+     * later share the dictionary of their parent. Passing null stops interning; names already interned
+     * are kept.
+     *
+     * @param nameDictionary The tree's name dictionary
+     */
+    public void setNameDictionary(NameDictionary nameDictionary) {
+        _changeSubtreeSettings(settings -> TreeContext.withNameDictionary(settings, nameDictionary));
+    }
+
+    /**
+     * Returns the normalizer defining name equality in this node's tree, or null for the default
+     * case-insensitive comparison.
+     *
+     * @return
+     */
+    public NameNormalizer getNameNormalizer() {
+        return context != null ? context.getNameNormalizer() : null;
+    }
+
+    /**
+     * Sets the normalizer defining name equality for this node and all of its loaded descendants. Each
+     * node stores the normalized key of its name so that child lookups, {@link #findNodesWithName(String)}
+     * and path building compare precomputed keys. Nodes added to the tree later share the normalizer of
+     * their parent. Passing null restores the default comparison.
+     *
+     * @param nameNormalizer The tree's name normalizer
+     * @throws InvalidStateException if a node interns its names with a dictionary using another normalizer
+     */
+    public void setNameNormalizer(NameNormalizer nameNormalizer) {
+        _changeSubtreeSettings(settings -> TreeContext.withNameNormalizer(settings, nameNormalizer));
+    }
+
+    /**
+     * Returns the normalized form of the node's name, or null if the tree has no name normalizer.
+     *
+     * @return
+     */
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    /**
+     * Recomputes the normalized key of the node's name. The key's hash code is computed here so that
+     * lookups only read the cached value.
+     */
+    private void _updateNameKey() {
+        NameNormalizer nameNormalizer = getNameNormalizer();
+        NameDictionary nameDictionary = getNameDictionary();
+        if(nameNormalizer != null && getName() != null) {
+            nameKey = nameNormalizer.normalize(getName());
+            if(nameDictionary != null) {
+                nameKey = nameDictionary.intern(nameKey);
+            } else {
+                // String caches its hash code on first use; the result is discarded on purpose so that
+                // _findChildByNameKey only reads the cached value. Interned keys were hashed by the dictionary.
+                nameKey.hashCode();
+            }
+        } else {
+            nameKey = null;
+        }
+    }
+
+    /**
+     * Changes the settings of this node and all of its loaded descendants. Nodes sharing settings before
+     * the change share the changed settings as well.
+     *
+     * @param change Derives the new shared settings from the current ones, which may be null
+     */
+    private void _changeSubtreeSettings(UnaryOperator<TreeContext<T>> change) {
+        Map<TreeContext<T>, TreeContext<T>> changed = new IdentityHashMap<>();
+        ArrayDeque<TreeNodeImpl<T>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while(!stack.isEmpty()) {
+            TreeNodeImpl<T> node = stack.pop();
+            TreeContext<T> settings = TreeContext.settingsOf(node.context);
+            if(!changed.containsKey(settings)) {
+                changed.put(settings, change.apply(settings));
+            }
+            node._applySettings(changed.get(settings));
+            for(BaseNode<T> child : node._getChildren()) {
+                if(child instanceof TreeNodeImpl) {
+                    stack.push((TreeNodeImpl<T>)child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches this node to other shared settings without reporting a change. A new dictionary interns the
+     * node's names, a new normalizer recomputes its name key and a new property store receives its declared
+     * properties.
+     */
+    private void _applySettings(TreeContext<T> settings) {
+        NameDictionary previousDictionary = getNameDictionary();
+        NameNormalizer previousNormalizer = getNameNormalizer();
+        PropertyStore<T> previousStore = getPropertyStore();
+        context = TreeContext.withSettings(context, settings);
+        NameDictionary dictionary = getNameDictionary();
+        if(dictionary != previousDictionary) {
+            if(dictionary != null && getName() != null) {
+                nameSymbol = dictionary.getSymbol(getName());
+                super.setName(dictionary.getName(nameSymbol));
+            } else {
+                nameSymbol = NameDictionary.NO_SYMBOL;
+            }
+            if(dictionary != null) {
+                super.setPayloadName(dictionary.intern(getPayloadName()));
+                super.setPathDelimiter(dictionary.intern(getPathDelimiter()));
+            }
+        }
+        if(dictionary != previousDictionary || getNameNormalizer() != previousNormalizer) {
+            _updateNameKey();
+        }
+        if(getPropertyStore() != previousStore) {
+            _movePropertiesFrom(previousStore);
+        }
+    }
+
+    /**
+     * Makes a node added to this tree use the tree's name dictionary, normalizer and property store. The
+     * node keeps the settings this tree leaves at their defaults.
+     */
+    protected void _shareTreeSettings(BaseNode<T> node) {
+        if(node instanceof TreeNodeImpl) {
+            TreeContext<T> tree = TreeContext.settingsOf(context);
+            TreeNodeImpl<T> treeNode = (TreeNodeImpl<T>)node;
+            if(tree != null && TreeContext.settingsOf(treeNode.context) != tree) {
+                treeNode._changeSubtreeSettings(settings -> TreeContext.joining(tree, settings));
+            }
+        }
+    }
+
+    /**
+     * Returns the columnar store holding the declared properties of this node's tree, or null.
+     *
+     * @return
+     */
+    public PropertyStore<T> getPropertyStore() {
+        return context != null ? context.getPropertyStore() : null;
+    }
+
+    /**
+     * Returns the node's row in the tree's property store, or -1 if the tree has no property store.
+     *
+     * @return
+     */
+    public int getPropertyRow() {
+        return propertyRow;
+    }
+
+    /**
+     * Moves the properties of this node and all of its loaded descendants that are declared in the store's
+     * schema into the store. Undeclared properties stay in the nodes. Nodes added to the tree later join
+     * the store of their parent. Passing null moves the stored values back into the nodes.
+     *
+     * @param propertyStore The tree's property store
+     * @throws IllegalArgumentException if an existing property value does not have its declared type
+     */
+    public void setPropertyStore(PropertyStore<T> propertyStore) {
+        _changeSubtreeSettings(settings -> TreeContext.withPropertyStore(settings, propertyStore));
+    }
+
+    /**
+     * Leaves the previous property store, if any, and joins the node's current store, moving the values along.
+     */
+    private void _movePropertiesFrom(PropertyStore<T> previousStore) {
+        Map<String, Object> stored = null;
+        if(previousStore != null) {
+            stored = previousStore.getValues(propertyRow);
+            previousStore.release(propertyRow);
+            propertyRow = -1;
+        }
+        PropertyStore<T> store = getPropertyStore();
+        if(store != null) {
+            propertyRow = store.register(this);
+            Map<String, Object> own = super.getProperties();
+            Iterator<Map.Entry<String, Object>> entries = own.entrySet().iterator();
+            while(entries.hasNext()) {
+                Map.Entry<String, Object> entry = entries.next();
+                if(store.isDeclared(entry.getKey())) {
+                    store.set(propertyRow, entry.getKey(), entry.getValue());
+                    entries.remove();
+                }
+            }
+        }
+        if(stored != null) {
+            for(Map.Entry<String, Object> entry : stored.entrySet()) {
+                addProperty(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the node's properties. When the tree has a property store, the map is a view combining the
+     * declared properties held in the store with the undeclared properties held in the node.
+     *
+     * @return
+     */
+    @Override
+    public Map<String, Object> getProperties() {
+        return getPropertyStore() != null ? new StoredProperties() : super.getProperties();
+    }
+
+    /**
+     * Adds a property to this node. Declared properties are written to the tree's property store.
+     * Setting a declared property to null removes it.
+     *
+     * @param key
+     * @param value
+     * @throws IllegalArgumentException if the value does not have the declared type
+     */
+    @Override
+    public void addProperty(String key, Object value) {
+        _savePropertiesForRollback();
+        boolean observed = _isObserved();
+        Object oldValue = observed ? getProperties().get(key) : null;
+        PropertyStore<T> propertyStore = getPropertyStore();
+        if(propertyStore == null || !propertyStore.set(propertyRow, key, value)) {
+            super.addProperty(key, value);
+        }
+        if(observed) {
+            _propagatePropertyChange(key, oldValue, value);
+        }
+    }
+
+    /**
+     * Replaces the node's properties. Declared properties are written to the tree's property store.
+     *
+     * @param properties
+     */
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        _savePropertiesForRollback();
+        Map<String, Object> oldProperties = _isObserved() ? new LinkedHashMap<>(getProperties()) : null;
+        PropertyStore<T> propertyStore = getPropertyStore();
+        if(propertyStore == null) {
+            super.setProperties(properties);
+        } else {
+            for(String key : propertyStore.getSchema().getKeys()) {
+                propertyStore.set(propertyRow, key, null);
+            }
+            super.setProperties(null);
+            if(properties != null) {
+                for(Map.Entry<String, Object> entry : properties.entrySet()) {
+                    if(!propertyStore.set(propertyRow, entry.getKey(), entry.getValue())) {
+                        super.addProperty(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+        if(oldProperties != null) {
+            Map<String, Object> newProperties = properties != null ? properties : Collections.<String, Object>emptyMap();
+            for(Map.Entry<String, Object> entry : oldProperties.entrySet()) {
+                if(!newProperties.containsKey(entry.getKey())) {
+                    _propagatePropertyChange(entry.getKey(), entry.getValue(), null);
+                }
+            }
+            for(Map.Entry<String, Object> entry : newProperties.entrySet()) {
+                _propagatePropertyChange(entry.getKey(), oldProperties.get(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Records the restoration of the node's properties when they first change in a batch.
+     */
+    private void _savePropertiesForRollback() {
+        TreeBatch batch = TreeBatch.current();
+        if(batch != null) {
+            Map<String, Object> saved = new LinkedHashMap<>(getProperties());
+            batch.saveProperties(this, () -> setProperties(saved.isEmpty() ? null : new LinkedHashMap<>(saved)));
+        }
+    }
+
+    /**
+     * Returns the properties held in the node itself, excluding those held in the property store.
+     */
+    private Map<String, Object> _getOwnProperties() {
+        return super.getProperties();
+    }
+
+    /**
+     * Writes the values held in the property store with the node, so that copies keep them in their own map.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        PropertyStore<T> propertyStore = getPropertyStore();
+        out.writeObject(propertyStore != null ? propertyStore.getValues(propertyRow) : null);
+    }
+
+    // Reads the map written by writeObject
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        propertyRow = -1;
+        Map<String, Object> stored = (Map<String, Object>)in.readObject();
+        if(stored != null) {
+            for(Map.Entry<String, Object> entry : stored.entrySet()) {
+                super.addProperty(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Property view of a node whose tree has a property store.
+     */
+    private class StoredProperties extends AbstractMap<String, Object> {
+
+        private final PropertyStore<T> propertyStore = getPropertyStore();
+
+        @Override
+        public Object get(Object key) {
+            if(propertyStore.isDeclared((String)key)) {
+                return propertyStore.get(propertyRow, (String)key);
+            }
+            return _getOwnProperties().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if(propertyStore.isDeclared((String)key)) {
+                return propertyStore.getColumn((String)key).isSet(propertyRow);
+            }
+            return _getOwnProperties().containsKey(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object previous = get(key);
+            addProperty(key, value);
+            return previous;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            Object previous = get(key);
+            if(propertyStore.isDeclared((String)key)) {
+                addProperty((String)key, null);
+            } else {
+                _getOwnProperties().remove(key);
+                if(previous != null && _isObserved()) {
+                    _propagatePropertyChange((String)key, previous, null);
+                }
+            }
+            return previous;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            final Map<String, Object> snapshot = new LinkedHashMap<>(propertyStore.getValues(propertyRow));
+            snapshot.putAll(_getOwnProperties());
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    final Iterator<Entry<String, Object>> entries = snapshot.entrySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        private Entry<String, Object> current;
+
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            current = entries.next();
+                            return new SimpleEntry<String, Object>(current) {
+                                @Override
+                                public Object setValue(Object value) {
+                                    put(getKey(), value);
+                                    return super.setValue(value);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            entries.remove();
+                            StoredProperties.this.remove(current.getKey());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return snapshot.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Returns true if a child node with the same name as node argument exists. Comparison is case-insensitive
+     * unless the tree was given another normalizer. When both nodes use the same name dictionary, names are
+     * compared by their dictionary keys; when they use the same normalizer, by their precomputed name keys.
+     *
+     * @param node
+     * @return
+     */
+    @Override
+    protected boolean _childWithNameAlreadyExists(BaseNode<T> node) {
+        if(node.getName() == null) {
+            return false;
+        }
+        NameDictionary nameDictionary = getNameDictionary();
+        NameNormalizer nameNormalizer = getNameNormalizer();
+        if(nameDictionary != null && node instanceof TreeNodeImpl && ((TreeNodeImpl<T>)node).getNameDictionary() == nameDictionary) {
+            int symbol = ((TreeNodeImpl<T>)node).nameSymbol;
+            return _findChildByKey(nameDictionary.getKey(symbol), node.getName()) != null;
+        } else if(nameNormalizer != null) {
+            String key = node instanceof TreeNodeImpl && nameNormalizer.equals(((TreeNodeImpl<T>)node).getNameNormalizer())
+                    ? ((TreeNodeImpl<T>)node).nameKey : nameNormalizer.normalize(node.getName());
+            return _findChildByNameKey(key) != null;
+        }
+        return super._childWithNameAlreadyExists(node);
+    }
+
+    /**
+     * Returns the first child whose name is equal to name, or null.
+     *
+     * @param name
+     * @return
+     */
+    protected TreeNode<T> _findChildWithName(String name) {
+        if(!hasChildren() || name == null) {
+            return null;
+        }
+        NameDictionary nameDictionary = getNameDictionary();
+        NameNormalizer nameNormalizer = getNameNormalizer();
+        if(nameDictionary != null) {
+            return _findChildByKey(nameDictionary.findKey(name), name);
+        } else if(nameNormalizer != null) {
+            return _findChildByNameKey(nameNormalizer.normalize(name));
+        }
+        for(TreeNode<T> child : getChildren()) {
+            if(child.isNameEqualTo(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a child by dictionary key. Children outside the dictionary are compared by name.
+     */
+    private TreeNode<T> _findChildByKey(int key, String name) {
+        NameDictionary nameDictionary = getNameDictionary();
+        for(TreeNode<T> child : getChildren()) {
+            if(child instanceof TreeNodeImpl && ((TreeNodeImpl<T>)child).getNameDictionary() == nameDictionary) {
+                int symbol = ((TreeNodeImpl<T>)child).nameSymbol;
+                if(key != NameDictionary.NO_SYMBOL && symbol != NameDictionary.NO_SYMBOL && nameDictionary.getKey(symbol) == key) {
+                    return child;
+                }
+            } else if(child.isNameEqualTo(name)) {
+                return child;
+            }
+        }
+        return null;
     }
 
     /**
-     * Constructor initializing the node with the constructor's name argument.
-     *
-     * @param name The name of the node.
+     * Finds a child by normalized name key, comparing cached hash codes before the keys themselves.
+     * Children using another normalizer are compared by the normalized form of their name.
      */
-    public TreeNodeImpl(String name) {
-        super(name);
+    private TreeNode<T> _findChildByNameKey(String key) {
+        NameNormalizer nameNormalizer = getNameNormalizer();
+        int hash = key.hashCode();
+        for(TreeNode<T> child : getChildren()) {
+            String childKey;
+            if(child instanceof TreeNodeImpl && nameNormalizer.equals(((TreeNodeImpl<T>)child).getNameNormalizer())) {
+                childKey = ((TreeNodeImpl<T>)child).nameKey;
+            } else {
+                childKey = child.getName() != null ? nameNormalizer.normalize(child.getName()) : null;
+            }
+            if(childKey != null && childKey.hashCode() == hash && childKey.equals(key)) {
+                return child;
+            }
+        }
+        return null;
     }
 
     /**
-     * Returns a node's children.
+     * Returns the first child or null if node has no children.
      *
      * @return
      */
     @Override
-    public List<TreeNode<T>> getChildren() {
-        return (List<TreeNode<T>>) super._getChildren();
+    public TreeNode<T> getFirstChild() {
+        return (TreeNode<T>)super._getFirstChild();
     }
 
+
     /**
-     * Sets this node's children.
+     * Returns true if a child node with the same name as node argument exists. Comparison is case-insensitive.
      *
-     * @param children
+     * @param node
+     * @return
      */
     @Override
-    public void setChildren(List<TreeNode<T>> children) {
-        super._setChildren((List<BaseNode<T>>)(List<?>)children);
+    public boolean childWithNameAlreadyExists(TreeNode node) {
+        return _childWithNameAlreadyExists(node);
     }
 
     /**
-     * Adds a child to this node.
+     * Returns the node's sole parent.
      *
-     * @param child
+     * @return
      */
     @Override
-    public void addChild(TreeNode<T> child) {
-        super._addChild(child);
+    public TreeNode<T> getParent() {
+        return parent;
     }
 
     /**
-     * Adds child only if no child of that name already exists among the children.
+     * Sets the node's sole parent.
      *
-     * @param child
+     * @param parent
      */
     @Override
-    public void addChildIfNotExist(TreeNode<T> child) {
-        super._addChildIfNotExist(child);
+    public void setParent(TreeNode<T> parent) {
+        TreeNode<T> previous = this.parent;
+        this.parent = parent;
+        TreeBatch batch = TreeBatch.current();
+        if(batch != null && previous != parent) {
+            batch.recordUndo(() -> setParent(previous));
+        }
+        _subtreeChanged();
+        if(previous != parent) {
+            _fireReparented(this, previous, parent);
+        }
     }
 
     /**
-     * Returns the first child or null if node has no children.
+     * Returns the node's parent as a list of zero or one element.
      *
      * @return
      */
     @Override
-    public TreeNode<T> getFirstChild() {
-        return (TreeNode<T>)super._getFirstChild();
+    protected List<BaseNode<T>> _getParents() {
+        return parent != null ? Collections.<BaseNode<T>>singletonList(parent) : Collections.<BaseNode<T>>emptyList();
     }
 
-
     /**
-     * Returns true if a child node with the same name as node argument exists. Comparison is case-insensitive.
+     * Sets the node's parent from a list of zero or one element.
      *
-     * @param node
-     * @return
+     * @param parents
      */
     @Override
-    public boolean childWithNameAlreadyExists(TreeNode node) {
-        return super._childWithNameAlreadyExists(node);
+    protected void _setParents(List<BaseNode<T>> parents) {
+        if(parents == null || parents.isEmpty()) {
+            this.parent = null;
+        } else if(parents.size() == 1) {
+            this.parent = (TreeNode<T>)parents.get(0);
+        } else {
+            throw new InvalidStateException("TreeNode can only have zero to one parent");
+        }
     }
 
     /**
-     * Returns the node's sole parent.
+     * Clears the node's parent if it is the parent argument.
      *
-     * @return
+     * @param parent
      */
     @Override
-    public TreeNode<T> getParent() {
-        if(super._getParents().size() <= 1) {
-            return (TreeNode<T>) super._getFirstParent();
-        } else {
-            throw new InvalidStateException("TreeNode can only have zero to one parent");
+    protected void _removeParent(BaseNode<T> parent) {
+        if(this.parent == parent) {
+            this.parent = null;
         }
     }
 
     /**
-     * Sets the node's sole parent.
+     * Assigns the node's parent.
      *
      * @param parent
+     * @throws InvalidStateException if the node already has another parent
      */
     @Override
-    public void setParent(TreeNode<T> parent) {
-        if(super._getParents() != null) {
-            if(super._getParents().size() == 0) {
-                super._addParent(parent);
-            } else if(super._getParents().size() == 1) {
-                super._getParents().set(0, parent);
-            } else {
-                throw new InvalidStateException("TreeNode can only have zero to one parent");
-            }
-        } else {
-            super._setParents(new ArrayList<BaseNode<T>>());
-            super._addParent(parent);
+    protected void _addParent(BaseNode<T> parent) {
+        if(this.parent != null && this.parent != parent) {
+            throw new InvalidStateException("TreeNode can only have zero to one parent");
         }
+        this.parent = (TreeNode<T>)parent;
+    }
+
+    @Override
+    protected BaseNode<T> _getFirstParent() {
+        return parent;
+    }
+
+    @Override
+    public boolean hasParents() {
+        return parent != null;
     }
 
     /**
@@ -346,17 +1232,10 @@ public class TreeNodeImpl<T> extends BaseNodeImpl<T> implements TreeNode<T> {
 				}
 				index++;
 			}
-			boolean found = false;
-			if(getChildren() != null && getChildren().size() > 0) {
-				for (TreeNode<T> child : getChildren()) {
-					if(child.isNameEqualTo(pathComponents[index])) {
-						child.buildPathFromCurrentNode(remainder, payload);
-						found = true;
-						break;
-					}
-				}
-			}
-			if(!found) {
+			TreeNode<T> child = hasChildren() ? _findChildWithName(pathComponents[index]) : null;
+			if(child != null) {
+				child.buildPathFromCurrentNode(remainder, payload);
+			} else {
 				appendPathToCurrentNode(remainder, payload);
 			}
 		}
@@ -376,7 +1255,8 @@ public class TreeNodeImpl<T> extends BaseNodeImpl<T> implements TreeNode<T> {
 			String[] pathComponents = path.split("\\" + getPathDelimiter());
 			String currentComponent = pathComponents[0];
 
-			TreeNode<T> child = new TreeNodeImpl<T>(StringUtils.capitalize(pathComponents[0]));
+			TreeNodeImpl<T> child = createNode(StringUtils.capitalize(pathComponents[0]));
+			_shareTreeSettings(child);
 			child.setPayloadName(pathComponents[0]);
 			if(pathComponents.length ==1) {
 				child.setPayload(payload);
@@ -388,6 +1268,47 @@ public class TreeNodeImpl<T> extends BaseNodeImpl<T> implements TreeNode<T> {
 		}
 	}
 
+	/**
+	 * Creates the nodes added when building paths from this node. Subclasses override this method
+	 * so that paths are built from nodes of their own type.
+	 *
+	 * @param name The name of the new node
+	 * @return The new node
+	 */
+	protected TreeNodeImpl<T> createNode(String name) {
+		return new TreeNodeImpl<T>(name);
+	}
+
+	/**
+	 * Returns a detached copy of this node without its children. The copy is created by
+	 * {@link #createNode(String)}, so it has this node's type, and carries its payload name, payload,
+	 * path delimiter and properties. Payload and property values are shared.
+	 *
+	 * @return The copy
+	 */
+	public TreeNodeImpl<T> shallowCopy() {
+		TreeNodeImpl<T> copy = createNode(getName());
+		_copyContentTo(copy);
+		return copy;
+	}
+
+	/**
+	 * Copies the payload name, payload, path delimiter and properties of this node to copy.
+	 *
+	 * @param copy The node receiving the values
+	 */
+	protected void _copyContentTo(TreeNodeImpl<T> copy) {
+		copy.setPayloadName(getPayloadName());
+		copy.setPayload(getPayload());
+		copy.setPathDelimiter(getPathDelimiter());
+		Map<String, Object> properties = getProperties();
+		if(properties != null) {
+			for(Map.Entry<String, Object> property : properties.entrySet()) {
+				copy.addProperty(property.getKey(), property.getValue());
+			}
+		}
+	}
+
     /**
      * Method applies visitor logic depth-first before processing children.
 	 *
@@ -433,14 +1354,21 @@ public class TreeNodeImpl<T> extends BaseNodeImpl<T> implements TreeNode<T> {
 	}
 
 	/**
-	 * Convenience method accumulating nodes with name.
+	 * Convenience method accumulating nodes with name. Names must match exactly unless the tree has a
+	 * name normalizer, in which case nodes whose normalized name equals the normalized name argument match.
 	 *
 	 * @param name The node with the name we wish to search of.
 	 * @return List of nodes bearing the name argument.
 	 */
 	@Override
 	public List<TreeNode<T>> findNodesWithName(String name) {
-		SearchVisitor<TreeNode<T>, T> visitor = new SearchVisitor<TreeNode<T>,T>(new NameEqualToStringCriterion<TreeNode<T>,T>(name));
+		SearchVisitor<TreeNode<T>, T> visitor;
+		NameNormalizer nameNormalizer = getNameNormalizer();
+		if(nameNormalizer != null) {
+			visitor = new SearchVisitor<TreeNode<T>,T>(new NormalizedNameCriterion<TreeNode<T>,T>(nameNormalizer, name));
+		} else {
+			visitor = new SearchVisitor<TreeNode<T>,T>(new NameEqualToStringCriterion<TreeNode<T>,T>(name));
+		}
 		executeCommandDepthFirstPre(visitor);
 		return visitor.getFoundItems();
 	}
@@ -486,6 +1414,343 @@ public class TreeNodeImpl<T> extends BaseNodeImpl<T> implements TreeNode<T> {
 		return aggregator.getPaths();
 	}
 
+	/**
+	 * Returns a counter that is incremented whenever the structure of the subtree rooted at this node changes.
+	 *
+	 * @return
+	 */
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * Returns a hash of the subtree rooted at this node computed from the node's name, the hash of its
+	 * payload and the structural hashes of its children in order. Two subtrees with the same names,
+	 * equal payloads and the same shape have the same hash, so once their hashes are cached, identical
+	 * subtrees are recognized by comparing two numbers. The hash is computed on first use, which walks
+	 * the subtree, and cached; changes made through the nodes invalidate the cached hashes of the
+	 * changed node and its ancestors only. Changes made inside a payload object are not seen.
+	 *
+	 * @return The structural hash
+	 */
+	public long getStructuralHash() {
+		return StructuralHash.of(this);
+	}
+
+	/**
+	 * Returns the structural hash of the subtree ignoring this node's own name, for instance to
+	 * recognize a renamed subtree.
+	 *
+	 * @return The content hash
+	 */
+	public long getContentHash() {
+		return StructuralHash.contentHash(this);
+	}
+
+	/**
+	 * Returns true if the subtree rooted at other has the same names, equal payloads and the same shape
+	 * as this subtree, judging by their structural hashes. Takes constant time once both hashes are
+	 * cached. Payloads whose hash codes collide make different subtrees compare equal; use
+	 * {@link StructuralHash#deepEquals} to confirm a match node by node.
+	 *
+	 * @param other The root of another subtree
+	 * @return True if the subtrees are identical
+	 */
+	public boolean isStructurallyEqualTo(TreeNode<T> other) {
+		return other != null && StructuralHash.equal(this, other);
+	}
+
+	/**
+	 * Records a structural change on this node and all of its ancestors.
+	 */
+	protected void _subtreeChanged() {
+		_propagateChange(true);
+	}
+
+	/**
+	 * Records a payload change on this node. Observers registered on this node or its ancestors are notified.
+	 */
+	protected void _payloadChanged() {
+		_propagateChange(false);
+	}
+
+	/**
+	 * Completes the replacement of this node's payload: records its restoration in the open
+	 * {@link TreeBatch}, if any, records the payload change and fires a
+	 * {@link TreeChangeType#PAYLOAD_SET} event. Subclasses storing their payload outside the inherited
+	 * field call it from their setters once the new value is stored.
+	 *
+	 * @param oldPayload The payload before the change
+	 * @param newPayload The payload after the change
+	 */
+	protected void _payloadSet(T oldPayload, T newPayload) {
+		TreeBatch batch = TreeBatch.current();
+		if(batch != null) {
+			batch.recordUndo(() -> setPayload(oldPayload));
+		}
+		_payloadChanged();
+		_fireTreeChange(TreeChangeType.PAYLOAD_SET, null, null, oldPayload, newPayload);
+	}
+
+	/**
+	 * Walks from this node to the root, bumping modification counts for structural changes and
+	 * notifying the subtree observers registered along the way. Within a {@link TreeBatch}, the change
+	 * is recorded and propagated when the batch closes.
+	 *
+	 * @param structural True if the shape of the tree changed
+	 */
+	void _propagateChange(boolean structural) {
+		TreeBatch batch = TreeBatch.current();
+		if(batch != null) {
+			batch.deferChange(this, structural);
+			return;
+		}
+		for(TreeNode<T> node = this; node != null; node = node.getParent()) {
+			if(node instanceof TreeNodeImpl) {
+				TreeNodeImpl<T> ancestor = (TreeNodeImpl<T>)node;
+				ancestor.contentHash = 0;
+				if(structural) {
+					ancestor.modificationCount++;
+				}
+				List<SubtreeObserver<T>> observers = ancestor._getObservers();
+				if(observers != null) {
+					for(SubtreeObserver<T> observer : observers) {
+						observer.subtreeChanged(this, structural);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if an observer or change listener is registered on this node or one of its ancestors.
+	 */
+	private boolean _isObserved() {
+		for(TreeNode<T> node = this; node != null; node = node.getParent()) {
+			if(node instanceof TreeNodeImpl && (((TreeNodeImpl<T>)node)._getObservers() != null || ((TreeNodeImpl<T>)node)._getChangeListeners() != null)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Notifies the observers registered on this node and its ancestors of a property change.
+	 */
+	private void _propagatePropertyChange(String key, Object oldValue, Object newValue) {
+		TreeBatch batch = TreeBatch.current();
+		if(batch != null) {
+			batch.deferNotification(() -> _notifyPropertyChange(key, oldValue, newValue));
+		} else {
+			_notifyPropertyChange(key, oldValue, newValue);
+		}
+		_fireTreeChange(TreeChangeType.PROPERTY_SET, null, key, oldValue, newValue);
+	}
+
+	/**
+	 * Tells the observers registered on this node and its ancestors that a property changed.
+	 */
+	private void _notifyPropertyChange(String key, Object oldValue, Object newValue) {
+		for(TreeNode<T> node = this; node != null; node = node.getParent()) {
+			List<SubtreeObserver<T>> observers = node instanceof TreeNodeImpl ? ((TreeNodeImpl<T>)node)._getObservers() : null;
+			if(observers != null) {
+				for(SubtreeObserver<T> observer : observers) {
+					observer.propertyChanged(this, key, oldValue, newValue);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Registers an observer of the changes made within the subtree rooted at this node.
+	 *
+	 * @param observer The observer
+	 */
+	public void addSubtreeObserver(SubtreeObserver<T> observer) {
+		context = TreeContext.owned(context);
+		if(context.observers == null) {
+			context.observers = new ArrayList<>(1);
+		}
+		context.observers.add(observer);
+	}
+
+	/**
+	 * Unregisters an observer registered on this node.
+	 *
+	 * @param observer The observer
+	 */
+	public void removeSubtreeObserver(SubtreeObserver<T> observer) {
+		List<SubtreeObserver<T>> observers = _getObservers();
+		if(observers != null) {
+			observers.remove(observer);
+			if(observers.isEmpty()) {
+				context.observers = null;
+				context = TreeContext.released(context);
+			}
+		}
+	}
+
+	/**
+	 * Registers a listener of the changes made within the subtree rooted at this node.
+	 *
+	 * @param listener The listener
+	 */
+	public void addTreeChangeListener(TreeChangeListener<T> listener) {
+		context = TreeContext.owned(context);
+		if(context.changeListeners == null) {
+			context.changeListeners = new ArrayList<>(1);
+		}
+		context.changeListeners.add(listener);
+		CHANGE_LISTENER_COUNT.incrementAndGet();
+	}
+
+	/**
+	 * Unregisters a listener registered on this node.
+	 *
+	 * @param listener The listener
+	 */
+	public void removeTreeChangeListener(TreeChangeListener<T> listener) {
+		List<TreeChangeListener<T>> changeListeners = _getChangeListeners();
+		if(changeListeners != null && changeListeners.remove(listener)) {
+			CHANGE_LISTENER_COUNT.decrementAndGet();
+			if(changeListeners.isEmpty()) {
+				context.changeListeners = null;
+				context = TreeContext.released(context);
+			}
+		}
+	}
+
+	/**
+	 * Runs the work, holding back the change events raised anywhere in this node's tree until it
+	 * completes. Each listener then receives its events in a single notification. Batches nest; events
+	 * are delivered when the outermost batch ends, also when the work throws.
+	 *
+	 * @param work The changes to make
+	 */
+	public void batchEvents(Runnable work) {
+		TreeNodeImpl<T> root = _getTopNode();
+		EventBatch<T> batch = root._openEventBatch();
+		try {
+			work.run();
+		} finally {
+			root._closeEventBatch(batch, true);
+		}
+	}
+
+	/**
+	 * Runs the work as a transactional batch: secondary work such as observer notifications, modification
+	 * counts, hash invalidation and change events is deferred until the work completes, then applied in one
+	 * pass. Calling {@link TreeBatch#rollback()}, or throwing from the work, restores the state the tree
+	 * had before the batch. See {@link TreeBatch}.
+	 *
+	 * @param work The changes to make
+	 * @return True if the batch was committed, false if it was rolled back
+	 */
+	public boolean batch(Consumer<TreeBatch> work) {
+		return TreeBatch.run(_getTopNode(), work);
+	}
+
+	/**
+	 * Opens an event batch on this node unless one is open.
+	 *
+	 * @return The opened batch, or null if one was already open
+	 */
+	EventBatch<T> _openEventBatch() {
+		if(_getEventBatch() != null) {
+			return null;
+		}
+		context = TreeContext.owned(context);
+		context.eventBatch = new EventBatch<>();
+		return context.eventBatch;
+	}
+
+	/**
+	 * Closes an event batch opened by {@link #_openEventBatch()}, delivering or dropping its events.
+	 */
+	void _closeEventBatch(EventBatch<T> batch, boolean deliver) {
+		if(batch == null) {
+			return;
+		}
+		context.eventBatch = null;
+		context = TreeContext.released(context);
+		if(deliver) {
+			batch.deliver();
+		}
+	}
+
+	/**
+	 * Reports a change of this node to the change listeners registered on it and its ancestors.
+	 * Does nothing, without walking the tree, when no listener is registered on any tree.
+	 */
+	private void _fireTreeChange(TreeChangeType type, TreeNode<T> child, String key, Object oldValue, Object newValue) {
+		if(CHANGE_LISTENER_COUNT.get() == 0) {
+			return;
+		}
+		List<TreeChangeListener<T>> targets = null;
+		TreeNodeImpl<T> top = this;
+		for(TreeNode<T> node = this; node != null; node = node.getParent()) {
+			if(node instanceof TreeNodeImpl) {
+				top = (TreeNodeImpl<T>)node;
+				if(top._getChangeListeners() != null) {
+					if(targets == null) {
+						targets = new ArrayList<>();
+					}
+					targets.addAll(top._getChangeListeners());
+				}
+			}
+		}
+		if(targets != null) {
+			_deliver(top._getEventBatch(), targets, new TreeChangeEvent<>(type, this, child, key, oldValue, newValue));
+		}
+	}
+
+	/**
+	 * Reports a parent change to the listeners registered on the node itself, batched with the events of this node's tree.
+	 */
+	private void _fireReparented(TreeNode<T> node, TreeNode<T> oldParent, TreeNode<T> newParent) {
+		if(CHANGE_LISTENER_COUNT.get() == 0 || !(node instanceof TreeNodeImpl) || ((TreeNodeImpl<T>)node)._getChangeListeners() == null) {
+			return;
+		}
+		TreeChangeEvent<T> event = new TreeChangeEvent<>(TreeChangeType.REPARENTED, node, null, null, oldParent, newParent);
+		_deliver(_getTopNode()._getEventBatch(), new ArrayList<>(((TreeNodeImpl<T>)node)._getChangeListeners()), event);
+	}
+
+	private List<SubtreeObserver<T>> _getObservers() {
+		return context != null ? context.observers : null;
+	}
+
+	private List<TreeChangeListener<T>> _getChangeListeners() {
+		return context != null ? context.changeListeners : null;
+	}
+
+	private EventBatch<T> _getEventBatch() {
+		return context != null ? context.eventBatch : null;
+	}
+
+	private void _deliver(EventBatch<T> batch, List<TreeChangeListener<T>> listeners, TreeChangeEvent<T> event) {
+		for(TreeChangeListener<T> listener : listeners) {
+			if(batch != null) {
+				batch.add(listener, event);
+			} else {
+				listener.treeChanged(Collections.singletonList(event));
+			}
+		}
+	}
+
+	/**
+	 * Returns the topmost tree node above this node, or this node.
+	 */
+	private TreeNodeImpl<T> _getTopNode() {
+		TreeNodeImpl<T> top = this;
+		for(TreeNode<T> node = this; node != null; node = node.getParent()) {
+			if(node instanceof TreeNodeImpl) {
+				top = (TreeNodeImpl<T>)node;
+			}
+		}
+		return top;
+	}
+
 	/**
 	 *
 	 * @return
@@ -504,4 +1769,22 @@ public class TreeNodeImpl<T> extends BaseNodeImpl<T> implements TreeNode<T> {
     public String toString() {
         return getName();
     }
+
+    /**
+     * Change events held back until the end of a batch, grouped by listener.
+     */
+    static class EventBatch<T> {
+
+        private final Map<TreeChangeListener<T>, List<TreeChangeEvent<T>>> pending = new LinkedHashMap<>();
+
+        void add(TreeChangeListener<T> listener, TreeChangeEvent<T> event) {
+            pending.computeIfAbsent(listener, key -> new ArrayList<>()).add(event);
+        }
+
+        void deliver() {
+            for(Map.Entry<TreeChangeListener<T>, List<TreeChangeEvent<T>>> entry : pending.entrySet()) {
+                entry.getKey().treeChanged(Collections.unmodifiableList(entry.getValue()));
+            }
+        }
+    }
 }
@@ -0,0 +1,289 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.name.NameNormalizer;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A batch of path inserts, deletes and payload updates applied to a tree in one pass.
+ * <br>
+ * Paths are full paths from the root, as returned by {@link TreeNode#getPathFromRoot()}. Operations are
+ * sorted by path before they are applied, and each operation reuses the nodes looked up for the prefix it
+ * shares with the previous operation, so a batch of paths under a common prefix resolves that prefix once.
+ * Operations on the same path are applied in the order they were added.
+ * <ul>
+ *     <li>An insert creates the missing nodes of its path, named as by {@link TreeNode#buildPathFromCurrentNode},
+ *     and sets the payload of the last node.</li>
+ *     <li>A delete removes the subtree at its path with {@link TreeNode#removeChild}.</li>
+ *     <li>An update sets the payload of an existing node.</li>
+ * </ul>
+ * Deletes and updates of missing paths are skipped and reported in the {@link Result}.
+ *
+ * @param <T>
+ */
+public class TreePatch<T> {
+
+    /**
+     * The kinds of patch operations.
+     */
+    public enum Operation {
+        INSERT,
+        DELETE,
+        UPDATE
+    }
+
+    private final List<Entry<T>> entries = new ArrayList<>();
+
+    public TreePatch<T> insert(String path, T payload) {
+        entries.add(new Entry<>(Operation.INSERT, path, payload, entries.size()));
+        return this;
+    }
+
+    public TreePatch<T> delete(String path) {
+        entries.add(new Entry<>(Operation.DELETE, path, null, entries.size()));
+        return this;
+    }
+
+    public TreePatch<T> update(String path, T payload) {
+        entries.add(new Entry<>(Operation.UPDATE, path, payload, entries.size()));
+        return this;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Applies the batch to the tree rooted at root. The operations run in a {@link TreeBatch}, so observers,
+     * listeners and cached hashes are updated once for the whole patch, and a patch that fails part-way
+     * leaves the tree as it was.
+     *
+     * @param root The root of the tree
+     * @return The outcome of the batch
+     */
+    public Result apply(TreeNodeImpl<T> root) {
+        NameNormalizer normalizer = root.getNameNormalizer() != null ? root.getNameNormalizer() : NameNormalizer.CASE_INSENSITIVE;
+        Pattern delimiter = Pattern.compile(Pattern.quote(root.getPathDelimiter()));
+        for(Entry<T> entry : entries) {
+            entry.split(delimiter, normalizer);
+        }
+        List<Entry<T>> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted, PATH_ORDER);
+
+        Result result = new Result();
+        root.batch(batch -> applySorted(root, sorted, result));
+        return result;
+    }
+
+    private void applySorted(TreeNodeImpl<T> root, List<Entry<T>> sorted, Result result) {
+        List<String> cursorKeys = new ArrayList<>();
+        List<TreeNode<T>> cursorNodes = new ArrayList<>();
+        for(Entry<T> entry : sorted) {
+            int common = 0;
+            while(common < cursorKeys.size() && common < entry.keys.length && cursorKeys.get(common).equals(entry.keys[common])) {
+                common++;
+            }
+            truncate(cursorKeys, common);
+            truncate(cursorNodes, common);
+            if(common == 0) {
+                if(!root.isNameEqualTo(entry.components[0])) {
+                    result.skipped.add(entry.path);
+                    continue;
+                }
+                cursorKeys.add(entry.keys[0]);
+                cursorNodes.add(root);
+            } else {
+                result.sharedLookups += common - 1;
+            }
+            boolean found = true;
+            for(int index = cursorNodes.size(); index < entry.components.length; index++) {
+                TreeNode<T> parent = cursorNodes.get(index - 1);
+                result.lookups++;
+                TreeNode<T> child = parent instanceof TreeNodeImpl ? ((TreeNodeImpl<T>)parent).findChild(entry.components[index]) : findChild(parent, entry.components[index]);
+                if(child == null) {
+                    if(entry.operation != Operation.INSERT) {
+                        found = false;
+                        break;
+                    }
+                    child = createChild(parent, entry.components[index]);
+                    result.createdNodes++;
+                }
+                cursorKeys.add(entry.keys[index]);
+                cursorNodes.add(child);
+            }
+            if(!found) {
+                result.skipped.add(entry.path);
+                continue;
+            }
+            TreeNode<T> target = cursorNodes.get(cursorNodes.size() - 1);
+            switch(entry.operation) {
+                case INSERT:
+                    target.setPayload(entry.payload);
+                    result.inserted++;
+                    break;
+                case UPDATE:
+                    target.setPayload(entry.payload);
+                    result.updated++;
+                    break;
+                case DELETE:
+                    if(target.getParent() == null) {
+                        result.skipped.add(entry.path);
+                        break;
+                    }
+                    target.getParent().removeChild(target);
+                    truncate(cursorKeys, cursorKeys.size() - 1);
+                    truncate(cursorNodes, cursorNodes.size() - 1);
+                    result.deleted++;
+                    break;
+            }
+        }
+    }
+
+    private TreeNode<T> createChild(TreeNode<T> parent, String component) {
+        TreeNodeImpl<T> child;
+        if(parent instanceof TreeNodeImpl) {
+            child = ((TreeNodeImpl<T>)parent).createNode(StringUtils.capitalize(component));
+            ((TreeNodeImpl<T>)parent)._shareTreeSettings(child);
+        } else {
+            child = new TreeNodeImpl<>(StringUtils.capitalize(component));
+        }
+        child.setPayloadName(component);
+        parent.addChild(child);
+        return child;
+    }
+
+    private TreeNode<T> findChild(TreeNode<T> parent, String name) {
+        for(TreeNode<T> child : parent.getChildren()) {
+            if(child.isNameEqualTo(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static <E> void truncate(List<E> list, int size) {
+        while(list.size() > size) {
+            list.remove(list.size() - 1);
+        }
+    }
+
+    private static final Comparator<Entry<?>> PATH_ORDER = (first, second) -> {
+        for(int index = 0; index < first.keys.length && index < second.keys.length; index++) {
+            int comparison = first.keys[index].compareTo(second.keys[index]);
+            if(comparison != 0) {
+                return comparison;
+            }
+        }
+        int comparison = Integer.compare(first.keys.length, second.keys.length);
+        return comparison != 0 ? comparison : Integer.compare(first.sequence, second.sequence);
+    };
+
+    private static class Entry<T> {
+
+        private final Operation operation;
+        private final String path;
+        private final T payload;
+        private final int sequence;
+        private String[] components;
+        private String[] keys;
+
+        Entry(Operation operation, String path, T payload, int sequence) {
+            if(StringUtils.isBlank(path)) {
+                throw new IllegalArgumentException("Patch paths must not be blank");
+            }
+            this.operation = operation;
+            this.path = path;
+            this.payload = payload;
+            this.sequence = sequence;
+        }
+
+        void split(Pattern delimiter, NameNormalizer normalizer) {
+            components = delimiter.split(path);
+            keys = new String[components.length];
+            for(int index = 0; index < components.length; index++) {
+                keys[index] = normalizer.normalize(components[index]);
+            }
+        }
+    }
+
+    /**
+     * Outcome of a patch.
+     */
+    public static class Result {
+
+        private int inserted;
+        private int updated;
+        private int deleted;
+        private int createdNodes;
+        private int lookups;
+        private int sharedLookups;
+        private final List<String> skipped = new ArrayList<>();
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getDeleted() {
+            return deleted;
+        }
+
+        /**
+         * Returns the number of nodes created for inserts, including intermediate nodes.
+         */
+        public int getCreatedNodes() {
+            return createdNodes;
+        }
+
+        /**
+         * Returns the number of child lookups performed.
+         */
+        public int getLookups() {
+            return lookups;
+        }
+
+        /**
+         * Returns the number of child lookups saved by reusing the prefix of the previous operation.
+         */
+        public int getSharedLookups() {
+            return sharedLookups;
+        }
+
+        /**
+         * Returns the paths of the deletes and updates whose node was not found, and of operations
+         * outside the tree or deleting its root.
+         */
+        public List<String> getSkipped() {
+            return skipped;
+        }
+
+        @Override
+        public String toString() {
+            return "inserted=" + inserted + ", updated=" + updated + ", deleted=" + deleted + ", skipped=" + skipped.size();
+        }
+    }
+}
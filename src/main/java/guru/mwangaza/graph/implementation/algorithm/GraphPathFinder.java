@@ -0,0 +1,265 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.algorithm;
+
+import guru.mwangaza.graph.api.DistanceHeuristic;
+import guru.mwangaza.graph.api.EdgeWeightFunction;
+import guru.mwangaza.graph.api.GraphNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Reachability and shortest-path queries over graphs of {@link GraphNode}s. Edges are directed
+ * from a node to its children. Searches are iterative and keep no state between calls.
+ * <br>
+ * All path-returning methods return the nodes on the path from source to target, both inclusive,
+ * or an empty list when the target cannot be reached from the source.
+ *
+ * @param <T>
+ */
+public class GraphPathFinder<T> {
+
+    /**
+     * No-argument constructor.
+     */
+    public GraphPathFinder() {
+    }
+
+    /**
+     * Returns true if target can be reached from source by following child edges.
+     * A node is always reachable from itself.
+     *
+     * @param source The start node
+     * @param target The node to reach
+     * @return True if a path exists
+     */
+    public boolean isReachable(GraphNode<T> source, GraphNode<T> target) {
+        return !findShortestPathBidirectional(source, target).isEmpty();
+    }
+
+    /**
+     * Returns the path with the fewest edges from source to target using a breadth-first search
+     * over the children of each node.
+     *
+     * @param source The start node
+     * @param target The node to reach
+     * @return The shortest path or an empty list if target is unreachable
+     */
+    public List<GraphNode<T>> findShortestPath(GraphNode<T> source, GraphNode<T> target) {
+        if(source == target) {
+            return Collections.singletonList(source);
+        }
+        Map<GraphNode<T>, GraphNode<T>> predecessors = new IdentityHashMap<>();
+        ArrayDeque<GraphNode<T>> queue = new ArrayDeque<>();
+        predecessors.put(source, null);
+        queue.add(source);
+        while(!queue.isEmpty()) {
+            GraphNode<T> node = queue.poll();
+            if(node.hasNoChildren()) {
+                continue;
+            }
+            for(GraphNode<T> child : node.getChildren()) {
+                if(!predecessors.containsKey(child)) {
+                    predecessors.put(child, node);
+                    if(child == target) {
+                        return buildPath(predecessors, target);
+                    }
+                    queue.add(child);
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the path with the fewest edges from source to target by searching forward from the
+     * source along child edges and backward from the target along parent edges, always expanding
+     * the smaller frontier. On wide graphs this visits far fewer nodes than {@link #findShortestPath}.
+     *
+     * @param source The start node
+     * @param target The node to reach
+     * @return The shortest path or an empty list if target is unreachable
+     */
+    public List<GraphNode<T>> findShortestPathBidirectional(GraphNode<T> source, GraphNode<T> target) {
+        if(source == target) {
+            return Collections.singletonList(source);
+        }
+        Map<GraphNode<T>, GraphNode<T>> forward = new IdentityHashMap<>();
+        Map<GraphNode<T>, GraphNode<T>> backward = new IdentityHashMap<>();
+        forward.put(source, null);
+        backward.put(target, null);
+        List<GraphNode<T>> forwardFrontier = new ArrayList<>();
+        List<GraphNode<T>> backwardFrontier = new ArrayList<>();
+        forwardFrontier.add(source);
+        backwardFrontier.add(target);
+        while(!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+            GraphNode<T> meeting;
+            if(forwardFrontier.size() <= backwardFrontier.size()) {
+                List<GraphNode<T>> next = new ArrayList<>();
+                meeting = expandForward(forwardFrontier, next, forward, backward);
+                forwardFrontier = next;
+            } else {
+                List<GraphNode<T>> next = new ArrayList<>();
+                meeting = expandBackward(backwardFrontier, next, backward, forward);
+                backwardFrontier = next;
+            }
+            if(meeting != null) {
+                List<GraphNode<T>> path = buildPath(forward, meeting);
+                for(GraphNode<T> node = backward.get(meeting); node != null; node = backward.get(node)) {
+                    path.add(node);
+                }
+                return path;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the lowest-cost path from source to target using Dijkstra's algorithm.
+     *
+     * @param source The start node
+     * @param target The node to reach
+     * @param weightFunction Returns the non-negative weight of each edge
+     * @return The lowest-cost path or an empty list if target is unreachable
+     */
+    public List<GraphNode<T>> findLowestCostPath(GraphNode<T> source, GraphNode<T> target, EdgeWeightFunction<T> weightFunction) {
+        return findLowestCostPath(source, target, weightFunction, (node, goal) -> 0.0);
+    }
+
+    /**
+     * Returns the lowest-cost path from source to target using A* search. The heuristic must not
+     * overestimate the remaining cost; a heuristic that always returns zero yields Dijkstra's algorithm.
+     *
+     * @param source The start node
+     * @param target The node to reach
+     * @param weightFunction Returns the non-negative weight of each edge
+     * @param heuristic Lower bound on the remaining cost to the target
+     * @return The lowest-cost path or an empty list if target is unreachable
+     */
+    public List<GraphNode<T>> findLowestCostPath(GraphNode<T> source, GraphNode<T> target, EdgeWeightFunction<T> weightFunction, DistanceHeuristic<T> heuristic) {
+        Map<GraphNode<T>, Double> costs = new IdentityHashMap<>();
+        Map<GraphNode<T>, GraphNode<T>> predecessors = new IdentityHashMap<>();
+        Map<GraphNode<T>, Boolean> settled = new IdentityHashMap<>();
+        PriorityQueue<QueueEntry<T>> queue = new PriorityQueue<>();
+        costs.put(source, 0.0);
+        predecessors.put(source, null);
+        queue.add(new QueueEntry<>(source, heuristic.estimate(source, target)));
+        while(!queue.isEmpty()) {
+            GraphNode<T> node = queue.poll().node;
+            if(settled.put(node, Boolean.TRUE) != null) {
+                continue;
+            }
+            if(node == target) {
+                return buildPath(predecessors, target);
+            }
+            if(node.hasNoChildren()) {
+                continue;
+            }
+            double cost = costs.get(node);
+            for(GraphNode<T> child : node.getChildren()) {
+                double weight = weightFunction.getWeight(node, child);
+                if(weight < 0) {
+                    throw new IllegalArgumentException("Negative edge weight " + weight + " from " + node.getName() + " to " + child.getName());
+                }
+                Double known = costs.get(child);
+                if(!settled.containsKey(child) && (known == null || cost + weight < known)) {
+                    costs.put(child, cost + weight);
+                    predecessors.put(child, node);
+                    queue.add(new QueueEntry<>(child, cost + weight + heuristic.estimate(child, target)));
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Expands the forward frontier by one level and returns the first node also seen by the backward search.
+     */
+    private GraphNode<T> expandForward(List<GraphNode<T>> frontier, List<GraphNode<T>> next, Map<GraphNode<T>, GraphNode<T>> visited, Map<GraphNode<T>, GraphNode<T>> opposite) {
+        for(GraphNode<T> node : frontier) {
+            if(node.hasNoChildren()) {
+                continue;
+            }
+            for(GraphNode<T> child : node.getChildren()) {
+                if(!visited.containsKey(child)) {
+                    visited.put(child, node);
+                    if(opposite.containsKey(child)) {
+                        return child;
+                    }
+                    next.add(child);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Expands the backward frontier by one level and returns the first node also seen by the forward search.
+     */
+    private GraphNode<T> expandBackward(List<GraphNode<T>> frontier, List<GraphNode<T>> next, Map<GraphNode<T>, GraphNode<T>> visited, Map<GraphNode<T>, GraphNode<T>> opposite) {
+        for(GraphNode<T> node : frontier) {
+            if(node.hasNoParents()) {
+                continue;
+            }
+            for(GraphNode<T> parent : node.getParents()) {
+                if(!visited.containsKey(parent)) {
+                    visited.put(parent, node);
+                    if(opposite.containsKey(parent)) {
+                        return parent;
+                    }
+                    next.add(parent);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Walks the predecessor chain back from the end node and returns the path in source-to-end order.
+     */
+    private List<GraphNode<T>> buildPath(Map<GraphNode<T>, GraphNode<T>> predecessors, GraphNode<T> end) {
+        List<GraphNode<T>> path = new ArrayList<>();
+        for(GraphNode<T> node = end; node != null; node = predecessors.get(node)) {
+            path.add(node);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Priority queue entry. Stale entries are skipped when polled rather than removed on update.
+     */
+    private static class QueueEntry<T> implements Comparable<QueueEntry<T>> {
+        private final GraphNode<T> node;
+        private final double priority;
+
+        private QueueEntry(GraphNode<T> node, double priority) {
+            this.node = node;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(QueueEntry<T> other) {
+            return Double.compare(priority, other.priority);
+        }
+    }
+}
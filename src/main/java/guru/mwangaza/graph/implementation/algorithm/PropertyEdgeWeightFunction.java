@@ -0,0 +1,82 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.algorithm;
+
+import guru.mwangaza.graph.api.EdgeWeightFunction;
+import guru.mwangaza.graph.api.GraphNode;
+
+/**
+ * Edge weight function reading the weight of an edge from a numeric property of the edge's target node.
+ * Nodes without the property, or with a non-numeric value, are assigned the default weight.
+ *
+ * @param <T>
+ */
+public class PropertyEdgeWeightFunction<T> implements EdgeWeightFunction<T> {
+
+    /**
+     * The property holding the weight.
+     */
+    private String propertyName;
+    /**
+     * The weight used when the property is missing.
+     */
+    private double defaultWeight;
+
+    /**
+     * Creates a weight function with a default weight of 1.
+     *
+     * @param propertyName The name of the property holding the weight
+     */
+    public PropertyEdgeWeightFunction(String propertyName) {
+        this(propertyName, 1.0);
+    }
+
+    /**
+     * Creates a weight function.
+     *
+     * @param propertyName The name of the property holding the weight
+     * @param defaultWeight The weight used when the property is missing
+     */
+    public PropertyEdgeWeightFunction(String propertyName, double defaultWeight) {
+        this.propertyName = propertyName;
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * Returns the target node's weight property.
+     *
+     * @param source The parent node
+     * @param target The child node
+     * @return The edge weight
+     */
+    @Override
+    public double getWeight(GraphNode<T> source, GraphNode<T> target) {
+        Object value = target.getProperties() != null ? target.getProperties().get(propertyName) : null;
+        if(value instanceof Number) {
+            return ((Number)value).doubleValue();
+        } else {
+            return defaultWeight;
+        }
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public double getDefaultWeight() {
+        return defaultWeight;
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.cache;
+
+import guru.mwangaza.graph.api.LazyTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of fully built subtrees keyed by path or UUID. Each entry is weighed by the node
+ * count of its subtree when it is added; when the total weight exceeds the maximum, the least
+ * recently used entries are evicted. A subtree heavier than the maximum is never cached.
+ * <br>
+ * {@link #get} returns the cached subtree itself, while {@link #attach} adds a copy of it to the parent,
+ * so attached nodes have a single parent, report their paths in the receiving tree and take part in its
+ * indexes, caches and listeners. Changes made below an attachment do not reach the cached entry.
+ *
+ * @param <T>
+ */
+public class SubtreeCache<T> {
+
+    /**
+     * The maximum total weight of the cached subtrees.
+     */
+    private final long maxWeight;
+    /**
+     * Entries in access order, least recently used first.
+     */
+    private final LinkedHashMap<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates a cache holding subtrees with at most maxWeight nodes in total.
+     *
+     * @param maxWeight The maximum number of cached nodes
+     */
+    public SubtreeCache(long maxWeight) {
+        if(maxWeight < 0) {
+            throw new IllegalArgumentException("Maximum weight must not be negative: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the subtree cached under key, or null. Counts a hit or a miss.
+     *
+     * @param key The path or UUID of the subtree
+     * @return The cached subtree root or null
+     */
+    public TreeNode<T> get(String key) {
+        Entry<T> entry = entries.get(key);
+        if(entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.subtree;
+    }
+
+    /**
+     * Returns the subtree cached under key, building and caching it on a miss.
+     *
+     * @param key The path or UUID of the subtree
+     * @param builder Builds the subtree for a key that is not cached
+     * @return The cached or newly built subtree root
+     */
+    public TreeNode<T> get(String key, Function<String, ? extends TreeNode<T>> builder) {
+        TreeNode<T> subtree = get(key);
+        if(subtree == null) {
+            subtree = builder.apply(key);
+            put(key, subtree);
+        }
+        return subtree;
+    }
+
+    /**
+     * Caches subtree under key, replacing any previous entry, and evicts least recently used
+     * entries if the cache is over its maximum weight.
+     *
+     * @param key The path or UUID of the subtree
+     * @param subtree The subtree root
+     */
+    public void put(String key, TreeNode<T> subtree) {
+        int subtreeWeight = subtree.getSubtreeNodeCount();
+        invalidate(key);
+        if(subtreeWeight > maxWeight) {
+            return;
+        }
+        entries.put(key, new Entry<>(subtree, subtreeWeight));
+        weight += subtreeWeight;
+        evict();
+    }
+
+    /**
+     * Caches subtree under its UUID.
+     *
+     * @param subtree The subtree root
+     */
+    public void put(TreeNode<T> subtree) {
+        put(subtree.getUuid(), subtree);
+    }
+
+    /**
+     * Removes the entry cached under key, if any.
+     *
+     * @param key The path or UUID of the subtree
+     */
+    public void invalidate(String key) {
+        Entry<T> previous = entries.remove(key);
+        if(previous != null) {
+            weight -= previous.weight;
+        }
+    }
+
+    /**
+     * Removes all entries. Statistics are kept.
+     */
+    public void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Attaches a copy of the subtree cached under key to parent, building and caching it on a miss.
+     * The copy is made without recursion. {@link TreeNodeImpl} nodes are copied with
+     * {@link TreeNodeImpl#shallowCopy()}, so the copies keep their node types, including primitive
+     * payloads, and lazy nodes that can be reloaded are copied unloaded instead of being loaded. Other
+     * nodes are copied with {@link TreeNode#shallowClone()}. Payload objects are shared.
+     * <br>
+     * The subtree cannot be shared instead: tree nodes have a single parent, and a tree only holds
+     * nodes of its own implementation, so attaching costs time and memory proportional to the part of
+     * the subtree that is in memory.
+     *
+     * @param parent The node receiving the subtree
+     * @param key The path or UUID of the subtree
+     * @param builder Builds the subtree for a key that is not cached
+     * @return The node added to parent
+     */
+    public TreeNode<T> attach(TreeNode<T> parent, String key, Function<String, ? extends TreeNode<T>> builder) {
+        TreeNode<T> subtree = get(key, builder);
+        TreeNodeImpl<T> attachment = copyNode(subtree);
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(attachment);
+        stack.push(subtree);
+        while(!stack.isEmpty()) {
+            TreeNode<T> source = stack.pop();
+            TreeNode<T> copy = stack.pop();
+            if(copy instanceof LazyTreeNode && !((LazyTreeNode<T>)copy).isLoaded() || !source.hasChildren()) {
+                continue;
+            }
+            for(TreeNode<T> child : source.getChildren()) {
+                TreeNodeImpl<T> childCopy = copyNode(child);
+                copy.addChild(childCopy);
+                stack.push(childCopy);
+                stack.push(child);
+            }
+        }
+        parent.addChild(attachment);
+        return attachment;
+    }
+
+    private TreeNodeImpl<T> copyNode(TreeNode<T> source) {
+        if(source instanceof TreeNodeImpl) {
+            return ((TreeNodeImpl<T>)source).shallowCopy();
+        }
+        TreeNodeImpl<T> copy = source.shallowClone();
+        copy.setPathDelimiter(source.getPathDelimiter());
+        return copy;
+    }
+
+    /**
+     * Returns the number of cached subtrees.
+     *
+     * @return The entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total node count of the cached subtrees.
+     *
+     * @return The cached weight
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the ratio of hits to lookups, or 0 if there were no lookups.
+     *
+     * @return The hit rate
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0.0 : (double)hitCount / lookups;
+    }
+
+    private void evict() {
+        Iterator<Entry<T>> iterator = entries.values().iterator();
+        while(weight > maxWeight && iterator.hasNext()) {
+            Entry<T> eldest = iterator.next();
+            iterator.remove();
+            weight -= eldest.weight;
+            evictionCount++;
+        }
+    }
+
+    private static class Entry<T> {
+        private final TreeNode<T> subtree;
+        private final int weight;
+
+        Entry(TreeNode<T> subtree, int weight) {
+            this.subtree = subtree;
+            this.weight = weight;
+        }
+    }
+}
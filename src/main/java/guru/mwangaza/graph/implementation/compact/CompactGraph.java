@@ -0,0 +1,480 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.compact;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.implementation.GraphNodeImpl;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable compressed sparse row (CSR) representation of a directed graph. Nodes are numbered
+ * from 0 to {@link #getNodeCount()} - 1. The children of node i are
+ * {@code forwardTargets[forwardOffsets[i] .. forwardOffsets[i + 1] - 1]} and its parents are
+ * stored the same way in the reverse arrays, so a graph with m edges needs 2m + 2n + 2 ints
+ * for its structure and traversals run over primitive arrays.
+ * <br>
+ * {@link GraphNode} views of the nodes are created lazily by {@link #getNode(int)} and cached, so
+ * the same node is always represented by the same view. Views are read-only.
+ *
+ * @param <T>
+ */
+public class CompactGraph<T> implements Serializable {
+
+    private final int[] forwardOffsets;
+    private final int[] forwardTargets;
+    private final int[] reverseOffsets;
+    private final int[] reverseTargets;
+    private final String[] names;
+    private final String[] payloadNames;
+    private final String[] uuids;
+    private final Object[] payloads;
+    private final Map<String, Object>[] properties;
+    private final String pathDelimiter;
+    /**
+     * Lazily allocated view cache.
+     */
+    private transient CompactGraphNode<T>[] views;
+
+    /**
+     * Creates a graph from its edge list. Use {@link CompactGraphBuilder} or {@link #fromGraphNode}
+     * rather than calling this constructor directly.
+     *
+     * @param nodeCount The number of nodes
+     * @param sources The source of each edge
+     * @param targets The target of each edge
+     * @param edgeCount The number of edges in sources and targets
+     * @param names Node names by node number
+     * @param payloadNames Node payload names by node number, may be null
+     * @param uuids Node UUIDs by node number, may be null
+     * @param payloads Node payloads by node number, may be null
+     * @param properties Node properties by node number, may be null
+     * @param pathDelimiter The delimiter of the paths of the graph's nodes
+     */
+    CompactGraph(int nodeCount, int[] sources, int[] targets, int edgeCount, String[] names, String[] payloadNames,
+                 String[] uuids, Object[] payloads, Map<String, Object>[] properties, String pathDelimiter) {
+        this.forwardOffsets = new int[nodeCount + 1];
+        this.forwardTargets = new int[edgeCount];
+        this.reverseOffsets = new int[nodeCount + 1];
+        this.reverseTargets = new int[edgeCount];
+        fill(forwardOffsets, forwardTargets, sources, targets, edgeCount);
+        fill(reverseOffsets, reverseTargets, targets, sources, edgeCount);
+        this.names = names;
+        this.payloadNames = payloadNames;
+        this.uuids = uuids;
+        this.payloads = payloads;
+        this.properties = properties;
+        this.pathDelimiter = pathDelimiter;
+    }
+
+    /**
+     * Copies all nodes reachable from root into a compact graph without their UUIDs. Nodes are numbered
+     * in breadth-first order so the root is node 0. Names, payloads and property maps are shared with the
+     * source nodes. The graph takes its path delimiter from the root.
+     *
+     * @param root The root of the source graph
+     * @return The compact graph
+     */
+    public static <T> CompactGraph<T> fromGraphNode(GraphNode<T> root) {
+        return fromGraphNode(root, false);
+    }
+
+    /**
+     * Copies all nodes reachable from root into a compact graph, as {@link #fromGraphNode(GraphNode)}
+     * does. When includeUuids is true, the UUID of each node is also copied, which makes nodes that
+     * generate their UUID on first access generate it now, and costs one string reference per node.
+     * Otherwise {@link #getUuid(int)} returns null.
+     *
+     * @param root The root of the source graph
+     * @param includeUuids True to copy the UUIDs of the nodes
+     * @return The compact graph
+     */
+    public static <T> CompactGraph<T> fromGraphNode(GraphNode<T> root, boolean includeUuids) {
+        Map<GraphNode<T>, Integer> numbers = new IdentityHashMap<>();
+        List<GraphNode<T>> nodes = new ArrayList<>();
+        ArrayDeque<GraphNode<T>> queue = new ArrayDeque<>();
+        int[] sources = new int[16];
+        int[] targets = new int[16];
+        int edgeCount = 0;
+        numbers.put(root, 0);
+        nodes.add(root);
+        queue.add(root);
+        while(!queue.isEmpty()) {
+            GraphNode<T> node = queue.poll();
+            if(node.hasNoChildren()) {
+                continue;
+            }
+            int source = numbers.get(node);
+            for(GraphNode<T> child : node.getChildren()) {
+                Integer target = numbers.get(child);
+                if(target == null) {
+                    target = nodes.size();
+                    numbers.put(child, target);
+                    nodes.add(child);
+                    queue.add(child);
+                }
+                if(edgeCount == sources.length) {
+                    sources = Arrays.copyOf(sources, edgeCount * 2);
+                    targets = Arrays.copyOf(targets, edgeCount * 2);
+                }
+                sources[edgeCount] = source;
+                targets[edgeCount++] = target;
+            }
+        }
+        int nodeCount = nodes.size();
+        String[] names = new String[nodeCount];
+        String[] payloadNames = new String[nodeCount];
+        String[] uuids = includeUuids ? new String[nodeCount] : null;
+        Object[] payloads = new Object[nodeCount];
+        // Arrays of a generic type can only be created through a cast
+        @SuppressWarnings("unchecked")
+        Map<String, Object>[] properties = (Map<String, Object>[])new Map<?, ?>[nodeCount];
+        for(int index = 0; index < nodeCount; index++) {
+            GraphNode<T> node = nodes.get(index);
+            names[index] = node.getName();
+            payloadNames[index] = node.getPayloadName();
+            if(uuids != null) {
+                uuids[index] = node.getUuid();
+            }
+            payloads[index] = node.getPayload();
+            properties[index] = node.getProperties() == null || node.getProperties().isEmpty() ? null : node.getProperties();
+        }
+        String pathDelimiter = root.getPathDelimiter() != null ? root.getPathDelimiter() : BaseNode.DEFAULT_PATH_DELIMITER;
+        return new CompactGraph<>(nodeCount, sources, targets, edgeCount, names, payloadNames, uuids, payloads, properties, pathDelimiter);
+    }
+
+    /**
+     * Returns the delimiter used in the paths of the graph's nodes.
+     *
+     * @return The path delimiter
+     */
+    public String getPathDelimiter() {
+        return pathDelimiter;
+    }
+
+    /**
+     * Counting-sorts the edges by source into offset and target arrays.
+     */
+    private static void fill(int[] offsets, int[] adjacency, int[] sources, int[] targets, int edgeCount) {
+        for(int edge = 0; edge < edgeCount; edge++) {
+            offsets[sources[edge] + 1]++;
+        }
+        for(int node = 1; node < offsets.length; node++) {
+            offsets[node] += offsets[node - 1];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for(int edge = 0; edge < edgeCount; edge++) {
+            adjacency[next[sources[edge]]++] = targets[edge];
+        }
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return The node count
+     */
+    public int getNodeCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return The edge count
+     */
+    public int getEdgeCount() {
+        return forwardTargets.length;
+    }
+
+    /**
+     * Returns the number of children of a node.
+     *
+     * @param node The node number
+     * @return The child count
+     */
+    public int getChildCount(int node) {
+        return forwardOffsets[node + 1] - forwardOffsets[node];
+    }
+
+    /**
+     * Returns the number of a child of a node.
+     *
+     * @param node The node number
+     * @param index The index of the child, from 0 to {@link #getChildCount(int)} - 1
+     * @return The child's node number
+     */
+    public int getChild(int node, int index) {
+        return forwardTargets[forwardOffsets[node] + index];
+    }
+
+    /**
+     * Returns the number of parents of a node.
+     *
+     * @param node The node number
+     * @return The parent count
+     */
+    public int getParentCount(int node) {
+        return reverseOffsets[node + 1] - reverseOffsets[node];
+    }
+
+    /**
+     * Returns the number of a parent of a node.
+     *
+     * @param node The node number
+     * @param index The index of the parent, from 0 to {@link #getParentCount(int)} - 1
+     * @return The parent's node number
+     */
+    public int getParent(int node, int index) {
+        return reverseTargets[reverseOffsets[node] + index];
+    }
+
+    /**
+     * Returns the name of a node.
+     *
+     * @param node The node number
+     * @return The name
+     */
+    public String getName(int node) {
+        return names[node];
+    }
+
+    /**
+     * Returns the payload name of a node. Graphs built by {@link CompactGraphBuilder} have none.
+     *
+     * @param node The node number
+     * @return The payload name or null
+     */
+    public String getPayloadName(int node) {
+        return payloadNames != null ? payloadNames[node] : null;
+    }
+
+    /**
+     * Returns the UUID of a node. UUIDs are only kept by graphs created with
+     * {@link #fromGraphNode(GraphNode, boolean)} and includeUuids set; graphs built by
+     * {@link CompactGraphBuilder} and by {@link #fromGraphNode(GraphNode)} return null.
+     *
+     * @param node The node number
+     * @return The UUID or null
+     */
+    public String getUuid(int node) {
+        return uuids != null ? uuids[node] : null;
+    }
+
+    /**
+     * Returns the payload of a node.
+     *
+     * @param node The node number
+     * @return The payload or null
+     */
+    // The cast is safe: payloads are stored from the nodes of a GraphNode<T>
+    @SuppressWarnings("unchecked")
+    public T getPayload(int node) {
+        return payloads != null ? (T)payloads[node] : null;
+    }
+
+    /**
+     * Returns the properties of a node, shared with the node the graph was copied from. Graphs built by
+     * {@link CompactGraphBuilder} have none.
+     *
+     * @param node The node number
+     * @return The properties, or null if the node has none
+     */
+    public Map<String, Object> getProperties(int node) {
+        return properties != null ? properties[node] : null;
+    }
+
+    /**
+     * Calls the consumer with each child of node.
+     *
+     * @param node The node number
+     * @param consumer Receives each child number
+     */
+    public void forEachChild(int node, IntConsumer consumer) {
+        for(int edge = forwardOffsets[node]; edge < forwardOffsets[node + 1]; edge++) {
+            consumer.accept(forwardTargets[edge]);
+        }
+    }
+
+    /**
+     * Calls the consumer with each parent of node.
+     *
+     * @param node The node number
+     * @param consumer Receives each parent number
+     */
+    public void forEachParent(int node, IntConsumer consumer) {
+        for(int edge = reverseOffsets[node]; edge < reverseOffsets[node + 1]; edge++) {
+            consumer.accept(reverseTargets[edge]);
+        }
+    }
+
+    /**
+     * Visits every node reachable from source once, in breadth-first order.
+     *
+     * @param source The start node
+     * @param visitor Receives each visited node number
+     */
+    public void breadthFirst(int source, IntConsumer visitor) {
+        int[] queue = new int[getNodeCount()];
+        boolean[] seen = new boolean[getNodeCount()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        seen[source] = true;
+        while(head < tail) {
+            int node = queue[head++];
+            visitor.accept(node);
+            for(int edge = forwardOffsets[node]; edge < forwardOffsets[node + 1]; edge++) {
+                int child = forwardTargets[edge];
+                if(!seen[child]) {
+                    seen[child] = true;
+                    queue[tail++] = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if target can be reached from source.
+     *
+     * @param source The start node
+     * @param target The node to reach
+     * @return True if a path exists
+     */
+    public boolean isReachable(int source, int target) {
+        return findShortestPath(source, target).length > 0;
+    }
+
+    /**
+     * Returns the node numbers on a path with the fewest edges from source to target, both inclusive,
+     * or an empty array if target is unreachable.
+     *
+     * @param source The start node
+     * @param target The node to reach
+     * @return The shortest path
+     */
+    public int[] findShortestPath(int source, int target) {
+        if(source == target) {
+            return new int[]{source};
+        }
+        int[] predecessors = new int[getNodeCount()];
+        Arrays.fill(predecessors, -1);
+        int[] queue = new int[getNodeCount()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        predecessors[source] = source;
+        while(head < tail) {
+            int node = queue[head++];
+            for(int edge = forwardOffsets[node]; edge < forwardOffsets[node + 1]; edge++) {
+                int child = forwardTargets[edge];
+                if(predecessors[child] == -1) {
+                    predecessors[child] = node;
+                    if(child == target) {
+                        return buildPath(predecessors, source, target);
+                    }
+                    queue[tail++] = child;
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    private int[] buildPath(int[] predecessors, int source, int target) {
+        int length = 1;
+        for(int node = target; node != source; node = predecessors[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for(int node = target; length > 0; node = predecessors[node]) {
+            path[--length] = node;
+        }
+        return path;
+    }
+
+    /**
+     * Returns the read-only {@link GraphNode} view of a node. Views are created on first request.
+     *
+     * @param node The node number
+     * @return The view
+     */
+    public GraphNode<T> getNode(int node) {
+        if(views == null) {
+            // Arrays of a generic type can only be created through a cast
+            @SuppressWarnings("unchecked")
+            CompactGraphNode<T>[] created = (CompactGraphNode<T>[])new CompactGraphNode<?>[getNodeCount()];
+            views = created;
+        }
+        CompactGraphNode<T> view = views[node];
+        if(view == null) {
+            view = new CompactGraphNode<>(this, node);
+            views[node] = view;
+        }
+        return view;
+    }
+
+    /**
+     * Copies the nodes reachable from node into new, mutable {@link GraphNodeImpl} nodes.
+     *
+     * @param node The node number of the root of the copy
+     * @return The copy of node
+     */
+    public GraphNode<T> toGraphNode(int node) {
+        Map<Integer, GraphNode<T>> copies = new HashMap<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        copies.put(node, copyOf(node));
+        queue.add(node);
+        while(!queue.isEmpty()) {
+            int current = queue.poll();
+            GraphNode<T> copy = copies.get(current);
+            for(int edge = forwardOffsets[current]; edge < forwardOffsets[current + 1]; edge++) {
+                int child = forwardTargets[edge];
+                GraphNode<T> childCopy = copies.get(child);
+                if(childCopy == null) {
+                    childCopy = copyOf(child);
+                    copies.put(child, childCopy);
+                    queue.add(child);
+                }
+                copy.addChild(childCopy);
+            }
+        }
+        return copies.get(node);
+    }
+
+    private GraphNode<T> copyOf(int node) {
+        GraphNode<T> copy = new GraphNodeImpl<>(getName(node));
+        copy.setPayloadName(getPayloadName(node));
+        copy.setPayload(getPayload(node));
+        copy.setPathDelimiter(pathDelimiter);
+        if(getUuid(node) != null) {
+            copy.setUuid(getUuid(node));
+        }
+        if(getProperties(node) != null) {
+            for(Map.Entry<String, Object> entry : getProperties(node).entrySet()) {
+                copy.addProperty(entry.getKey(), entry.getValue());
+            }
+        }
+        return copy;
+    }
+}
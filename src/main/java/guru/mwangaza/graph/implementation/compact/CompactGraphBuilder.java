@@ -0,0 +1,142 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.compact;
+
+import guru.mwangaza.graph.api.BaseNode;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates nodes and edges, for instance from an edge stream, and builds a {@link CompactGraph}.
+ * Edges are held in two growable int arrays until {@link #build()} sorts them into CSR form.
+ * Nodes only have a name and a payload: the built graph has no UUIDs, payload names or properties,
+ * so {@link CompactGraph#getUuid(int)} returns null for all of its nodes.
+ *
+ * @param <T>
+ */
+public class CompactGraphBuilder<T> {
+
+    private String[] names = new String[16];
+    private Object[] payloads = new Object[16];
+    private int nodeCount;
+    private int[] sources = new int[16];
+    private int[] targets = new int[16];
+    private int edgeCount;
+    private String pathDelimiter = BaseNode.DEFAULT_PATH_DELIMITER;
+
+    /**
+     * No-argument constructor.
+     */
+    public CompactGraphBuilder() {
+    }
+
+    /**
+     * Adds a node without payload.
+     *
+     * @param name The node name
+     * @return The number of the new node
+     */
+    public int addNode(String name) {
+        return addNode(name, null);
+    }
+
+    /**
+     * Adds a node.
+     *
+     * @param name The node name
+     * @param payload The node payload
+     * @return The number of the new node
+     */
+    public int addNode(String name, T payload) {
+        if(nodeCount == names.length) {
+            names = Arrays.copyOf(names, nodeCount * 2);
+            payloads = Arrays.copyOf(payloads, nodeCount * 2);
+        }
+        names[nodeCount] = name;
+        payloads[nodeCount] = payload;
+        return nodeCount++;
+    }
+
+    /**
+     * Adds a directed edge from source to target.
+     *
+     * @param source The number of the parent node
+     * @param target The number of the child node
+     */
+    public void addEdge(int source, int target) {
+        if(source < 0 || source >= nodeCount || target < 0 || target >= nodeCount) {
+            throw new IllegalArgumentException("Edge " + source + " -> " + target + " references an unknown node");
+        }
+        if(edgeCount == sources.length) {
+            sources = Arrays.copyOf(sources, edgeCount * 2);
+            targets = Arrays.copyOf(targets, edgeCount * 2);
+        }
+        sources[edgeCount] = source;
+        targets[edgeCount++] = target;
+    }
+
+    /**
+     * Adds the edges sources[i] -> targets[i].
+     *
+     * @param sources The parent node of each edge
+     * @param targets The child node of each edge
+     */
+    public void addEdges(int[] sources, int[] targets) {
+        if(sources.length != targets.length) {
+            throw new IllegalArgumentException("Edge arrays differ in size: " + sources.length + " and " + targets.length);
+        }
+        for(int edge = 0; edge < sources.length; edge++) {
+            addEdge(sources[edge], targets[edge]);
+        }
+    }
+
+    /**
+     * Returns the number of nodes added so far.
+     *
+     * @return The node count
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the delimiter used in the paths of the built graph's nodes.
+     *
+     * @return The path delimiter
+     */
+    public String getPathDelimiter() {
+        return pathDelimiter;
+    }
+
+    /**
+     * Sets the delimiter used in the paths of the built graph's nodes.
+     *
+     * @param pathDelimiter The path delimiter
+     */
+    public void setPathDelimiter(String pathDelimiter) {
+        this.pathDelimiter = pathDelimiter;
+    }
+
+    /**
+     * Builds the compact graph. The builder may continue to be used afterwards.
+     *
+     * @return The compact graph
+     */
+    public CompactGraph<T> build() {
+        return new CompactGraph<>(nodeCount, sources, targets, edgeCount, Arrays.copyOf(names, nodeCount),
+                null, null, Arrays.copyOf(payloads, nodeCount), null, pathDelimiter);
+    }
+}
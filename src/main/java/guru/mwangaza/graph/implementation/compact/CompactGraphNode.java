@@ -0,0 +1,329 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.compact;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.GraphNode;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only {@link GraphNode} view of a node of a {@link CompactGraph}. The view holds only the graph
+ * and the node number; children and parents are resolved from the graph's CSR arrays on access.
+ * All mutators throw {@link UnsupportedOperationException}.
+ *
+ * @param <T>
+ */
+public class CompactGraphNode<T> implements GraphNode<T> {
+
+    private final CompactGraph<T> graph;
+    private final int node;
+
+    CompactGraphNode(CompactGraph<T> graph, int node) {
+        this.graph = graph;
+        this.node = node;
+    }
+
+    /**
+     * Returns the graph this view belongs to.
+     *
+     * @return The compact graph
+     */
+    public CompactGraph<T> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of the viewed node in its graph.
+     *
+     * @return The node number
+     */
+    public int getNodeNumber() {
+        return node;
+    }
+
+    /**
+     * Returns a read-only list of the views of the node's children, resolved from the graph on access.
+     *
+     * @return The children
+     */
+    @Override
+    public List<GraphNode<T>> getChildren() {
+        return new AbstractList<GraphNode<T>>() {
+            @Override
+            public GraphNode<T> get(int index) {
+                return graph.getNode(graph.getChild(node, index));
+            }
+
+            @Override
+            public int size() {
+                return graph.getChildCount(node);
+            }
+        };
+    }
+
+    /**
+     * Returns a read-only list of the views of the node's parents, resolved from the graph on access.
+     *
+     * @return The parents
+     */
+    @Override
+    public List<GraphNode<T>> getParents() {
+        return new AbstractList<GraphNode<T>>() {
+            @Override
+            public GraphNode<T> get(int index) {
+                return graph.getNode(graph.getParent(node, index));
+            }
+
+            @Override
+            public int size() {
+                return graph.getParentCount(node);
+            }
+        };
+    }
+
+    @Override
+    public GraphNode<T> getFirstChild() {
+        return hasChildren() ? graph.getNode(graph.getChild(node, 0)) : null;
+    }
+
+    @Override
+    public GraphNode<T> getFirstParent() {
+        return hasParents() ? graph.getNode(graph.getParent(node, 0)) : null;
+    }
+
+    // GraphNode declares the parameter with a raw type
+    @SuppressWarnings("rawtypes")
+    @Override
+    public boolean childWithNameAlreadyExists(GraphNode other) {
+        for(int index = 0; index < graph.getChildCount(node); index++) {
+            String name = graph.getName(graph.getChild(node, index));
+            if(name != null && other.getName() != null && name.equalsIgnoreCase(other.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the node's UUID, or null if the graph does not keep UUIDs. See {@link CompactGraph#getUuid(int)}.
+     *
+     * @return The UUID or null
+     */
+    @Override
+    public String getUuid() {
+        return graph.getUuid(node);
+    }
+
+    /**
+     * Returns the node's name.
+     *
+     * @return The name
+     */
+    @Override
+    public String getName() {
+        return graph.getName(node);
+    }
+
+    /**
+     * Returns the node's payload name, or null.
+     *
+     * @return The payload name
+     */
+    @Override
+    public String getPayloadName() {
+        return graph.getPayloadName(node);
+    }
+
+    /**
+     * Returns the node's payload, or null.
+     *
+     * @return The payload
+     */
+    @Override
+    public T getPayload() {
+        return graph.getPayload(node);
+    }
+
+    /**
+     * Returns a read-only view of the node's properties, empty if the node has none.
+     *
+     * @return The properties
+     */
+    @Override
+    public Map<String, Object> getProperties() {
+        Map<String, Object> properties = graph.getProperties(node);
+        return properties != null ? Collections.unmodifiableMap(properties) : Collections.<String, Object>emptyMap();
+    }
+
+    @Override
+    public boolean hasChildren() {
+        return graph.getChildCount(node) > 0;
+    }
+
+    @Override
+    public boolean hasNoChildren() {
+        return !hasChildren();
+    }
+
+    @Override
+    public boolean hasParents() {
+        return graph.getParentCount(node) > 0;
+    }
+
+    @Override
+    public boolean hasNoParents() {
+        return !hasParents();
+    }
+
+    @Override
+    public boolean isRoot() {
+        return hasNoParents();
+    }
+
+    @Override
+    public boolean isNotRoot() {
+        return !isRoot();
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return hasNoChildren();
+    }
+
+    @Override
+    public boolean isNotLeaf() {
+        return !isLeaf();
+    }
+
+    @Override
+    public boolean isInnerNode() {
+        return isNotLeaf();
+    }
+
+    @Override
+    public boolean isNotInnerNode() {
+        return !isInnerNode();
+    }
+
+    @Override
+    public boolean isNameEqualTo(String name) {
+        return name != null && getName() != null && getName().equalsIgnoreCase(name);
+    }
+
+    /**
+     * Returns the path delimiter of the graph.
+     *
+     * @return The path delimiter
+     */
+    @Override
+    public String getPathDelimiter() {
+        return graph.getPathDelimiter();
+    }
+
+    @Override
+    public String buildPathComponent() {
+        return isRoot() ? getName() : getPathDelimiter() + getName();
+    }
+
+    /**
+     * Returns a mutable copy of this node and all nodes reachable from it.
+     *
+     * @return The copy
+     */
+    @Override
+    public BaseNode<T> deepClone() {
+        return graph.toGraphNode(node);
+    }
+
+    @Override
+    public void setChildren(List<GraphNode<T>> children) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void addChild(GraphNode<T> child) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void addChildIfNotExist(GraphNode<T> child) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public boolean removeChild(GraphNode<T> child) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void setParents(List<GraphNode<T>> parents) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void addParent(GraphNode<T> parent) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void setUuid(String uuid) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void setName(String name) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void setPayloadName(String originalName) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void setPayload(T payload) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void setPathDelimiter(String pathDelimiter) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    @Override
+    public void addProperty(String key, Object value) {
+        throw new UnsupportedOperationException("Compact graph nodes are read-only");
+    }
+
+    /**
+     * To string returns the name assigned to this node.
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,499 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.dag;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.GraphNodeImpl;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read-only {@link TreeNode} view of a shared DAG built by {@link SubtreeCompactor}. A view stands for one
+ * position of the original tree: it holds the shared node and the view of its parent along the path it was
+ * reached by, so {@link #getParent()}, {@link #getPathFromRoot()} and the level tests answer as the original
+ * tree would even though the shared node has many parents. Child views are created on access and are not
+ * cached; two views of the same position are distinct objects.
+ * <br>
+ * All mutators throw {@link UnsupportedOperationException}. {@link #deepClone()} materializes the subtree
+ * as a mutable {@link TreeNodeImpl} tree.
+ *
+ * @param <T>
+ */
+public class SharedTreeView<T> implements TreeNode<T> {
+
+    private final GraphNode<T> node;
+    private final SharedTreeView<T> parent;
+
+    private SharedTreeView(GraphNode<T> node, SharedTreeView<T> parent) {
+        this.node = node;
+        this.parent = parent;
+    }
+
+    /**
+     * Returns a tree view rooted at a shared node.
+     *
+     * @param root The root of the shared DAG
+     * @return The root view
+     */
+    public static <T> SharedTreeView<T> of(GraphNode<T> root) {
+        return new SharedTreeView<>(root, null);
+    }
+
+    /**
+     * Returns the shared node this view stands for.
+     *
+     * @return The shared node
+     */
+    public GraphNode<T> getSharedNode() {
+        return node;
+    }
+
+    @Override
+    public List<TreeNode<T>> getChildren() {
+        final List<GraphNode<T>> children = node.getChildren();
+        return new AbstractList<TreeNode<T>>() {
+            @Override
+            public TreeNode<T> get(int index) {
+                return new SharedTreeView<>(children.get(index), SharedTreeView.this);
+            }
+
+            @Override
+            public int size() {
+                return children.size();
+            }
+        };
+    }
+
+    @Override
+    public TreeNode<T> getFirstChild() {
+        return hasChildren() ? new SharedTreeView<>(node.getFirstChild(), this) : null;
+    }
+
+    @Override
+    public TreeNode<T> getParent() {
+        return parent;
+    }
+
+    // TreeNode declares the parameter with a raw type
+    @SuppressWarnings("rawtypes")
+    @Override
+    public boolean childWithNameAlreadyExists(TreeNode other) {
+        for(GraphNode<T> child : node.getChildren()) {
+            if(other.getName() != null && child.isNameEqualTo(other.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean parentIsRoot() {
+        return parent != null && parent.isRoot();
+    }
+
+    @Override
+    public boolean parentIsNotRoot() {
+        return !parentIsRoot();
+    }
+
+    @Override
+    public boolean isL1() {
+        return parentIsRoot();
+    }
+
+    @Override
+    public boolean isNotL1() {
+        return !isL1();
+    }
+
+    @Override
+    public boolean isInnerL1() {
+        return isL1() && isNotLeaf();
+    }
+
+    @Override
+    public boolean isNotInnerL1() {
+        return isNotL1() || isLeaf();
+    }
+
+    @Override
+    public boolean isLN() {
+        return isNotRoot() && parentIsNotRoot();
+    }
+
+    @Override
+    public boolean isNotLN() {
+        return !isLN();
+    }
+
+    @Override
+    public boolean isInnerLN() {
+        return isLN() && hasChildren();
+    }
+
+    @Override
+    public boolean isNotInnerLN() {
+        return !isLN() || !hasChildren();
+    }
+
+    @Override
+    public String getPathFromRoot() {
+        List<String> names = new ArrayList<>();
+        for(SharedTreeView<T> view = this; view != null; view = view.parent) {
+            names.add(view.getName());
+        }
+        StringBuilder path = new StringBuilder();
+        for(int index = names.size() - 1; index >= 0; index--) {
+            path.append(names.get(index));
+            if(index > 0) {
+                path.append(getPathDelimiter());
+            }
+        }
+        return path.toString();
+    }
+
+    @Override
+    public boolean isPathPrefix(String pathPrefix) {
+        return getPathFromRoot().startsWith(pathPrefix);
+    }
+
+    @Override
+    public void executeCommandDepthFirstPre(Consumer<TreeNode<T>> command) {
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while(!stack.isEmpty()) {
+            TreeNode<T> current = stack.pop();
+            command.accept(current);
+            List<TreeNode<T>> children = current.getChildren();
+            for(int index = children.size() - 1; index >= 0; index--) {
+                stack.push(children.get(index));
+            }
+        }
+    }
+
+    @Override
+    public void executeCommandDepthFirstPost(Consumer<TreeNode<T>> command) {
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        ArrayDeque<TreeNode<T>> output = new ArrayDeque<>();
+        stack.push(this);
+        while(!stack.isEmpty()) {
+            TreeNode<T> current = stack.pop();
+            output.push(current);
+            for(TreeNode<T> child : current.getChildren()) {
+                stack.push(child);
+            }
+        }
+        while(!output.isEmpty()) {
+            command.accept(output.pop());
+        }
+    }
+
+    @Override
+    public void executeCommandBreadthFirst(Consumer<TreeNode<T>> command) {
+        ArrayDeque<TreeNode<T>> queue = new ArrayDeque<>();
+        queue.add(this);
+        while(!queue.isEmpty()) {
+            TreeNode<T> current = queue.poll();
+            command.accept(current);
+            queue.addAll(current.getChildren());
+        }
+    }
+
+    /**
+     * Returns a mutable copy of this node without its children.
+     *
+     * @return The copy
+     */
+    @Override
+    public TreeNodeImpl<T> shallowClone() {
+        TreeNodeImpl<T> copy = new TreeNodeImpl<>(getName());
+        copy.setPayloadName(getPayloadName());
+        copy.setPayload(getPayload());
+        if(!node.getProperties().isEmpty()) {
+            copy.setProperties(new LinkedHashMap<>(node.getProperties()));
+        }
+        return copy;
+    }
+
+    @Override
+    public List<TreeNode<T>> findNodesWithName(String name) {
+        List<TreeNode<T>> nodes = new ArrayList<>();
+        executeCommandDepthFirstPre(current -> {
+            if(current.isNameEqualTo(name)) {
+                nodes.add(current);
+            }
+        });
+        return nodes;
+    }
+
+    @Override
+    public int getSubtreeNodeCount() {
+        int[] count = new int[1];
+        executeCommandDepthFirstPre(current -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Returns the paths from this node to each leaf of its subtree, built from the path components of the
+     * nodes along the way.
+     *
+     * @return The paths
+     */
+    @Override
+    public List<String> getPathsFromNode() {
+        List<String> paths = new ArrayList<>();
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        ArrayDeque<String> prefixes = new ArrayDeque<>();
+        stack.push(this);
+        prefixes.push("");
+        while(!stack.isEmpty()) {
+            TreeNode<T> current = stack.pop();
+            String path = prefixes.pop() + current.buildPathComponent();
+            if(current.isLeaf()) {
+                paths.add(path);
+            }
+            List<TreeNode<T>> children = current.getChildren();
+            for(int index = children.size() - 1; index >= 0; index--) {
+                stack.push(children.get(index));
+                prefixes.push(path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Views are read-only and do not count changes made directly to the shared nodes, which
+     * {@link GraphNodeImpl}s do not track. Shared nodes must therefore not be changed while indexes or
+     * caches built on a view are in use.
+     *
+     * @return 0
+     */
+    @Override
+    public long getModificationCount() {
+        return 0;
+    }
+
+    /**
+     * Returns a mutable {@link TreeNodeImpl} copy of the subtree rooted at this view, with one copy of each
+     * shared subtree per position.
+     *
+     * @return The copy
+     */
+    @Override
+    public BaseNode<T> deepClone() {
+        TreeNodeImpl<T> root = shallowClone();
+        ArrayDeque<TreeNode<T>> views = new ArrayDeque<>();
+        ArrayDeque<TreeNodeImpl<T>> copies = new ArrayDeque<>();
+        views.push(this);
+        copies.push(root);
+        while(!views.isEmpty()) {
+            TreeNode<T> view = views.pop();
+            TreeNodeImpl<T> copy = copies.pop();
+            for(TreeNode<T> child : view.getChildren()) {
+                TreeNodeImpl<T> childCopy = child.shallowClone();
+                copy.addChild(childCopy);
+                views.push(child);
+                copies.push(childCopy);
+            }
+        }
+        return root;
+    }
+
+    @Override
+    public String getUuid() {
+        return node.getUuid();
+    }
+
+    @Override
+    public String getName() {
+        return node.getName();
+    }
+
+    @Override
+    public String getPayloadName() {
+        return node.getPayloadName();
+    }
+
+    @Override
+    public T getPayload() {
+        return node.getPayload();
+    }
+
+    @Override
+    public Map<String, Object> getProperties() {
+        return Collections.unmodifiableMap(node.getProperties());
+    }
+
+    @Override
+    public boolean hasChildren() {
+        return node.hasChildren();
+    }
+
+    @Override
+    public boolean hasNoChildren() {
+        return !hasChildren();
+    }
+
+    @Override
+    public boolean hasParents() {
+        return parent != null;
+    }
+
+    @Override
+    public boolean hasNoParents() {
+        return !hasParents();
+    }
+
+    @Override
+    public boolean isRoot() {
+        return hasNoParents();
+    }
+
+    @Override
+    public boolean isNotRoot() {
+        return !isRoot();
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return hasNoChildren();
+    }
+
+    @Override
+    public boolean isNotLeaf() {
+        return !isLeaf();
+    }
+
+    @Override
+    public boolean isInnerNode() {
+        return isNotLeaf();
+    }
+
+    @Override
+    public boolean isNotInnerNode() {
+        return !isInnerNode();
+    }
+
+    @Override
+    public boolean isNameEqualTo(String name) {
+        return node.isNameEqualTo(name);
+    }
+
+    @Override
+    public String getPathDelimiter() {
+        return node.getPathDelimiter();
+    }
+
+    @Override
+    public String buildPathComponent() {
+        return isRoot() ? getName() : getPathDelimiter() + getName();
+    }
+
+    @Override
+    public void setChildren(List<TreeNode<T>> children) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void addChild(TreeNode<T> child) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void addChildIfNotExist(TreeNode<T> child) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public boolean removeChild(TreeNode<T> child) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void detach() {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void setParent(TreeNode<T> parent) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void appendPathToCurrentNode(String path, T payload) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void buildPathFromCurrentNode(String path, T payload) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void setUuid(String uuid) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void setName(String name) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void setPayloadName(String originalName) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void setPayload(T payload) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void setPathDelimiter(String pathDelimiter) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    @Override
+    public void addProperty(String key, Object value) {
+        throw new UnsupportedOperationException("Shared tree views are read-only");
+    }
+
+    /**
+     * To string returns the name assigned to this node.
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
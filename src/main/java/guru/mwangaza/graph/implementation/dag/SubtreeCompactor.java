@@ -0,0 +1,222 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.dag;
+
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.GraphNodeImpl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compacts trees by hash-consing: identical subtrees are replaced by a single shared {@link GraphNode},
+ * turning the tree into a directed acyclic graph. Two subtrees are identical when their roots have equal
+ * names, payload names, payloads, properties and path delimiters and their children are, in order, the
+ * same shared nodes.
+ * Because children are interned before their parents, the comparison is exact and never descends below
+ * the children. Payloads must implement equals and hashCode by value for subtrees to be shared.
+ * <br>
+ * The compactor keeps its table of shared nodes, so several trees compacted with the same instance share
+ * their common subtrees. Shared nodes get their own UUIDs. Use {@link SharedTreeView} to read the result
+ * as a tree with per-position parents and paths.
+ * <br>
+ * Shared nodes are ordinary mutable {@link GraphNodeImpl}s, and a change made to one is seen at every
+ * position it stands for. The table is keyed on copies of the nodes' fields taken when they were created,
+ * and a node changed since is no longer handed out: the next identical subtree gets a new shared node.
+ *
+ * @param <T>
+ */
+public class SubtreeCompactor<T> {
+
+    private final Map<NodeKey<T>, GraphNode<T>> sharedNodes = new HashMap<>();
+    private long sourceNodeCount;
+
+    /**
+     * Returns the shared DAG equivalent to the tree rooted at root. The tree is walked without recursion.
+     *
+     * @param root The root of the tree
+     * @return The root of the shared DAG
+     */
+    public GraphNode<T> compact(TreeNode<T> root) {
+        ArrayDeque<Frame<T>> stack = new ArrayDeque<>();
+        stack.push(new Frame<>(root));
+        while(true) {
+            Frame<T> frame = stack.peek();
+            if(frame.nextChild < frame.children.size()) {
+                stack.push(new Frame<>(frame.children.get(frame.nextChild++)));
+                continue;
+            }
+            stack.pop();
+            GraphNode<T> shared = intern(frame.node, frame.sharedChildren);
+            if(stack.isEmpty()) {
+                return shared;
+            }
+            stack.peek().sharedChildren.add(shared);
+        }
+    }
+
+    /**
+     * Returns the number of tree nodes compacted so far.
+     *
+     * @return The source node count
+     */
+    public long getSourceNodeCount() {
+        return sourceNodeCount;
+    }
+
+    /**
+     * Returns the number of distinct shared nodes created so far.
+     *
+     * @return The shared node count
+     */
+    public int getSharedNodeCount() {
+        return sharedNodes.size();
+    }
+
+    /**
+     * Drops the table of shared nodes. Nodes already returned are unaffected.
+     */
+    public void clear() {
+        sharedNodes.clear();
+        sourceNodeCount = 0;
+    }
+
+    private GraphNode<T> intern(TreeNode<T> node, List<GraphNode<T>> children) {
+        sourceNodeCount++;
+        Map<String, Object> properties = node.getProperties();
+        if(properties != null && properties.isEmpty()) {
+            properties = null;
+        }
+        NodeKey<T> key = new NodeKey<>(node.getName(), node.getPayloadName(), node.getPayload(), node.getPathDelimiter(), properties, children);
+        GraphNode<T> shared = sharedNodes.get(key);
+        if(shared != null && key.describes(shared)) {
+            return shared;
+        }
+        GraphNodeImpl<T> created = new GraphNodeImpl<>(node.getName());
+        created.setPayloadName(node.getPayloadName());
+        created.setPayload(node.getPayload());
+        created.setPathDelimiter(node.getPathDelimiter());
+        if(properties != null) {
+            created.setProperties(new LinkedHashMap<>(properties));
+        }
+        for(GraphNode<T> child : children) {
+            created.addChild(child);
+        }
+        // The children list was built for this node alone; the properties are copied again so that the key
+        // does not change with the shared node
+        sharedNodes.put(new NodeKey<>(node.getName(), node.getPayloadName(), node.getPayload(), node.getPathDelimiter(),
+                properties != null ? Collections.unmodifiableMap(new LinkedHashMap<>(properties)) : null,
+                Collections.unmodifiableList(children)), created);
+        return created;
+    }
+
+    private static class Frame<T> {
+
+        private final TreeNode<T> node;
+        private final List<TreeNode<T>> children;
+        private final List<GraphNode<T>> sharedChildren;
+        private int nextChild;
+
+        Frame(TreeNode<T> node) {
+            this.node = node;
+            this.children = node.hasChildren() ? node.getChildren() : Collections.<TreeNode<T>>emptyList();
+            this.sharedChildren = new ArrayList<>(children.size());
+        }
+    }
+
+    /**
+     * Identity of a shared node: its own fields and the identities of its shared children.
+     */
+    private static class NodeKey<T> {
+
+        private final String name;
+        private final String payloadName;
+        private final T payload;
+        private final String pathDelimiter;
+        private final Map<String, Object> properties;
+        private final List<GraphNode<T>> children;
+        private final int hash;
+
+        NodeKey(String name, String payloadName, T payload, String pathDelimiter, Map<String, Object> properties, List<GraphNode<T>> children) {
+            this.name = name;
+            this.payloadName = payloadName;
+            this.payload = payload;
+            this.pathDelimiter = pathDelimiter;
+            this.properties = properties;
+            this.children = children;
+            int hash = Objects.hash(name, payloadName, payload, pathDelimiter, properties);
+            for(GraphNode<T> child : children) {
+                hash = 31 * hash + System.identityHashCode(child);
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof NodeKey)) {
+                return false;
+            }
+            NodeKey<?> key = (NodeKey<?>)other;
+            if(hash != key.hash || children.size() != key.children.size()
+                    || !Objects.equals(name, key.name) || !Objects.equals(payloadName, key.payloadName)
+                    || !Objects.equals(payload, key.payload) || !Objects.equals(pathDelimiter, key.pathDelimiter)
+                    || !Objects.equals(properties, key.properties)) {
+                return false;
+            }
+            for(int index = 0; index < children.size(); index++) {
+                if(children.get(index) != key.children.get(index)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * Returns true if the shared node still has the fields and children recorded in this key.
+         */
+        boolean describes(GraphNode<T> node) {
+            Map<String, Object> nodeProperties = node.getProperties();
+            if(nodeProperties != null && nodeProperties.isEmpty()) {
+                nodeProperties = null;
+            }
+            List<GraphNode<T>> nodeChildren = node.hasChildren() ? node.getChildren() : Collections.<GraphNode<T>>emptyList();
+            if(nodeChildren.size() != children.size()
+                    || !Objects.equals(name, node.getName()) || !Objects.equals(payloadName, node.getPayloadName())
+                    || !Objects.equals(payload, node.getPayload()) || !Objects.equals(pathDelimiter, node.getPathDelimiter())
+                    || !Objects.equals(properties, nodeProperties)) {
+                return false;
+            }
+            for(int index = 0; index < children.size(); index++) {
+                if(children.get(index) != nodeChildren.get(index)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.diff;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.StructuralHash;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static guru.mwangaza.graph.implementation.StructuralHash.combine;
+
+/**
+ * 64-bit hashes of subtrees. The content hash of a node covers its payload, optionally its UUID, and the
+ * names and contents of its descendants in order; the full hash adds the node's own name. Without UUIDs
+ * these are the {@link StructuralHash} values cached in the nodes. With UUIDs, each subtree is hashed
+ * once per diff, bottom-up without recursion.
+ * <br>
+ * Equal hashes are trusted: {@link #contentEquals} compares hashes only, with the collision odds
+ * described in {@link StructuralHash}.
+ *
+ * @param <T>
+ */
+class SubtreeHashes<T> {
+
+    private final boolean includeUuid;
+    private final Map<TreeNode<T>, Long> contentHashes = new IdentityHashMap<>();
+
+    SubtreeHashes(boolean includeUuid) {
+        this.includeUuid = includeUuid;
+    }
+
+    long hash(TreeNode<T> node) {
+        return combine(StructuralHash.hashName(node.getName()), contentHash(node));
+    }
+
+    long contentHash(TreeNode<T> node) {
+        if(!includeUuid) {
+            return StructuralHash.contentHash(node);
+        }
+        Long hash = contentHashes.get(node);
+        if(hash != null) {
+            return hash;
+        }
+        List<TreeNode<T>> preOrder = new ArrayList<>();
+        List<TreeNode<T>> stack = new ArrayList<>();
+        stack.add(node);
+        while(!stack.isEmpty()) {
+            TreeNode<T> current = stack.remove(stack.size() - 1);
+            preOrder.add(current);
+            if(current.hasChildren()) {
+                for(TreeNode<T> child : current.getChildren()) {
+                    if(!contentHashes.containsKey(child)) {
+                        stack.add(child);
+                    }
+                }
+            }
+        }
+        for(int index = preOrder.size() - 1; index >= 0; index--) {
+            TreeNode<T> current = preOrder.get(index);
+            long value = combine(StructuralHash.hashPayload(current.getPayload()), StructuralHash.hashName(current.getUuid()));
+            if(current.hasChildren()) {
+                for(TreeNode<T> child : current.getChildren()) {
+                    value = combine(value, hash(child));
+                }
+            }
+            contentHashes.put(current, value);
+        }
+        return contentHashes.get(node);
+    }
+
+    /**
+     * Returns true if the subtrees have equal content hashes, ignoring the names of the two roots.
+     * Takes constant time once the hashes are computed.
+     */
+    boolean contentEquals(TreeNode<T> first, TreeNode<T> second) {
+        return first == second || contentHash(first) == contentHash(second);
+    }
+}
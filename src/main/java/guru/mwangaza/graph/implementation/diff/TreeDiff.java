@@ -0,0 +1,352 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.diff;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.StructuralHash;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import guru.mwangaza.graph.implementation.name.NameNormalizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Computes the edit script turning one tree into another, such as two snapshots of the same tree.
+ * <br>
+ * The roots are matched with each other, and the children of matched nodes are matched by name
+ * ({@link Matching#NAME}, using the normalizer of the old root, case-insensitively by default) or by
+ * UUID ({@link Matching#UUID}). Matched nodes whose subtrees have equal content hashes are skipped
+ * without a walk. Matched nodes report {@link TreeEditType#RENAMED} and {@link TreeEditType#PAYLOAD_CHANGED}
+ * edits. Unmatched subtrees are then compared with each other to find moved nodes: by UUID, or, when
+ * matching by name, whole subtrees with equal hashes. An unmatched sibling pair differing only by its
+ * name is reported as renamed. The remaining unmatched subtrees are reported as {@link TreeEditType#ADDED}
+ * or {@link TreeEditType#REMOVED}, one edit per subtree root; descendants reported as moved are excluded.
+ * <br>
+ * Edits of matched nodes are produced lazily while the trees are walked, followed by the moves,
+ * removals and additions. Memory beyond the subtree hashes is proportional to the size of the changed
+ * regions. When matching by name, the diff uses the structural hashes cached in {@link TreeNodeImpl}
+ * nodes, so comparing a tree against a copy changed in a few places only rehashes the changed paths
+ * and visits the changed paths and their siblings only.
+ * <br>
+ * Equal hashes are trusted, so a hash collision hides the edits below the colliding nodes. The odds
+ * are given in {@link StructuralHash}; callers that cannot accept them can confirm an empty edit
+ * script with {@link StructuralHash#deepEquals}.
+ *
+ * @param <T>
+ */
+public class TreeDiff<T> {
+
+    /**
+     * How the children of matched nodes are matched.
+     */
+    public enum Matching {
+        NAME,
+        UUID
+    }
+
+    private final Matching matching;
+
+    public TreeDiff(Matching matching) {
+        this.matching = matching;
+    }
+
+    public Matching getMatching() {
+        return matching;
+    }
+
+    /**
+     * Returns the edit script lazily.
+     *
+     * @param oldRoot The root of the old tree
+     * @param newRoot The root of the new tree
+     * @return An iterator over the edits
+     */
+    public Iterator<TreeEdit<T>> iterator(TreeNode<T> oldRoot, TreeNode<T> newRoot) {
+        return new EditIterator(oldRoot, newRoot);
+    }
+
+    public Stream<TreeEdit<T>> stream(TreeNode<T> oldRoot, TreeNode<T> newRoot) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(oldRoot, newRoot), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns the whole edit script.
+     *
+     * @param oldRoot The root of the old tree
+     * @param newRoot The root of the new tree
+     * @return The edits
+     */
+    public List<TreeEdit<T>> diff(TreeNode<T> oldRoot, TreeNode<T> newRoot) {
+        List<TreeEdit<T>> edits = new ArrayList<>();
+        iterator(oldRoot, newRoot).forEachRemaining(edits::add);
+        return edits;
+    }
+
+    private class EditIterator implements Iterator<TreeEdit<T>> {
+
+        private final SubtreeHashes<T> hashes = new SubtreeHashes<>(matching == Matching.UUID);
+        private final NameNormalizer normalizer;
+        private final ArrayDeque<TreeEdit<T>> pending = new ArrayDeque<>();
+        /**
+         * Matched pairs whose subtrees remain to be compared, old node followed by new node.
+         */
+        private final ArrayDeque<TreeNode<T>> pairs = new ArrayDeque<>();
+        private final List<TreeNode<T>> removedRoots = new ArrayList<>();
+        private final List<TreeNode<T>> addedRoots = new ArrayList<>();
+        private boolean unmatchedCompared;
+
+        EditIterator(TreeNode<T> oldRoot, TreeNode<T> newRoot) {
+            normalizer = oldRoot instanceof TreeNodeImpl && ((TreeNodeImpl<T>)oldRoot).getNameNormalizer() != null
+                    ? ((TreeNodeImpl<T>)oldRoot).getNameNormalizer() : NameNormalizer.CASE_INSENSITIVE;
+            pairs.push(newRoot);
+            pairs.push(oldRoot);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(pending.isEmpty()) {
+                if(!pairs.isEmpty()) {
+                    TreeNode<T> oldNode = pairs.pop();
+                    compare(oldNode, pairs.pop());
+                } else if(!unmatchedCompared) {
+                    unmatchedCompared = true;
+                    compareUnmatched();
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public TreeEdit<T> next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+
+        /**
+         * Compares a matched pair and matches their children.
+         */
+        private void compare(TreeNode<T> oldNode, TreeNode<T> newNode) {
+            reportChanges(oldNode, newNode);
+            if(hashes.contentEquals(oldNode, newNode)) {
+                return;
+            }
+            Map<Object, ArrayDeque<TreeNode<T>>> newChildren = new LinkedHashMap<>();
+            for(TreeNode<T> child : children(newNode)) {
+                newChildren.computeIfAbsent(key(child), k -> new ArrayDeque<>()).add(child);
+            }
+            List<TreeNode<T>> unmatchedOld = new ArrayList<>();
+            List<TreeNode<T>> matchedPairs = new ArrayList<>();
+            for(TreeNode<T> child : children(oldNode)) {
+                ArrayDeque<TreeNode<T>> candidates = newChildren.get(key(child));
+                TreeNode<T> match = candidates != null ? candidates.poll() : null;
+                if(match != null) {
+                    matchedPairs.add(child);
+                    matchedPairs.add(match);
+                } else {
+                    unmatchedOld.add(child);
+                }
+            }
+            List<TreeNode<T>> unmatchedNew = new ArrayList<>();
+            for(ArrayDeque<TreeNode<T>> candidates : newChildren.values()) {
+                unmatchedNew.addAll(candidates);
+            }
+            if(matching == Matching.NAME) {
+                pairRenamedSiblings(unmatchedOld, unmatchedNew);
+            }
+            removedRoots.addAll(unmatchedOld);
+            addedRoots.addAll(unmatchedNew);
+            for(int index = matchedPairs.size() - 2; index >= 0; index -= 2) {
+                pairs.push(matchedPairs.get(index + 1));
+                pairs.push(matchedPairs.get(index));
+            }
+        }
+
+        /**
+         * Reports unmatched siblings with equal contents but different names as renamed.
+         */
+        private void pairRenamedSiblings(List<TreeNode<T>> unmatchedOld, List<TreeNode<T>> unmatchedNew) {
+            if(unmatchedOld.isEmpty() || unmatchedNew.isEmpty()) {
+                return;
+            }
+            Map<Long, ArrayDeque<TreeNode<T>>> newByContent = new HashMap<>();
+            for(TreeNode<T> child : unmatchedNew) {
+                newByContent.computeIfAbsent(hashes.contentHash(child), k -> new ArrayDeque<>()).add(child);
+            }
+            for(Iterator<TreeNode<T>> iterator = unmatchedOld.iterator(); iterator.hasNext(); ) {
+                TreeNode<T> child = iterator.next();
+                ArrayDeque<TreeNode<T>> candidates = newByContent.get(hashes.contentHash(child));
+                TreeNode<T> match = candidates != null ? candidates.poll() : null;
+                if(match != null) {
+                    iterator.remove();
+                    unmatchedNew.remove(match);
+                    pending.add(new TreeEdit<>(TreeEditType.RENAMED, child, match));
+                }
+            }
+        }
+
+        /**
+         * Pairs nodes of the removed and added subtrees, then reports moves, removals and additions.
+         */
+        private void compareUnmatched() {
+            Map<Object, ArrayDeque<TreeNode<T>>> addedNodes = new HashMap<>();
+            for(TreeNode<T> node : preOrder(addedRoots)) {
+                addedNodes.computeIfAbsent(moveKey(node), k -> new ArrayDeque<>()).add(node);
+            }
+            Map<TreeNode<T>, TreeNode<T>> moved = new IdentityHashMap<>();
+            Set<TreeNode<T>> claimed = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<TreeNode<T>> removedRootSet = identitySet(removedRoots);
+            List<TreeEdit<T>> moves = new ArrayList<>();
+            List<TreeEdit<T>> removals = new ArrayList<>();
+            ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+            pushAll(stack, removedRoots);
+            while(!stack.isEmpty()) {
+                TreeNode<T> oldNode = stack.pop();
+                TreeNode<T> newNode = pollUnclaimed(addedNodes.get(moveKey(oldNode)), claimed);
+                if(newNode != null) {
+                    moved.put(oldNode, newNode);
+                    claimed.add(newNode);
+                    if(moved.get(oldNode.getParent()) != newNode.getParent()) {
+                        moves.add(new TreeEdit<>(TreeEditType.MOVED, oldNode, newNode));
+                    }
+                    if(matching == Matching.UUID) {
+                        reportChanges(oldNode, newNode);
+                    }
+                    if(matching == Matching.NAME || hashes.contentEquals(oldNode, newNode)) {
+                        markSubtree(moved, claimed, oldNode, newNode);
+                        continue;
+                    }
+                } else if(removedRootSet.contains(oldNode) || moved.containsKey(oldNode.getParent())) {
+                    removals.add(new TreeEdit<>(TreeEditType.REMOVED, oldNode, null));
+                }
+                pushAll(stack, children(oldNode));
+            }
+            Set<TreeNode<T>> addedRootSet = identitySet(addedRoots);
+            pending.addAll(moves);
+            pending.addAll(removals);
+            pushAll(stack, addedRoots);
+            while(!stack.isEmpty()) {
+                TreeNode<T> newNode = stack.pop();
+                if(!claimed.contains(newNode) && (addedRootSet.contains(newNode) || claimed.contains(newNode.getParent()))) {
+                    pending.add(new TreeEdit<>(TreeEditType.ADDED, null, newNode));
+                }
+                pushAll(stack, children(newNode));
+            }
+        }
+
+        /**
+         * Removes and returns the first candidate not claimed yet, dropping the claimed ones.
+         */
+        private TreeNode<T> pollUnclaimed(ArrayDeque<TreeNode<T>> candidates, Set<TreeNode<T>> claimed) {
+            if(candidates == null) {
+                return null;
+            }
+            TreeNode<T> candidate = candidates.poll();
+            while(candidate != null && claimed.contains(candidate)) {
+                candidate = candidates.poll();
+            }
+            return candidate;
+        }
+
+        /**
+         * Records the descendants of an identical moved subtree as moved with it.
+         */
+        private void markSubtree(Map<TreeNode<T>, TreeNode<T>> moved, Set<TreeNode<T>> claimed, TreeNode<T> oldNode, TreeNode<T> newNode) {
+            ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+            stack.push(newNode);
+            stack.push(oldNode);
+            while(!stack.isEmpty()) {
+                TreeNode<T> oldCurrent = stack.pop();
+                TreeNode<T> newCurrent = stack.pop();
+                moved.put(oldCurrent, newCurrent);
+                claimed.add(newCurrent);
+                List<TreeNode<T>> oldChildren = children(oldCurrent);
+                List<TreeNode<T>> newChildren = children(newCurrent);
+                for(int index = 0; index < oldChildren.size() && index < newChildren.size(); index++) {
+                    stack.push(newChildren.get(index));
+                    stack.push(oldChildren.get(index));
+                }
+            }
+        }
+
+        private void reportChanges(TreeNode<T> oldNode, TreeNode<T> newNode) {
+            if(!Objects.equals(oldNode.getName(), newNode.getName())) {
+                pending.add(new TreeEdit<>(TreeEditType.RENAMED, oldNode, newNode));
+            }
+            if(!Objects.equals(oldNode.getPayload(), newNode.getPayload())) {
+                pending.add(new TreeEdit<>(TreeEditType.PAYLOAD_CHANGED, oldNode, newNode));
+            }
+        }
+
+        private Object key(TreeNode<T> node) {
+            if(matching == Matching.UUID) {
+                return node.getUuid();
+            }
+            return node.getName() != null ? normalizer.normalize(node.getName()) : "";
+        }
+
+        private Object moveKey(TreeNode<T> node) {
+            return matching == Matching.UUID ? node.getUuid() : hashes.hash(node);
+        }
+
+        private List<TreeNode<T>> preOrder(List<TreeNode<T>> roots) {
+            List<TreeNode<T>> nodes = new ArrayList<>();
+            ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+            pushAll(stack, roots);
+            while(!stack.isEmpty()) {
+                TreeNode<T> node = stack.pop();
+                nodes.add(node);
+                pushAll(stack, children(node));
+            }
+            return nodes;
+        }
+
+        private void pushAll(ArrayDeque<TreeNode<T>> stack, List<TreeNode<T>> nodes) {
+            for(int index = nodes.size() - 1; index >= 0; index--) {
+                stack.push(nodes.get(index));
+            }
+        }
+
+        private List<TreeNode<T>> children(TreeNode<T> node) {
+            return node.hasChildren() ? node.getChildren() : Collections.<TreeNode<T>>emptyList();
+        }
+
+        private Set<TreeNode<T>> identitySet(List<TreeNode<T>> nodes) {
+            Set<TreeNode<T>> set = Collections.newSetFromMap(new IdentityHashMap<>());
+            for(TreeNode<T> node : nodes) {
+                set.add(node);
+            }
+            return set;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.diff;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+/**
+ * An edit of a {@link TreeDiff} edit script. Added edits have no old node and removed edits have
+ * no new node. Paths are computed on demand.
+ *
+ * @param <T>
+ */
+public class TreeEdit<T> {
+
+    private final TreeEditType type;
+    private final TreeNode<T> oldNode;
+    private final TreeNode<T> newNode;
+
+    public TreeEdit(TreeEditType type, TreeNode<T> oldNode, TreeNode<T> newNode) {
+        this.type = type;
+        this.oldNode = oldNode;
+        this.newNode = newNode;
+    }
+
+    public TreeEditType getType() {
+        return type;
+    }
+
+    public TreeNode<T> getOldNode() {
+        return oldNode;
+    }
+
+    public TreeNode<T> getNewNode() {
+        return newNode;
+    }
+
+    /**
+     * Returns the path of the node in the old tree, or null for an added node.
+     *
+     * @return The old path
+     */
+    public String getOldPath() {
+        return oldNode != null ? oldNode.getPathFromRoot() : null;
+    }
+
+    /**
+     * Returns the path of the node in the new tree, or null for a removed node.
+     *
+     * @return The new path
+     */
+    public String getNewPath() {
+        return newNode != null ? newNode.getPathFromRoot() : null;
+    }
+
+    @Override
+    public String toString() {
+        switch(type) {
+            case ADDED:
+                return type + " " + getNewPath();
+            case REMOVED:
+                return type + " " + getOldPath();
+            case PAYLOAD_CHANGED:
+                return type + " " + getNewPath() + ": " + oldNode.getPayload() + " -> " + newNode.getPayload();
+            default:
+                return type + " " + getOldPath() + " -> " + getNewPath();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.diff;
+
+/**
+ * The kinds of edits reported by a {@link TreeDiff}.
+ */
+public enum TreeEditType {
+    /**
+     * A subtree present only in the new tree.
+     */
+    ADDED,
+    /**
+     * A subtree present only in the old tree.
+     */
+    REMOVED,
+    /**
+     * A node found under another parent in the new tree.
+     */
+    MOVED,
+    /**
+     * A node whose name changed.
+     */
+    RENAMED,
+    /**
+     * A node whose payload changed.
+     */
+    PAYLOAD_CHANGED
+}
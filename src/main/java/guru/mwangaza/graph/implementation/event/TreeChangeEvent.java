@@ -0,0 +1,104 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.event;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+/**
+ * A change made to a node of a tree.
+ *
+ * @param <T>
+ */
+public class TreeChangeEvent<T> {
+
+    private final TreeChangeType type;
+    private final TreeNode<T> node;
+    private final TreeNode<T> child;
+    private final String key;
+    private final Object oldValue;
+    private final Object newValue;
+
+    /**
+     * Creates an event.
+     *
+     * @param type The kind of change
+     * @param node The changed node
+     * @param child The added or removed child, or null
+     * @param key The property key, or null
+     * @param oldValue The previous value, or null
+     * @param newValue The new value, or null
+     */
+    public TreeChangeEvent(TreeChangeType type, TreeNode<T> node, TreeNode<T> child, String key, Object oldValue, Object newValue) {
+        this.type = type;
+        this.node = node;
+        this.child = child;
+        this.key = key;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    public TreeChangeType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the changed node. For added and removed children, the parent.
+     *
+     * @return
+     */
+    public TreeNode<T> getNode() {
+        return node;
+    }
+
+    /**
+     * Returns the added or removed child, or null for other changes.
+     *
+     * @return
+     */
+    public TreeNode<T> getChild() {
+        return child;
+    }
+
+    /**
+     * Returns the key of a changed property, or null for other changes.
+     *
+     * @return
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder().append(type).append(' ').append(node);
+        if(child != null) {
+            builder.append(' ').append(child);
+        } else if(key != null) {
+            builder.append(' ').append(key).append(": ").append(oldValue).append(" -> ").append(newValue);
+        } else {
+            builder.append(": ").append(oldValue).append(" -> ").append(newValue);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.event;
+
+import java.util.List;
+
+/**
+ * Receives the changes made within the subtree of the node it is registered on with
+ * {@link guru.mwangaza.graph.implementation.TreeNodeImpl#addTreeChangeListener}.
+ * <br>
+ * Events are delivered synchronously after each change, one per notification, or, for changes
+ * made within {@link guru.mwangaza.graph.implementation.TreeNodeImpl#batchEvents}, all together
+ * in a single notification once the batch ends.
+ *
+ * @param <T>
+ */
+@FunctionalInterface
+public interface TreeChangeListener<T> {
+
+    /**
+     * Called after changes were made.
+     *
+     * @param events The changes in the order they were made
+     */
+    void treeChanged(List<TreeChangeEvent<T>> events);
+}
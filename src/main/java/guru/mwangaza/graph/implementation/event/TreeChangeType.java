@@ -0,0 +1,47 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.event;
+
+/**
+ * The kinds of changes reported to {@link TreeChangeListener}s.
+ */
+public enum TreeChangeType {
+    /**
+     * A child was added to the node.
+     */
+    CHILD_ADDED,
+    /**
+     * A child and its subtree were removed from the node.
+     */
+    CHILD_REMOVED,
+    /**
+     * The node was renamed. The old and new values are the names.
+     */
+    RENAMED,
+    /**
+     * The node's payload was set. The old and new values are the payloads.
+     */
+    PAYLOAD_SET,
+    /**
+     * A property of the node was set or removed. The old and new values are the property values.
+     */
+    PROPERTY_SET,
+    /**
+     * The node's parent changed. The old and new values are the parents. Reported only to the
+     * listeners registered on the node itself.
+     */
+    REPARENTED
+}
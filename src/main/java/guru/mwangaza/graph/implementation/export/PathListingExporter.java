@@ -0,0 +1,226 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.export;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Writes the leaf paths of a tree, as returned by {@link TreeNode#getPathsFromNode()}, to a channel,
+ * one path per line.
+ * <br>
+ * The tree is walked once, iteratively. The path of the current branch is kept as encoded bytes, each
+ * node name being encoded once when its node is visited, and each leaf path is copied from that prefix
+ * into a reused direct buffer that is flushed to the channel when full. No path strings are created,
+ * so with UTF-8, the default, an export produces almost no garbage regardless of its size. Other charsets
+ * are encoded through {@link String#getBytes(Charset)}.
+ * <br>
+ * Instances reuse their buffers and are not thread-safe.
+ */
+public class PathListingExporter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final ByteBuffer buffer;
+    private final Charset charset;
+    /**
+     * The encoded path of the current branch, followed by scratch space for the node being visited.
+     */
+    private byte[] prefix = new byte[256];
+    private int[] prefixLengths = new int[16];
+    private long pathCount;
+    private long byteCount;
+
+    /**
+     * Creates an exporter writing UTF-8 through a buffer of {@link #DEFAULT_BUFFER_SIZE} bytes.
+     */
+    public PathListingExporter() {
+        this(DEFAULT_BUFFER_SIZE, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates an exporter.
+     *
+     * @param bufferSize The size of the direct buffer in bytes
+     * @param charset The charset of the listing
+     */
+    public PathListingExporter(int bufferSize, Charset charset) {
+        if(bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.charset = charset;
+    }
+
+    /**
+     * Writes the leaf paths of the subtree rooted at root to the file, replacing its content.
+     *
+     * @param root The node the paths start from
+     * @param file The destination file
+     * @return The number of paths written
+     * @throws IOException
+     */
+    public long export(TreeNode<?> root, Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return export(root, channel);
+        }
+    }
+
+    /**
+     * Writes the leaf paths of the subtree rooted at root to the channel. The channel is not closed.
+     *
+     * @param root The node the paths start from
+     * @param channel The destination
+     * @return The number of paths written
+     * @throws IOException
+     */
+    public <T> long export(TreeNode<T> root, WritableByteChannel channel) throws IOException {
+        pathCount = 0;
+        byteCount = 0;
+        buffer.clear();
+        byte[] delimiter = root.getPathDelimiter().getBytes(charset);
+        int length = append(0, root.buildPathComponent());
+        if(root.isLeaf()) {
+            writePath(channel, length);
+        } else {
+            Deque<Iterator<TreeNode<T>>> stack = new ArrayDeque<>();
+            stack.push(root.getChildren().iterator());
+            setPrefixLength(1, length);
+            while(!stack.isEmpty()) {
+                Iterator<TreeNode<T>> children = stack.peek();
+                if(!children.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                TreeNode<T> child = children.next();
+                length = append(append(prefixLengths[stack.size()], delimiter), child.getName());
+                if(child.isLeaf()) {
+                    writePath(channel, length);
+                } else {
+                    stack.push(child.getChildren().iterator());
+                    setPrefixLength(stack.size(), length);
+                }
+            }
+        }
+        flush(channel);
+        return pathCount;
+    }
+
+    /**
+     * Returns the number of paths written by the last export.
+     */
+    public long getPathCount() {
+        return pathCount;
+    }
+
+    /**
+     * Returns the number of bytes written by the last export.
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    private void setPrefixLength(int depth, int length) {
+        if(depth >= prefixLengths.length) {
+            prefixLengths = Arrays.copyOf(prefixLengths, prefixLengths.length * 2);
+        }
+        prefixLengths[depth] = length;
+    }
+
+    /**
+     * Copies the path held in the first length bytes of the prefix and a line feed to the buffer.
+     */
+    private void writePath(WritableByteChannel channel, int length) throws IOException {
+        int offset = 0;
+        while(offset < length) {
+            if(!buffer.hasRemaining()) {
+                flush(channel);
+            }
+            int count = Math.min(buffer.remaining(), length - offset);
+            buffer.put(prefix, offset, count);
+            offset += count;
+        }
+        if(!buffer.hasRemaining()) {
+            flush(channel);
+        }
+        buffer.put((byte)'\n');
+        pathCount++;
+    }
+
+    private void flush(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            byteCount += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private int append(int offset, byte[] bytes) {
+        ensureCapacity(offset + bytes.length);
+        System.arraycopy(bytes, 0, prefix, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    /**
+     * Encodes text into the prefix at offset and returns the offset following it.
+     */
+    private int append(int offset, String text) {
+        if(charset != StandardCharsets.UTF_8) {
+            return append(offset, text.getBytes(charset));
+        }
+        ensureCapacity(offset + text.length() * 3);
+        for(int index = 0; index < text.length(); index++) {
+            char c = text.charAt(index);
+            if(c < 0x80) {
+                prefix[offset++] = (byte)c;
+            } else if(c < 0x800) {
+                prefix[offset++] = (byte)(0xC0 | (c >> 6));
+                prefix[offset++] = (byte)(0x80 | (c & 0x3F));
+            } else if(Character.isHighSurrogate(c) && index + 1 < text.length() && Character.isLowSurrogate(text.charAt(index + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++index));
+                prefix[offset++] = (byte)(0xF0 | (codePoint >> 18));
+                prefix[offset++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                prefix[offset++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                prefix[offset++] = (byte)(0x80 | (codePoint & 0x3F));
+            } else if(Character.isSurrogate(c)) {
+                prefix[offset++] = (byte)'?';
+            } else {
+                prefix[offset++] = (byte)(0xE0 | (c >> 12));
+                prefix[offset++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                prefix[offset++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+        return offset;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity > prefix.length) {
+            prefix = Arrays.copyOf(prefix, Math.max(capacity, prefix.length * 2));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Hash-based property index answering equality lookups.
+ *
+ * @param <T>
+ */
+public class HashPropertyIndex<T> extends PropertyIndex<T> {
+
+    private final Map<Object, Collection<TreeNode<T>>> entries = new HashMap<>();
+
+    public HashPropertyIndex(TreeNode<T> root, String key) {
+        super(root, key);
+    }
+
+    @Override
+    protected Map<Object, Collection<TreeNode<T>>> getEntries() {
+        return entries;
+    }
+
+    @Override
+    protected void add(TreeNode<T> node, Object value) {
+        entries.computeIfAbsent(value, k -> new LinkedHashSet<>()).add(node);
+    }
+}
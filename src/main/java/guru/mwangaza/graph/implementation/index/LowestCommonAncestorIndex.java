@@ -0,0 +1,258 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.exception.InvalidStateException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lowest common ancestor index over a tree based on an Euler tour and a sparse table for range
+ * minimum queries. Once built, each query runs in constant time.
+ * <br>
+ * The index takes O(n log n) memory. It is built on first use and rebuilt lazily on the next query
+ * after the structure of the tree changes, as reported by {@link TreeNode#getModificationCount()}
+ * on the root.
+ *
+ * @param <T>
+ */
+public class LowestCommonAncestorIndex<T> {
+
+    /**
+     * The root of the indexed tree.
+     */
+    private TreeNode<T> root;
+    /**
+     * Root modification count when the index was built, or -1 if never built.
+     */
+    private long builtAt = -1;
+    /**
+     * Nodes by pre-order number.
+     */
+    private List<TreeNode<T>> nodes;
+    /**
+     * Node-to-pre-order-number index.
+     */
+    private Map<TreeNode<T>, Integer> numbers;
+    /**
+     * Depth of each node by pre-order number.
+     */
+    private int[] depths;
+    /**
+     * Position of each node's first appearance in the Euler tour.
+     */
+    private int[] firstVisit;
+    /**
+     * sparseTable[k][i] is the shallowest node among Euler tour positions i to i + 2^k - 1.
+     */
+    private int[][] sparseTable;
+
+    /**
+     * Creates an index over the tree rooted at root.
+     *
+     * @param root The root of the tree
+     */
+    public LowestCommonAncestorIndex(TreeNode<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the deepest node that is an ancestor of both nodes. A node is considered an ancestor
+     * of itself, so the lowest common ancestor of a node and one of its descendants is the node itself.
+     *
+     * @param first An indexed node
+     * @param second An indexed node
+     * @return The lowest common ancestor
+     */
+    public TreeNode<T> lowestCommonAncestor(TreeNode<T> first, TreeNode<T> second) {
+        refresh();
+        return nodes.get(query(numberOf(first), numberOf(second)));
+    }
+
+    /**
+     * Returns the lowest common ancestor of each pair (first.get(i), second.get(i)). The index is
+     * checked for staleness once for the whole batch.
+     *
+     * @param first The first node of each pair
+     * @param second The second node of each pair
+     * @return The lowest common ancestor of each pair, in pair order
+     */
+    public List<TreeNode<T>> lowestCommonAncestors(List<? extends TreeNode<T>> first, List<? extends TreeNode<T>> second) {
+        if(first.size() != second.size()) {
+            throw new IllegalArgumentException("Pair lists differ in size: " + first.size() + " and " + second.size());
+        }
+        refresh();
+        List<TreeNode<T>> ancestors = new ArrayList<>(first.size());
+        for(int index = 0; index < first.size(); index++) {
+            ancestors.add(nodes.get(query(numberOf(first.get(index)), numberOf(second.get(index)))));
+        }
+        return ancestors;
+    }
+
+    /**
+     * Returns the pre-order number of the lowest common ancestor of each pair of pre-order numbers
+     * (first[i], second[i]). Numbers are those returned by {@link #getPreOrderNumber}; working on
+     * numbers avoids the node lookups for very large batches.
+     *
+     * @param first The first node number of each pair
+     * @param second The second node number of each pair
+     * @return The number of the lowest common ancestor of each pair
+     */
+    public int[] lowestCommonAncestors(int[] first, int[] second) {
+        if(first.length != second.length) {
+            throw new IllegalArgumentException("Pair arrays differ in size: " + first.length + " and " + second.length);
+        }
+        refresh();
+        int[] ancestors = new int[first.length];
+        for(int index = 0; index < first.length; index++) {
+            ancestors[index] = query(first[index], second[index]);
+        }
+        return ancestors;
+    }
+
+    /**
+     * Returns the pre-order number of the node.
+     *
+     * @param node An indexed node
+     * @return The pre-order number
+     */
+    public int getPreOrderNumber(TreeNode<T> node) {
+        refresh();
+        return numberOf(node);
+    }
+
+    /**
+     * Returns the node with the given pre-order number.
+     *
+     * @param number A pre-order number
+     * @return The node
+     */
+    public TreeNode<T> getNode(int number) {
+        refresh();
+        return nodes.get(number);
+    }
+
+    /**
+     * Returns the number of edges between the root and node.
+     *
+     * @param node An indexed node
+     * @return The depth of node
+     */
+    public int getDepth(TreeNode<T> node) {
+        refresh();
+        return depths[numberOf(node)];
+    }
+
+    private int numberOf(TreeNode<T> node) {
+        Integer number = numbers.get(node);
+        if(number == null) {
+            throw new InvalidStateException("Node " + (node != null ? node.getName() : null) + " is not part of the indexed tree");
+        }
+        return number;
+    }
+
+    private int query(int first, int second) {
+        int from = Math.min(firstVisit[first], firstVisit[second]);
+        int to = Math.max(firstVisit[first], firstVisit[second]);
+        int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        int left = sparseTable[level][from];
+        int right = sparseTable[level][to - (1 << level) + 1];
+        return depths[left] <= depths[right] ? left : right;
+    }
+
+    /**
+     * Rebuilds the index if the tree changed since it was last built.
+     */
+    private void refresh() {
+        if(builtAt == root.getModificationCount() && nodes != null) {
+            return;
+        }
+        nodes = new ArrayList<>();
+        numbers = new IdentityHashMap<>();
+        depths = new int[16];
+        firstVisit = new int[16];
+        int[] tour = new int[32];
+        int tourLength = 0;
+
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        ArrayDeque<Integer> positions = new ArrayDeque<>();
+        register(root, 0, tourLength);
+        tour[tourLength++] = 0;
+        stack.push(root);
+        positions.push(0);
+        while(!stack.isEmpty()) {
+            TreeNode<T> node = stack.peek();
+            int position = positions.pop();
+            if(node.hasChildren() && position < node.getChildren().size()) {
+                positions.push(position + 1);
+                TreeNode<T> child = node.getChildren().get(position);
+                if(tourLength + 1 >= tour.length) {
+                    tour = Arrays.copyOf(tour, tour.length * 2);
+                }
+                int number = register(child, stack.size(), tourLength);
+                tour[tourLength++] = number;
+                stack.push(child);
+                positions.push(0);
+            } else {
+                stack.pop();
+                if(!stack.isEmpty()) {
+                    if(tourLength >= tour.length) {
+                        tour = Arrays.copyOf(tour, tour.length * 2);
+                    }
+                    tour[tourLength++] = numbers.get(stack.peek());
+                }
+            }
+        }
+
+        int levels = 32 - Integer.numberOfLeadingZeros(tourLength);
+        sparseTable = new int[levels][];
+        sparseTable[0] = Arrays.copyOf(tour, tourLength);
+        for(int level = 1; level < levels; level++) {
+            int span = 1 << level;
+            int[] previous = sparseTable[level - 1];
+            int[] current = new int[tourLength - span + 1];
+            for(int index = 0; index < current.length; index++) {
+                int left = previous[index];
+                int right = previous[index + (span >> 1)];
+                current[index] = depths[left] <= depths[right] ? left : right;
+            }
+            sparseTable[level] = current;
+        }
+        builtAt = root.getModificationCount();
+    }
+
+    /**
+     * Numbers the node and records its depth and first tour position.
+     */
+    private int register(TreeNode<T> node, int depth, int tourPosition) {
+        int number = nodes.size();
+        nodes.add(node);
+        numbers.put(node, number);
+        if(number == depths.length) {
+            depths = Arrays.copyOf(depths, number * 2);
+            firstVisit = Arrays.copyOf(firstVisit, number * 2);
+        }
+        depths[number] = depth;
+        firstVisit[number] = tourPosition;
+        return number;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import guru.mwangaza.graph.implementation.name.NameNormalizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the nodes of a tree by name. Names are keyed by the normalizer of the root, or case-insensitively
+ * when the root has none, matching {@link TreeNode#isNameEqualTo(String)}. Nodes are listed in depth-first
+ * pre-order, and lookups restricted to a subtree use a {@link TreeIntervalIndex} for the ancestor tests.
+ * <br>
+ * The index is built on first use and rebuilt lazily on the next lookup after the structure or the names
+ * of the tree change, as reported by {@link TreeNode#getModificationCount()} on the root.
+ *
+ * @param <T>
+ */
+public class NameIndex<T> {
+
+    private final TreeNode<T> root;
+    private final TreeIntervalIndex<T> intervals;
+    private final Map<String, List<TreeNode<T>>> nodesByName = new HashMap<>();
+    private NameNormalizer normalizer;
+    /**
+     * Root modification count when the index was built, or -1 if never built.
+     */
+    private long builtAt = -1;
+
+    /**
+     * Creates an index over the tree rooted at root.
+     *
+     * @param root The root of the tree
+     */
+    public NameIndex(TreeNode<T> root) {
+        this.root = root;
+        this.intervals = new TreeIntervalIndex<>(root);
+    }
+
+    public TreeNode<T> getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the nodes of the tree with the name, in pre-order.
+     *
+     * @param name The name looked up
+     * @return The nodes with the name
+     */
+    public List<TreeNode<T>> find(String name) {
+        refresh();
+        List<TreeNode<T>> nodes = name != null ? nodesByName.get(normalizer.normalize(name)) : null;
+        return nodes != null ? Collections.unmodifiableList(nodes) : Collections.<TreeNode<T>>emptyList();
+    }
+
+    /**
+     * Returns the nodes with the name in the subtree of ancestor, in pre-order.
+     *
+     * @param ancestor A node of the tree
+     * @param name The name looked up
+     * @param includeSelf True if ancestor itself is returned when it has the name
+     * @return The nodes with the name
+     */
+    public List<TreeNode<T>> findInSubtree(TreeNode<T> ancestor, String name, boolean includeSelf) {
+        List<TreeNode<T>> nodes = find(name);
+        if(ancestor == root && includeSelf) {
+            return nodes;
+        }
+        List<TreeNode<T>> inSubtree = new ArrayList<>();
+        for(TreeNode<T> node : nodes) {
+            if((includeSelf && node == ancestor) || intervals.isAncestorOf(ancestor, node)) {
+                inSubtree.add(node);
+            }
+        }
+        return inSubtree;
+    }
+
+    /**
+     * Returns true if node belongs to the indexed tree.
+     *
+     * @param node The node
+     * @return True if indexed
+     */
+    public boolean contains(TreeNode<T> node) {
+        return intervals.contains(node);
+    }
+
+    private void refresh() {
+        if(builtAt == root.getModificationCount()) {
+            return;
+        }
+        nodesByName.clear();
+        normalizer = root instanceof TreeNodeImpl && ((TreeNodeImpl<T>)root).getNameNormalizer() != null
+                ? ((TreeNodeImpl<T>)root).getNameNormalizer() : NameNormalizer.CASE_INSENSITIVE;
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while(!stack.isEmpty()) {
+            TreeNode<T> node = stack.pop();
+            if(node.getName() != null) {
+                nodesByName.computeIfAbsent(normalizer.normalize(node.getName()), k -> new ArrayList<>()).add(node);
+            }
+            if(node.hasChildren()) {
+                List<TreeNode<T>> children = node.getChildren();
+                for(int index = children.size() - 1; index >= 0; index--) {
+                    stack.push(children.get(index));
+                }
+            }
+        }
+        builtAt = root.getModificationCount();
+    }
+}
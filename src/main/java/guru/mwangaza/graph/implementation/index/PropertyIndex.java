@@ -0,0 +1,318 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.exception.InvalidStateException;
+import guru.mwangaza.graph.implementation.SubtreeObserver;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary index mapping the values of one property to the nodes of a subtree holding them.
+ * <br>
+ * The index registers as a {@link SubtreeObserver} on the subtree root and is built by walking the
+ * subtree on first lookup. From then on it is maintained incrementally, so that a large tree queried
+ * between small changes is not walked again: property changes made through
+ * {@link TreeNodeImpl#addProperty} or {@link TreeNodeImpl#setProperties} move one node, and adding or
+ * removing a child indexes or drops the nodes of that child's subtree only. Structural changes that are
+ * not reported child by child, such as loading or unloading lazy children or rolling back a
+ * {@link guru.mwangaza.graph.implementation.TreeBatch}, mark the index stale and it is rebuilt on the
+ * next lookup. Values written directly into a property map returned by
+ * {@link TreeNodeImpl#getProperties()} bypass the notifications and are only picked up by a rebuild.
+ * <br>
+ * Subtrees removed in a batch are dropped when the batch commits, as they stand then: nodes detached
+ * from a subtree after its removal in the same batch stay indexed until the next rebuild.
+ * <br>
+ * Numbers are indexed by value, as the property criteria compare them: integral values and floating
+ * values holding a whole number are keyed as Long, other floating values as Double. An Integer property
+ * is therefore found by a Long or Double lookup of the same value.
+ *
+ * @param <T>
+ */
+public abstract class PropertyIndex<T> implements SubtreeObserver<T> {
+
+    private final TreeNodeImpl<T> root;
+    private final String key;
+    /**
+     * The modification count of the root the index is up to date with, or -1.
+     */
+    private long builtAt = -1;
+    /**
+     * The normalized value under which each indexed node is held.
+     */
+    private final Map<TreeNode<T>, Object> indexedValues = new IdentityHashMap<>();
+    /**
+     * The nodes whose child additions and removals were applied since their last change.
+     */
+    private final Set<TreeNode<T>> reported = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * True while the index walks the tree, during which loads of lazy nodes are not reported separately.
+     */
+    private boolean walking;
+
+    /**
+     * Creates the index and registers it on the subtree root. The index is built on first lookup.
+     *
+     * @param root The root of the indexed subtree
+     * @param key The indexed property key
+     * @throws InvalidStateException if the root is not a {@link TreeNodeImpl}
+     */
+    protected PropertyIndex(TreeNode<T> root, String key) {
+        if(!(root instanceof TreeNodeImpl)) {
+            throw new InvalidStateException("Property indexes require a TreeNodeImpl root");
+        }
+        this.root = (TreeNodeImpl<T>)root;
+        this.key = key;
+        this.root.addSubtreeObserver(this);
+    }
+
+    public TreeNode<T> getRoot() {
+        return root;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns true if the index answers range and prefix lookups.
+     *
+     * @return True for ordered indexes
+     */
+    public boolean isOrdered() {
+        return false;
+    }
+
+    /**
+     * Returns the nodes whose property equals the value.
+     *
+     * @param value The value looked up
+     * @return The matching nodes
+     */
+    public List<TreeNode<T>> findEqual(Object value) {
+        refresh();
+        Collection<TreeNode<T>> nodes = getEntries().get(normalize(value));
+        return nodes != null ? new ArrayList<>(nodes) : Collections.<TreeNode<T>>emptyList();
+    }
+
+    /**
+     * Returns the nodes whose property lies between two bounds. A null bound leaves that side open.
+     *
+     * @throws UnsupportedOperationException if the index is not ordered
+     */
+    public List<TreeNode<T>> findRange(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support range lookups");
+    }
+
+    /**
+     * Returns the nodes whose property is a string starting with the prefix.
+     *
+     * @throws UnsupportedOperationException if the index is not ordered
+     */
+    public List<TreeNode<T>> findPrefix(String prefix) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support prefix lookups");
+    }
+
+    /**
+     * Returns the number of distinct values indexed.
+     *
+     * @return The number of distinct values
+     */
+    public int getDistinctValueCount() {
+        refresh();
+        return getEntries().size();
+    }
+
+    /**
+     * Rebuilds the index if the subtree changed in a way the index could not follow since it was built.
+     */
+    public void refresh() {
+        if(builtAt == root.getModificationCount()) {
+            return;
+        }
+        getEntries().clear();
+        indexedValues.clear();
+        reported.clear();
+        indexSubtree(root);
+        builtAt = root.getModificationCount();
+    }
+
+    /**
+     * Unregisters the index from its subtree root. The index is no longer maintained afterwards.
+     */
+    public void detach() {
+        root.removeSubtreeObserver(this);
+        getEntries().clear();
+        indexedValues.clear();
+        reported.clear();
+        builtAt = -1;
+    }
+
+    @Override
+    public void subtreeChanged(TreeNodeImpl<T> changed, boolean structural) {
+        if(!structural) {
+            return;
+        }
+        // Each structural change advances the root's modification count once. The index stays up to date
+        // only if it was before the change and the change was applied, otherwise it is rebuilt on the next lookup.
+        boolean applied = reported.remove(changed) || walking;
+        if(applied && builtAt == root.getModificationCount() - 1) {
+            builtAt = root.getModificationCount();
+        }
+    }
+
+    @Override
+    public void subtreeAdded(TreeNodeImpl<T> parent, TreeNode<T> added) {
+        if(builtAt != root.getModificationCount() || walking) {
+            return;
+        }
+        indexSubtree(added);
+        reported.add(parent);
+    }
+
+    @Override
+    public void subtreeRemoved(TreeNodeImpl<T> parent, TreeNode<T> removed) {
+        if(builtAt != root.getModificationCount() || walking) {
+            return;
+        }
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(removed);
+        walking = true;
+        try {
+            while(!stack.isEmpty()) {
+                TreeNode<T> node = stack.pop();
+                unindex(node);
+                if(node.hasChildren()) {
+                    for(TreeNode<T> child : node.getChildren()) {
+                        stack.push(child);
+                    }
+                }
+            }
+        } finally {
+            walking = false;
+        }
+        reported.add(parent);
+    }
+
+    @Override
+    public void propertyChanged(TreeNodeImpl<T> node, String key, Object oldValue, Object newValue) {
+        if(!this.key.equals(key) || builtAt != root.getModificationCount()) {
+            return;
+        }
+        unindex(node);
+        if(newValue != null) {
+            index(node, normalize(newValue));
+        }
+    }
+
+    /**
+     * Indexes the nodes of a subtree in depth-first order.
+     */
+    private void indexSubtree(TreeNode<T> subtreeRoot) {
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(subtreeRoot);
+        walking = true;
+        try {
+            while(!stack.isEmpty()) {
+                TreeNode<T> node = stack.pop();
+                Map<String, Object> properties = node.getProperties();
+                Object value = properties != null ? properties.get(key) : null;
+                unindex(node);
+                if(value != null) {
+                    index(node, normalize(value));
+                }
+                if(node.hasChildren()) {
+                    List<TreeNode<T>> children = node.getChildren();
+                    for(int index = children.size() - 1; index >= 0; index--) {
+                        stack.push(children.get(index));
+                    }
+                }
+            }
+        } finally {
+            walking = false;
+        }
+    }
+
+    private void index(TreeNode<T> node, Object value) {
+        add(node, value);
+        indexedValues.put(node, value);
+    }
+
+    private void unindex(TreeNode<T> node) {
+        Object value = indexedValues.remove(node);
+        if(value != null) {
+            remove(node, value);
+        }
+    }
+
+    /**
+     * Returns the key under which a value is indexed: numbers are converted to Long or Double so that
+     * equal numbers of different classes share a key. Other values are returned unchanged.
+     *
+     * @param value The property value
+     * @return The index key
+     */
+    protected static Object normalize(Object value) {
+        if(value instanceof Long) {
+            return value;
+        } else if(value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number)value).longValue();
+        } else if(value instanceof Double || value instanceof Float) {
+            double number = ((Number)value).doubleValue();
+            if(number == Math.rint(number) && number >= Long.MIN_VALUE && number < 0x1p63) {
+                return (long)number;
+            }
+            return number;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the map of indexed values to their nodes, keyed by {@link #normalize normalized} value.
+     *
+     * @return The index entries
+     */
+    protected abstract Map<Object, Collection<TreeNode<T>>> getEntries();
+
+    /**
+     * Adds a node under a normalized value.
+     */
+    protected abstract void add(TreeNode<T> node, Object value);
+
+    /**
+     * Removes a node from under a normalized value.
+     */
+    protected void remove(TreeNode<T> node, Object value) {
+        Collection<TreeNode<T>> nodes = getEntries().get(value);
+        if(nodes != null && nodes.remove(node) && nodes.isEmpty()) {
+            getEntries().remove(value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + key + ")";
+    }
+}
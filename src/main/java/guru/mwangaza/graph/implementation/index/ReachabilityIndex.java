@@ -0,0 +1,361 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.exception.InvalidStateException;
+import guru.mwangaza.graph.implementation.algorithm.GraphPathFinder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed reachability index over a directed acyclic graph of {@link GraphNode}s, answering
+ * "is X a descendant of Y" in constant time.
+ * <br>
+ * Every node reachable from the root is numbered in depth-first pre-order and labeled with the
+ * pre/post interval of its depth-first spanning tree. A node whose interval encloses another's is
+ * its ancestor. If every indexed node has a single parent the intervals answer all queries. Otherwise
+ * the index also keeps the transitive closure of each node as a bitset over the pre-order numbering,
+ * which keeps each descendant set clustered into few words.
+ * <br>
+ * The index is not updated by direct changes to the graph. Edges added through {@link #addEdge}
+ * are applied to the graph and folded into the index: once a closure exists only the ancestors of
+ * the new edge are updated. A tree-like index records a new leaf under its parent without labeling
+ * it, and a query reaching the leaf walks up to the nearest labeled node. Leaves may be chained under
+ * earlier leaves up to {@link #MAX_ANCHOR_DEPTH} deep, so that queries stay constant time; a deeper
+ * leaf, or any other edge, relabels the index.
+ *
+ * @param <T>
+ */
+public class ReachabilityIndex<T> {
+
+    private static final int NO_LABEL = -1;
+    /**
+     * The most unlabeled nodes a query walks through before reaching a labeled one.
+     */
+    public static final int MAX_ANCHOR_DEPTH = 8;
+
+    /**
+     * The node the index was built from.
+     */
+    private GraphNode<T> root;
+    /**
+     * Node-to-number index.
+     */
+    private Map<GraphNode<T>, Integer> ids;
+    /**
+     * Indexed nodes in numbering order.
+     */
+    private List<GraphNode<T>> nodes;
+    /**
+     * Spanning tree entry time of each node, or NO_LABEL for nodes indexed after the build.
+     */
+    private int[] pre;
+    /**
+     * Spanning tree exit time of each node, or NO_LABEL for nodes indexed after the build.
+     */
+    private int[] post;
+    /**
+     * Parent of each leaf attached after the build of a tree-like index, or NO_LABEL.
+     */
+    private int[] anchors;
+    /**
+     * Strict descendants of each node. Null while every indexed node has at most one parent.
+     */
+    private List<BitSet> closure;
+
+    /**
+     * Builds the index for all nodes reachable from root.
+     *
+     * @param root The root of the graph
+     * @throws InvalidStateException if the graph contains a cycle
+     */
+    public ReachabilityIndex(GraphNode<T> root) {
+        this.root = root;
+        rebuild();
+    }
+
+    /**
+     * Discards the index and rebuilds it from the root.
+     */
+    public void rebuild() {
+        ids = new IdentityHashMap<>();
+        nodes = new ArrayList<>();
+        List<GraphNode<T>> postOrder = new ArrayList<>();
+        pre = new int[16];
+        post = new int[16];
+        anchors = new int[16];
+        boolean treeLike = true;
+        int clock = 0;
+
+        Map<GraphNode<T>, Boolean> onStack = new IdentityHashMap<>();
+        ArrayDeque<Frame<T>> stack = new ArrayDeque<>();
+        register(root);
+        pre[0] = clock++;
+        onStack.put(root, Boolean.TRUE);
+        stack.push(new Frame<>(root));
+        while(!stack.isEmpty()) {
+            Frame<T> frame = stack.peek();
+            GraphNode<T> node = frame.node;
+            if(node.hasChildren() && frame.next < node.getChildren().size()) {
+                GraphNode<T> child = node.getChildren().get(frame.next++);
+                if(onStack.containsKey(child)) {
+                    throw new InvalidStateException("Cycle detected at node " + child.getName());
+                }
+                if(ids.containsKey(child)) {
+                    treeLike = false;
+                } else {
+                    int id = register(child);
+                    pre[id] = clock++;
+                    onStack.put(child, Boolean.TRUE);
+                    stack.push(new Frame<>(child));
+                }
+            } else {
+                stack.pop();
+                onStack.remove(node);
+                post[ids.get(node)] = clock++;
+                postOrder.add(node);
+            }
+        }
+
+        closure = null;
+        if(!treeLike) {
+            closure = new ArrayList<>(nodes.size());
+            for(int index = 0; index < nodes.size(); index++) {
+                closure.add(null);
+            }
+            for(GraphNode<T> node : postOrder) {
+                closure.set(ids.get(node), computeClosure(node));
+            }
+        }
+    }
+
+    /**
+     * Returns true if descendant can be reached from ancestor. A node is reachable from itself.
+     * Nodes that are not indexed are not reachable from any node. Takes constant time: at most
+     * {@link #MAX_ANCHOR_DEPTH} anchors are walked for leaves added since the last labeling.
+     *
+     * @param ancestor The start node
+     * @param descendant The node to reach
+     * @return True if a path exists from ancestor to descendant
+     */
+    public boolean isReachable(GraphNode<T> ancestor, GraphNode<T> descendant) {
+        Integer from = ids.get(ancestor);
+        Integer to = ids.get(descendant);
+        if(from == null || to == null) {
+            return false;
+        }
+        if(from.intValue() == to.intValue()) {
+            return true;
+        }
+        int target = to;
+        while(closure == null && pre[target] == NO_LABEL) {
+            target = anchors[target];
+            if(target == from) {
+                return true;
+            }
+        }
+        if(pre[from] != NO_LABEL && pre[target] != NO_LABEL && pre[from] < pre[target] && post[target] < post[from]) {
+            return true;
+        }
+        return closure != null && closure.get(from).get(to);
+    }
+
+    /**
+     * Returns true if node is a strict descendant of ancestor.
+     *
+     * @param node The candidate descendant
+     * @param ancestor The candidate ancestor
+     * @return True if node can be reached from ancestor and differs from it
+     */
+    public boolean isDescendantOf(GraphNode<T> node, GraphNode<T> ancestor) {
+        return node != ancestor && isReachable(ancestor, node);
+    }
+
+    /**
+     * Returns true if the node is covered by this index.
+     *
+     * @param node The node
+     * @return True if the node was reachable from the root when indexed
+     */
+    public boolean contains(GraphNode<T> node) {
+        return ids.containsKey(node);
+    }
+
+    /**
+     * Returns the number of indexed nodes.
+     *
+     * @return The node count
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Adds the edge parent -> child to the graph and updates the index. The child and any nodes
+     * reachable from it that were not yet indexed are added to the index. A new leaf added to a
+     * tree-like index is recorded under its parent; queries reaching it walk up to the parent. A leaf
+     * that would lie more than {@link #MAX_ANCHOR_DEPTH} unlabeled nodes below a labeled one, and any
+     * other edge added to a tree-like index, relabel the whole index instead.
+     *
+     * @param parent An indexed node
+     * @param child The new child
+     * @throws InvalidStateException if parent is not indexed or the edge would create a cycle
+     */
+    public void addEdge(GraphNode<T> parent, GraphNode<T> child) {
+        Integer parentId = ids.get(parent);
+        if(parentId == null) {
+            throw new InvalidStateException("Node " + parent.getName() + " is not covered by this index");
+        }
+        boolean cycle = ids.containsKey(child) ? isReachable(child, parent) : new GraphPathFinder<T>().isReachable(child, parent);
+        if(cycle) {
+            throw new InvalidStateException("Edge from " + parent.getName() + " to " + child.getName() + " would create a cycle");
+        }
+        parent.addChild(child);
+        if(closure == null) {
+            if(!ids.containsKey(child) && !child.hasChildren() && anchorDepth(parentId) < MAX_ANCHOR_DEPTH) {
+                int id = register(child);
+                pre[id] = NO_LABEL;
+                post[id] = NO_LABEL;
+                anchors[id] = parentId;
+            } else {
+                rebuild();
+            }
+            return;
+        }
+        indexNewNodes(child);
+        BitSet reach = (BitSet)closure.get(ids.get(child)).clone();
+        reach.set(ids.get(child));
+        ArrayDeque<GraphNode<T>> queue = new ArrayDeque<>();
+        BitSet updated = new BitSet();
+        queue.add(parent);
+        updated.set(parentId);
+        while(!queue.isEmpty()) {
+            GraphNode<T> node = queue.poll();
+            closure.get(ids.get(node)).or(reach);
+            if(node.hasNoParents()) {
+                continue;
+            }
+            for(GraphNode<T> ancestor : node.getParents()) {
+                Integer ancestorId = ids.get(ancestor);
+                if(ancestorId != null && !updated.get(ancestorId)) {
+                    updated.set(ancestorId);
+                    queue.add(ancestor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of unlabeled nodes from the node up to its nearest labeled ancestor, the node included.
+     */
+    private int anchorDepth(int id) {
+        int depth = 0;
+        for(int node = id; pre[node] == NO_LABEL; node = anchors[node]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Indexes the nodes reachable from start that are not yet indexed and computes their closures
+     * children first.
+     */
+    private void indexNewNodes(GraphNode<T> start) {
+        if(ids.containsKey(start)) {
+            return;
+        }
+        Map<GraphNode<T>, Boolean> onStack = new IdentityHashMap<>();
+        ArrayDeque<Frame<T>> stack = new ArrayDeque<>();
+        int id = register(start);
+        pre[id] = NO_LABEL;
+        post[id] = NO_LABEL;
+        closure.add(null);
+        onStack.put(start, Boolean.TRUE);
+        stack.push(new Frame<>(start));
+        while(!stack.isEmpty()) {
+            Frame<T> frame = stack.peek();
+            GraphNode<T> node = frame.node;
+            if(node.hasChildren() && frame.next < node.getChildren().size()) {
+                GraphNode<T> child = node.getChildren().get(frame.next++);
+                if(onStack.containsKey(child)) {
+                    throw new InvalidStateException("Cycle detected at node " + child.getName());
+                }
+                if(!ids.containsKey(child)) {
+                    int childId = register(child);
+                    pre[childId] = NO_LABEL;
+                    post[childId] = NO_LABEL;
+                    closure.add(null);
+                    onStack.put(child, Boolean.TRUE);
+                    stack.push(new Frame<>(child));
+                }
+            } else {
+                stack.pop();
+                onStack.remove(node);
+                closure.set(ids.get(node), computeClosure(node));
+            }
+        }
+    }
+
+    /**
+     * Returns the union of the children and their closures. Children closures must already be computed.
+     */
+    private BitSet computeClosure(GraphNode<T> node) {
+        BitSet descendants = new BitSet();
+        if(node.hasChildren()) {
+            for(GraphNode<T> child : node.getChildren()) {
+                int childId = ids.get(child);
+                descendants.set(childId);
+                descendants.or(closure.get(childId));
+            }
+        }
+        return descendants;
+    }
+
+    /**
+     * Assigns the next number to the node, growing the label arrays as needed.
+     */
+    private int register(GraphNode<T> node) {
+        int id = nodes.size();
+        ids.put(node, id);
+        nodes.add(node);
+        if(id == pre.length) {
+            pre = Arrays.copyOf(pre, id * 2);
+            post = Arrays.copyOf(post, id * 2);
+            anchors = Arrays.copyOf(anchors, id * 2);
+        }
+        anchors[id] = NO_LABEL;
+        return id;
+    }
+
+    /**
+     * Depth-first traversal frame holding the position in the node's child list.
+     */
+    private static class Frame<T> {
+        private final GraphNode<T> node;
+        private int next;
+
+        private Frame(GraphNode<T> node) {
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Ordered property index answering equality, range and prefix lookups. Numbers are ordered by value
+ * whatever their class, other values in their natural order; values that are not comparable with the
+ * values already indexed are skipped, and lookups with such values return no nodes.
+ *
+ * @param <T>
+ */
+public class SortedPropertyIndex<T> extends PropertyIndex<T> {
+
+    private final TreeMap<Object, Collection<TreeNode<T>>> entries = new TreeMap<>(SortedPropertyIndex::compareKeys);
+
+    public SortedPropertyIndex(TreeNode<T> root, String key) {
+        super(root, key);
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public List<TreeNode<T>> findEqual(Object value) {
+        try {
+            return super.findEqual(value);
+        } catch(ClassCastException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public List<TreeNode<T>> findRange(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+        refresh();
+        try {
+            NavigableMap<Object, Collection<TreeNode<T>>> range = entries;
+            if(lower != null) {
+                range = range.tailMap(normalize(lower), lowerInclusive);
+            }
+            if(upper != null) {
+                range = range.headMap(normalize(upper), upperInclusive);
+            }
+            return collect(range);
+        } catch(ClassCastException | IllegalArgumentException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public List<TreeNode<T>> findPrefix(String prefix) {
+        refresh();
+        List<TreeNode<T>> nodes = new ArrayList<>();
+        try {
+            for(Map.Entry<Object, Collection<TreeNode<T>>> entry : entries.tailMap(prefix, true).entrySet()) {
+                if(!(entry.getKey() instanceof String) || !((String)entry.getKey()).startsWith(prefix)) {
+                    break;
+                }
+                nodes.addAll(entry.getValue());
+            }
+        } catch(ClassCastException e) {
+            return Collections.emptyList();
+        }
+        return nodes;
+    }
+
+    @Override
+    protected Map<Object, Collection<TreeNode<T>>> getEntries() {
+        return entries;
+    }
+
+    @Override
+    protected void add(TreeNode<T> node, Object value) {
+        if(!(value instanceof Comparable)) {
+            return;
+        }
+        try {
+            entries.computeIfAbsent(value, k -> new LinkedHashSet<>()).add(node);
+        } catch(ClassCastException e) {
+            // Not comparable with the values already indexed
+        }
+    }
+
+    @Override
+    protected void remove(TreeNode<T> node, Object value) {
+        try {
+            super.remove(node, value);
+        } catch(ClassCastException e) {
+            // Never indexed
+        }
+    }
+
+    /**
+     * Compares normalized keys: Long and Double keys by numeric value, other keys by natural order.
+     *
+     * @throws ClassCastException if the keys are not mutually comparable
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object first, Object second) {
+        if(first instanceof Long && second instanceof Long) {
+            return Long.compare((Long)first, (Long)second);
+        } else if(first instanceof Number && second instanceof Number) {
+            return Double.compare(((Number)first).doubleValue(), ((Number)second).doubleValue());
+        }
+        return ((Comparable<Object>)first).compareTo(second);
+    }
+
+    private List<TreeNode<T>> collect(Map<Object, Collection<TreeNode<T>>> range) {
+        List<TreeNode<T>> nodes = new ArrayList<>();
+        for(Collection<TreeNode<T>> valueNodes : range.values()) {
+            nodes.addAll(valueNodes);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.exception.InvalidStateException;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Pre-order interval labeling of a tree. Each node is numbered in depth-first pre-order and
+ * labeled with the number of the last node of its subtree, so ancestor tests, subtree sizes and
+ * depths are answered in constant time instead of walking parents or visiting the subtree.
+ * <br>
+ * Labels are computed on first use and recomputed lazily on the next query after the structure
+ * of the tree changes, as reported by {@link TreeNode#getModificationCount()} on the root.
+ *
+ * @param <T>
+ */
+public class TreeIntervalIndex<T> {
+
+    /**
+     * The root of the indexed tree.
+     */
+    private TreeNode<T> root;
+    /**
+     * Root modification count when the labels were computed, or -1 if never computed.
+     */
+    private long labeledAt = -1;
+    /**
+     * Node-to-pre-order-number index.
+     */
+    private Map<TreeNode<T>, Integer> numbers;
+    /**
+     * Pre-order number of the last node in each node's subtree.
+     */
+    private int[] last;
+    /**
+     * Depth of each node. The root has depth 0.
+     */
+    private int[] depths;
+
+    /**
+     * Creates an index over the tree rooted at root.
+     *
+     * @param root The root of the tree
+     */
+    public TreeIntervalIndex(TreeNode<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns true if ancestor is a strict ancestor of node.
+     *
+     * @param ancestor The candidate ancestor
+     * @param node The candidate descendant
+     * @return True if node lies in the subtree of ancestor and differs from it
+     */
+    public boolean isAncestorOf(TreeNode<T> ancestor, TreeNode<T> node) {
+        refresh();
+        Integer a = numbers.get(ancestor);
+        Integer n = numbers.get(node);
+        return a != null && n != null && a < n && n <= last[a];
+    }
+
+    /**
+     * Returns true if node is a strict descendant of ancestor.
+     *
+     * @param node The candidate descendant
+     * @param ancestor The candidate ancestor
+     * @return True if node lies in the subtree of ancestor and differs from it
+     */
+    public boolean isDescendantOf(TreeNode<T> node, TreeNode<T> ancestor) {
+        return isAncestorOf(ancestor, node);
+    }
+
+    /**
+     * Returns the node count of the subtree rooted at node, including node.
+     *
+     * @param node An indexed node
+     * @return The subtree node count
+     */
+    public int getSubtreeNodeCount(TreeNode<T> node) {
+        int number = numberOf(node);
+        return last[number] - number + 1;
+    }
+
+    /**
+     * Returns the number of edges between the root and node.
+     *
+     * @param node An indexed node
+     * @return The depth of node
+     */
+    public int getDepth(TreeNode<T> node) {
+        return depths[numberOf(node)];
+    }
+
+    /**
+     * Returns the pre-order number of node.
+     *
+     * @param node An indexed node
+     * @return The pre-order number
+     */
+    public int getPreOrderNumber(TreeNode<T> node) {
+        return numberOf(node);
+    }
+
+    /**
+     * Returns true if the node belongs to the indexed tree.
+     *
+     * @param node The node
+     * @return True if node is labeled
+     */
+    public boolean contains(TreeNode<T> node) {
+        refresh();
+        return numbers.containsKey(node);
+    }
+
+    /**
+     * Returns the root of the indexed tree.
+     *
+     * @return The root
+     */
+    public TreeNode<T> getRoot() {
+        return root;
+    }
+
+    private int numberOf(TreeNode<T> node) {
+        refresh();
+        Integer number = numbers.get(node);
+        if(number == null) {
+            throw new InvalidStateException("Node " + node.getName() + " is not part of the indexed tree");
+        }
+        return number;
+    }
+
+    /**
+     * Recomputes the labels if the tree changed since they were last computed.
+     */
+    private void refresh() {
+        if(labeledAt == root.getModificationCount() && numbers != null) {
+            return;
+        }
+        numbers = new IdentityHashMap<>();
+        int capacity = 16;
+        last = new int[capacity];
+        depths = new int[capacity];
+        int next = 0;
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        ArrayDeque<Integer> positions = new ArrayDeque<>();
+        numbers.put(root, next++);
+        stack.push(root);
+        positions.push(0);
+        while(!stack.isEmpty()) {
+            TreeNode<T> node = stack.peek();
+            int position = positions.pop();
+            if(node.hasChildren() && position < node.getChildren().size()) {
+                positions.push(position + 1);
+                TreeNode<T> child = node.getChildren().get(position);
+                if(next == capacity) {
+                    capacity *= 2;
+                    last = Arrays.copyOf(last, capacity);
+                    depths = Arrays.copyOf(depths, capacity);
+                }
+                depths[next] = stack.size();
+                numbers.put(child, next++);
+                stack.push(child);
+                positions.push(0);
+            } else {
+                stack.pop();
+                last[numbers.get(node)] = next - 1;
+            }
+        }
+        labeledAt = root.getModificationCount();
+    }
+}
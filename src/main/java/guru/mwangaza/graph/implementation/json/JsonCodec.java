@@ -0,0 +1,74 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.json;
+
+/**
+ * Converts payloads or property values to and from JSON values. JSON values are null, strings,
+ * numbers, booleans, maps with string keys and lists of JSON values. Numbers read back as
+ * {@link Long} when they have no fraction or exponent and as {@link Double} otherwise.
+ *
+ * @param <T> The type of the encoded values
+ */
+public interface JsonCodec<T> {
+
+    /**
+     * Returns the JSON value for the value argument.
+     *
+     * @param value The value to encode
+     * @return The JSON value
+     */
+    Object encode(T value);
+
+    /**
+     * Returns the value for the JSON value argument.
+     *
+     * @param json The JSON value
+     * @return The decoded value
+     */
+    T decode(Object json);
+
+    /**
+     * Returns a codec that passes JSON values through unchanged.
+     *
+     * @param <T>
+     * @return The identity codec
+     */
+    @SuppressWarnings("unchecked")
+    static <T> JsonCodec<T> identity() {
+        return (JsonCodec<T>)IdentityCodec.INSTANCE;
+    }
+
+    /**
+     * Codec that passes JSON values through unchanged.
+     */
+    final class IdentityCodec implements JsonCodec<Object> {
+
+        private static final IdentityCodec INSTANCE = new IdentityCodec();
+
+        private IdentityCodec() {
+        }
+
+        @Override
+        public Object encode(Object value) {
+            return value;
+        }
+
+        @Override
+        public Object decode(Object json) {
+            return json;
+        }
+    }
+}
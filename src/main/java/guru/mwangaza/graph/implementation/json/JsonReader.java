@@ -0,0 +1,369 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal pull parser for JSON. Input is read through a fixed buffer and the only state kept is one
+ * scope per open object or array, so memory is bounded by the nesting depth of the document. Several
+ * top-level values may follow each other, which is how newline-delimited JSON is read.
+ * <br>
+ * Malformed input raises an {@link IllegalArgumentException} giving the character offset.
+ */
+final class JsonReader {
+
+    enum Token {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        NAME,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END_DOCUMENT
+    }
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    /**
+     * The number of characters consumed before the current buffer.
+     */
+    private long offset;
+    private int[] scopes = new int[16];
+    private int depth;
+    private Token peeked;
+    private final StringBuilder text = new StringBuilder();
+
+    JsonReader(Reader in) {
+        this.in = in;
+        scopes[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Returns the type of the next token without consuming it.
+     */
+    Token peek() throws IOException {
+        if(peeked != null) {
+            return peeked;
+        }
+        int scope = scopes[depth - 1];
+        int c;
+        switch(scope) {
+            case EMPTY_ARRAY:
+                scopes[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if(c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                position--;
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if(c == ']') {
+                    return peeked = Token.END_ARRAY;
+                } else if(c != ',') {
+                    throw syntaxError("Expected ',' or ']'");
+                }
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if(c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if(scope == NONEMPTY_OBJECT) {
+                    if(c != ',') {
+                        throw syntaxError("Expected ',' or '}'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if(c != '"') {
+                    throw syntaxError("Expected a name");
+                }
+                scopes[depth - 1] = DANGLING_NAME;
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                scopes[depth - 1] = NONEMPTY_OBJECT;
+                if(nextNonWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                break;
+            default:
+                scopes[depth - 1] = NONEMPTY_DOCUMENT;
+                if(nextNonWhitespace() == -1) {
+                    return peeked = Token.END_DOCUMENT;
+                }
+                position--;
+                break;
+        }
+        c = nextNonWhitespace();
+        switch(c) {
+            case '{':
+                return peeked = Token.BEGIN_OBJECT;
+            case '[':
+                return peeked = Token.BEGIN_ARRAY;
+            case '"':
+                return peeked = Token.STRING;
+            case 't':
+            case 'f':
+                position--;
+                return peeked = Token.BOOLEAN;
+            case 'n':
+                position--;
+                return peeked = Token.NULL;
+            case -1:
+                throw syntaxError("Unexpected end of input");
+            default:
+                if(c == '-' || (c >= '0' && c <= '9')) {
+                    position--;
+                    return peeked = Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char)c + "'");
+        }
+    }
+
+    /**
+     * Returns true if the current object or array has another member, or the document another value.
+     */
+    boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    String nextString() throws IOException {
+        expect(Token.STRING);
+        return readString();
+    }
+
+    /**
+     * Reads the next value, whatever its type, as a JSON value: null, a string, a {@link Long},
+     * a {@link Double}, a boolean, a map or a list.
+     */
+    Object nextValue() throws IOException {
+        switch(peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                beginObject();
+                while(hasNext()) {
+                    String name = nextName();
+                    map.put(name, nextValue());
+                }
+                endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                beginArray();
+                while(hasNext()) {
+                    list.add(nextValue());
+                }
+                endArray();
+                return list;
+            case STRING:
+                return nextString();
+            case NUMBER:
+                peeked = null;
+                return readNumber();
+            case BOOLEAN:
+                peeked = null;
+                if(literal("true")) {
+                    return Boolean.TRUE;
+                } else if(literal("false")) {
+                    return Boolean.FALSE;
+                }
+                throw syntaxError("Expected a boolean");
+            case NULL:
+                peeked = null;
+                if(!literal("null")) {
+                    throw syntaxError("Expected null");
+                }
+                return null;
+            default:
+                throw syntaxError("Expected a value but was " + peeked);
+        }
+    }
+
+    void skipValue() throws IOException {
+        nextValue();
+    }
+
+    private void expect(Token expected) throws IOException {
+        if(peek() != expected) {
+            throw syntaxError("Expected " + expected + " but was " + peeked);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if(depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth++] = scope;
+    }
+
+    private String readString() throws IOException {
+        text.setLength(0);
+        while(true) {
+            int c = read();
+            if(c == '"') {
+                return text.toString();
+            } else if(c == '\\') {
+                int escaped = read();
+                switch(escaped) {
+                    case 'b': text.append('\b'); break;
+                    case 'f': text.append('\f'); break;
+                    case 'n': text.append('\n'); break;
+                    case 'r': text.append('\r'); break;
+                    case 't': text.append('\t'); break;
+                    case 'u':
+                        int code = 0;
+                        for(int index = 0; index < 4; index++) {
+                            int digit = Character.digit(read(), 16);
+                            if(digit < 0) {
+                                throw syntaxError("Malformed unicode escape");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        text.append((char)code);
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        text.append((char)escaped);
+                        break;
+                    default:
+                        throw syntaxError("Invalid escape");
+                }
+            } else if(c == -1) {
+                throw syntaxError("Unterminated string");
+            } else {
+                text.append((char)c);
+            }
+        }
+    }
+
+    private Object readNumber() throws IOException {
+        text.setLength(0);
+        boolean integral = true;
+        while(true) {
+            int c = read();
+            if((c >= '0' && c <= '9') || c == '-' || c == '+') {
+                text.append((char)c);
+            } else if(c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+                text.append((char)c);
+            } else {
+                if(c != -1) {
+                    position--;
+                }
+                break;
+            }
+        }
+        try {
+            if(integral) {
+                try {
+                    return Long.parseLong(text.toString());
+                } catch(NumberFormatException e) {
+                    return Double.parseDouble(text.toString());
+                }
+            }
+            return Double.parseDouble(text.toString());
+        } catch(NumberFormatException e) {
+            throw syntaxError("Malformed number " + text);
+        }
+    }
+
+    private boolean literal(String expected) throws IOException {
+        for(int index = 0; index < expected.length(); index++) {
+            if(read() != expected.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while(c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    /**
+     * Returns the next character, or -1 at the end of the input. After a character was returned, decrementing
+     * the position pushes it back.
+     */
+    private int read() throws IOException {
+        if(position == limit) {
+            offset += limit;
+            position = 0;
+            limit = in.read(buffer, 0, buffer.length);
+            if(limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private IllegalArgumentException syntaxError(String message) {
+        return new IllegalArgumentException(message + " at offset " + (offset + position));
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Minimal streaming JSON writer. Tokens are written to the underlying writer as they are emitted;
+ * the only state kept is one flag per open object or array.
+ */
+final class JsonWriter {
+
+    private final Writer out;
+    /**
+     * For each open object or array, true until its first member is written.
+     */
+    private boolean[] empty = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    void beginObject() throws IOException {
+        beforeValue();
+        out.write('{');
+        push();
+    }
+
+    void endObject() throws IOException {
+        depth--;
+        out.write('}');
+    }
+
+    void beginArray() throws IOException {
+        beforeValue();
+        out.write('[');
+        push();
+    }
+
+    void endArray() throws IOException {
+        depth--;
+        out.write(']');
+    }
+
+    void name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+    }
+
+    /**
+     * Writes a JSON value: null, a string, a number, a boolean, a map or an iterable of JSON values.
+     *
+     * @param value The value to write
+     * @throws IllegalArgumentException if the value is not a JSON value
+     */
+    void value(Object value) throws IOException {
+        if(value instanceof Map) {
+            beginObject();
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                name(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+            endObject();
+        } else if(value instanceof Iterable) {
+            beginArray();
+            for(Object element : (Iterable<?>)value) {
+                value(element);
+            }
+            endArray();
+        } else {
+            beforeValue();
+            if(value == null) {
+                out.write("null");
+            } else if(value instanceof String || value instanceof Character) {
+                string(value.toString());
+            } else if(value instanceof Boolean) {
+                out.write(value.toString());
+            } else if(value instanceof Number) {
+                if((value instanceof Double && !Double.isFinite((Double)value)) || (value instanceof Float && !Float.isFinite((Float)value))) {
+                    throw new IllegalArgumentException("JSON numbers must be finite: " + value);
+                }
+                out.write(value.toString());
+            } else {
+                throw new IllegalArgumentException("Not a JSON value: " + value.getClass().getName() + ". Use a JsonCodec to encode it");
+            }
+        }
+    }
+
+    /**
+     * Ends a top-level value with a line feed.
+     */
+    void newLine() throws IOException {
+        out.write('\n');
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    private void push() {
+        if(depth == empty.length) {
+            empty = Arrays.copyOf(empty, depth * 2);
+        }
+        empty[depth++] = true;
+    }
+
+    private void beforeValue() throws IOException {
+        if(afterName) {
+            afterName = false;
+        } else {
+            separate();
+        }
+    }
+
+    private void separate() throws IOException {
+        if(depth > 0) {
+            if(!empty[depth - 1]) {
+                out.write(',');
+            }
+            empty[depth - 1] = false;
+        }
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        for(int index = 0; index < value.length(); index++) {
+            char c = value.charAt(index);
+            String escape;
+            if(c == '"') {
+                escape = "\\\"";
+            } else if(c == '\\') {
+                escape = "\\\\";
+            } else if(c == '\n') {
+                escape = "\\n";
+            } else if(c == '\r') {
+                escape = "\\r";
+            } else if(c == '\t') {
+                escape = "\\t";
+            } else if(c < 0x20) {
+                escape = String.format("\\u%04x", (int)c);
+            } else {
+                continue;
+            }
+            out.write(value, start, index - start);
+            out.write(escape);
+            start = index + 1;
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+}
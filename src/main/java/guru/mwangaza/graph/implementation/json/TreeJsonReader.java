@@ -0,0 +1,361 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.json;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Builds a tree from the nested or newline-delimited JSON written by {@link TreeJsonWriter}.
+ * <br>
+ * Input is parsed incrementally: nodes are created and attached as their objects are read, and apart
+ * from the tree being built only the nodes of the current branch are held, so no document model or
+ * input string is ever materialized. Unknown fields are skipped. Payloads and property values are
+ * converted by pluggable {@link JsonCodec}s.
+ * <br>
+ * Malformed input raises an {@link IllegalArgumentException}.
+ *
+ * @param <T>
+ */
+public class TreeJsonReader<T> {
+
+    private JsonCodec<T> payloadCodec = JsonCodec.identity();
+    private JsonCodec<Object> propertyCodec = JsonCodec.identity();
+    private Function<String, TreeNodeImpl<T>> nodeFactory = TreeNodeImpl::new;
+    private String pathDelimiter = BaseNode.DEFAULT_PATH_DELIMITER;
+
+    public JsonCodec<T> getPayloadCodec() {
+        return payloadCodec;
+    }
+
+    public void setPayloadCodec(JsonCodec<T> payloadCodec) {
+        this.payloadCodec = payloadCodec;
+    }
+
+    public JsonCodec<Object> getPropertyCodec() {
+        return propertyCodec;
+    }
+
+    public void setPropertyCodec(JsonCodec<Object> propertyCodec) {
+        this.propertyCodec = propertyCodec;
+    }
+
+    public Function<String, TreeNodeImpl<T>> getNodeFactory() {
+        return nodeFactory;
+    }
+
+    /**
+     * Sets the function creating a node from its name.
+     *
+     * @param nodeFactory
+     */
+    public void setNodeFactory(Function<String, TreeNodeImpl<T>> nodeFactory) {
+        this.nodeFactory = nodeFactory;
+    }
+
+    public String getPathDelimiter() {
+        return pathDelimiter;
+    }
+
+    /**
+     * Sets the delimiter separating the node names of newline-delimited JSON paths. It is also set on
+     * the tree read.
+     *
+     * @param pathDelimiter
+     */
+    public void setPathDelimiter(String pathDelimiter) {
+        this.pathDelimiter = pathDelimiter;
+    }
+
+    /**
+     * Reads a tree from nested JSON.
+     *
+     * @param reader The source, not closed
+     * @return The root of the tree
+     * @throws IOException
+     */
+    public TreeNodeImpl<T> read(Reader reader) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        TreeNodeImpl<T> root = null;
+        Deque<Frame<T>> stack = new ArrayDeque<>();
+        json.beginObject();
+        stack.push(new Frame<>(null));
+        while(!stack.isEmpty()) {
+            Frame<T> frame = stack.peek();
+            if(frame.inChildren) {
+                if(json.hasNext()) {
+                    json.beginObject();
+                    stack.push(new Frame<>(frame.node));
+                } else {
+                    json.endArray();
+                    frame.inChildren = false;
+                }
+            } else if(!json.hasNext()) {
+                json.endObject();
+                stack.pop();
+                attach(frame);
+                if(frame.parent == null) {
+                    root = frame.node;
+                }
+            } else {
+                String field = json.nextName();
+                if("name".equals(field)) {
+                    frame.name = json.nextString();
+                } else if("children".equals(field)) {
+                    attach(frame);
+                    json.beginArray();
+                    frame.inChildren = true;
+                } else if(!readField(json, field, frame)) {
+                    json.skipValue();
+                }
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Reads a tree from nested JSON encoded in UTF-8.
+     *
+     * @param stream The source, not closed
+     * @return The root of the tree
+     * @throws IOException
+     */
+    public TreeNodeImpl<T> read(InputStream stream) throws IOException {
+        return read(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Reads a tree from newline-delimited JSON, one node per line identified by its path. Missing
+     * ancestors are created. Lines of a depth-first export resolve their parent from the previous
+     * line's path without searching.
+     * <br>
+     * Each line adds a new node, so siblings sharing a name, written on separate lines, are kept
+     * apart. The exception is a node created earlier as a missing ancestor, which the line describing
+     * it completes.
+     *
+     * @param reader The source, not closed
+     * @return The root of the tree, or null if the input is empty
+     * @throws IOException
+     */
+    public TreeNodeImpl<T> readNdjson(Reader reader) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        Pattern delimiter = Pattern.compile(Pattern.quote(pathDelimiter));
+        TreeNodeImpl<T> root = null;
+        List<String> cursorNames = new ArrayList<>();
+        List<TreeNodeImpl<T>> cursorNodes = new ArrayList<>();
+        Set<TreeNodeImpl<T>> ancestorsOnly = Collections.newSetFromMap(new IdentityHashMap<>());
+        while(json.peek() != JsonReader.Token.END_DOCUMENT) {
+            Frame<T> frame = new Frame<>(null);
+            String path = null;
+            json.beginObject();
+            while(json.hasNext()) {
+                String field = json.nextName();
+                if("path".equals(field)) {
+                    path = json.nextString();
+                } else if(!readField(json, field, frame)) {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            if(path == null) {
+                throw new IllegalArgumentException("Line without a path");
+            }
+            String[] names = delimiter.split(path, -1);
+            if(root == null) {
+                root = nodeFactory.apply(names[0]);
+                if(!BaseNode.DEFAULT_PATH_DELIMITER.equals(pathDelimiter)) {
+                    root.setPathDelimiter(pathDelimiter);
+                }
+                cursorNames.add(names[0]);
+                cursorNodes.add(root);
+            } else if(!names[0].equals(root.getName())) {
+                throw new IllegalArgumentException("Path " + path + " is not under " + root.getName());
+            }
+            int common = 1;
+            while(common < cursorNames.size() && common < names.length - 1 && cursorNames.get(common).equals(names[common])) {
+                common++;
+            }
+            truncate(cursorNames, common);
+            truncate(cursorNodes, common);
+            for(int index = common; index < names.length; index++) {
+                TreeNodeImpl<T> parent = cursorNodes.get(index - 1);
+                boolean last = index == names.length - 1;
+                TreeNodeImpl<T> child = last ? findAncestorOnly(parent, names[index], ancestorsOnly) : findNode(parent, names[index]);
+                if(child == null) {
+                    child = nodeFactory.apply(names[index]);
+                    parent.addChild(child);
+                    if(!last) {
+                        ancestorsOnly.add(child);
+                    }
+                } else if(last) {
+                    ancestorsOnly.remove(child);
+                }
+                cursorNames.add(names[index]);
+                cursorNodes.add(child);
+            }
+            frame.node = cursorNodes.get(cursorNodes.size() - 1);
+            frame.apply();
+        }
+        return root;
+    }
+
+    /**
+     * Reads a tree from newline-delimited JSON encoded in UTF-8.
+     *
+     * @param stream The source, not closed
+     * @return The root of the tree, or null if the input is empty
+     * @throws IOException
+     */
+    public TreeNodeImpl<T> readNdjson(InputStream stream) throws IOException {
+        return readNdjson(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Reads a node field other than the name and children.
+     *
+     * @return false if the field is not a node field
+     */
+    private boolean readField(JsonReader json, String field, Frame<T> frame) throws IOException {
+        if("payloadName".equals(field)) {
+            frame.payloadName = json.nextString();
+        } else if("uuid".equals(field)) {
+            frame.uuid = json.nextString();
+        } else if("payload".equals(field)) {
+            frame.payload = payloadCodec.decode(json.nextValue());
+            frame.hasPayload = true;
+        } else if("properties".equals(field)) {
+            json.beginObject();
+            while(json.hasNext()) {
+                String key = json.nextName();
+                frame.propertyKeys.add(key);
+                frame.propertyValues.add(propertyCodec.decode(json.nextValue()));
+            }
+            json.endObject();
+        } else {
+            return false;
+        }
+        if(frame.node != null) {
+            frame.apply();
+        }
+        return true;
+    }
+
+    /**
+     * Creates the frame's node and adds it to its parent, once.
+     */
+    private void attach(Frame<T> frame) {
+        if(frame.node != null) {
+            return;
+        }
+        if(frame.name == null) {
+            throw new IllegalArgumentException("Node without a name");
+        }
+        frame.node = nodeFactory.apply(frame.name);
+        frame.apply();
+        if(frame.parent != null) {
+            frame.parent.addChild(frame.node);
+        }
+    }
+
+    private TreeNodeImpl<T> findNode(TreeNodeImpl<T> parent, String name) {
+        TreeNode<T> child = parent.findChild(name);
+        return child instanceof TreeNodeImpl ? (TreeNodeImpl<T>)child : null;
+    }
+
+    /**
+     * Returns the child named name that was created as a missing ancestor and not yet described by its
+     * own line, or null.
+     */
+    private TreeNodeImpl<T> findAncestorOnly(TreeNodeImpl<T> parent, String name, Set<TreeNodeImpl<T>> ancestorsOnly) {
+        if(ancestorsOnly.isEmpty() || !parent.hasChildren()) {
+            return null;
+        }
+        for(TreeNode<T> child : parent.getChildren()) {
+            if(ancestorsOnly.contains(child) && child.isNameEqualTo(name)) {
+                return (TreeNodeImpl<T>)child;
+            }
+        }
+        return null;
+    }
+
+    private static <E> void truncate(List<E> list, int size) {
+        while(list.size() > size) {
+            list.remove(list.size() - 1);
+        }
+    }
+
+    /**
+     * A node being read. Fields read before the node exists are held until it is created.
+     */
+    private static class Frame<T> {
+
+        private final TreeNodeImpl<T> parent;
+        private TreeNodeImpl<T> node;
+        private boolean inChildren;
+        private String name;
+        private String payloadName;
+        private String uuid;
+        private T payload;
+        private boolean hasPayload;
+        private final List<String> propertyKeys = new ArrayList<>(0);
+        private final List<Object> propertyValues = new ArrayList<>(0);
+
+        Frame(TreeNodeImpl<T> parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * Sets the pending fields on the node.
+         */
+        void apply() {
+            if(payloadName != null) {
+                node.setPayloadName(payloadName);
+                payloadName = null;
+            }
+            if(uuid != null) {
+                node.setUuid(uuid);
+                uuid = null;
+            }
+            if(hasPayload) {
+                node.setPayload(payload);
+                payload = null;
+                hasPayload = false;
+            }
+            for(int index = 0; index < propertyKeys.size(); index++) {
+                node.addProperty(propertyKeys.get(index), propertyValues.get(index));
+            }
+            propertyKeys.clear();
+            propertyValues.clear();
+        }
+    }
+}
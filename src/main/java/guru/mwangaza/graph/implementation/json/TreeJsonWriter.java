@@ -0,0 +1,216 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.json;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Streams a tree to JSON without building the document in memory. Two formats are supported:
+ * <ul>
+ *     <li>Nested JSON, one object per node with its children in a {@code children} array:
+ *     <pre>{"name":"Root","payload":1,"children":[{"name":"A","properties":{"k":"v"}}]}</pre></li>
+ *     <li>Newline-delimited JSON, one line per node in depth-first order, each identified by its path
+ *     from the exported node:
+ *     <pre>{"path":"Root.A","properties":{"k":"v"}}</pre></li>
+ * </ul>
+ * The tree is traversed iteratively and only the iterators of the current branch are kept, so memory
+ * is bounded by the depth of the tree. Payloads and property values are converted by pluggable
+ * {@link JsonCodec}s; the defaults accept values that already are JSON values.
+ * <br>
+ * {@link TreeJsonReader} reads both formats back.
+ *
+ * @param <T>
+ */
+public class TreeJsonWriter<T> {
+
+    private JsonCodec<T> payloadCodec = JsonCodec.identity();
+    private JsonCodec<Object> propertyCodec = JsonCodec.identity();
+    private boolean includeUuids;
+
+    public JsonCodec<T> getPayloadCodec() {
+        return payloadCodec;
+    }
+
+    public void setPayloadCodec(JsonCodec<T> payloadCodec) {
+        this.payloadCodec = payloadCodec;
+    }
+
+    public JsonCodec<Object> getPropertyCodec() {
+        return propertyCodec;
+    }
+
+    public void setPropertyCodec(JsonCodec<Object> propertyCodec) {
+        this.propertyCodec = propertyCodec;
+    }
+
+    public boolean isIncludeUuids() {
+        return includeUuids;
+    }
+
+    /**
+     * Sets whether node UUIDs are written. Off by default since UUIDs of tree nodes are allocated on first request.
+     *
+     * @param includeUuids
+     */
+    public void setIncludeUuids(boolean includeUuids) {
+        this.includeUuids = includeUuids;
+    }
+
+    /**
+     * Writes the subtree rooted at root as nested JSON.
+     *
+     * @param root The root of the subtree
+     * @param writer The destination, flushed but not closed
+     * @throws IOException
+     */
+    public void write(TreeNode<T> root, Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        Deque<Iterator<TreeNode<T>>> stack = new ArrayDeque<>();
+        open(json, root, stack);
+        while(!stack.isEmpty()) {
+            Iterator<TreeNode<T>> children = stack.peek();
+            if(children.hasNext()) {
+                open(json, children.next(), stack);
+            } else {
+                stack.pop();
+                json.endArray();
+                json.endObject();
+            }
+        }
+        json.flush();
+    }
+
+    /**
+     * Writes the subtree rooted at root as nested JSON encoded in UTF-8.
+     *
+     * @param root The root of the subtree
+     * @param stream The destination, flushed but not closed
+     * @throws IOException
+     */
+    public void write(TreeNode<T> root, OutputStream stream) throws IOException {
+        write(root, new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Writes the subtree rooted at root as newline-delimited JSON, one node per line.
+     *
+     * @param root The root of the subtree
+     * @param writer The destination, flushed but not closed
+     * @throws IOException
+     */
+    public void writeNdjson(TreeNode<T> root, Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        String delimiter = root.getPathDelimiter();
+        StringBuilder path = new StringBuilder(root.getName());
+        Deque<Iterator<TreeNode<T>>> stack = new ArrayDeque<>();
+        Deque<Integer> prefixLengths = new ArrayDeque<>();
+        writeLine(json, root, path);
+        if(root.hasChildren()) {
+            stack.push(root.getChildren().iterator());
+            prefixLengths.push(path.length());
+        }
+        while(!stack.isEmpty()) {
+            Iterator<TreeNode<T>> children = stack.peek();
+            if(children.hasNext()) {
+                TreeNode<T> child = children.next();
+                path.setLength(prefixLengths.peek());
+                path.append(delimiter).append(child.getName());
+                writeLine(json, child, path);
+                if(child.hasChildren()) {
+                    stack.push(child.getChildren().iterator());
+                    prefixLengths.push(path.length());
+                }
+            } else {
+                stack.pop();
+                prefixLengths.pop();
+            }
+        }
+        json.flush();
+    }
+
+    /**
+     * Writes the subtree rooted at root as newline-delimited JSON encoded in UTF-8.
+     *
+     * @param root The root of the subtree
+     * @param stream The destination, flushed but not closed
+     * @throws IOException
+     */
+    public void writeNdjson(TreeNode<T> root, OutputStream stream) throws IOException {
+        writeNdjson(root, new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Writes the node's fields and, if it has children, opens its children array.
+     */
+    private void open(JsonWriter json, TreeNode<T> node, Deque<Iterator<TreeNode<T>>> stack) throws IOException {
+        json.beginObject();
+        json.name("name");
+        json.value(node.getName());
+        writeFields(json, node);
+        if(node.hasChildren()) {
+            json.name("children");
+            json.beginArray();
+            stack.push(node.getChildren().iterator());
+        } else {
+            json.endObject();
+        }
+    }
+
+    private void writeLine(JsonWriter json, TreeNode<T> node, CharSequence path) throws IOException {
+        json.beginObject();
+        json.name("path");
+        json.value(path.toString());
+        writeFields(json, node);
+        json.endObject();
+        json.newLine();
+    }
+
+    private void writeFields(JsonWriter json, TreeNode<T> node) throws IOException {
+        if(node.getPayloadName() != null && !node.getPayloadName().equals(node.getName())) {
+            json.name("payloadName");
+            json.value(node.getPayloadName());
+        }
+        if(includeUuids) {
+            json.name("uuid");
+            json.value(node.getUuid());
+        }
+        if(node.getPayload() != null) {
+            json.name("payload");
+            json.value(payloadCodec.encode(node.getPayload()));
+        }
+        Map<String, Object> properties = node.getProperties();
+        if(properties != null && !properties.isEmpty()) {
+            json.name("properties");
+            json.beginObject();
+            for(Map.Entry<String, Object> property : properties.entrySet()) {
+                json.name(property.getKey());
+                json.value(propertyCodec.encode(property.getValue()));
+            }
+            json.endObject();
+        }
+    }
+}
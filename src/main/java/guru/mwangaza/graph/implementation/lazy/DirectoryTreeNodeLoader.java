@@ -0,0 +1,88 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.lazy;
+
+import guru.mwangaza.graph.api.LazyTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.api.TreeNodeLoader;
+import guru.mwangaza.graph.implementation.LazyTreeNodeImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reference loader backed by the file system. Each node stands for a file or directory; its loader
+ * key and payload are the absolute path, its name the file name. Children are the directory entries
+ * sorted by name. The child count of a directory is read when its parent is loaded, so leaf tests
+ * never list a directory's children twice.
+ */
+public class DirectoryTreeNodeLoader implements TreeNodeLoader<String> {
+
+    /**
+     * Creates the lazy root node for a directory.
+     *
+     * @param directory The root directory
+     * @return The unloaded root node
+     */
+    public LazyTreeNodeImpl<String> createRoot(Path directory) {
+        Path absolute = directory.toAbsolutePath();
+        Path fileName = absolute.getFileName();
+        return createNode(fileName != null ? fileName.toString() : absolute.toString(), absolute, this);
+    }
+
+    @Override
+    public List<TreeNode<String>> loadChildren(LazyTreeNode<String> node) {
+        List<Path> entries = list(Paths.get(node.getLoaderKey()));
+        List<TreeNode<String>> children = new ArrayList<>(entries.size());
+        for(Path entry : entries) {
+            children.add(createNode(entry.getFileName().toString(), entry, null));
+        }
+        return children;
+    }
+
+    private LazyTreeNodeImpl<String> createNode(String name, Path path, TreeNodeLoader<String> loader) {
+        int childCount = Files.isDirectory(path) ? count(path) : 0;
+        LazyTreeNodeImpl<String> node = new LazyTreeNodeImpl<>(name, path.toString(), childCount, loader);
+        node.setPayload(path.toString());
+        return node;
+    }
+
+    private int count(Path directory) {
+        try(Stream<Path> entries = Files.list(directory)) {
+            return (int)entries.count();
+        } catch(IOException e) {
+            throw new UncheckedIOException("Unable to list " + directory, e);
+        }
+    }
+
+    private List<Path> list(Path directory) {
+        if(!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try(Stream<Path> entries = Files.list(directory)) {
+            return entries.sorted().collect(Collectors.toList());
+        } catch(IOException e) {
+            throw new UncheckedIOException("Unable to list " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.lazy;
+
+import guru.mwangaza.graph.api.LazyTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.api.TreeNodeEvictionPolicy;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Eviction policy that bounds the number of children held in memory by lazy nodes. When a load
+ * pushes the total over the limit, the least recently accessed loaded subtrees are unloaded until
+ * the total fits again. The node just loaded, its ancestors and modified subtrees are never evicted,
+ * so the limit may be exceeded temporarily when nothing else can be released.
+ *
+ * @param <T>
+ */
+public class LruEvictionPolicy<T> implements TreeNodeEvictionPolicy<T> {
+
+    /**
+     * The maximum number of children held by loaded nodes.
+     */
+    private final int maxLoadedChildren;
+    /**
+     * Loaded nodes and the number of children they hold, in access order.
+     */
+    private final LinkedHashMap<LazyTreeNode<T>, Integer> loadedNodes = new LinkedHashMap<>(16, 0.75f, true);
+    private int loadedChildren;
+    private long evictionCount;
+
+    /**
+     * Creates a policy holding at most maxLoadedChildren loaded children.
+     *
+     * @param maxLoadedChildren The bound on loaded children
+     */
+    public LruEvictionPolicy(int maxLoadedChildren) {
+        if(maxLoadedChildren < 0) {
+            throw new IllegalArgumentException("Maximum loaded children must not be negative: " + maxLoadedChildren);
+        }
+        this.maxLoadedChildren = maxLoadedChildren;
+    }
+
+    @Override
+    public void nodeLoaded(LazyTreeNode<T> node) {
+        int childCount = Math.max(node.getKnownChildCount(), 0);
+        Integer previous = loadedNodes.put(node, childCount);
+        loadedChildren += childCount - (previous != null ? previous : 0);
+        evict(node);
+    }
+
+    @Override
+    public void nodeAccessed(LazyTreeNode<T> node) {
+        loadedNodes.get(node);
+    }
+
+    @Override
+    public void nodeUnloaded(LazyTreeNode<T> node) {
+        Integer childCount = loadedNodes.remove(node);
+        if(childCount != null) {
+            loadedChildren -= childCount;
+        }
+    }
+
+    /**
+     * Returns the number of children currently held by loaded nodes.
+     *
+     * @return The loaded child count
+     */
+    public int getLoadedChildCount() {
+        return loadedChildren;
+    }
+
+    /**
+     * Returns the number of loaded nodes tracked by this policy.
+     *
+     * @return The loaded node count
+     */
+    public int getLoadedNodeCount() {
+        return loadedNodes.size();
+    }
+
+    /**
+     * Returns the number of subtrees unloaded by this policy.
+     *
+     * @return The eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Unloads least recently used subtrees until the bound is met or no candidate is left.
+     */
+    private void evict(LazyTreeNode<T> loaded) {
+        while(loadedChildren > maxLoadedChildren) {
+            LazyTreeNode<T> victim = null;
+            for(LazyTreeNode<T> candidate : loadedNodes.keySet()) {
+                if(!candidate.isModified() && !isAncestorOrSelf(candidate, loaded)) {
+                    victim = candidate;
+                    break;
+                }
+            }
+            if(victim == null) {
+                return;
+            }
+            victim.unload();
+            evictionCount++;
+        }
+    }
+
+    private boolean isAncestorOrSelf(LazyTreeNode<T> candidate, TreeNode<T> node) {
+        for(TreeNode<T> current = node; current != null; current = current.getParent()) {
+            if(current == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.lazy;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Layout of the files written by {@link MappedTreeWriter} and read by {@link MappedTreeLoader}, and
+ * read access to a file mapped in segments.
+ * <br>
+ * A file holds a header, a table of fixed-size node records and a data section. Nodes are numbered in
+ * breadth-first order, so the children of a node are consecutive records.
+ * <pre>
+ * header:  int magic, int version, int nodeCount, int delimiterLength, long tableOffset, long dataOffset
+ * record:  long dataOffset, int nameLength, int payloadLength (-1 without payload), int firstChild, int childCount
+ * data:    the UTF-8 path delimiter, then for each node its UTF-8 name followed by its encoded payload
+ * </pre>
+ * A delimiter length of 0 stands for the default path delimiter.
+ * Numbers are big-endian.
+ */
+final class MappedTreeFormat {
+
+    static final int MAGIC = 0x47545245;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 24;
+    /**
+     * Files larger than 2 GB are mapped in several segments. Records are 8-byte aligned and the segment
+     * size is a multiple of 8, so numbers never span two segments.
+     */
+    static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+
+    private final MappedByteBuffer[] segments;
+    private final long segmentSize;
+    private final long size;
+
+    private MappedTreeFormat(MappedByteBuffer[] segments, long segmentSize, long size) {
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.size = size;
+    }
+
+    /**
+     * Maps the file read-only. The mapping stays valid after the channel is closed.
+     */
+    static MappedTreeFormat map(Path file, long segmentSize) throws IOException {
+        if(segmentSize <= 0 || segmentSize % 8 != 0 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+        }
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int)((size + segmentSize - 1) / segmentSize)];
+            for(int index = 0; index < segments.length; index++) {
+                long start = index * segmentSize;
+                segments[index] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, size - start));
+                segments[index].order(ByteOrder.BIG_ENDIAN);
+            }
+            return new MappedTreeFormat(segments, segmentSize, size);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    int getInt(long position) {
+        return segments[(int)(position / segmentSize)].getInt((int)(position % segmentSize));
+    }
+
+    long getLong(long position) {
+        return segments[(int)(position / segmentSize)].getLong((int)(position % segmentSize));
+    }
+
+    byte[] getBytes(long position, int length) {
+        byte[] bytes = new byte[length];
+        for(int index = 0; index < length; index++) {
+            long offset = position + index;
+            bytes[index] = segments[(int)(offset / segmentSize)].get((int)(offset % segmentSize));
+        }
+        return bytes;
+    }
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.lazy;
+
+import guru.mwangaza.graph.api.LazyTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.api.TreeNodeLoader;
+import guru.mwangaza.graph.exception.InvalidStateException;
+import guru.mwangaza.graph.implementation.LazyTreeNodeImpl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static guru.mwangaza.graph.implementation.lazy.MappedTreeFormat.*;
+
+/**
+ * Loader reading a tree written by {@link MappedTreeWriter} from a memory-mapped file.
+ * <br>
+ * Opening a file only maps it and checks its header, so startup time does not depend on the size of
+ * the tree. Nodes are materialized as {@link LazyTreeNodeImpl}s when their parent's children are first
+ * accessed, by traversal or lookup, and are released again by {@link LazyTreeNodeImpl#unload()} or an
+ * eviction policy. Node records are read straight from the mapping; the file is mapped read-only, so
+ * processes mapping the same file share the operating system's page cache.
+ * <br>
+ * The tree can be changed in memory; changed subtrees are never unloaded and changes are not written
+ * back to the file.
+ *
+ * @param <T>
+ */
+public class MappedTreeLoader<T> implements TreeNodeLoader<T>, Closeable {
+
+    private volatile MappedTreeFormat file;
+    private final Function<byte[], ? extends T> payloadDecoder;
+    private final int nodeCount;
+    private final long tableOffset;
+    /**
+     * The path delimiter of the tree, or null for the default delimiter.
+     */
+    private final String pathDelimiter;
+    private long materializedCount;
+
+    private MappedTreeLoader(MappedTreeFormat file, Function<byte[], ? extends T> payloadDecoder) throws IOException {
+        if(file.size() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+            throw new IOException("Not a mapped tree file");
+        } else if(file.getInt(4) != VERSION) {
+            throw new IOException("Unsupported mapped tree file version " + file.getInt(4));
+        }
+        this.file = file;
+        this.payloadDecoder = payloadDecoder;
+        this.nodeCount = file.getInt(8);
+        this.tableOffset = file.getLong(16);
+        int delimiterLength = file.getInt(12);
+        this.pathDelimiter = delimiterLength > 0 ? new String(file.getBytes(file.getLong(24), delimiterLength), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Maps a tree file read-only.
+     *
+     * @param path The file
+     * @param payloadDecoder Decodes payloads, or null to skip them
+     * @return The loader
+     * @throws IOException if the file cannot be mapped or is not a tree file
+     */
+    public static <T> MappedTreeLoader<T> open(Path path, Function<byte[], ? extends T> payloadDecoder) throws IOException {
+        return open(path, payloadDecoder, DEFAULT_SEGMENT_SIZE);
+    }
+
+    static <T> MappedTreeLoader<T> open(Path path, Function<byte[], ? extends T> payloadDecoder, long segmentSize) throws IOException {
+        return new MappedTreeLoader<>(MappedTreeFormat.map(path, segmentSize), payloadDecoder);
+    }
+
+    /**
+     * Creates the unloaded root node of the tree.
+     *
+     * @return The root
+     */
+    public LazyTreeNodeImpl<T> createRoot() {
+        LazyTreeNodeImpl<T> root = materialize(0);
+        root.setLoader(this);
+        return root;
+    }
+
+    /**
+     * Returns the number of nodes in the file.
+     *
+     * @return
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of nodes materialized so far, including nodes materialized again after being unloaded.
+     *
+     * @return
+     */
+    public synchronized long getMaterializedCount() {
+        return materializedCount;
+    }
+
+    @Override
+    public List<TreeNode<T>> loadChildren(LazyTreeNode<T> node) {
+        long record = record(Integer.parseInt(node.getLoaderKey()));
+        int firstChild = mapping().getInt(record + 16);
+        int childCount = mapping().getInt(record + 20);
+        List<TreeNode<T>> children = new ArrayList<>(childCount);
+        for(int index = firstChild; index < firstChild + childCount; index++) {
+            children.add(materialize(index));
+        }
+        return children;
+    }
+
+    /**
+     * Releases the mapping. Nodes already materialized remain usable; loading further children fails.
+     */
+    @Override
+    public void close() {
+        file = null;
+    }
+
+    private LazyTreeNodeImpl<T> materialize(int index) {
+        MappedTreeFormat mapping = mapping();
+        long record = record(index);
+        long dataOffset = mapping.getLong(record);
+        int nameLength = mapping.getInt(record + 8);
+        int payloadLength = mapping.getInt(record + 12);
+        String name = new String(mapping.getBytes(dataOffset, nameLength), StandardCharsets.UTF_8);
+        LazyTreeNodeImpl<T> node = new LazyTreeNodeImpl<>(name, Integer.toString(index), mapping.getInt(record + 20));
+        if(pathDelimiter != null) {
+            node.setPathDelimiter(pathDelimiter);
+        }
+        if(payloadLength >= 0 && payloadDecoder != null) {
+            node.setPayload(payloadDecoder.apply(mapping.getBytes(dataOffset + nameLength, payloadLength)));
+        }
+        synchronized(this) {
+            materializedCount++;
+        }
+        return node;
+    }
+
+    private long record(int index) {
+        if(index < 0 || index >= nodeCount) {
+            throw new InvalidStateException("Node " + index + " is not in the tree file");
+        }
+        return tableOffset + (long)index * RECORD_SIZE;
+    }
+
+    private MappedTreeFormat mapping() {
+        MappedTreeFormat mapping = file;
+        if(mapping == null) {
+            throw new InvalidStateException("The tree file was closed");
+        }
+        return mapping;
+    }
+}
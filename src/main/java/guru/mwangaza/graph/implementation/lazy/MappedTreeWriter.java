@@ -0,0 +1,161 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.lazy;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.TreeNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Function;
+
+import static guru.mwangaza.graph.implementation.lazy.MappedTreeFormat.*;
+
+/**
+ * Writes a tree in the format read by {@link MappedTreeLoader}: node names, payloads, the tree
+ * structure and the root's path delimiter. Properties are not written. Payloads are written only when a payload encoder is given.
+ *
+ * @param <T>
+ */
+public class MappedTreeWriter<T> {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Function<? super T, byte[]> payloadEncoder;
+
+    /**
+     * Creates a writer for names and structure only.
+     */
+    public MappedTreeWriter() {
+        this(null);
+    }
+
+    /**
+     * Creates a writer encoding non-null payloads with the encoder argument.
+     *
+     * @param payloadEncoder The payload encoder
+     */
+    public MappedTreeWriter(Function<? super T, byte[]> payloadEncoder) {
+        this.payloadEncoder = payloadEncoder;
+    }
+
+    /**
+     * Writes the subtree rooted at root to the file, replacing its content.
+     *
+     * @param root The root of the subtree
+     * @param file The destination file
+     * @return The number of nodes written
+     * @throws IOException
+     */
+    public int write(TreeNode<T> root, Path file) throws IOException {
+        int nodeCount = count(root);
+        long dataStart = align(HEADER_SIZE + (long)nodeCount * RECORD_SIZE);
+        byte[] delimiter = root.getPathDelimiter() == null || BaseNode.DEFAULT_PATH_DELIMITER.equals(root.getPathDelimiter())
+                ? new byte[0] : root.getPathDelimiter().getBytes(StandardCharsets.UTF_8);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(delimiter.length).putLong(HEADER_SIZE).putLong(dataStart);
+            header.flip();
+            writeFully(channel, header, 0);
+
+            ByteBuffer table = ByteBuffer.allocate(BUFFER_SIZE - BUFFER_SIZE % RECORD_SIZE);
+            ByteBuffer data = ByteBuffer.allocate(BUFFER_SIZE);
+            long tablePosition = HEADER_SIZE;
+            long dataPosition = dataStart;
+            long dataOffset = dataStart + delimiter.length;
+            data.put(delimiter);
+            int nextIndex = 1;
+            Deque<TreeNode<T>> queue = new ArrayDeque<>();
+            queue.add(root);
+            while(!queue.isEmpty()) {
+                TreeNode<T> node = queue.poll();
+                byte[] name = node.getName().getBytes(StandardCharsets.UTF_8);
+                byte[] payload = payloadEncoder != null && node.getPayload() != null ? payloadEncoder.apply(node.getPayload()) : null;
+                int childCount = 0;
+                if(node.hasChildren()) {
+                    for(TreeNode<T> child : node.getChildren()) {
+                        queue.add(child);
+                        childCount++;
+                    }
+                }
+                if(!table.hasRemaining()) {
+                    tablePosition += flush(channel, table, tablePosition);
+                }
+                table.putLong(dataOffset).putInt(name.length).putInt(payload != null ? payload.length : -1).putInt(nextIndex).putInt(childCount);
+                nextIndex += childCount;
+                for(byte[] bytes : new byte[][]{name, payload}) {
+                    if(bytes == null) {
+                        continue;
+                    }
+                    if(bytes.length > data.remaining()) {
+                        dataPosition += flush(channel, data, dataPosition);
+                    }
+                    if(bytes.length > data.capacity()) {
+                        dataPosition += writeFully(channel, ByteBuffer.wrap(bytes), dataPosition);
+                    } else {
+                        data.put(bytes);
+                    }
+                    dataOffset += bytes.length;
+                }
+            }
+            flush(channel, table, tablePosition);
+            flush(channel, data, dataPosition);
+        }
+        return nodeCount;
+    }
+
+    /**
+     * Writes the content of a buffer being filled at the position and clears it.
+     *
+     * @return The number of bytes written
+     */
+    private long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        long written = writeFully(channel, buffer, position);
+        buffer.clear();
+        return written;
+    }
+
+    private long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while(buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private int count(TreeNode<T> root) {
+        int count = 0;
+        Deque<TreeNode<T>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while(!stack.isEmpty()) {
+            TreeNode<T> node = stack.pop();
+            count++;
+            if(node.hasChildren()) {
+                for(TreeNode<T> child : node.getChildren()) {
+                    stack.push(child);
+                }
+            }
+        }
+        return count;
+    }
+}
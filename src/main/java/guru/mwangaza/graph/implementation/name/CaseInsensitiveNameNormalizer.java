@@ -0,0 +1,53 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.name;
+
+/**
+ * Folds names so that two names have the same key exactly when they are equal according to
+ * {@link String#equalsIgnoreCase(String)}.
+ */
+public class CaseInsensitiveNameNormalizer implements NameNormalizer {
+
+    @Override
+    public String normalize(String name) {
+        char[] folded = null;
+        for(int index = 0; index < name.length(); index++) {
+            char character = name.charAt(index);
+            char foldedCharacter = Character.toLowerCase(Character.toUpperCase(character));
+            if(foldedCharacter != character && folded == null) {
+                folded = name.toCharArray();
+            }
+            if(folded != null) {
+                folded[index] = foldedCharacter;
+            }
+        }
+        return folded == null ? name : new String(folded);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CaseInsensitiveNameNormalizer;
+    }
+
+    @Override
+    public int hashCode() {
+        return CaseInsensitiveNameNormalizer.class.hashCode();
+    }
+
+    private Object readResolve() {
+        return CASE_INSENSITIVE;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.name;
+
+/**
+ * Uses names as their own keys, so names are compared exactly.
+ */
+public class CaseSensitiveNameNormalizer implements NameNormalizer {
+
+    @Override
+    public String normalize(String name) {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CaseSensitiveNameNormalizer;
+    }
+
+    @Override
+    public int hashCode() {
+        return CaseSensitiveNameNormalizer.class.hashCode();
+    }
+
+    private Object readResolve() {
+        return CASE_SENSITIVE;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.name;
+
+import java.util.Locale;
+
+/**
+ * Compares names ignoring case using the case mappings of a locale, for instance the dotted and
+ * dotless i of Turkish.
+ */
+public class LocaleNameNormalizer implements NameNormalizer {
+
+    private final Locale locale;
+
+    public LocaleNameNormalizer(Locale locale) {
+        this.locale = locale;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public String normalize(String name) {
+        return name.toUpperCase(locale).toLowerCase(locale);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof LocaleNameNormalizer && locale.equals(((LocaleNameNormalizer)other).locale);
+    }
+
+    @Override
+    public int hashCode() {
+        return locale.hashCode();
+    }
+}
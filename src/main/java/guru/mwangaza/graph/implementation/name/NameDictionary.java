@@ -0,0 +1,189 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.name;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-tree dictionary of the names, payload names and path delimiters used by the nodes of a tree.
+ * Every distinct string is stored once and is assigned an int symbol, so a tree with millions of
+ * nodes but few distinct names keeps only one copy of each name.
+ * <br>
+ * Each symbol also maps to a key shared by all names that normalize to the same string, by default
+ * names that are equal ignoring case. This lets nodes compare names with an int comparison instead
+ * of {@link String#equalsIgnoreCase(String)}.
+ * <br>
+ * Dictionaries are not thread-safe.
+ */
+public class NameDictionary implements Serializable {
+
+    /**
+     * Returned by lookups for names that are not in the dictionary.
+     */
+    public static final int NO_SYMBOL = -1;
+
+    /**
+     * The normalizer defining which names share a comparison key.
+     */
+    private final NameNormalizer normalizer;
+    /**
+     * Symbol index of each interned name.
+     */
+    private final Map<String, Integer> symbols = new HashMap<>();
+    /**
+     * Comparison key index of each normalized name.
+     */
+    private final Map<String, Integer> keyIndex = new HashMap<>();
+    /**
+     * Interned names by symbol.
+     */
+    private String[] names = new String[16];
+    /**
+     * Comparison keys by symbol.
+     */
+    private int[] keys = new int[16];
+    private int size;
+
+    /**
+     * Creates a dictionary comparing names ignoring case.
+     */
+    public NameDictionary() {
+        this(NameNormalizer.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Creates a dictionary comparing names by their normalized form.
+     *
+     * @param normalizer The name normalizer
+     */
+    public NameDictionary(NameNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Returns the normalizer defining which names share a comparison key.
+     *
+     * @return The normalizer
+     */
+    public NameNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Returns the dictionary's copy of value, adding value if it is not yet in the dictionary.
+     *
+     * @param value The string to intern, may be null
+     * @return The canonical instance, or null if value is null
+     */
+    public String intern(String value) {
+        return value == null ? null : names[getSymbol(value)];
+    }
+
+    /**
+     * Returns the symbol of name, adding name to the dictionary if needed.
+     *
+     * @param name The name
+     * @return The symbol of name
+     */
+    public int getSymbol(String name) {
+        Integer symbol = symbols.get(name);
+        if(symbol == null) {
+            symbol = size;
+            if(size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            names[size] = name;
+            keys[size] = keyOf(normalizer.normalize(name), true);
+            size++;
+            symbols.put(name, symbol);
+        }
+        return symbol;
+    }
+
+    /**
+     * Returns the symbol of name without adding it, or {@link #NO_SYMBOL}.
+     *
+     * @param name The name
+     * @return The symbol of name or NO_SYMBOL
+     */
+    public int findSymbol(String name) {
+        Integer symbol = name != null ? symbols.get(name) : null;
+        return symbol != null ? symbol : NO_SYMBOL;
+    }
+
+    /**
+     * Returns the name of a symbol.
+     *
+     * @param symbol A symbol issued by this dictionary
+     * @return The name
+     */
+    public String getName(int symbol) {
+        return names[symbol];
+    }
+
+    /**
+     * Returns the comparison key of a symbol. Two symbols have the same key if their names have the same normalized form.
+     *
+     * @param symbol A symbol issued by this dictionary
+     * @return The comparison key
+     */
+    public int getKey(int symbol) {
+        return keys[symbol];
+    }
+
+    /**
+     * Returns the comparison key of name without adding it to the dictionary, or {@link #NO_SYMBOL}
+     * if no name in the dictionary has the same normalized form as name.
+     *
+     * @param name The name
+     * @return The comparison key or NO_SYMBOL
+     */
+    public int findKey(String name) {
+        if(name == null) {
+            return NO_SYMBOL;
+        }
+        Integer symbol = symbols.get(name);
+        if(symbol != null) {
+            return keys[symbol];
+        }
+        return keyOf(normalizer.normalize(name), false);
+    }
+
+    /**
+     * Returns the number of distinct strings in the dictionary.
+     *
+     * @return The dictionary size
+     */
+    public int size() {
+        return size;
+    }
+
+    private int keyOf(String normalized, boolean create) {
+        Integer key = keyIndex.get(normalized);
+        if(key == null) {
+            if(!create) {
+                return NO_SYMBOL;
+            }
+            key = keyIndex.size();
+            keyIndex.put(normalized, key);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.name;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * Maps a node name to the key used to compare names. Two names are considered equal when their keys
+ * are equal. Nodes configured with a normalizer compute the key of their name once, when the name is set.
+ */
+public interface NameNormalizer extends Serializable {
+
+    /**
+     * Names are equal ignoring case, as by {@link String#equalsIgnoreCase(String)}. This is the
+     * default comparison used by the nodes.
+     */
+    NameNormalizer CASE_INSENSITIVE = new CaseInsensitiveNameNormalizer();
+
+    /**
+     * Names are equal only if they are identical.
+     */
+    NameNormalizer CASE_SENSITIVE = new CaseSensitiveNameNormalizer();
+
+    /**
+     * Returns the comparison key of a name.
+     *
+     * @param name A non-null name
+     * @return The comparison key
+     */
+    String normalize(String name);
+
+    /**
+     * Returns a normalizer comparing names ignoring case according to the case mapping rules of locale.
+     *
+     * @param locale The locale of the names
+     * @return The locale-aware normalizer
+     */
+    static NameNormalizer forLocale(Locale locale) {
+        return new LocaleNameNormalizer(locale);
+    }
+}
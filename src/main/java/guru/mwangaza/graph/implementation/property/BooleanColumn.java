@@ -0,0 +1,82 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.property;
+
+import java.util.BitSet;
+
+/**
+ * Column of boolean values stored in a bit set.
+ */
+public class BooleanColumn extends PropertyColumn {
+
+    private final BitSet values = new BitSet();
+
+    public BooleanColumn(String key) {
+        super(key);
+    }
+
+    @Override
+    public PropertyType getType() {
+        return PropertyType.BOOLEAN;
+    }
+
+    @Override
+    public Object get(int row) {
+        return isSet(row) ? values.get(row) : null;
+    }
+
+    /**
+     * Returns the value of the row without boxing. The row must hold a value.
+     *
+     * @param row The row
+     * @return The value
+     */
+    public boolean getBoolean(int row) {
+        return values.get(row);
+    }
+
+    /**
+     * Sets the value of the row without boxing.
+     *
+     * @param row The row
+     * @param value The value
+     */
+    public void setBoolean(int row, boolean value) {
+        values.set(row, value);
+        present.set(row);
+    }
+
+    @Override
+    protected void setValue(int row, Object value) {
+        values.set(row, (Boolean)value);
+    }
+
+    /**
+     * Returns the rows holding the value.
+     *
+     * @param value The value to select
+     * @return The matching rows
+     */
+    public BitSet select(boolean value) {
+        BitSet rows = (BitSet)present.clone();
+        if(value) {
+            rows.and(values);
+        } else {
+            rows.andNot(values);
+        }
+        return rows;
+    }
+}
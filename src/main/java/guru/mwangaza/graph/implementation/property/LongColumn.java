@@ -0,0 +1,92 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.property;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Column of long values stored in a primitive array.
+ */
+public class LongColumn extends PropertyColumn {
+
+    private long[] values = new long[16];
+
+    public LongColumn(String key) {
+        super(key);
+    }
+
+    @Override
+    public PropertyType getType() {
+        return PropertyType.LONG;
+    }
+
+    @Override
+    public Object get(int row) {
+        return isSet(row) ? values[row] : null;
+    }
+
+    /**
+     * Returns the value of the row without boxing. The row must hold a value.
+     *
+     * @param row The row
+     * @return The value
+     */
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    /**
+     * Sets the value of the row without boxing.
+     *
+     * @param row The row
+     * @param value The value
+     */
+    public void setLong(int row, long value) {
+        ensureCapacity(row);
+        values[row] = value;
+        present.set(row);
+    }
+
+    @Override
+    protected void setValue(int row, Object value) {
+        ensureCapacity(row);
+        values[row] = (Long)value;
+    }
+
+    /**
+     * Returns the rows holding a value that matches the predicate.
+     *
+     * @param predicate The filter
+     * @return The matching rows
+     */
+    public BitSet select(LongPredicate predicate) {
+        BitSet rows = new BitSet();
+        for(int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+            if(predicate.test(values[row])) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    private void ensureCapacity(int row) {
+        if(row >= values.length) {
+            values = Arrays.copyOf(values, grow(values.length, row));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.property;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * Column of object values, used for string and untyped properties.
+ */
+public class ObjectColumn extends PropertyColumn {
+
+    private final PropertyType type;
+    private Object[] values = new Object[16];
+
+    public ObjectColumn(String key, PropertyType type) {
+        super(key);
+        this.type = type;
+    }
+
+    @Override
+    public PropertyType getType() {
+        return type;
+    }
+
+    @Override
+    public Object get(int row) {
+        return isSet(row) ? values[row] : null;
+    }
+
+    @Override
+    public void clear(int row) {
+        super.clear(row);
+        if(row < values.length) {
+            values[row] = null;
+        }
+    }
+
+    @Override
+    protected void setValue(int row, Object value) {
+        if(row >= values.length) {
+            values = Arrays.copyOf(values, grow(values.length, row));
+        }
+        values[row] = value;
+    }
+
+    /**
+     * Returns the rows holding a value that matches the predicate.
+     *
+     * @param predicate The filter
+     * @return The matching rows
+     */
+    public BitSet select(Predicate<Object> predicate) {
+        BitSet rows = new BitSet();
+        for(int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+            if(predicate.test(values[row])) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+}
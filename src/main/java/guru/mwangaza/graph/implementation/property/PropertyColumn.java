@@ -0,0 +1,113 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.property;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+/**
+ * Values of one property for all rows of a {@link PropertyStore}. A row holds a value if it is marked
+ * present; subclasses store the values in arrays of their type.
+ */
+public abstract class PropertyColumn implements Serializable {
+
+    private final String key;
+    /**
+     * Rows holding a value.
+     */
+    protected final BitSet present = new BitSet();
+
+    protected PropertyColumn(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the type of the column's values.
+     *
+     * @return The property type
+     */
+    public abstract PropertyType getType();
+
+    /**
+     * Returns true if the row holds a value.
+     *
+     * @param row The row
+     * @return True if a value is set
+     */
+    public boolean isSet(int row) {
+        return present.get(row);
+    }
+
+    /**
+     * Returns the rows holding a value.
+     *
+     * @return A copy of the present rows
+     */
+    public BitSet getPresentRows() {
+        return (BitSet)present.clone();
+    }
+
+    /**
+     * Returns the value of the row, boxed, or null if it holds no value.
+     *
+     * @param row The row
+     * @return The value or null
+     */
+    public abstract Object get(int row);
+
+    /**
+     * Sets the value of the row. A null value clears the row.
+     *
+     * @param row The row
+     * @param value The value
+     * @throws IllegalArgumentException if the value does not have the column's type
+     */
+    public void set(int row, Object value) {
+        if(value == null) {
+            clear(row);
+        } else if(!getType().accepts(value)) {
+            throw new IllegalArgumentException("Property " + key + " expects " + getType() + " values, not " + value.getClass().getName());
+        } else {
+            setValue(row, value);
+            present.set(row);
+        }
+    }
+
+    /**
+     * Removes the value of the row.
+     *
+     * @param row The row
+     */
+    public void clear(int row) {
+        present.clear(row);
+    }
+
+    /**
+     * Stores a value of the column's type.
+     */
+    protected abstract void setValue(int row, Object value);
+
+    /**
+     * Returns capacity if it is at least row + 1, or a larger capacity otherwise.
+     */
+    protected static int grow(int capacity, int row) {
+        return row < capacity ? capacity : Math.max(row + 1, capacity * 2);
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.property;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Declares the property keys of a tree and their types. A schema is declared once per tree and is
+ * used to create the tree's {@link PropertyStore}.
+ */
+public class PropertySchema implements Serializable {
+
+    private final Map<String, PropertyType> types = new LinkedHashMap<>();
+
+    /**
+     * Declares a property.
+     *
+     * @param key The property key
+     * @param type The property type
+     * @return This schema
+     * @throws IllegalArgumentException if the key is already declared with another type
+     */
+    public PropertySchema declare(String key, PropertyType type) {
+        PropertyType previous = types.get(key);
+        if(previous != null && previous != type) {
+            throw new IllegalArgumentException("Property " + key + " is already declared as " + previous);
+        }
+        types.put(key, type);
+        return this;
+    }
+
+    /**
+     * Returns the type of a declared property, or null if the key is not declared.
+     *
+     * @param key The property key
+     * @return The property type or null
+     */
+    public PropertyType getType(String key) {
+        return types.get(key);
+    }
+
+    /**
+     * Returns the declared keys in declaration order.
+     *
+     * @return The declared keys
+     */
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(types.keySet());
+    }
+}
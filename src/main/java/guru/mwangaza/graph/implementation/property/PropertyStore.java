@@ -0,0 +1,259 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.property;
+
+import guru.mwangaza.graph.api.TreeNode;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-tree columnar storage for the properties declared in a {@link PropertySchema}. Every node of
+ * the tree is assigned a row, and the value of each declared property is stored in the property's
+ * column at that row. Numeric and boolean values live in primitive arrays, so they are neither boxed
+ * nor stored with a copy of their key in every node, and filters scan arrays instead of hash maps.
+ * <br>
+ * Rows of nodes released from the store are reused. Stores are not thread-safe.
+ *
+ * @param <T>
+ */
+public class PropertyStore<T> implements Serializable {
+
+    private final PropertySchema schema;
+    private final Map<String, PropertyColumn> columns = new LinkedHashMap<>();
+    /**
+     * Nodes by row. Released rows hold null.
+     */
+    private TreeNode<T>[] nodes = newNodeArray(16);
+    private int rowCount;
+    /**
+     * Released rows available for reuse.
+     */
+    private final BitSet freeRows = new BitSet();
+
+    /**
+     * Creates a store with a column for each property declared in the schema.
+     *
+     * @param schema The tree's property schema
+     */
+    public PropertyStore(PropertySchema schema) {
+        this.schema = schema;
+        for(String key : schema.getKeys()) {
+            columns.put(key, createColumn(key, schema.getType(key)));
+        }
+    }
+
+    private static PropertyColumn createColumn(String key, PropertyType type) {
+        switch(type) {
+            case INT:
+                return new IntColumn(key);
+            case LONG:
+                return new LongColumn(key);
+            case DOUBLE:
+                return new DoubleColumn(key);
+            case BOOLEAN:
+                return new BooleanColumn(key);
+            default:
+                return new ObjectColumn(key, type);
+        }
+    }
+
+    public PropertySchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Returns true if the key is declared in the schema.
+     *
+     * @param key The property key
+     * @return True if declared
+     */
+    public boolean isDeclared(String key) {
+        return columns.containsKey(key);
+    }
+
+    /**
+     * Returns the column of a declared property, or null.
+     *
+     * @param key The property key
+     * @return The column or null
+     */
+    public PropertyColumn getColumn(String key) {
+        return columns.get(key);
+    }
+
+    public IntColumn getIntColumn(String key) {
+        return typedColumn(key, IntColumn.class);
+    }
+
+    public LongColumn getLongColumn(String key) {
+        return typedColumn(key, LongColumn.class);
+    }
+
+    public DoubleColumn getDoubleColumn(String key) {
+        return typedColumn(key, DoubleColumn.class);
+    }
+
+    public BooleanColumn getBooleanColumn(String key) {
+        return typedColumn(key, BooleanColumn.class);
+    }
+
+    public ObjectColumn getObjectColumn(String key) {
+        return typedColumn(key, ObjectColumn.class);
+    }
+
+    private <C extends PropertyColumn> C typedColumn(String key, Class<C> columnClass) {
+        PropertyColumn column = columns.get(key);
+        if(!columnClass.isInstance(column)) {
+            throw new IllegalArgumentException("Property " + key + " is not declared as a " + columnClass.getSimpleName());
+        }
+        return columnClass.cast(column);
+    }
+
+    /**
+     * Assigns a row to a node. Called by the nodes of the tree when they join it.
+     *
+     * @param node The node
+     * @return The node's row
+     */
+    public int register(TreeNode<T> node) {
+        int row = freeRows.nextSetBit(0);
+        if(row >= 0) {
+            freeRows.clear(row);
+        } else {
+            row = rowCount++;
+            if(row == nodes.length) {
+                nodes = Arrays.copyOf(nodes, row * 2);
+            }
+        }
+        nodes[row] = node;
+        return row;
+    }
+
+    /**
+     * Clears the values of a row and makes the row available for reuse.
+     *
+     * @param row The row of a node leaving the tree
+     */
+    public void release(int row) {
+        for(PropertyColumn column : columns.values()) {
+            column.clear(row);
+        }
+        nodes[row] = null;
+        freeRows.set(row);
+    }
+
+    /**
+     * Returns the node assigned to a row, or null if the row is free.
+     *
+     * @param row The row
+     * @return The node or null
+     */
+    public TreeNode<T> getNode(int row) {
+        return nodes[row];
+    }
+
+    /**
+     * Returns the nodes assigned to the rows, in row order.
+     *
+     * @param rows The rows, typically the result of a column's select method
+     * @return The nodes
+     */
+    public List<TreeNode<T>> getNodes(BitSet rows) {
+        List<TreeNode<T>> selected = new ArrayList<>(rows.cardinality());
+        for(int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            if(row < rowCount && nodes[row] != null) {
+                selected.add(nodes[row]);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the number of rows assigned so far, including free rows.
+     *
+     * @return The row count
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the value of a declared property, or null.
+     *
+     * @param row The row
+     * @param key The property key
+     * @return The boxed value or null
+     */
+    public Object get(int row, String key) {
+        PropertyColumn column = columns.get(key);
+        return column != null ? column.get(row) : null;
+    }
+
+    /**
+     * Sets the value of a property if it is declared.
+     *
+     * @param row The row
+     * @param key The property key
+     * @param value The value, null to clear it
+     * @return False if the key is not declared and nothing was stored
+     * @throws IllegalArgumentException if the value does not have the declared type
+     */
+    public boolean set(int row, String key, Object value) {
+        PropertyColumn column = columns.get(key);
+        if(column == null) {
+            return false;
+        }
+        column.set(row, value);
+        return true;
+    }
+
+    /**
+     * Returns the declared properties holding a value at the row, in declaration order.
+     *
+     * @param row The row
+     * @return The properties of the row
+     */
+    public Map<String, Object> getValues(int row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for(PropertyColumn column : columns.values()) {
+            if(column.isSet(row)) {
+                values.put(column.getKey(), column.get(row));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the declared columns in declaration order.
+     *
+     * @return The columns
+     */
+    public Iterable<PropertyColumn> getColumns() {
+        return columns.values();
+    }
+
+    // Arrays of a generic type can only be created through a cast
+    @SuppressWarnings("unchecked")
+    private static <T> TreeNode<T>[] newNodeArray(int length) {
+        return (TreeNode<T>[])new TreeNode<?>[length];
+    }
+}
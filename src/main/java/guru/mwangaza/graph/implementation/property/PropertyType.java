@@ -0,0 +1,54 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.property;
+
+/**
+ * The type of a property declared in a {@link PropertySchema}. Numeric and boolean properties are
+ * stored in primitive columns.
+ */
+public enum PropertyType {
+    INT(Integer.class),
+    LONG(Long.class),
+    DOUBLE(Double.class),
+    BOOLEAN(Boolean.class),
+    STRING(String.class),
+    OBJECT(Object.class);
+
+    private final Class<?> valueClass;
+
+    PropertyType(Class<?> valueClass) {
+        this.valueClass = valueClass;
+    }
+
+    /**
+     * Returns the class of the values of this type.
+     *
+     * @return The value class
+     */
+    public Class<?> getValueClass() {
+        return valueClass;
+    }
+
+    /**
+     * Returns true if value can be stored in a property of this type.
+     *
+     * @param value A non-null value
+     * @return True if the value has the right type
+     */
+    public boolean accepts(Object value) {
+        return valueClass.isInstance(value);
+    }
+}
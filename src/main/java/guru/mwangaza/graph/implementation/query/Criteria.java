@@ -0,0 +1,79 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.Criterion;
+import guru.mwangaza.graph.implementation.visitor.NameEqualToStringCriterion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Factory methods composing criteria, for instance
+ * {@code and(propertyEquals("status", "active"), not(propertyRange("size", null, true, 10, false)))}.
+ */
+public final class Criteria {
+
+    private Criteria() {
+    }
+
+    public static <S extends BaseNode<T>, T> Criterion<S,T> nameEquals(String name) {
+        return new NameEqualToStringCriterion<>(name);
+    }
+
+    public static <S extends BaseNode<T>, T> PropertyEqualsCriterion<S,T> propertyEquals(String key, Object value) {
+        return new PropertyEqualsCriterion<>(key, value);
+    }
+
+    public static <S extends BaseNode<T>, T> PropertyRangeCriterion<S,T> propertyRange(String key, Comparable<?> lower, boolean lowerInclusive, Comparable<?> upper, boolean upperInclusive) {
+        return new PropertyRangeCriterion<>(key, lower, lowerInclusive, upper, upperInclusive);
+    }
+
+    /**
+     * Matches values between lower and upper, both inclusive.
+     */
+    public static <S extends BaseNode<T>, T> PropertyRangeCriterion<S,T> propertyBetween(String key, Comparable<?> lower, Comparable<?> upper) {
+        return new PropertyRangeCriterion<>(key, lower, true, upper, true);
+    }
+
+    public static <S extends BaseNode<T>, T> PropertyPrefixCriterion<S,T> propertyPrefix(String key, String prefix) {
+        return new PropertyPrefixCriterion<>(key, prefix);
+    }
+
+    @SafeVarargs
+    public static <S extends BaseNode<T>, T> AndCriterion<S,T> and(Criterion<S,T>... criteria) {
+        List<Criterion<S,T>> operands = new ArrayList<>(criteria.length);
+        // Copied element by element, so that the varargs array is never handed on
+        for(Criterion<S,T> criterion : criteria) {
+            operands.add(criterion);
+        }
+        return new AndCriterion<>(operands);
+    }
+
+    @SafeVarargs
+    public static <S extends BaseNode<T>, T> OrCriterion<S,T> or(Criterion<S,T>... criteria) {
+        List<Criterion<S,T>> operands = new ArrayList<>(criteria.length);
+        for(Criterion<S,T> criterion : criteria) {
+            operands.add(criterion);
+        }
+        return new OrCriterion<>(operands);
+    }
+
+    public static <S extends BaseNode<T>, T> NotCriterion<S,T> not(Criterion<S,T> criterion) {
+        return new NotCriterion<>(criterion);
+    }
+}
@@ -0,0 +1,357 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.Criterion;
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.index.NameIndex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Compiled path query over node names. A query is a sequence of steps separated by the path delimiter
+ * of the tree. Each step is a node name, compared as by {@link BaseNode#isNameEqualTo(String)}, or the
+ * wildcard {@code *}, optionally followed by predicates in brackets. A doubled delimiter selects
+ * descendants at any depth instead of children. The first step is matched against the start node itself,
+ * or, after a leading doubled delimiter, against the start node and all of its descendants.
+ * <br>
+ * Predicates test properties ({@code @key}) and the payload ({@code payload}) with {@code =}, {@code !=},
+ * {@code <}, {@code <=}, {@code >}, {@code >=} and the prefix test {@code ^=}; a bare operand tests for
+ * presence. They combine with {@code and}, {@code or}, {@code not(...)} and parentheses. With the default
+ * delimiter:
+ * <pre>
+ * root.orders..item[@status='shipped' and @quantity &gt;= 10]
+ * ..*[payload ^= 'http']
+ * </pre>
+ * Queries are immutable and can be cached and shared between threads (see {@link NodeQueryCache}).
+ * Results are produced lazily, in depth-first order and without duplicates, so {@link #findFirst} and
+ * limited searches stop as soon as enough nodes are found. When a {@link NameIndex} is supplied,
+ * descendant steps with a literal name look the name up in the index instead of walking the subtree.
+ */
+public final class NodeQuery {
+
+    private final String text;
+    private final String delimiter;
+    private final List<Step> steps;
+
+    private NodeQuery(String text, String delimiter, List<Step> steps) {
+        this.text = text;
+        this.delimiter = delimiter;
+        this.steps = steps;
+    }
+
+    /**
+     * Compiles a query using the default path delimiter.
+     *
+     * @param query The query text
+     * @return The compiled query
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public static NodeQuery compile(String query) {
+        return compile(query, BaseNode.DEFAULT_PATH_DELIMITER);
+    }
+
+    /**
+     * Compiles a query for trees using the path delimiter argument, typically
+     * the value of {@link BaseNode#getPathDelimiter()} of the queried tree.
+     *
+     * @param query The query text
+     * @param delimiter The path delimiter
+     * @return The compiled query
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public static NodeQuery compile(String query, String delimiter) {
+        return new NodeQuery(query, delimiter, Collections.unmodifiableList(new NodeQueryParser(query, delimiter).parse()));
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Returns the nodes matching the query from start, lazily.
+     *
+     * @param start The node the query is evaluated from
+     * @return An iterator over the matching nodes
+     */
+    public <N extends BaseNode<T>, T> Iterator<N> iterator(N start) {
+        return new QueryIterator<>(start, null);
+    }
+
+    /**
+     * Returns the nodes matching the query from start, lazily, using the name index for descendant steps
+     * over nodes it covers.
+     *
+     * @param start The node the query is evaluated from
+     * @param index A name index over the tree of start, or null
+     * @return An iterator over the matching nodes
+     */
+    public <T> Iterator<TreeNode<T>> iterator(TreeNode<T> start, NameIndex<T> index) {
+        return new QueryIterator<>(start, index);
+    }
+
+    public <N extends BaseNode<T>, T> Stream<N> stream(N start) {
+        return toStream(iterator(start));
+    }
+
+    public <T> Stream<TreeNode<T>> stream(TreeNode<T> start, NameIndex<T> index) {
+        return toStream(iterator(start, index));
+    }
+
+    /**
+     * Returns all nodes matching the query from start.
+     *
+     * @param start The node the query is evaluated from
+     * @return The matching nodes
+     */
+    public <N extends BaseNode<T>, T> List<N> find(N start) {
+        return find(start, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns at most limit nodes matching the query from start. The search stops once limit nodes are found.
+     *
+     * @param start The node the query is evaluated from
+     * @param limit The maximum number of nodes returned
+     * @return The matching nodes
+     */
+    public <N extends BaseNode<T>, T> List<N> find(N start, int limit) {
+        List<N> nodes = new ArrayList<>();
+        for(Iterator<N> iterator = iterator(start); nodes.size() < limit && iterator.hasNext(); ) {
+            nodes.add(iterator.next());
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the first node matching the query from start, or null.
+     *
+     * @param start The node the query is evaluated from
+     * @return The first matching node or null
+     */
+    public <N extends BaseNode<T>, T> N findFirst(N start) {
+        Iterator<N> iterator = iterator(start);
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Describes the compiled steps of the query.
+     *
+     * @return The query plan
+     */
+    public String explain() {
+        StringBuilder builder = new StringBuilder();
+        for(Step step : steps) {
+            builder.append(builder.length() > 0 ? " -> " : "").append(step);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private static <N> Stream<N> toStream(Iterator<N> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * A compiled step: the axis, the name test and the predicate.
+     */
+    static final class Step {
+
+        private final boolean descendant;
+        private final String name;
+        private final Criterion<BaseNode<Object>, Object> predicate;
+
+        Step(boolean descendant, String name, Criterion<BaseNode<Object>, Object> predicate) {
+            this.descendant = descendant;
+            this.name = name;
+            this.predicate = predicate;
+        }
+
+        // The parsed predicates read properties and payloads as plain objects, whatever the payload type
+        @SuppressWarnings("unchecked")
+        boolean matches(BaseNode<?> node) {
+            return (name == null || node.isNameEqualTo(name)) && (predicate == null || predicate.matches((BaseNode<Object>)node));
+        }
+
+        @Override
+        public String toString() {
+            return (descendant ? "descendants" : "children") + "(" + (name != null ? name : "*") + ")"
+                    + (predicate != null ? " where " + predicate : "");
+        }
+    }
+
+    /**
+     * Depth-first evaluation of the steps. Each frame holds the candidates of one step for one context node.
+     */
+    private class QueryIterator<N extends BaseNode<T>, T> implements Iterator<N> {
+
+        private final BaseNode<T> start;
+        private final NameIndex<T> index;
+        private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        private final Set<BaseNode<?>> returned = Collections.newSetFromMap(new IdentityHashMap<>());
+        private BaseNode<?> next;
+
+        QueryIterator(BaseNode<T> start, NameIndex<T> index) {
+            this.start = start;
+            this.index = index != null && start instanceof TreeNode && index.contains((TreeNode<T>)start) ? index : null;
+            frames.push(new Frame(0, candidates(steps.get(0), null)));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(next == null && !frames.isEmpty()) {
+                Frame frame = frames.peek();
+                if(!frame.candidates.hasNext()) {
+                    frames.pop();
+                    continue;
+                }
+                BaseNode<?> candidate = frame.candidates.next();
+                if(!steps.get(frame.step).matches(candidate)) {
+                    continue;
+                }
+                if(frame.step == steps.size() - 1) {
+                    if(returned.add(candidate)) {
+                        next = candidate;
+                    }
+                } else {
+                    frames.push(new Frame(frame.step + 1, candidates(steps.get(frame.step + 1), candidate)));
+                }
+            }
+            return next != null;
+        }
+
+        // Matches are reached from start through the children of nodes of its kind
+        @SuppressWarnings("unchecked")
+        @Override
+        public N next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            N node = (N)next;
+            next = null;
+            return node;
+        }
+
+        /**
+         * Returns the candidates of a step for a context node. A null context stands for the parent of the start node.
+         */
+        // The index only covers the tree of start, whose nodes share its payload type
+        @SuppressWarnings("unchecked")
+        private Iterator<? extends BaseNode<?>> candidates(Step step, BaseNode<?> context) {
+            BaseNode<?> origin = context != null ? context : start;
+            if(step.descendant && step.name != null && index != null) {
+                List<TreeNode<T>> named = index.findInSubtree((TreeNode<T>)origin, step.name, context == null);
+                return named.iterator();
+            } else if(step.descendant) {
+                return new DescendantIterator(origin, context == null);
+            } else if(context == null) {
+                return Collections.<BaseNode<?>>singletonList(start).iterator();
+            }
+            return children(context).iterator();
+        }
+    }
+
+    private class Frame {
+
+        private final int step;
+        private final Iterator<? extends BaseNode<?>> candidates;
+
+        Frame(int step, Iterator<? extends BaseNode<?>> candidates) {
+            this.step = step;
+            this.candidates = candidates;
+        }
+    }
+
+    /**
+     * Lazy pre-order walk of the nodes below a node. Nodes reachable through several parents are visited once.
+     */
+    private static class DescendantIterator implements Iterator<BaseNode<?>> {
+
+        private final ArrayDeque<Iterator<? extends BaseNode<?>>> stack = new ArrayDeque<>();
+        private final Set<BaseNode<?>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        private BaseNode<?> next;
+
+        DescendantIterator(BaseNode<?> origin, boolean includeOrigin) {
+            if(includeOrigin) {
+                stack.push(Collections.singletonList(origin).iterator());
+            } else {
+                visited.add(origin);
+                stack.push(children(origin).iterator());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(next == null && !stack.isEmpty()) {
+                Iterator<? extends BaseNode<?>> iterator = stack.peek();
+                if(!iterator.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                BaseNode<?> node = iterator.next();
+                if(visited.add(node)) {
+                    next = node;
+                    if(node.hasChildren()) {
+                        stack.push(children(node).iterator());
+                    }
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public BaseNode<?> next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BaseNode<?> node = next;
+            next = null;
+            return node;
+        }
+    }
+
+    private static List<? extends BaseNode<?>> children(BaseNode<?> node) {
+        if(!node.hasChildren()) {
+            return Collections.emptyList();
+        } else if(node instanceof TreeNode) {
+            return ((TreeNode<?>)node).getChildren();
+        } else if(node instanceof GraphNode) {
+            return ((GraphNode<?>)node).getChildren();
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of compiled {@link NodeQuery} instances keyed by query text and path delimiter, so
+ * queries issued repeatedly are parsed once. The least recently used query is dropped when the cache
+ * is full. The cache is thread-safe.
+ */
+public class NodeQueryCache {
+
+    private final int maxSize;
+    private final Map<String, NodeQuery> queries;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Creates a cache holding at most maxSize compiled queries.
+     *
+     * @param maxSize The maximum number of cached queries
+     */
+    public NodeQueryCache(int maxSize) {
+        if(maxSize <= 0) {
+            throw new IllegalArgumentException("Query cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.queries = new LinkedHashMap<String, NodeQuery>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NodeQuery> eldest) {
+                return size() > NodeQueryCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the compiled query for the default path delimiter, compiling it on a miss.
+     *
+     * @param query The query text
+     * @return The compiled query
+     */
+    public NodeQuery compile(String query) {
+        return compile(query, BaseNode.DEFAULT_PATH_DELIMITER);
+    }
+
+    /**
+     * Returns the compiled query for the path delimiter, compiling it on a miss.
+     *
+     * @param query The query text
+     * @param delimiter The path delimiter
+     * @return The compiled query
+     */
+    public synchronized NodeQuery compile(String query, String delimiter) {
+        String key = delimiter + '\u0000' + query;
+        NodeQuery compiled = queries.get(key);
+        if(compiled != null) {
+            hitCount++;
+            return compiled;
+        }
+        missCount++;
+        compiled = NodeQuery.compile(query, delimiter);
+        queries.put(key, compiled);
+        return compiled;
+    }
+
+    public synchronized int size() {
+        return queries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized void clear() {
+        queries.clear();
+    }
+}
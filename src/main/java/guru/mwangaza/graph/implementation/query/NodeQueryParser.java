@@ -0,0 +1,262 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.Criterion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recursive-descent parser turning the text of a {@link NodeQuery} into its steps.
+ */
+class NodeQueryParser {
+
+    private final String text;
+    private final String delimiter;
+    private final String descendantDelimiter;
+    private int position;
+
+    NodeQueryParser(String text, String delimiter) {
+        if(delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Query path delimiter must not be empty");
+        }
+        this.text = text;
+        this.delimiter = delimiter;
+        this.descendantDelimiter = delimiter + delimiter;
+    }
+
+    List<NodeQuery.Step> parse() {
+        List<NodeQuery.Step> steps = new ArrayList<>();
+        boolean descendant = false;
+        if(text.startsWith(descendantDelimiter)) {
+            descendant = true;
+            position = descendantDelimiter.length();
+        } else if(text.startsWith(delimiter)) {
+            position = delimiter.length();
+        }
+        while(true) {
+            String name = parseNameTest();
+            Criterion<BaseNode<Object>, Object> predicate = null;
+            while(position < text.length() && text.charAt(position) == '[') {
+                position++;
+                Criterion<BaseNode<Object>, Object> bracket = parseOr();
+                skipWhitespace();
+                expect("]");
+                predicate = predicate == null ? bracket : new AndCriterion<>(Arrays.asList(predicate, bracket));
+            }
+            steps.add(new NodeQuery.Step(descendant, name, predicate));
+            if(position >= text.length()) {
+                return steps;
+            } else if(text.startsWith(descendantDelimiter, position)) {
+                descendant = true;
+                position += descendantDelimiter.length();
+            } else if(text.startsWith(delimiter, position)) {
+                descendant = false;
+                position += delimiter.length();
+            } else {
+                throw error("Expected '" + delimiter + "'");
+            }
+        }
+    }
+
+    /**
+     * Returns the name of a step, or null for the wildcard.
+     */
+    private String parseNameTest() {
+        if(position < text.length() && (text.charAt(position) == '\'' || text.charAt(position) == '"')) {
+            return parseQuoted();
+        }
+        int start = position;
+        while(position < text.length() && text.charAt(position) != '[' && !text.startsWith(delimiter, position)) {
+            position++;
+        }
+        String name = text.substring(start, position).trim();
+        if(name.isEmpty()) {
+            throw error("Expected a node name or '*'");
+        }
+        return "*".equals(name) ? null : name;
+    }
+
+    private Criterion<BaseNode<Object>, Object> parseOr() {
+        List<Criterion<BaseNode<Object>, Object>> criteria = new ArrayList<>();
+        criteria.add(parseAnd());
+        while(acceptKeyword("or")) {
+            criteria.add(parseAnd());
+        }
+        return criteria.size() == 1 ? criteria.get(0) : new OrCriterion<>(criteria);
+    }
+
+    private Criterion<BaseNode<Object>, Object> parseAnd() {
+        List<Criterion<BaseNode<Object>, Object>> criteria = new ArrayList<>();
+        criteria.add(parseUnary());
+        while(acceptKeyword("and")) {
+            criteria.add(parseUnary());
+        }
+        return criteria.size() == 1 ? criteria.get(0) : new AndCriterion<>(criteria);
+    }
+
+    private Criterion<BaseNode<Object>, Object> parseUnary() {
+        skipWhitespace();
+        if(acceptKeyword("not")) {
+            skipWhitespace();
+            expect("(");
+            Criterion<BaseNode<Object>, Object> criterion = parseOr();
+            skipWhitespace();
+            expect(")");
+            return new NotCriterion<>(criterion);
+        } else if(accept("(")) {
+            Criterion<BaseNode<Object>, Object> criterion = parseOr();
+            skipWhitespace();
+            expect(")");
+            return criterion;
+        }
+        return parseComparison();
+    }
+
+    private Criterion<BaseNode<Object>, Object> parseComparison() {
+        boolean payload;
+        String key;
+        if(accept("@")) {
+            payload = false;
+            int start = position;
+            while(position < text.length() && isKeyCharacter(text.charAt(position))) {
+                position++;
+            }
+            key = text.substring(start, position);
+            if(key.isEmpty()) {
+                throw error("Expected a property key");
+            }
+        } else if(acceptKeyword("payload")) {
+            payload = true;
+            key = "payload";
+        } else {
+            throw error("Expected '@key' or 'payload'");
+        }
+        skipWhitespace();
+        String operator = null;
+        for(String candidate : new String[]{"!=", "<=", ">=", "^=", "=", "<", ">"}) {
+            if(accept(candidate)) {
+                operator = candidate;
+                break;
+            }
+        }
+        if(operator == null) {
+            return wrap(new PropertyExistsCriterion<>(key), payload);
+        }
+        skipWhitespace();
+        Object value = parseLiteral();
+        switch(operator) {
+            case "=":
+                return wrap(new PropertyEqualsCriterion<>(key, value), payload);
+            case "!=":
+                return new AndCriterion<>(Arrays.asList(wrap(new PropertyExistsCriterion<>(key), payload),
+                        new NotCriterion<>(wrap(new PropertyEqualsCriterion<>(key, value), payload))));
+            case "^=":
+                if(!(value instanceof String)) {
+                    throw error("Prefix comparison requires a string");
+                }
+                return wrap(new PropertyPrefixCriterion<>(key, (String)value), payload);
+            default:
+                if(!(value instanceof Comparable)) {
+                    throw error("Range comparison requires a string or a number");
+                }
+                Comparable<?> bound = (Comparable<?>)value;
+                boolean lower = operator.startsWith(">");
+                boolean inclusive = operator.endsWith("=");
+                return wrap(lower ? new PropertyRangeCriterion<>(key, bound, inclusive, null, false)
+                        : new PropertyRangeCriterion<>(key, null, false, bound, inclusive), payload);
+        }
+    }
+
+    private Criterion<BaseNode<Object>, Object> wrap(PropertyCriterion<BaseNode<Object>, Object> criterion, boolean payload) {
+        return payload ? new PayloadCriterion<>(criterion) : criterion;
+    }
+
+    private Object parseLiteral() {
+        if(position < text.length() && (text.charAt(position) == '\'' || text.charAt(position) == '"')) {
+            return parseQuoted();
+        }
+        int start = position;
+        while(position < text.length() && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '-' || text.charAt(position) == '.')) {
+            position++;
+        }
+        String literal = text.substring(start, position);
+        if("true".equals(literal) || "false".equals(literal)) {
+            return Boolean.valueOf(literal);
+        }
+        try {
+            if(literal.contains(".") || literal.contains("e") || literal.contains("E")) {
+                return Double.valueOf(literal);
+            }
+            return Long.valueOf(literal);
+        } catch(NumberFormatException e) {
+            position = start;
+            throw error("Expected a quoted string, a number or a boolean");
+        }
+    }
+
+    private String parseQuoted() {
+        char quote = text.charAt(position++);
+        int end = text.indexOf(quote, position);
+        if(end < 0) {
+            throw error("Unterminated string");
+        }
+        String value = text.substring(position, end);
+        position = end + 1;
+        return value;
+    }
+
+    private boolean isKeyCharacter(char character) {
+        return Character.isLetterOrDigit(character) || character == '_' || character == '-' || character == ':';
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        skipWhitespace();
+        int end = position + keyword.length();
+        if(text.startsWith(keyword, position) && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean accept(String token) {
+        if(text.startsWith(token, position)) {
+            position += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if(!accept(token)) {
+            throw error("Expected '" + token + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while(position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of query: " + text);
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.Criterion;
+
+/**
+ * Matches nodes that do not satisfy its criterion.
+ *
+ * @param <S> The type of node tested
+ * @param <T> The type of the payload for the node
+ */
+public class NotCriterion<S extends BaseNode<T>, T> implements Criterion<S,T> {
+
+    private final Criterion<S,T> criterion;
+
+    public NotCriterion(Criterion<S,T> criterion) {
+        this.criterion = criterion;
+    }
+
+    public Criterion<S,T> getCriterion() {
+        return criterion;
+    }
+
+    @Override
+    public boolean matches(S node) {
+        return !criterion.matches(node);
+    }
+
+    @Override
+    public String toString() {
+        return "NOT " + criterion;
+    }
+}
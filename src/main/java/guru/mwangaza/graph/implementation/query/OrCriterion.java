@@ -0,0 +1,65 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.Criterion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Matches nodes that satisfy at least one of its criteria. Criteria are evaluated in order and evaluation stops
+ * as soon as the result is known.
+ *
+ * @param <S> The type of node tested
+ * @param <T> The type of the payload for the node
+ */
+public class OrCriterion<S extends BaseNode<T>, T> implements Criterion<S,T> {
+
+    private final List<Criterion<S,T>> criteria;
+
+    public OrCriterion(List<? extends Criterion<S,T>> criteria) {
+        this.criteria = new ArrayList<>(criteria);
+    }
+
+    public List<Criterion<S,T>> getCriteria() {
+        return Collections.unmodifiableList(criteria);
+    }
+
+    @Override
+    public boolean matches(S node) {
+        for(Criterion<S,T> criterion : criteria) {
+            if(criterion.matches(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("(");
+        for(int index = 0; index < criteria.size(); index++) {
+            if(index > 0) {
+                builder.append(" OR ");
+            }
+            builder.append(criteria.get(index));
+        }
+        return builder.append(")").toString();
+    }
+}
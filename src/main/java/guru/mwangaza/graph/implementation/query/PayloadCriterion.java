@@ -0,0 +1,55 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.Criterion;
+
+/**
+ * Matches nodes whose payload satisfies the value test of a property criterion. Payloads that are
+ * neither strings nor numbers are tested through their string form.
+ *
+ * @param <S> The type of node tested
+ * @param <T> The type of the payload for the node
+ */
+public class PayloadCriterion<S extends BaseNode<T>, T> implements Criterion<S,T> {
+
+    private final PropertyCriterion<S,T> valueTest;
+
+    /**
+     * Creates a criterion testing payloads with the matchesValue method of valueTest. The key of
+     * valueTest is only used to describe the criterion, conventionally "payload".
+     *
+     * @param valueTest The value test
+     */
+    public PayloadCriterion(PropertyCriterion<S,T> valueTest) {
+        this.valueTest = valueTest;
+    }
+
+    @Override
+    public boolean matches(S node) {
+        T payload = node != null ? node.getPayload() : null;
+        if(payload == null) {
+            return false;
+        }
+        return valueTest.matchesValue(payload instanceof String || payload instanceof Number ? payload : payload.toString());
+    }
+
+    @Override
+    public String toString() {
+        return valueTest.toString();
+    }
+}
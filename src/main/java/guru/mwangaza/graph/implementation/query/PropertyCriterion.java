@@ -0,0 +1,87 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.Criterion;
+
+import java.util.Map;
+
+/**
+ * Base class of the criteria testing the value of a node property.
+ *
+ * @param <S> The type of node tested
+ * @param <T> The type of the payload for the node
+ */
+public abstract class PropertyCriterion<S extends BaseNode<T>, T> implements Criterion<S,T> {
+
+    private final String key;
+
+    protected PropertyCriterion(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Returns the key of the tested property.
+     *
+     * @return The property key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean matches(S node) {
+        if(node == null) {
+            return false;
+        }
+        Map<String, Object> properties = node.getProperties();
+        Object value = properties != null ? properties.get(key) : null;
+        return value != null && matchesValue(value);
+    }
+
+    /**
+     * Returns true if a non-null property value satisfies the criterion.
+     *
+     * @param value The property value
+     * @return True if the value matches
+     */
+    public abstract boolean matchesValue(Object value);
+
+    /**
+     * Compares two values. Numbers of different classes are compared by value, so an Integer
+     * property matches a Long or Double bound.
+     *
+     * @throws ClassCastException if the values are not mutually comparable
+     */
+    // Values of other types fail in compareTo, as documented
+    @SuppressWarnings("unchecked")
+    protected static int compareValues(Object bound, Object value) {
+        if(bound instanceof Number && value instanceof Number && bound.getClass() != value.getClass()) {
+            Number a = (Number)bound;
+            Number b = (Number)value;
+            if(isIntegral(a) && isIntegral(b)) {
+                return Long.compare(a.longValue(), b.longValue());
+            }
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        return ((Comparable<Object>)bound).compareTo(value);
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+}
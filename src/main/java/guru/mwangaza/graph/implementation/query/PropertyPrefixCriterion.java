@@ -0,0 +1,48 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+
+/**
+ * Matches nodes whose property value is a string starting with the prefix argument.
+ *
+ * @param <S> The type of node tested
+ * @param <T> The type of the payload for the node
+ */
+public class PropertyPrefixCriterion<S extends BaseNode<T>, T> extends PropertyCriterion<S,T> {
+
+    private final String prefix;
+
+    public PropertyPrefixCriterion(String key, String prefix) {
+        super(key);
+        this.prefix = prefix;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public boolean matchesValue(Object value) {
+        return value instanceof String && ((String)value).startsWith(prefix);
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + " starts with " + prefix;
+    }
+}
@@ -0,0 +1,361 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.Criterion;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import guru.mwangaza.graph.implementation.index.HashPropertyIndex;
+import guru.mwangaza.graph.implementation.index.PropertyIndex;
+import guru.mwangaza.graph.implementation.index.SortedPropertyIndex;
+import guru.mwangaza.graph.implementation.property.PropertyColumn;
+import guru.mwangaza.graph.implementation.property.PropertyStore;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Answers criterion queries over a subtree, using the property indexes created on it when possible.
+ * <br>
+ * A property criterion is answered by an index on its key: equality by any index, ranges and prefixes
+ * by a {@link SortedPropertyIndex}. In a conjunction, the first conjunct answered by an index drives the
+ * lookup and the remaining conjuncts filter its result. A disjunction whose branches can all use an
+ * index is answered by the union of the lookups. Properties declared in the tree's
+ * {@link PropertyStore} without an index are answered by scanning their column. All other queries fall
+ * back to a depth-first scan of the subtree. {@link #explain(Criterion)} describes the chosen plan.
+ * <br>
+ * Index lookups return nodes grouped by value rather than in document order.
+ *
+ * @param <T>
+ */
+public class PropertyQueryPlanner<T> {
+
+    private final TreeNode<T> root;
+    private final Map<String, List<PropertyIndex<T>>> indexes = new HashMap<>();
+
+    public PropertyQueryPlanner(TreeNode<T> root) {
+        this.root = root;
+    }
+
+    public TreeNode<T> getRoot() {
+        return root;
+    }
+
+    /**
+     * Creates an equality index on the property key.
+     *
+     * @param key The property key
+     * @return The index
+     */
+    public HashPropertyIndex<T> createHashIndex(String key) {
+        HashPropertyIndex<T> index = new HashPropertyIndex<>(root, key);
+        addIndex(index);
+        return index;
+    }
+
+    /**
+     * Creates an ordered index on the property key.
+     *
+     * @param key The property key
+     * @return The index
+     */
+    public SortedPropertyIndex<T> createSortedIndex(String key) {
+        SortedPropertyIndex<T> index = new SortedPropertyIndex<>(root, key);
+        addIndex(index);
+        return index;
+    }
+
+    /**
+     * Makes an index available to the planner.
+     *
+     * @param index An index created on the planner's root
+     */
+    public void addIndex(PropertyIndex<T> index) {
+        if(index.getRoot() != root) {
+            throw new IllegalArgumentException("Index " + index + " does not cover the planner's root");
+        }
+        indexes.computeIfAbsent(index.getKey(), k -> new ArrayList<>()).add(index);
+    }
+
+    /**
+     * Detaches and forgets the indexes on the property key.
+     *
+     * @param key The property key
+     */
+    public void dropIndexes(String key) {
+        List<PropertyIndex<T>> dropped = indexes.remove(key);
+        if(dropped != null) {
+            for(PropertyIndex<T> index : dropped) {
+                index.detach();
+            }
+        }
+    }
+
+    /**
+     * Returns the nodes of the subtree matching the criterion.
+     *
+     * @param criterion The criterion
+     * @return The matching nodes
+     */
+    public List<TreeNode<T>> find(Criterion<TreeNode<T>, T> criterion) {
+        return plan(criterion).execute();
+    }
+
+    /**
+     * Describes the plan used to answer the criterion.
+     *
+     * @param criterion The criterion
+     * @return A description of the plan
+     */
+    public String explain(Criterion<TreeNode<T>, T> criterion) {
+        return plan(criterion).toString();
+    }
+
+    private Plan<T> plan(Criterion<TreeNode<T>, T> criterion) {
+        Plan<T> access = planAccess(criterion);
+        if(access != null) {
+            return access;
+        }
+        if(criterion instanceof AndCriterion) {
+            List<Criterion<TreeNode<T>, T>> conjuncts = ((AndCriterion<TreeNode<T>, T>)criterion).getCriteria();
+            for(int index = 0; index < conjuncts.size(); index++) {
+                access = planAccess(conjuncts.get(index));
+                if(access != null) {
+                    List<Criterion<TreeNode<T>, T>> residual = new ArrayList<>(conjuncts);
+                    residual.remove(index);
+                    return residual.isEmpty() ? access : new FilterPlan<>(access, new AndCriterion<>(residual));
+                }
+            }
+        } else if(criterion instanceof OrCriterion) {
+            List<Plan<T>> branches = new ArrayList<>();
+            for(Criterion<TreeNode<T>, T> branch : ((OrCriterion<TreeNode<T>, T>)criterion).getCriteria()) {
+                Plan<T> branchPlan = plan(branch);
+                if(branchPlan instanceof ScanPlan) {
+                    return new ScanPlan<>(root, criterion);
+                }
+                branches.add(branchPlan);
+            }
+            return new UnionPlan<>(branches);
+        }
+        return new ScanPlan<>(root, criterion);
+    }
+
+    /**
+     * Returns an index or column plan answering a property criterion, or null.
+     */
+    private Plan<T> planAccess(Criterion<TreeNode<T>, T> criterion) {
+        if(!(criterion instanceof PropertyCriterion)) {
+            return null;
+        }
+        PropertyCriterion<TreeNode<T>, T> propertyCriterion = (PropertyCriterion<TreeNode<T>, T>)criterion;
+        boolean equality = criterion instanceof PropertyEqualsCriterion;
+        for(PropertyIndex<T> index : indexes.getOrDefault(propertyCriterion.getKey(), Collections.emptyList())) {
+            if(equality && !index.isOrdered()) {
+                return new IndexPlan<>(index, propertyCriterion);
+            }
+        }
+        for(PropertyIndex<T> index : indexes.getOrDefault(propertyCriterion.getKey(), Collections.emptyList())) {
+            if(index.isOrdered() && (equality || criterion instanceof PropertyRangeCriterion || criterion instanceof PropertyPrefixCriterion)) {
+                return new IndexPlan<>(index, propertyCriterion);
+            }
+        }
+        if(root instanceof TreeNodeImpl) {
+            PropertyStore<T> store = ((TreeNodeImpl<T>)root).getPropertyStore();
+            if(store != null && store.isDeclared(propertyCriterion.getKey())) {
+                return new ColumnScanPlan<>(root, store, propertyCriterion);
+            }
+        }
+        return null;
+    }
+
+    private interface Plan<T> {
+        List<TreeNode<T>> execute();
+    }
+
+    private static class IndexPlan<T> implements Plan<T> {
+
+        private final PropertyIndex<T> index;
+        private final PropertyCriterion<TreeNode<T>, T> criterion;
+
+        IndexPlan(PropertyIndex<T> index, PropertyCriterion<TreeNode<T>, T> criterion) {
+            this.index = index;
+            this.criterion = criterion;
+        }
+
+        @Override
+        public List<TreeNode<T>> execute() {
+            if(criterion instanceof PropertyEqualsCriterion) {
+                return index.findEqual(((PropertyEqualsCriterion<TreeNode<T>, T>)criterion).getValue());
+            } else if(criterion instanceof PropertyRangeCriterion) {
+                PropertyRangeCriterion<TreeNode<T>, T> range = (PropertyRangeCriterion<TreeNode<T>, T>)criterion;
+                return index.findRange(range.getLower(), range.isLowerInclusive(), range.getUpper(), range.isUpperInclusive());
+            } else {
+                return index.findPrefix(((PropertyPrefixCriterion<TreeNode<T>, T>)criterion).getPrefix());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "INDEX " + index + " [" + criterion + "]";
+        }
+    }
+
+    private static class ColumnScanPlan<T> implements Plan<T> {
+
+        private final TreeNode<T> root;
+        private final PropertyStore<T> store;
+        private final PropertyCriterion<TreeNode<T>, T> criterion;
+
+        ColumnScanPlan(TreeNode<T> root, PropertyStore<T> store, PropertyCriterion<TreeNode<T>, T> criterion) {
+            this.root = root;
+            this.store = store;
+            this.criterion = criterion;
+        }
+
+        @Override
+        public List<TreeNode<T>> execute() {
+            PropertyColumn column = store.getColumn(criterion.getKey());
+            BitSet rows = column.getPresentRows();
+            for(int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                if(!criterion.matchesValue(column.get(row))) {
+                    rows.clear(row);
+                }
+            }
+            List<TreeNode<T>> nodes = store.getNodes(rows);
+            if(root.isRoot()) {
+                return nodes;
+            }
+            List<TreeNode<T>> inSubtree = new ArrayList<>(nodes.size());
+            for(TreeNode<T> node : nodes) {
+                for(TreeNode<T> ancestor = node; ancestor != null; ancestor = ancestor.getParent()) {
+                    if(ancestor == root) {
+                        inSubtree.add(node);
+                        break;
+                    }
+                }
+            }
+            return inSubtree;
+        }
+
+        @Override
+        public String toString() {
+            return "COLUMN SCAN(" + criterion.getKey() + ") [" + criterion + "]";
+        }
+    }
+
+    private static class FilterPlan<T> implements Plan<T> {
+
+        private final Plan<T> input;
+        private final Criterion<TreeNode<T>, T> criterion;
+
+        FilterPlan(Plan<T> input, Criterion<TreeNode<T>, T> criterion) {
+            this.input = input;
+            this.criterion = criterion;
+        }
+
+        @Override
+        public List<TreeNode<T>> execute() {
+            List<TreeNode<T>> nodes = input.execute();
+            List<TreeNode<T>> filtered = new ArrayList<>(nodes.size());
+            for(TreeNode<T> node : nodes) {
+                if(criterion.matches(node)) {
+                    filtered.add(node);
+                }
+            }
+            return filtered;
+        }
+
+        @Override
+        public String toString() {
+            return "FILTER " + criterion + " <- " + input;
+        }
+    }
+
+    private static class UnionPlan<T> implements Plan<T> {
+
+        private final List<Plan<T>> branches;
+
+        UnionPlan(List<Plan<T>> branches) {
+            this.branches = branches;
+        }
+
+        @Override
+        public List<TreeNode<T>> execute() {
+            Set<TreeNode<T>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<TreeNode<T>> nodes = new ArrayList<>();
+            for(Plan<T> branch : branches) {
+                for(TreeNode<T> node : branch.execute()) {
+                    if(seen.add(node)) {
+                        nodes.add(node);
+                    }
+                }
+            }
+            return nodes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("UNION(");
+            for(int index = 0; index < branches.size(); index++) {
+                builder.append(index > 0 ? ", " : "").append(branches.get(index));
+            }
+            return builder.append(")").toString();
+        }
+    }
+
+    private static class ScanPlan<T> implements Plan<T> {
+
+        private final TreeNode<T> root;
+        private final Criterion<TreeNode<T>, T> criterion;
+
+        ScanPlan(TreeNode<T> root, Criterion<TreeNode<T>, T> criterion) {
+            this.root = root;
+            this.criterion = criterion;
+        }
+
+        @Override
+        public List<TreeNode<T>> execute() {
+            List<TreeNode<T>> nodes = new ArrayList<>();
+            ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+            stack.push(root);
+            while(!stack.isEmpty()) {
+                TreeNode<T> node = stack.pop();
+                if(criterion.matches(node)) {
+                    nodes.add(node);
+                }
+                if(node.hasChildren()) {
+                    List<TreeNode<T>> children = node.getChildren();
+                    for(int index = children.size() - 1; index >= 0; index--) {
+                        stack.push(children.get(index));
+                    }
+                }
+            }
+            return nodes;
+        }
+
+        @Override
+        public String toString() {
+            return "SCAN " + criterion;
+        }
+    }
+}
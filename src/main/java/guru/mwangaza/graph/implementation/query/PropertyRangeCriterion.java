@@ -0,0 +1,85 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.BaseNode;
+
+/**
+ * Matches nodes whose property value lies between two bounds. A null bound leaves that side of the
+ * range open. Numbers are compared by value whatever their class. Values that cannot be compared with the bounds do not match.
+ *
+ * @param <S> The type of node tested
+ * @param <T> The type of the payload for the node
+ */
+public class PropertyRangeCriterion<S extends BaseNode<T>, T> extends PropertyCriterion<S,T> {
+
+    private final Comparable<Object> lower;
+    private final boolean lowerInclusive;
+    private final Comparable<Object> upper;
+    private final boolean upperInclusive;
+
+    // The bounds are only compared through compareValues, which rejects incomparable values
+    @SuppressWarnings("unchecked")
+    public PropertyRangeCriterion(String key, Comparable<?> lower, boolean lowerInclusive, Comparable<?> upper, boolean upperInclusive) {
+        super(key);
+        this.lower = (Comparable<Object>)lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = (Comparable<Object>)upper;
+        this.upperInclusive = upperInclusive;
+    }
+
+    public Comparable<Object> getLower() {
+        return lower;
+    }
+
+    public boolean isLowerInclusive() {
+        return lowerInclusive;
+    }
+
+    public Comparable<Object> getUpper() {
+        return upper;
+    }
+
+    public boolean isUpperInclusive() {
+        return upperInclusive;
+    }
+
+    @Override
+    public boolean matchesValue(Object value) {
+        try {
+            if(lower != null) {
+                int comparison = compareValues(lower, value);
+                if(comparison > 0 || (comparison == 0 && !lowerInclusive)) {
+                    return false;
+                }
+            }
+            if(upper != null) {
+                int comparison = compareValues(upper, value);
+                if(comparison < 0 || (comparison == 0 && !upperInclusive)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch(ClassCastException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + " in " + (lowerInclusive ? "[" : "(") + lower + ", " + upper + (upperInclusive ? "]" : ")");
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.visitor;
+
+import guru.mwangaza.graph.api.BaseNode;
+import guru.mwangaza.graph.api.Criterion;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import guru.mwangaza.graph.implementation.name.NameNormalizer;
+
+/**
+ * Matches nodes whose normalized name equals the normalized name argument. The argument is normalized
+ * once; nodes using the same normalizer are compared by their precomputed name keys.
+ *
+ * @param <S> The type of node visited
+ * @param <T> The type of the payload for the node
+ */
+public class NormalizedNameCriterion<S extends BaseNode<T>, T> implements Criterion<S,T> {
+    private NameNormalizer normalizer;
+    private String key;
+
+    public NormalizedNameCriterion(NameNormalizer normalizer, String name) {
+        this.normalizer = normalizer;
+        this.key = name != null ? normalizer.normalize(name) : null;
+    }
+
+    public boolean matches(S node) {
+        if(node == null || key == null) {
+            return false;
+        }
+        String nodeKey;
+        if(node instanceof TreeNodeImpl && normalizer.equals(((TreeNodeImpl<T>)node).getNameNormalizer())) {
+            nodeKey = ((TreeNodeImpl<T>)node).getNameKey();
+        } else {
+            nodeKey = node.getName() != null ? normalizer.normalize(node.getName()) : null;
+        }
+        return nodeKey != null && nodeKey.hashCode() == key.hashCode() && nodeKey.equals(key);
+    }
+}
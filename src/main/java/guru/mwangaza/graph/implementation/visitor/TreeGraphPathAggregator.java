@@ -65,21 +65,15 @@ public class TreeGraphPathAggregator<S extends TreeNode<T>, T> implements Consum
      */
     @Override
     public void accept(S node) {
+        if(currentPath == null) {//Only happens when seeing an already visited node after hitting a leaf node.
+            currentPath = new StringBuilder();
+            currentPath.append(nodeToPathIndex.get(node.getParent().getUuid()));
+        }
+        currentPath.append(node.buildPathComponent());
+        nodeToPathIndex.put(node.getUuid(), currentPath.toString());
         if(node.isLeaf()) {
-            currentPath.append(node.buildPathComponent());
-            nodeToPathIndex.put(node.getUuid(), currentPath.toString());
             paths.add(currentPath.toString());
             currentPath = null;
-        } else {
-            if(currentPath == null) {//Only happens when seeing an already visited node after hitting a leaf node.
-                currentPath = new StringBuilder();
-                currentPath.append(nodeToPathIndex.get(node.getParent().getUuid()));
-                currentPath.append(node.buildPathComponent());
-                nodeToPathIndex.put(node.getUuid(), currentPath.toString());
-            } else {
-                currentPath.append(node.buildPathComponent());
-                nodeToPathIndex.put(node.getUuid(), currentPath.toString());
-            }
         }
     }
 
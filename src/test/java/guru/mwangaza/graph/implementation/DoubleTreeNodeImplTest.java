@@ -0,0 +1,86 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.DoubleTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DoubleTreeNodeImplTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void payload() throws Exception {
+        DoubleTreeNode node = new DoubleTreeNodeImpl("node", 7.5);
+        assertEquals(7.5, node.getDoublePayload(), DELTA);
+        assertEquals(Double.valueOf(7.5), node.getPayload());
+        node.setPayload(null);
+        assertEquals(0.0, node.getDoublePayload(), DELTA);
+        node.setDoublePayload(-0.25);
+        assertEquals(Double.valueOf(-0.25), node.getPayload());
+    }
+
+    @Test
+    public void subtreeAggregates() throws Exception {
+        DoubleTreeNode root = buildGraph();
+        assertEquals(20.75, root.getSubtreeSum(), DELTA);
+        assertEquals(-4.5, root.getSubtreeMin(), DELTA);
+        assertEquals(10.25, root.getSubtreeMax(), DELTA);
+        DoubleTreeNode L1_2 = (DoubleTreeNode)root.findNodesWithName("L1_2").get(0);
+        assertEquals(7.5, L1_2.getSubtreeSum(), DELTA);
+        assertEquals(-4.5, L1_2.getSubtreeMin(), DELTA);
+    }
+
+    @Test
+    public void boxedDescendantsAreAggregated() throws Exception {
+        DoubleTreeNode root = new DoubleTreeNodeImpl("root", 2.5);
+        TreeNodeImpl<Double> boxed = new TreeNodeImpl<>("boxed");
+        boxed.setPayload(0.5);
+        root.addChild(boxed);
+        root.addChild(new TreeNodeImpl<Double>("empty"));
+        assertEquals(3.0, root.getSubtreeSum(), DELTA);
+        assertEquals(0.0, root.getSubtreeMin(), DELTA);
+        assertEquals(2.5, root.getSubtreeMax(), DELTA);
+    }
+
+    @Test
+    public void appendPathCreatesPrimitiveNodes() throws Exception {
+        DoubleTreeNode root = new DoubleTreeNodeImpl("root", 1.5);
+        root.appendPathToCurrentNode("child.grandchild", 0.25);
+        TreeNode<Double> grandchild = root.getFirstChild().getFirstChild();
+        assertTrue(grandchild instanceof DoubleTreeNode);
+        assertEquals(0.25, ((DoubleTreeNode)grandchild).getDoublePayload(), DELTA);
+        assertEquals(1.75, root.getSubtreeSum(), DELTA);
+    }
+
+    protected DoubleTreeNode buildGraph() {
+        DoubleTreeNode root = new DoubleTreeNodeImpl("root", 1.0);
+        DoubleTreeNode L1_1 = new DoubleTreeNodeImpl("L1_1", 2.0);
+        DoubleTreeNode L1_2 = new DoubleTreeNodeImpl("L1_2", 3.0);
+        DoubleTreeNode L1_3 = new DoubleTreeNodeImpl("L1_3", 10.25);
+        DoubleTreeNode L1_2_1 = new DoubleTreeNodeImpl("L1_2_1", 9.0);
+        DoubleTreeNode L1_2_2 = new DoubleTreeNodeImpl("L1_2_2", -4.5);
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        root.addChild(L1_3);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        return root;
+    }
+}
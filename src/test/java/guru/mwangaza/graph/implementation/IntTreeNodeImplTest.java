@@ -0,0 +1,112 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.IntTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.event.TreeChangeEvent;
+import guru.mwangaza.graph.implementation.event.TreeChangeListener;
+import guru.mwangaza.graph.implementation.event.TreeChangeType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IntTreeNodeImplTest {
+
+    @Test
+    public void payload() throws Exception {
+        IntTreeNode node = new IntTreeNodeImpl("node", 7);
+        assertEquals(7, node.getIntPayload());
+        assertEquals(Integer.valueOf(7), node.getPayload());
+        node.setPayload(null);
+        assertEquals(0, node.getIntPayload());
+        node.setIntPayload(-3);
+        assertEquals(Integer.valueOf(-3), node.getPayload());
+    }
+
+    @Test
+    public void subtreeAggregates() throws Exception {
+        IntTreeNode root = buildGraph();
+        assertEquals(21, root.getSubtreeSum());
+        assertEquals(-4, root.getSubtreeMin());
+        assertEquals(10, root.getSubtreeMax());
+        IntTreeNode L1_2 = (IntTreeNode)root.findNodesWithName("L1_2").get(0);
+        assertEquals(8, L1_2.getSubtreeSum());
+        assertEquals(-4, L1_2.getSubtreeMin());
+    }
+
+    @Test
+    public void rollbackRestoresPayload() throws Exception {
+        IntTreeNodeImpl root = (IntTreeNodeImpl)buildGraph();
+        IntTreeNode L1_3 = (IntTreeNode)root.findNodesWithName("L1_3").get(0);
+        assertFalse(root.batch(batch -> {
+            L1_3.setIntPayload(42);
+            root.setPayload(null);
+            assertEquals(2, batch.getOperationCount());
+            batch.rollback();
+        }));
+        assertEquals(10, L1_3.getIntPayload());
+        assertEquals(1, root.getIntPayload());
+        assertEquals(21, root.getSubtreeSum());
+    }
+
+    @Test
+    public void payloadChangesAreReported() throws Exception {
+        IntTreeNodeImpl root = (IntTreeNodeImpl)buildGraph();
+        List<TreeChangeEvent<Integer>> events = new ArrayList<>();
+        TreeChangeListener<Integer> listener = events::addAll;
+        root.addTreeChangeListener(listener);
+        try {
+            IntTreeNode L1_3 = (IntTreeNode)root.findNodesWithName("L1_3").get(0);
+            L1_3.setIntPayload(42);
+            assertEquals(1, events.size());
+            assertEquals(TreeChangeType.PAYLOAD_SET, events.get(0).getType());
+            assertSame(L1_3, events.get(0).getNode());
+            assertEquals(10, events.get(0).getOldValue());
+            assertEquals(42, events.get(0).getNewValue());
+        } finally {
+            root.removeTreeChangeListener(listener);
+        }
+    }
+
+    @Test
+    public void appendPathCreatesPrimitiveNodes() throws Exception {
+        IntTreeNode root = new IntTreeNodeImpl("root", 1);
+        root.appendPathToCurrentNode("child.grandchild", 5);
+        TreeNode<Integer> grandchild = root.getFirstChild().getFirstChild();
+        assertTrue(grandchild instanceof IntTreeNode);
+        assertEquals(5, ((IntTreeNode)grandchild).getIntPayload());
+        assertEquals(6, root.getSubtreeSum());
+    }
+
+    protected IntTreeNode buildGraph() {
+        IntTreeNode root = new IntTreeNodeImpl("root", 1);
+        IntTreeNode L1_1 = new IntTreeNodeImpl("L1_1", 2);
+        IntTreeNode L1_2 = new IntTreeNodeImpl("L1_2", 3);
+        IntTreeNode L1_3 = new IntTreeNodeImpl("L1_3", 10);
+        IntTreeNode L1_2_1 = new IntTreeNodeImpl("L1_2_1", 9);
+        IntTreeNode L1_2_2 = new IntTreeNodeImpl("L1_2_2", -4);
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        root.addChild(L1_3);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        return root;
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.LazyTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.api.TreeNodeLoader;
+import guru.mwangaza.graph.exception.InvalidStateException;
+import guru.mwangaza.graph.implementation.lazy.DirectoryTreeNodeLoader;
+import guru.mwangaza.graph.implementation.lazy.LruEvictionPolicy;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LazyTreeNodeImplTest {
+
+    @Test
+    public void childrenAreLoadedOnFirstAccess() throws Exception {
+        CountingLoader loader = new CountingLoader(3, 2);
+        LazyTreeNodeImpl<String> root = new LazyTreeNodeImpl<>("Root", "", 3, loader);
+        assertTrue(root.hasChildren());
+        assertFalse(root.isLeaf());
+        assertFalse(root.isLoaded());
+        assertEquals(0, loader.loads);
+
+        assertEquals(3, root.getChildren().size());
+        assertTrue(root.isLoaded());
+        assertEquals(1, loader.loads);
+        TreeNode<String> child = root.getFirstChild();
+        assertSame(root, child.getParent());
+        assertTrue(child.hasChildren());
+        assertEquals(1, loader.loads);
+        assertEquals("Root.0.1", child.getChildren().get(1).getName());
+        assertEquals(2, loader.loads);
+        assertTrue(child.getChildren().get(0).isLeaf());
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    public void unloadReleasesChildren() throws Exception {
+        CountingLoader loader = new CountingLoader(2, 2);
+        LazyTreeNodeImpl<String> root = new LazyTreeNodeImpl<>("Root", "", 2, loader);
+        root.getFirstChild().getChildren();
+        long modificationCount = root.getModificationCount();
+        root.unload();
+        assertFalse(root.isLoaded());
+        assertEquals(2, root.getKnownChildCount());
+        assertTrue(root.getModificationCount() > modificationCount);
+        assertEquals(2, root.getChildren().size());
+        assertEquals(3, loader.loads);
+    }
+
+    @Test(expected = InvalidStateException.class)
+    public void modifiedSubtreesAreNotUnloaded() throws Exception {
+        LazyTreeNodeImpl<String> root = new LazyTreeNodeImpl<>("Root", "", 2, new CountingLoader(2, 2));
+        root.getFirstChild().addChild(new TreeNodeImpl<String>("Added"));
+        assertTrue(root.isModified());
+        root.unload();
+    }
+
+    @Test
+    public void rollbackKeepsChildrenLoadedInTheBatch() throws Exception {
+        LazyTreeNodeImpl<String> root = new LazyTreeNodeImpl<>("Root", "", 2, new CountingLoader(2, 2));
+        assertFalse(root.batch(batch -> {
+            root.getChildren();
+            batch.rollback();
+        }));
+        assertTrue(root.isLoaded());
+        assertEquals("Payload 1", root.getChildren().get(1).getPayload());
+        assertFalse(root.isModified());
+        root.unload();
+        assertFalse(root.isLoaded());
+    }
+
+    @Test
+    public void failedLoadsAreRetried() throws Exception {
+        CountingLoader counting = new CountingLoader(2, 1);
+        boolean[] fail = {true};
+        TreeNodeLoader<String> loader = node -> {
+            if(fail[0]) {
+                throw new IllegalStateException("Store unavailable");
+            }
+            return counting.loadChildren(node);
+        };
+        LazyTreeNodeImpl<String> root = new LazyTreeNodeImpl<>("Root", "", 2, loader);
+        try {
+            root.getChildren();
+            fail();
+        } catch(IllegalStateException e) {
+            assertEquals("Store unavailable", e.getMessage());
+        }
+        assertFalse(root.isLoaded());
+        assertTrue(root.hasChildren());
+
+        fail[0] = false;
+        assertEquals(2, root.getChildren().size());
+        assertTrue(root.isLoaded());
+    }
+
+    @Test
+    public void lruPolicyEvictsColdSubtrees() throws Exception {
+        CountingLoader loader = new CountingLoader(2, 3);
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>(4);
+        LazyTreeNodeImpl<String> root = new LazyTreeNodeImpl<>("Root", "", 2, loader);
+        root.setEvictionPolicy(policy);
+        LazyTreeNode<String> first = (LazyTreeNode<String>)root.getChildren().get(0);
+        LazyTreeNode<String> second = (LazyTreeNode<String>)root.getChildren().get(1);
+        first.getChildren();
+        assertEquals(4, policy.getLoadedChildCount());
+        second.getChildren();
+        assertFalse(first.isLoaded());
+        assertTrue(second.isLoaded());
+        assertTrue(root.isLoaded());
+        assertEquals(1, policy.getEvictionCount());
+        assertEquals(4, policy.getLoadedChildCount());
+    }
+
+    @Test
+    public void directoryLoader() throws Exception {
+        Path directory = Files.createTempDirectory("lazy");
+        Files.createDirectory(directory.resolve("b"));
+        Files.createFile(directory.resolve("b").resolve("c.txt"));
+        Files.createFile(directory.resolve("a.txt"));
+        LazyTreeNodeImpl<String> root = new DirectoryTreeNodeLoader().createRoot(directory);
+        assertEquals(2, root.getKnownChildCount());
+        List<String> names = new ArrayList<>();
+        for(TreeNode<String> child : root.getChildren()) {
+            names.add(child.getName());
+        }
+        assertEquals("[a.txt, b]", names.toString());
+        assertTrue(root.getChildren().get(0).isLeaf());
+        TreeNode<String> b = root.getChildren().get(1);
+        assertEquals(directory.resolve("b").toAbsolutePath().toString(), b.getPayload());
+        assertEquals("c.txt", b.getFirstChild().getName());
+    }
+
+    /**
+     * Generates a tree of the given fan-out and depth, naming children after their parent.
+     */
+    private static class CountingLoader implements TreeNodeLoader<String> {
+        private final int fanOut;
+        private final int depth;
+        private int loads;
+
+        CountingLoader(int fanOut, int depth) {
+            this.fanOut = fanOut;
+            this.depth = depth;
+        }
+
+        @Override
+        public List<TreeNode<String>> loadChildren(LazyTreeNode<String> node) {
+            loads++;
+            int level = node.getLoaderKey().isEmpty() ? 1 : node.getLoaderKey().split("/").length + 1;
+            List<TreeNode<String>> children = new ArrayList<>();
+            for(int index = 0; index < fanOut; index++) {
+                String key = node.getLoaderKey().isEmpty() ? "" + index : node.getLoaderKey() + "/" + index;
+                LazyTreeNodeImpl<String> child = new LazyTreeNodeImpl<>(node.getName() + "." + index, key, level < depth ? fanOut : 0);
+                child.setPayload("Payload " + key);
+                children.add(child);
+            }
+            return children;
+        }
+    }
+}
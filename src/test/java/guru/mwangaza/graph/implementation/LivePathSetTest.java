@@ -0,0 +1,151 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LivePathSetTest {
+
+    @Test
+    public void initialPaths() throws Exception {
+        TreeNode<String> root = buildGraph();
+        LivePathSet<String> paths = new LivePathSet<>(root);
+        assertEquals(root.getPathsFromNode(), new ArrayList<>(paths.getPaths()));
+        assertTrue(paths.contains("root.L1_2.L1_2_1"));
+        assertFalse(paths.contains("root.L1_2"));
+    }
+
+    @Test
+    public void pathsFollowMutations() throws Exception {
+        TreeNode<String> root = buildGraph();
+        LivePathSet<String> paths = new LivePathSet<>(root);
+        RecordingListener feed = new RecordingListener();
+        paths.addListener(feed);
+
+        TreeNode<String> L1_1 = root.getFirstChild();
+        TreeNode<String> subtree = new TreeNodeImpl<>("New");
+        subtree.addChild(new TreeNodeImpl<>("New_Leaf"));
+        L1_1.addChild(subtree);
+        assertEquals(Arrays.asList("root.L1_1.New.New_Leaf"), feed.added);
+        assertEquals(Arrays.asList("root.L1_1"), feed.removed);
+        assertSamePaths(root, paths);
+
+        TreeNode<String> L1_2 = root.getChildren().get(1);
+        L1_2.setName("Renamed");
+        assertSamePaths(root, paths);
+        assertTrue(paths.contains("root.Renamed.L1_2_2"));
+
+        L1_2.removeChild(L1_2.getFirstChild());
+        L1_2.getFirstChild().detach();
+        assertSamePaths(root, paths);
+        assertTrue(paths.contains("root.Renamed"));
+
+        feed.clear();
+        L1_1.setChildren(new ArrayList<>());
+        assertEquals(Arrays.asList("root.L1_1"), feed.added);
+        assertEquals(Arrays.asList("root.L1_1.New.New_Leaf"), feed.removed);
+        assertSamePaths(root, paths);
+
+        subtree.addChild(new TreeNodeImpl<>("Detached"));
+        assertSamePaths(root, paths);
+        paths.detach();
+        root.getFirstChild().addChild(new TreeNodeImpl<>("Ignored"));
+        assertEquals(0, paths.size());
+    }
+
+    @Test
+    public void pathsFollowBatchesAndRollbacks() throws Exception {
+        TreeNode<String> root = buildGraph();
+        LivePathSet<String> paths = new LivePathSet<>(root);
+        TreeNode<String> L1_1 = root.getFirstChild();
+        TreeNode<String> L1_2 = root.getChildren().get(1);
+        TreeNode<String> moved = L1_2.getFirstChild();
+
+        assertTrue(((TreeNodeImpl<String>)root).batch(batch -> {
+            TreeNode<String> added = new TreeNodeImpl<>("Added");
+            L1_1.addChild(added);
+            moved.detach();
+            added.addChild(moved);
+            moved.addChild(new TreeNodeImpl<>("Leaf"));
+            L1_2.setName("Renamed");
+        }));
+        assertSamePaths(root, paths);
+        assertTrue(paths.contains("root.L1_1.Added.L1_2_1.Leaf"));
+
+        assertFalse(((TreeNodeImpl<String>)root).batch(batch -> {
+            moved.detach();
+            L1_1.addChild(new TreeNodeImpl<>("RolledBack"));
+            L1_2.getFirstChild().detach();
+            batch.rollback();
+        }));
+        assertSamePaths(root, paths);
+        assertTrue(paths.contains("root.L1_1.Added.L1_2_1.Leaf"));
+        assertTrue(paths.contains("root.Renamed.L1_2_2"));
+
+        for(int index = 0; index < 1000; index++) {
+            L1_2.addChild(new TreeNodeImpl<>("Child" + index));
+        }
+        L1_2.getChildren().get(500).detach();
+        assertSamePaths(root, paths);
+    }
+
+    private void assertSamePaths(TreeNode<String> root, LivePathSet<String> paths) {
+        assertEquals(new HashSet<>(root.getPathsFromNode()), new HashSet<>(paths.getPaths()));
+        assertEquals(root.getPathsFromNode().size(), paths.size());
+    }
+
+    private static class RecordingListener implements LivePathSet.Listener {
+
+        private final List<String> added = new ArrayList<>();
+        private final List<String> removed = new ArrayList<>();
+
+        @Override
+        public void pathAdded(String path) {
+            added.add(path);
+        }
+
+        @Override
+        public void pathRemoved(String path) {
+            removed.add(path);
+        }
+
+        void clear() {
+            added.clear();
+            removed.clear();
+        }
+    }
+
+    protected TreeNode<String> buildGraph() {
+        TreeNode<String> root = new TreeNodeImpl<>("root");
+        TreeNode<String> L1_1 = new TreeNodeImpl<>("L1_1");
+        TreeNode<String> L1_2 = new TreeNodeImpl<>("L1_2");
+        TreeNode<String> L1_2_1 = new TreeNodeImpl<>("L1_2_1");
+        TreeNode<String> L1_2_2 = new TreeNodeImpl<>("L1_2_2");
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        return root;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.LongTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LongTreeNodeImplTest {
+
+    @Test
+    public void payload() throws Exception {
+        LongTreeNode node = new LongTreeNodeImpl("node", 1L << 40);
+        assertEquals(1L << 40, node.getLongPayload());
+        assertEquals(Long.valueOf(1L << 40), node.getPayload());
+        node.setPayload(null);
+        assertEquals(0L, node.getLongPayload());
+        node.setLongPayload(-3L);
+        assertEquals(Long.valueOf(-3L), node.getPayload());
+    }
+
+    @Test
+    public void subtreeAggregates() throws Exception {
+        LongTreeNode root = buildGraph();
+        assertEquals(Integer.MAX_VALUE + 12L, root.getSubtreeSum());
+        assertEquals(-4L, root.getSubtreeMin());
+        assertEquals(Integer.MAX_VALUE + 1L, root.getSubtreeMax());
+        LongTreeNode L1_2 = (LongTreeNode)root.findNodesWithName("L1_2").get(0);
+        assertEquals(8L, L1_2.getSubtreeSum());
+        assertEquals(9L, L1_2.getSubtreeMax());
+    }
+
+    @Test
+    public void boxedDescendantsAreAggregated() throws Exception {
+        LongTreeNode root = new LongTreeNodeImpl("root", 2L);
+        TreeNodeImpl<Long> boxed = new TreeNodeImpl<>("boxed");
+        boxed.setPayload(5L);
+        root.addChild(boxed);
+        root.addChild(new TreeNodeImpl<Long>("empty"));
+        assertEquals(7L, root.getSubtreeSum());
+        assertEquals(0L, root.getSubtreeMin());
+        assertEquals(5L, root.getSubtreeMax());
+    }
+
+    @Test
+    public void appendPathCreatesPrimitiveNodes() throws Exception {
+        LongTreeNode root = new LongTreeNodeImpl("root", 1L);
+        root.appendPathToCurrentNode("child.grandchild", 5L);
+        TreeNode<Long> grandchild = root.getFirstChild().getFirstChild();
+        assertTrue(grandchild instanceof LongTreeNode);
+        assertEquals(5L, ((LongTreeNode)grandchild).getLongPayload());
+        assertEquals(6L, root.getSubtreeSum());
+    }
+
+    protected LongTreeNode buildGraph() {
+        LongTreeNode root = new LongTreeNodeImpl("root", 1L);
+        LongTreeNode L1_1 = new LongTreeNodeImpl("L1_1", 2L);
+        LongTreeNode L1_2 = new LongTreeNodeImpl("L1_2", 3L);
+        LongTreeNode L1_3 = new LongTreeNodeImpl("L1_3", Integer.MAX_VALUE + 1L);
+        LongTreeNode L1_2_1 = new LongTreeNodeImpl("L1_2_1", 9L);
+        LongTreeNode L1_2_2 = new LongTreeNodeImpl("L1_2_2", -4L);
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        root.addChild(L1_3);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        return root;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SmallPropertyMapTest {
+
+    @Test
+    public void keepsInsertionOrderAcrossGrowth() throws Exception {
+        SmallPropertyMap map = new SmallPropertyMap();
+        for(int index = 0; index < SmallPropertyMap.FLAT_CAPACITY + 2; index++) {
+            map.put("key" + index, index);
+        }
+        assertEquals(SmallPropertyMap.FLAT_CAPACITY + 2, map.size());
+        assertEquals(3, map.get("key3"));
+        assertEquals("key0", map.keySet().iterator().next());
+        map.remove("key0");
+        assertFalse(map.containsKey("key0"));
+    }
+
+    @Test
+    public void flatEntriesWriteThrough() throws Exception {
+        SmallPropertyMap map = new SmallPropertyMap();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+        Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+        iterator.next().setValue(10);
+        iterator.next();
+        iterator.remove();
+        assertEquals("{a=10, c=3}", map.toString());
+    }
+
+    @Test
+    public void nodesAllocatePropertiesOnWrite() throws Exception {
+        TreeNode<String> node = new TreeNodeImpl<>("Node");
+        assertTrue(node.getProperties().isEmpty());
+        node.getProperties().put("key", "value");
+        assertEquals("value", node.getProperties().get("key"));
+        assertTrue(node.getProperties() instanceof SmallPropertyMap);
+        assertNotNull(node.getUuid());
+        assertEquals(node.getUuid(), node.deepClone().getUuid());
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StructuralHashTest {
+
+    @Test
+    public void identicalSubtreesHaveEqualHashes() throws Exception {
+        TreeNodeImpl<String> first = buildTree();
+        TreeNodeImpl<String> second = buildTree();
+        assertEquals(first.getStructuralHash(), second.getStructuralHash());
+        assertTrue(first.isStructurallyEqualTo(second));
+        assertTrue(((TreeNodeImpl<String>)first.getFirstChild()).isStructurallyEqualTo(second.getFirstChild()));
+        assertFalse(first.isStructurallyEqualTo(second.getFirstChild()));
+        assertEquals(first.getStructuralHash(), StructuralHash.of((TreeNode<String>)first.deepClone()));
+    }
+
+    @Test
+    public void changesInvalidateTheAncestorChainOnly() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        long hash = root.getStructuralHash();
+        TreeNodeImpl<String> a = (TreeNodeImpl<String>)root.getChildren().get(0);
+        TreeNodeImpl<String> b = (TreeNodeImpl<String>)root.getChildren().get(1);
+        TreeNodeImpl<String> a1 = (TreeNodeImpl<String>)a.getFirstChild();
+
+        a1.setPayload("changed");
+        assertFalse(StructuralHash.isCached(root));
+        assertFalse(StructuralHash.isCached(a));
+        assertTrue(StructuralHash.isCached(b));
+        assertNotEquals(hash, root.getStructuralHash());
+
+        a1.setPayload("a1");
+        assertEquals(hash, root.getStructuralHash());
+
+        long content = a1.getContentHash();
+        a1.setName("renamed");
+        assertEquals(content, a1.getContentHash());
+        assertNotEquals(hash, root.getStructuralHash());
+        a1.setName("a1");
+
+        a1.addChild(new TreeNodeImpl<>("leaf"));
+        assertNotEquals(hash, root.getStructuralHash());
+    }
+
+    @Test
+    public void collidingHashCodesAreToldApart() throws Exception {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        TreeNodeImpl<Object> first = new TreeNodeImpl<>("root");
+        TreeNodeImpl<Object> second = new TreeNodeImpl<>("root");
+        first.addChild(new TreeNodeImpl<>("Aa"));
+        second.addChild(new TreeNodeImpl<>("BB"));
+        assertNotEquals(first.getStructuralHash(), second.getStructuralHash());
+        assertFalse(first.isStructurallyEqualTo(second));
+
+        second.getFirstChild().setName("Aa");
+        first.getFirstChild().setPayload("Aa");
+        second.getFirstChild().setPayload("BB");
+        assertNotEquals(first.getStructuralHash(), second.getStructuralHash());
+        assertFalse(first.isStructurallyEqualTo(second));
+
+        first.getFirstChild().setPayload(new ConstantHash("x"));
+        second.getFirstChild().setPayload(new ConstantHash("y"));
+        assertEquals(first.getStructuralHash(), second.getStructuralHash());
+        assertTrue(first.isStructurallyEqualTo(second));
+        assertFalse(StructuralHash.deepEquals(first, second));
+        second.getFirstChild().setPayload(new ConstantHash("x"));
+        assertTrue(StructuralHash.deepEquals(first, second));
+    }
+
+    @Test
+    public void equalHashesAreTrustedWithoutAWalk() throws Exception {
+        TreeNodeImpl<String> first = buildTree();
+        TreeNodeImpl<String> second = buildTree();
+        first.getStructuralHash();
+        second.getStructuralHash();
+        CountingNode<String> leaf = new CountingNode<>("leaf");
+        TreeNodeImpl<String> a2 = (TreeNodeImpl<String>)second.getFirstChild().getChildren().get(1);
+        a2.addChild(leaf);
+        first.getFirstChild().getChildren().get(1).addChild(new TreeNodeImpl<>("leaf"));
+        assertTrue(first.isStructurallyEqualTo(second));
+        int reads = leaf.reads;
+        assertTrue(first.isStructurallyEqualTo(second));
+        assertEquals(reads, leaf.reads);
+        assertTrue(StructuralHash.deepEquals(first, second));
+        assertTrue(leaf.reads > reads);
+    }
+
+    /**
+     * root: a: a1, a2; b: b1
+     */
+    private TreeNodeImpl<String> buildTree() {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("root");
+        TreeNodeImpl<String> a = new TreeNodeImpl<>("a");
+        TreeNodeImpl<String> b = new TreeNodeImpl<>("b");
+        root.addChild(a);
+        root.addChild(b);
+        for(String name : new String[]{"a1", "a2"}) {
+            TreeNodeImpl<String> child = new TreeNodeImpl<>(name);
+            child.setPayload(name);
+            a.addChild(child);
+        }
+        b.addChild(new TreeNodeImpl<>("b1"));
+        return root;
+    }
+
+    /**
+     * Payload whose hash code ignores its value.
+     */
+    private static class ConstantHash {
+
+        private final String value;
+
+        private ConstantHash(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ConstantHash && value.equals(((ConstantHash)other).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
+    /**
+     * Node counting the reads of its payload.
+     */
+    private static class CountingNode<T> extends TreeNodeImpl<T> {
+
+        private int reads;
+
+        private CountingNode(String name) {
+            super(name);
+        }
+
+        @Override
+        public T getPayload() {
+            reads++;
+            return super.getPayload();
+        }
+    }
+}
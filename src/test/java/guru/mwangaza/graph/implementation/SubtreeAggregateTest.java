@@ -0,0 +1,109 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.Monoid;
+import guru.mwangaza.graph.api.TreeNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SubtreeAggregateTest {
+
+    private static final Monoid<Integer> SUM = new Monoid<Integer>() {
+        @Override
+        public Integer identity() {
+            return 0;
+        }
+
+        @Override
+        public Integer combine(Integer left, Integer right) {
+            return left + right;
+        }
+    };
+
+    @Test
+    public void initialValues() throws Exception {
+        TreeNode<Integer> root = buildGraph();
+        SubtreeAggregate<Integer, Integer> sum = new SubtreeAggregate<>(root, SUM, payload -> payload == null ? 0 : payload);
+        SubtreeAggregate<Integer, Integer> count = new SubtreeAggregate<>(root, SUM, payload -> 1);
+        assertEquals(Integer.valueOf(15), sum.getValue());
+        assertEquals(Integer.valueOf(5), count.getValue());
+        assertEquals(Integer.valueOf(12), sum.getValue(root.findNodesWithName("L1_2").get(0)));
+    }
+
+    @Test
+    public void payloadChangesUpdateAncestors() throws Exception {
+        TreeNode<Integer> root = buildGraph();
+        SubtreeAggregate<Integer, Integer> sum = new SubtreeAggregate<>(root, SUM, payload -> payload == null ? 0 : payload);
+        TreeNode<Integer> L1_2_1 = root.findNodesWithName("L1_2_1").get(0);
+        L1_2_1.setPayload(100);
+        assertEquals(Integer.valueOf(110), sum.getValue());
+        assertEquals(Integer.valueOf(107), sum.getValue(L1_2_1.getParent()));
+    }
+
+    @Test
+    public void structuralChangesUpdateAncestors() throws Exception {
+        TreeNode<Integer> root = buildGraph();
+        SubtreeAggregate<Integer, Integer> sum = new SubtreeAggregate<>(root, SUM, payload -> payload == null ? 0 : payload);
+        TreeNode<Integer> subtree = new TreeNodeImpl<>("New");
+        subtree.setPayload(10);
+        TreeNode<Integer> leaf = new TreeNodeImpl<>("New_Leaf");
+        leaf.setPayload(20);
+        subtree.addChild(leaf);
+        root.findNodesWithName("L1_1").get(0).addChild(subtree);
+        assertEquals(Integer.valueOf(45), sum.getValue());
+        root.findNodesWithName("L1_2").get(0).appendPathToCurrentNode("a.b", 5);
+        assertEquals(Integer.valueOf(50), sum.getValue());
+        sum.detach();
+        leaf.setPayload(0);
+    }
+
+    @Test
+    public void removalsUpdateAncestors() throws Exception {
+        TreeNode<Integer> root = buildGraph();
+        SubtreeAggregate<Integer, Integer> sum = new SubtreeAggregate<>(root, SUM, payload -> payload == null ? 0 : payload);
+        TreeNode<Integer> L1_2 = root.findNodesWithName("L1_2").get(0);
+        TreeNode<Integer> L1_2_1 = root.findNodesWithName("L1_2_1").get(0);
+        assertTrue(L1_2.removeChild(L1_2_1));
+        assertNull(L1_2_1.getParent());
+        assertEquals(Integer.valueOf(10), sum.getValue());
+        assertEquals(Integer.valueOf(7), sum.getValue(L1_2));
+        assertFalse(L1_2.removeChild(L1_2_1));
+        L1_2.detach();
+        assertTrue(L1_2.isRoot());
+        assertEquals(1, root.getChildren().size());
+        assertEquals(Integer.valueOf(3), sum.getValue());
+    }
+
+    protected TreeNode<Integer> buildGraph() {
+        TreeNode<Integer> root = new TreeNodeImpl<Integer>("root");
+        TreeNode<Integer> L1_1 = new TreeNodeImpl<Integer>("L1_1");
+        TreeNode<Integer> L1_2 = new TreeNodeImpl<Integer>("L1_2");
+        TreeNode<Integer> L1_2_1 = new TreeNodeImpl<Integer>("L1_2_1");
+        TreeNode<Integer> L1_2_2 = new TreeNodeImpl<Integer>("L1_2_2");
+        root.setPayload(1);
+        L1_1.setPayload(2);
+        L1_2.setPayload(3);
+        L1_2_1.setPayload(5);
+        L1_2_2.setPayload(4);
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        return root;
+    }
+}
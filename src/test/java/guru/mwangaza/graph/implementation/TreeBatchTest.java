@@ -0,0 +1,147 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.event.TreeChangeEvent;
+import guru.mwangaza.graph.implementation.event.TreeChangeListener;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TreeBatchTest {
+
+    @Test
+    public void maintenanceIsDeferredUntilCommit() throws Exception {
+        TreeNodeImpl<String> root = buildGraph();
+        LivePathSet<String> paths = new LivePathSet<>(root);
+        List<List<TreeChangeEvent<String>>> notifications = new ArrayList<>();
+        TreeChangeListener<String> listener = notifications::add;
+        root.addTreeChangeListener(listener);
+        long modificationCount = root.getModificationCount();
+        try {
+            boolean committed = root.batch(batch -> {
+                TreeNode<String> L1_1 = root.getFirstChild();
+                L1_1.addChild(new TreeNodeImpl<>("A"));
+                L1_1.addChild(new TreeNodeImpl<>("B"));
+                root.getChildren().get(1).getFirstChild().setPayload("p");
+                root.getChildren().get(1).addProperty("k", 1);
+                assertEquals(modificationCount, root.getModificationCount());
+                assertTrue(paths.contains("root.L1_1"));
+                assertTrue(notifications.isEmpty());
+                assertEquals(4, batch.getOperationCount());
+            });
+            assertTrue(committed);
+            assertTrue(root.getModificationCount() > modificationCount);
+            assertEquals(new HashSet<>(root.getPathsFromNode()), new HashSet<>(paths.getPaths()));
+            assertTrue(paths.contains("root.L1_1.B"));
+            assertEquals(1, notifications.size());
+            assertEquals(4, notifications.get(0).size());
+        } finally {
+            root.removeTreeChangeListener(listener);
+        }
+    }
+
+    @Test
+    public void rollbackRestoresTree() throws Exception {
+        TreeNodeImpl<String> root = buildGraph();
+        root.getFirstChild().setPayload("original");
+        root.getFirstChild().addProperty("k", 1);
+        List<String> before = root.getPathsFromNode();
+        LivePathSet<String> paths = new LivePathSet<>(root);
+        List<List<TreeChangeEvent<String>>> notifications = new ArrayList<>();
+        TreeChangeListener<String> listener = notifications::add;
+        root.addTreeChangeListener(listener);
+        try {
+            boolean committed = root.batch(batch -> {
+                TreeNode<String> L1_1 = root.getFirstChild();
+                TreeNode<String> L1_2 = root.getChildren().get(1);
+                L1_1.setPayload("changed");
+                L1_1.addProperty("k", 2);
+                L1_1.addProperty("other", 3);
+                L1_1.addChild(new TreeNodeImpl<>("A"));
+                TreeNode<String> removed = L1_2.getFirstChild();
+                L1_2.removeChild(removed);
+                L1_2.setName("Renamed");
+                L1_2.getFirstChild().setChildren(new ArrayList<>());
+                batch.rollback();
+            });
+            assertFalse(committed);
+            assertEquals(before, root.getPathsFromNode());
+            assertEquals(new HashSet<>(before), new HashSet<>(paths.getPaths()));
+            assertEquals("original", root.getFirstChild().getPayload());
+            assertEquals(1, root.getFirstChild().getProperties().size());
+            assertEquals(1, root.getFirstChild().getProperties().get("k"));
+            TreeNode<String> L1_2_1 = root.getChildren().get(1).getFirstChild();
+            assertEquals("L1_2_1", L1_2_1.getName());
+            assertSame(root.getChildren().get(1), L1_2_1.getParent());
+            assertTrue(notifications.isEmpty());
+        } finally {
+            root.removeTreeChangeListener(listener);
+        }
+    }
+
+    @Test
+    public void exceptionRollsBack() throws Exception {
+        TreeNodeImpl<String> root = buildGraph();
+        List<String> before = root.getPathsFromNode();
+        try {
+            root.batch(batch -> {
+                root.getFirstChild().addChild(new TreeNodeImpl<>("A"));
+                throw new IllegalStateException("failed");
+            });
+            fail();
+        } catch(IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals(before, root.getPathsFromNode());
+        root.getFirstChild().addChild(new TreeNodeImpl<>("B"));
+        assertTrue(root.getPathsFromNode().contains("root.L1_1.B"));
+    }
+
+    @Test
+    public void nestedBatchesJoinTheOuterBatch() throws Exception {
+        TreeNodeImpl<String> root = buildGraph();
+        List<String> before = root.getPathsFromNode();
+        boolean committed = root.batch(outer -> {
+            ((TreeNodeImpl<String>)root.getFirstChild()).batch(inner -> {
+                assertSame(outer, inner);
+                root.getFirstChild().addChild(new TreeNodeImpl<>("A"));
+                inner.rollback();
+            });
+        });
+        assertFalse(committed);
+        assertEquals(before, root.getPathsFromNode());
+    }
+
+    protected TreeNodeImpl<String> buildGraph() {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("root");
+        TreeNode<String> L1_1 = new TreeNodeImpl<>("L1_1");
+        TreeNode<String> L1_2 = new TreeNodeImpl<>("L1_2");
+        TreeNode<String> L1_2_1 = new TreeNodeImpl<>("L1_2_1");
+        TreeNode<String> L1_2_2 = new TreeNodeImpl<>("L1_2_2");
+        L1_2_1.addChild(new TreeNodeImpl<>("L1_2_1_1"));
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        return root;
+    }
+}
@@ -32,6 +32,19 @@ public class TreeNodeImplTest {
         assertEquals(3, root.getChildren().size());
     }
 
+    @Test
+    public void leafChildrenAreWritable() throws Exception {
+        TreeNode<String> leaf = new TreeNodeImpl<>("leaf");
+        List<TreeNode<String>> children = leaf.getChildren();
+        assertTrue(children.isEmpty());
+        children.add(new TreeNodeImpl<>("child"));
+        assertTrue(leaf.hasChildren());
+        assertEquals("child", leaf.getFirstChild().getName());
+        assertEquals(1, children.size());
+        children.remove(0);
+        assertFalse(leaf.hasChildren());
+    }
+
     @Test
     public void setChildren() throws Exception {
         TreeNode<String> root = buildGraph();
@@ -304,7 +317,9 @@ public class TreeNodeImplTest {
     @Test
     public void testBreadthFirstAlgorithm() throws Exception {
         TreeNode<String> root = buildGraph();
-        root.
+        List<String> visited = new ArrayList<>();
+        root.executeCommandBreadthFirst(node -> visited.add(node.getName()));
+        assertEquals("[root, L1_1, L1_2, L1_3, L1_2_1, L1_2_2, L1_2_3, L1_2_1_1]", visited.toString());
     }
 
     @Test
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+
+/**
+ * Measures the retained heap of a one-million-node tree. Excluded from the build; run with
+ * {@code mvn test -Dtest=TreeNodeMemoryManual}.
+ */
+public class TreeNodeMemoryManual {
+
+    private static final int NODE_COUNT = 1000000;
+    private static final int FAN_OUT = 10;
+
+    @Test
+    public void measureTreeHeap() throws Exception {
+        long before = usedHeap();
+        TreeNode<String> root = buildTree();
+        long after = usedHeap();
+        System.out.println("Nodes: " + root.getSubtreeNodeCount());
+        System.out.println("Retained heap: " + (after - before) / (1024 * 1024) + " MB, "
+                + (after - before) / NODE_COUNT + " bytes per node");
+    }
+
+    /**
+     * Builds a tree of NODE_COUNT nodes, breadth-first with FAN_OUT children per inner node.
+     * One node in a hundred carries a property.
+     */
+    private TreeNode<String> buildTree() {
+        TreeNode<String> root = new TreeNodeImpl<>("Root");
+        ArrayDeque<TreeNode<String>> queue = new ArrayDeque<>();
+        queue.add(root);
+        int count = 1;
+        while(count < NODE_COUNT) {
+            TreeNode<String> parent = queue.poll();
+            for(int index = 0; index < FAN_OUT && count < NODE_COUNT; index++, count++) {
+                TreeNode<String> child = new TreeNodeImpl<>("Node");
+                if(count % 100 == 0) {
+                    child.addProperty("key", count);
+                }
+                parent.addChild(child);
+                queue.add(child);
+            }
+        }
+        return root;
+    }
+
+    private long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for(int attempt = 0; attempt < 5; attempt++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
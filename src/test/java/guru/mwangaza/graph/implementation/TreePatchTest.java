@@ -0,0 +1,80 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.index.NameIndex;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TreePatchTest {
+
+    @Test
+    public void insertsShareTheirPrefixLookups() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("root");
+        TreePatch.Result result = new TreePatch<String>()
+                .insert("root.a.b.d", "d")
+                .insert("root.a.b.c", "c")
+                .insert("root.a.e", "e")
+                .apply(root);
+        assertEquals(3, result.getInserted());
+        assertEquals(5, result.getCreatedNodes());
+        assertEquals(5, result.getLookups());
+        assertEquals(3, result.getSharedLookups());
+        TreeNode<String> b = at(root, "a", "b");
+        assertEquals("B", b.getName());
+        assertEquals("b", b.getPayloadName());
+        assertEquals("c", b.getFirstChild().getPayload());
+        assertEquals("e", at(root, "a", "e").getPayload());
+    }
+
+    @Test
+    public void mixedBatch() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("root");
+        root.buildPathFromCurrentNode("root.a.b", "b");
+        root.buildPathFromCurrentNode("root.a.c", "c");
+        root.buildPathFromCurrentNode("root.x", "x");
+        NameIndex<String> index = new NameIndex<>(root);
+        assertEquals(1, index.find("B").size());
+
+        TreePatch.Result result = new TreePatch<String>()
+                .delete("root.a")
+                .insert("root.a.b", "new")
+                .update("root.x", "x2")
+                .update("root.missing", "m")
+                .delete("root")
+                .apply(root);
+        assertEquals(1, result.getDeleted());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(2, result.getSkipped().size());
+        assertTrue(result.getSkipped().contains("root.missing"));
+        assertNull(at(root, "a", "c"));
+        assertEquals("new", at(root, "a", "b").getPayload());
+        assertEquals("x2", at(root, "x").getPayload());
+        assertEquals(1, index.find("B").size());
+        assertTrue(index.find("C").isEmpty());
+    }
+
+    private TreeNode<String> at(TreeNodeImpl<String> root, String... names) {
+        TreeNode<String> node = root;
+        for(String name : names) {
+            node = node == null ? null : ((TreeNodeImpl<String>)node).findChild(name);
+        }
+        return node;
+    }
+}
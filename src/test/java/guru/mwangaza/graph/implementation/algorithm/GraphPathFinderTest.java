@@ -0,0 +1,93 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.algorithm;
+
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.implementation.GraphNodeImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class GraphPathFinderTest {
+
+    @Test
+    public void findShortestPath() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph();
+        GraphPathFinder<String> finder = new GraphPathFinder<>();
+        assertEquals("[A, B, E]", names(finder.findShortestPath(nodes.get("A"), nodes.get("E"))));
+        assertEquals("[A]", names(finder.findShortestPath(nodes.get("A"), nodes.get("A"))));
+        assertTrue(finder.findShortestPath(nodes.get("E"), nodes.get("A")).isEmpty());
+    }
+
+    @Test
+    public void findShortestPathBidirectional() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph();
+        GraphPathFinder<String> finder = new GraphPathFinder<>();
+        assertEquals("[A, B, E]", names(finder.findShortestPathBidirectional(nodes.get("A"), nodes.get("E"))));
+        assertEquals("[C, D, E]", names(finder.findShortestPathBidirectional(nodes.get("C"), nodes.get("E"))));
+        assertTrue(finder.findShortestPathBidirectional(nodes.get("B"), nodes.get("C")).isEmpty());
+    }
+
+    @Test
+    public void isReachable() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph();
+        GraphPathFinder<String> finder = new GraphPathFinder<>();
+        assertTrue(finder.isReachable(nodes.get("A"), nodes.get("E")));
+        assertTrue(finder.isReachable(nodes.get("D"), nodes.get("D")));
+        assertFalse(finder.isReachable(nodes.get("D"), nodes.get("A")));
+    }
+
+    @Test
+    public void findLowestCostPath() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph();
+        nodes.get("B").addProperty("weight", 20);
+        nodes.get("E").addProperty("weight", 10);
+        GraphPathFinder<String> finder = new GraphPathFinder<>();
+        PropertyEdgeWeightFunction<String> weights = new PropertyEdgeWeightFunction<>("weight");
+        assertEquals("[A, C, D, E]", names(finder.findLowestCostPath(nodes.get("A"), nodes.get("E"), weights)));
+        assertEquals("[A, C, D, E]", names(finder.findLowestCostPath(nodes.get("A"), nodes.get("E"), weights, (node, target) -> 0.5)));
+        assertTrue(finder.findLowestCostPath(nodes.get("E"), nodes.get("A"), weights).isEmpty());
+    }
+
+    /**
+     * A -> B -> E, A -> C -> D -> E
+     */
+    protected Map<String, GraphNode<String>> buildGraph() {
+        Map<String, GraphNode<String>> nodes = new HashMap<>();
+        for(String name : new String[]{"A", "B", "C", "D", "E"}) {
+            nodes.put(name, new GraphNodeImpl<String>(name));
+        }
+        nodes.get("A").addChild(nodes.get("B"));
+        nodes.get("A").addChild(nodes.get("C"));
+        nodes.get("B").addChild(nodes.get("E"));
+        nodes.get("C").addChild(nodes.get("D"));
+        nodes.get("D").addChild(nodes.get("E"));
+        return nodes;
+    }
+
+    private String names(List<GraphNode<String>> path) {
+        List<String> names = new ArrayList<>();
+        for(GraphNode<String> node : path) {
+            names.add(node.getName());
+        }
+        return names.toString();
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.cache;
+
+import guru.mwangaza.graph.api.IntTreeNode;
+import guru.mwangaza.graph.api.LazyTreeNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.api.TreeNodeLoader;
+import guru.mwangaza.graph.implementation.IntTreeNodeImpl;
+import guru.mwangaza.graph.implementation.LazyTreeNodeImpl;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class SubtreeCacheTest {
+
+    private int builds;
+
+    private final Function<String, TreeNode<String>> builder = key -> {
+        builds++;
+        TreeNode<String> subtree = new TreeNodeImpl<>(key);
+        subtree.appendPathToCurrentNode("a.b", "payload-b");
+        subtree.appendPathToCurrentNode("c", "payload-c");
+        return subtree;
+    };
+
+    @Test
+    public void hitsAndMisses() throws Exception {
+        SubtreeCache<String> cache = new SubtreeCache<>(100);
+        TreeNode<String> first = cache.get("X", builder);
+        TreeNode<String> second = cache.get("X", builder);
+        assertSame(first, second);
+        assertEquals(1, builds);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(4, cache.getWeight());
+        assertEquals(0.5, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        SubtreeCache<String> cache = new SubtreeCache<>(8);
+        cache.get("X", builder);
+        cache.get("Y", builder);
+        cache.get("X", builder);
+        cache.get("Z", builder);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get("X"));
+        assertNull(cache.get("Y"));
+
+        cache.put("Big", new TreeNodeImpl<String>("Big") {{ appendPathToCurrentNode("a.b.c.d.e.f.g.h", null); }});
+        assertNull(cache.get("Big"));
+        assertEquals(8, cache.getWeight());
+    }
+
+    @Test
+    public void attachCopiesStructure() throws Exception {
+        SubtreeCache<String> cache = new SubtreeCache<>(100);
+        TreeNodeImpl<String> left = new TreeNodeImpl<>("Left");
+        TreeNode<String> right = new TreeNodeImpl<>("Right");
+        TreeNode<String> first = cache.attach(left, "X", builder);
+        TreeNode<String> second = cache.attach(right, "X", builder);
+        assertEquals(1, builds);
+        assertSame(left, first.getParent());
+        assertSame(right, second.getParent());
+        assertNotSame(first.getFirstChild(), second.getFirstChild());
+        assertSame(second, second.getFirstChild().getParent());
+        assertEquals("payload-b", second.getFirstChild().getFirstChild().getPayload());
+        assertEquals("Right.X.A.B", second.getFirstChild().getFirstChild().getPathFromRoot());
+        assertEquals(5, right.getSubtreeNodeCount());
+
+        long modificationCount = left.getModificationCount();
+        first.getFirstChild().addChild(new TreeNodeImpl<>("d"));
+        assertNotEquals(modificationCount, left.getModificationCount());
+        assertEquals(4, cache.get("X").getSubtreeNodeCount());
+    }
+
+    @Test
+    public void attachKeepsNodeTypes() throws Exception {
+        SubtreeCache<Integer> cache = new SubtreeCache<>(100);
+        IntTreeNodeImpl parent = new IntTreeNodeImpl("Parent", 1);
+        TreeNode<Integer> attached = cache.attach(parent, "X", key -> {
+            IntTreeNodeImpl subtree = new IntTreeNodeImpl(key, 2);
+            subtree.addChild(new IntTreeNodeImpl("Child", 3));
+            return subtree;
+        });
+        assertTrue(attached instanceof IntTreeNode);
+        assertTrue(attached.getFirstChild() instanceof IntTreeNode);
+        assertEquals(6, parent.getSubtreeSum());
+    }
+
+    @Test
+    public void attachDoesNotLoadLazySubtrees() throws Exception {
+        int[] loads = new int[1];
+        TreeNodeLoader<String> loader = node -> {
+            loads[0]++;
+            List<TreeNode<String>> children = new ArrayList<>();
+            for(int index = 0; index < 2 && node.getLoaderKey().length() < 2; index++) {
+                children.add(new LazyTreeNodeImpl<String>(node.getName() + index, node.getLoaderKey() + index, node.getLoaderKey().isEmpty() ? 2 : 0));
+            }
+            return children;
+        };
+        SubtreeCache<String> cache = new SubtreeCache<>(100);
+        LazyTreeNodeImpl<String> subtree = new LazyTreeNodeImpl<>("X", "", 2, loader);
+        subtree.getChildren();
+        cache.put("X", subtree);
+        loads[0] = 0;
+
+        TreeNode<String> attached = cache.attach(new TreeNodeImpl<>("Parent"), "X", key -> null);
+        assertEquals(0, loads[0]);
+        assertTrue(attached instanceof LazyTreeNode);
+        assertFalse(((LazyTreeNode<String>)attached).isLoaded());
+        assertEquals("X1", attached.getChildren().get(1).getName());
+        assertEquals(1, loads[0]);
+        assertEquals(7, attached.getSubtreeNodeCount());
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.compact;
+
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.implementation.GraphNodeImpl;
+import guru.mwangaza.graph.implementation.algorithm.GraphPathFinder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompactGraphTest {
+
+    @Test
+    public void fromGraphNode() throws Exception {
+        CompactGraph<String> graph = CompactGraph.fromGraphNode(buildGraph());
+        assertEquals(5, graph.getNodeCount());
+        assertEquals(5, graph.getEdgeCount());
+        assertEquals("A", graph.getName(0));
+        assertEquals(2, graph.getChildCount(0));
+        int e = 3;
+        assertEquals("E", graph.getName(e));
+        assertEquals(2, graph.getParentCount(e));
+        assertEquals("payload-E", graph.getPayload(e));
+        assertTrue(graph.isReachable(0, e));
+        assertFalse(graph.isReachable(e, 0));
+    }
+
+    @Test
+    public void uuidsAreCopiedOnRequest() throws Exception {
+        GraphNode<String> root = buildGraph();
+        assertNull(CompactGraph.fromGraphNode(root).getUuid(0));
+        CompactGraph<String> graph = CompactGraph.fromGraphNode(root, true);
+        assertEquals(root.getUuid(), graph.getUuid(0));
+        assertEquals(root.getUuid(), graph.getNode(0).getUuid());
+    }
+
+    @Test
+    public void breadthFirst() throws Exception {
+        CompactGraph<String> graph = CompactGraph.fromGraphNode(buildGraph());
+        List<String> visited = new ArrayList<>();
+        graph.breadthFirst(0, node -> visited.add(graph.getName(node)));
+        assertEquals("[A, B, C, E, D]", visited.toString());
+    }
+
+    @Test
+    public void nodeViews() throws Exception {
+        CompactGraph<String> graph = CompactGraph.fromGraphNode(buildGraph());
+        GraphNode<String> root = graph.getNode(0);
+        assertSame(root, graph.getNode(0));
+        assertTrue(root.isRoot());
+        assertEquals("B", root.getFirstChild().getName());
+        assertSame(root, root.getFirstChild().getFirstParent());
+        GraphNode<String> e = root.getChildren().get(0).getChildren().get(0);
+        assertEquals("E", e.getName());
+        assertTrue(e.isLeaf());
+        assertEquals(2, e.getParents().size());
+        assertEquals(3, new GraphPathFinder<String>().findShortestPath(root, e).size());
+
+        GraphNode<String> copy = (GraphNode<String>)root.deepClone();
+        assertTrue(copy instanceof GraphNodeImpl);
+        assertEquals(2, copy.getChildren().size());
+    }
+
+    @Test
+    public void pathDelimiterIsKept() throws Exception {
+        GraphNode<String> root = buildGraph();
+        root.setPathDelimiter("/");
+        CompactGraph<String> graph = CompactGraph.fromGraphNode(root);
+        assertEquals("/", graph.getPathDelimiter());
+        assertEquals("/B", graph.getNode(1).buildPathComponent());
+        assertEquals("/", graph.toGraphNode(0).getFirstChild().getPathDelimiter());
+
+        CompactGraphBuilder<String> builder = new CompactGraphBuilder<>();
+        builder.setPathDelimiter("::");
+        builder.addEdge(builder.addNode("A"), builder.addNode("B"));
+        assertEquals("::B", builder.build().getNode(1).buildPathComponent());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void nodeViewsAreReadOnly() throws Exception {
+        CompactGraph<String> graph = CompactGraph.fromGraphNode(buildGraph());
+        graph.getNode(0).addChild(new GraphNodeImpl<String>("X"));
+    }
+
+    @Test
+    public void builder() throws Exception {
+        CompactGraphBuilder<Integer> builder = new CompactGraphBuilder<>();
+        int a = builder.addNode("A", 1);
+        int b = builder.addNode("B", 2);
+        int c = builder.addNode("C", 3);
+        builder.addEdges(new int[]{a, b}, new int[]{b, c});
+        builder.addEdge(a, c);
+        CompactGraph<Integer> graph = builder.build();
+        assertEquals(3, graph.getEdgeCount());
+        assertEquals(Integer.valueOf(3), graph.getPayload(c));
+        assertTrue(Arrays.equals(new int[]{a, c}, graph.findShortestPath(a, c)));
+        assertEquals(2, graph.getParentCount(c));
+    }
+
+    /**
+     * A -> B -> E, A -> C -> D -> E
+     */
+    protected GraphNode<String> buildGraph() {
+        GraphNode<String> a = new GraphNodeImpl<>("A");
+        GraphNode<String> b = new GraphNodeImpl<>("B");
+        GraphNode<String> c = new GraphNodeImpl<>("C");
+        GraphNode<String> d = new GraphNodeImpl<>("D");
+        GraphNode<String> e = new GraphNodeImpl<>("E");
+        e.setPayload("payload-E");
+        a.addChild(b);
+        a.addChild(c);
+        b.addChild(e);
+        c.addChild(d);
+        d.addChild(e);
+        return a;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.dag;
+
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.GraphNodeImpl;
+import guru.mwangaza.graph.implementation.StructuralHash;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SubtreeCompactorTest {
+
+    @Test
+    public void identicalSubtreesAreShared() throws Exception {
+        TreeNodeImpl<String> root = buildSchemaTree(100);
+        SubtreeCompactor<String> compactor = new SubtreeCompactor<>();
+        GraphNode<String> shared = compactor.compact(root);
+        assertEquals(root.getSubtreeNodeCount(), compactor.getSourceNodeCount());
+        assertEquals(1 + 100 + 5, compactor.getSharedNodeCount());
+        GraphNode<String> firstType = shared.getChildren().get(0).getFirstChild();
+        GraphNode<String> lastType = shared.getChildren().get(99).getFirstChild();
+        assertSame(firstType, lastType);
+        assertEquals(100, firstType.getParents().size());
+        assertEquals("int", firstType.getChildren().get(0).getFirstChild().getProperties().get("format"));
+    }
+
+    @Test
+    public void differencesPreventSharing() throws Exception {
+        TreeNodeImpl<String> root = buildSchemaTree(3);
+        root.findNodesWithName("id").get(2).getFirstChild().addProperty("format", "uuid");
+        SubtreeCompactor<String> compactor = new SubtreeCompactor<>();
+        GraphNode<String> shared = compactor.compact(root);
+        assertNotSame(shared.getChildren().get(0).getFirstChild(), shared.getChildren().get(2).getFirstChild());
+        assertSame(shared.getChildren().get(0).getFirstChild(), shared.getChildren().get(1).getFirstChild());
+    }
+
+    @Test
+    public void changedSharedNodesAreNotReused() throws Exception {
+        SubtreeCompactor<String> compactor = new SubtreeCompactor<>();
+        GraphNode<String> first = compactor.compact(buildSchemaTree(1));
+        GraphNode<String> type = first.getFirstChild().getFirstChild();
+        GraphNode<String> value = type.getFirstChild().getFirstChild();
+        value.addProperty("format", "uuid");
+        type.addChild(new GraphNodeImpl<String>("extra"));
+
+        GraphNode<String> second = compactor.compact(buildSchemaTree(1));
+        GraphNode<String> secondType = second.getFirstChild().getFirstChild();
+        assertNotSame(type, secondType);
+        assertNotSame(value, secondType.getFirstChild().getFirstChild());
+        assertEquals("int", secondType.getFirstChild().getFirstChild().getProperties().get("format"));
+        assertEquals(2, secondType.getChildren().size());
+        assertSame(type.getChildren().get(1), secondType.getChildren().get(1));
+    }
+
+    @Test
+    public void viewKeepsTraversalContext() throws Exception {
+        TreeNodeImpl<String> root = buildSchemaTree(10);
+        SharedTreeView<String> view = SharedTreeView.of(new SubtreeCompactor<String>().compact(root));
+        List<TreeNode<String>> ids = view.findNodesWithName("id");
+        assertEquals(10, ids.size());
+        assertEquals("schema.entity3.type.id", ids.get(3).getPathFromRoot());
+        assertEquals("entity3", ids.get(3).getParent().getParent().getName());
+        assertTrue(ids.get(3).isLN());
+        assertEquals(root.getSubtreeNodeCount(), view.getSubtreeNodeCount());
+        assertEquals(root.getStructuralHash(), StructuralHash.of((TreeNode<String>)view.deepClone()));
+        assertEquals("schema.entity0.type.id.value", view.getPathsFromNode().get(0));
+        assertEquals(20, view.getPathsFromNode().size());
+    }
+
+    @Test
+    public void viewKeepsPathDelimiter() throws Exception {
+        TreeNodeImpl<String> root = buildSchemaTree(2);
+        root.findNodesWithName("value").forEach(node -> {
+            for(TreeNode<String> current = node; current != null; current = current.getParent()) {
+                current.setPathDelimiter("/");
+            }
+        });
+        SubtreeCompactor<String> compactor = new SubtreeCompactor<>();
+        GraphNode<String> slashed = compactor.compact(root);
+        SharedTreeView<String> view = SharedTreeView.of(slashed);
+        assertEquals("schema/entity1/type/id/value", view.findNodesWithName("value").get(2).getPathFromRoot());
+        assertEquals(root.getPathsFromNode(), view.getPathsFromNode());
+
+        GraphNode<String> dotted = compactor.compact(buildSchemaTree(1));
+        assertNotSame(slashed.getFirstChild().getFirstChild(), dotted.getFirstChild().getFirstChild());
+        assertEquals(".", dotted.getFirstChild().getFirstChild().getPathDelimiter());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewIsReadOnly() throws Exception {
+        SharedTreeView.of(new SubtreeCompactor<String>().compact(buildSchemaTree(1))).addChild(new TreeNodeImpl<>("x"));
+    }
+
+    /**
+     * schema with entity0..entityN-1, each with the same type subtree: type(id(value), name(value)).
+     */
+    private TreeNodeImpl<String> buildSchemaTree(int entityCount) {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("schema");
+        for(int i = 0; i < entityCount; i++) {
+            TreeNodeImpl<String> entity = new TreeNodeImpl<>("entity" + i);
+            TreeNodeImpl<String> type = new TreeNodeImpl<>("type");
+            for(String field : new String[]{"id", "name"}) {
+                TreeNodeImpl<String> fieldNode = new TreeNodeImpl<>(field);
+                TreeNodeImpl<String> value = new TreeNodeImpl<>("value");
+                value.setPayload(field + "-value");
+                value.addProperty("format", "id".equals(field) ? "int" : "text");
+                fieldNode.addChild(value);
+                type.addChild(fieldNode);
+            }
+            entity.addChild(type);
+            root.addChild(entity);
+        }
+        return root;
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.diff;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.StructuralHash;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TreeDiffTest {
+
+    @Test
+    public void identicalTreesHaveNoEdits() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        assertTrue(new TreeDiff<String>(TreeDiff.Matching.NAME).diff(root, root.deepClone()).isEmpty());
+        assertTrue(new TreeDiff<String>(TreeDiff.Matching.UUID).diff(root, root.deepClone()).isEmpty());
+        assertEquals(6, new TreeDiff<String>(TreeDiff.Matching.UUID).diff(root, buildTree()).size());
+    }
+
+    @Test
+    public void matchingByName() throws Exception {
+        TreeNodeImpl<String> oldRoot = buildTree();
+        TreeNode<String> newRoot = edit(oldRoot.deepClone());
+        assertEquals("[PAYLOAD_CHANGED root.a.a1: a1 -> changed, RENAMED root.c.c1 -> root.c.c1x, MOVED root.b.b1 -> root.c.b1, REMOVED root.a.a2, ADDED root.d]",
+                new TreeDiff<String>(TreeDiff.Matching.NAME).diff(oldRoot, newRoot).toString());
+    }
+
+    @Test
+    public void matchingByUuid() throws Exception {
+        TreeNodeImpl<String> oldRoot = buildTree();
+        TreeNode<String> newRoot = edit(oldRoot.deepClone());
+        find(newRoot, "b11").setPayload("moved and changed");
+        find(newRoot, "c1x").setName("renamed");
+        List<String> edits = new TreeDiff<String>(TreeDiff.Matching.UUID).stream(oldRoot, newRoot).map(Object::toString).collect(Collectors.toList());
+        assertEquals("[PAYLOAD_CHANGED root.a.a1: a1 -> changed, RENAMED root.c.c1 -> root.c.renamed, PAYLOAD_CHANGED root.c.b1.b11: b11 -> moved and changed, MOVED root.b.b1 -> root.c.b1, REMOVED root.a.a2, ADDED root.d]",
+                edits.toString());
+    }
+
+    @Test
+    public void editsAreStreamed() throws Exception {
+        TreeNodeImpl<String> oldRoot = buildTree();
+        TreeNode<String> newRoot = edit(oldRoot.deepClone());
+        TreeEdit<String> first = new TreeDiff<String>(TreeDiff.Matching.NAME).iterator(oldRoot, newRoot).next();
+        assertEquals(TreeEditType.PAYLOAD_CHANGED, first.getType());
+        assertSame(find(newRoot, "a1"), first.getNewNode());
+    }
+
+    @Test
+    public void equalHashesAreSkipped() throws Exception {
+        TreeNodeImpl<Object> oldRoot = new TreeNodeImpl<>("root");
+        TreeNodeImpl<Object> newRoot = new TreeNodeImpl<>("root");
+        child(oldRoot, "child", "Aa");
+        child(newRoot, "child", "BB");
+        assertEquals("[PAYLOAD_CHANGED root.child: Aa -> BB]", new TreeDiff<Object>(TreeDiff.Matching.NAME).diff(oldRoot, newRoot).toString());
+
+        oldRoot.getFirstChild().setPayload(new ConstantHash("x"));
+        newRoot.getFirstChild().setPayload(new ConstantHash("y"));
+        assertEquals(StructuralHash.of(oldRoot), StructuralHash.of(newRoot));
+        assertTrue(new TreeDiff<Object>(TreeDiff.Matching.NAME).diff(oldRoot, newRoot).isEmpty());
+        assertFalse(StructuralHash.deepEquals(oldRoot, newRoot));
+
+        newRoot.getFirstChild().setName("renamed");
+        assertEquals("[RENAMED root.child -> root.renamed]", new TreeDiff<Object>(TreeDiff.Matching.NAME).diff(oldRoot, newRoot).toString());
+    }
+
+    /**
+     * root
+     *   a: a1, a2
+     *   b: b1: b11
+     *   c: c1
+     */
+    private TreeNodeImpl<String> buildTree() {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("root");
+        TreeNodeImpl<String> a = child(root, "a", null);
+        child(a, "a1", "a1");
+        child(a, "a2", "a2");
+        child(child(child(root, "b", null), "b1", null), "b11", "b11");
+        child(child(root, "c", null), "c1", "c1");
+        return root;
+    }
+
+    private <P> TreeNodeImpl<P> child(TreeNodeImpl<P> parent, String name, P payload) {
+        TreeNodeImpl<P> child = new TreeNodeImpl<>(name);
+        child.setPayload(payload);
+        parent.addChild(child);
+        return child;
+    }
+
+    /**
+     * Changes the payload of a1, removes a2, moves b1 under c, renames c1 and adds d.
+     */
+    private TreeNode<String> edit(TreeNode<String> root) {
+        find(root, "a1").setPayload("changed");
+        detach(find(root, "a2"));
+        TreeNode<String> b1 = find(root, "b1");
+        detach(b1);
+        find(root, "c").addChild(b1);
+        find(root, "c1").setName("c1x");
+        root.addChild(new TreeNodeImpl<>("d"));
+        return root;
+    }
+
+    private void detach(TreeNode<String> node) {
+        List<TreeNode<String>> siblings = new ArrayList<>(node.getParent().getChildren());
+        siblings.remove(node);
+        node.getParent().setChildren(siblings);
+        node.setParent(null);
+    }
+
+    private TreeNode<String> find(TreeNode<String> root, String name) {
+        return root.findNodesWithName(name).get(0);
+    }
+
+    /**
+     * Payload whose hash code ignores its value.
+     */
+    private static class ConstantHash {
+
+        private final String value;
+
+        private ConstantHash(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ConstantHash && value.equals(((ConstantHash)other).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
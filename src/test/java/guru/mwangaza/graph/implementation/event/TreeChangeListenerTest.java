@@ -0,0 +1,121 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.event;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TreeChangeListenerTest {
+
+    @Test
+    public void eventsReachListenersOfEnclosingSubtrees() throws Exception {
+        TreeNodeImpl<String> root = buildGraph();
+        TreeNodeImpl<String> L1_2 = (TreeNodeImpl<String>)root.getChildren().get(1);
+        List<List<TreeChangeEvent<String>>> rootNotifications = new ArrayList<>();
+        List<List<TreeChangeEvent<String>>> subtreeNotifications = new ArrayList<>();
+        TreeChangeListener<String> rootListener = rootNotifications::add;
+        TreeChangeListener<String> subtreeListener = subtreeNotifications::add;
+        root.addTreeChangeListener(rootListener);
+        L1_2.addTreeChangeListener(subtreeListener);
+        try {
+            TreeNode<String> leaf = new TreeNodeImpl<>("New");
+            root.getFirstChild().addChild(leaf);
+            leaf.setPayload("p");
+            leaf.setName("Renamed");
+            leaf.addProperty("k", 1);
+            root.getFirstChild().removeChild(leaf);
+            L1_2.getFirstChild().setPayload("q");
+            assertEquals(6, rootNotifications.size());
+            assertEquals("[CHILD_ADDED L1_1 Renamed, PAYLOAD_SET Renamed: null -> p, RENAMED Renamed: New -> Renamed, "
+                    + "PROPERTY_SET Renamed k: null -> 1, CHILD_REMOVED L1_1 Renamed, PAYLOAD_SET L1_2_1: null -> q]", flatten(rootNotifications).toString());
+            assertEquals(1, subtreeNotifications.size());
+            assertSame(L1_2.getFirstChild(), subtreeNotifications.get(0).get(0).getNode());
+        } finally {
+            root.removeTreeChangeListener(rootListener);
+            L1_2.removeTreeChangeListener(subtreeListener);
+        }
+        root.getFirstChild().setPayload("unobserved");
+        assertEquals(6, rootNotifications.size());
+    }
+
+    @Test
+    public void reparentingIsReportedToTheMovedNode() throws Exception {
+        TreeNodeImpl<String> root = buildGraph();
+        TreeNodeImpl<String> moved = new TreeNodeImpl<>("Moved");
+        List<TreeChangeEvent<String>> events = new ArrayList<>();
+        TreeChangeListener<String> listener = events::addAll;
+        moved.addTreeChangeListener(listener);
+        try {
+            root.addChild(moved);
+            moved.detach();
+            assertEquals(2, events.size());
+            assertEquals(TreeChangeType.REPARENTED, events.get(0).getType());
+            assertSame(root, events.get(0).getNewValue());
+            assertSame(root, events.get(1).getOldValue());
+            assertNull(events.get(1).getNewValue());
+        } finally {
+            moved.removeTreeChangeListener(listener);
+        }
+    }
+
+    @Test
+    public void batchedEventsAreDeliveredTogether() throws Exception {
+        TreeNodeImpl<String> root = buildGraph();
+        List<List<TreeChangeEvent<String>>> notifications = new ArrayList<>();
+        TreeChangeListener<String> listener = notifications::add;
+        root.addTreeChangeListener(listener);
+        try {
+            root.getFirstChild().getFirstChild();
+            ((TreeNodeImpl<String>)root.getChildren().get(1)).batchEvents(() -> {
+                root.getFirstChild().setPayload("a");
+                root.batchEvents(() -> root.setName("Root"));
+                root.addChild(new TreeNodeImpl<>("L1_3"));
+                assertTrue(notifications.isEmpty());
+            });
+            assertEquals(1, notifications.size());
+            assertEquals(3, notifications.get(0).size());
+            assertEquals(TreeChangeType.CHILD_ADDED, notifications.get(0).get(2).getType());
+        } finally {
+            root.removeTreeChangeListener(listener);
+        }
+    }
+
+    private List<TreeChangeEvent<String>> flatten(List<List<TreeChangeEvent<String>>> notifications) {
+        List<TreeChangeEvent<String>> events = new ArrayList<>();
+        for(List<TreeChangeEvent<String>> notification : notifications) {
+            assertEquals(1, notification.size());
+            events.addAll(notification);
+        }
+        return events;
+    }
+
+    protected TreeNodeImpl<String> buildGraph() {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("root");
+        TreeNode<String> L1_1 = new TreeNodeImpl<>("L1_1");
+        TreeNode<String> L1_2 = new TreeNodeImpl<>("L1_2");
+        TreeNode<String> L1_2_1 = new TreeNodeImpl<>("L1_2_1");
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        L1_2.addChild(L1_2_1);
+        return root;
+    }
+}
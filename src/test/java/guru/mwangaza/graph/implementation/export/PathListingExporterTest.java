@@ -0,0 +1,73 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.export;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class PathListingExporterTest {
+
+    @Test
+    public void matchesGetPathsFromNode() throws Exception {
+        TreeNode<String> root = buildGraph();
+        Path file = Files.createTempFile("paths", ".txt");
+        try {
+            PathListingExporter exporter = new PathListingExporter();
+            assertEquals(3, exporter.export(root, file));
+            String expected = String.join("\n", root.getPathsFromNode()) + "\n";
+            assertEquals(expected, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, exporter.getByteCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void pathsLongerThanTheBuffer() throws Exception {
+        TreeNode<String> root = buildGraph();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PathListingExporter exporter = new PathListingExporter(5, StandardCharsets.UTF_8);
+        exporter.export(root, Channels.newChannel(out));
+        assertEquals(String.join("\n", root.getPathsFromNode()) + "\n", out.toString("UTF-8"));
+
+        out.reset();
+        exporter.export(new TreeNodeImpl<String>("leaf"), Channels.newChannel(out));
+        assertEquals("leaf\n", out.toString("UTF-8"));
+        assertEquals(1, exporter.getPathCount());
+    }
+
+    protected TreeNode<String> buildGraph() {
+        TreeNode<String> root = new TreeNodeImpl<>("root");
+        TreeNode<String> L1_1 = new TreeNodeImpl<>("L1_1");
+        TreeNode<String> L1_2 = new TreeNodeImpl<>("L1_\u00e9\u20ac");
+        TreeNode<String> L1_2_1 = new TreeNodeImpl<>("L1_2_1\ud83d\ude00");
+        TreeNode<String> L1_2_2 = new TreeNodeImpl<>("L1_2_2");
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        return root;
+    }
+}
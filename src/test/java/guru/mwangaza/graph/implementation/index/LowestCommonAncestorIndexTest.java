@@ -0,0 +1,88 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LowestCommonAncestorIndexTest {
+
+    @Test
+    public void lowestCommonAncestor() throws Exception {
+        TreeNode<String> root = buildGraph();
+        LowestCommonAncestorIndex<String> index = new LowestCommonAncestorIndex<>(root);
+        assertEquals("L1_2", index.lowestCommonAncestor(find(root, "L1_2_1_1"), find(root, "L1_2_3")).getName());
+        assertEquals("root", index.lowestCommonAncestor(find(root, "L1_1"), find(root, "L1_2_1_1")).getName());
+        assertEquals("L1_2_1", index.lowestCommonAncestor(find(root, "L1_2_1"), find(root, "L1_2_1_1")).getName());
+        assertEquals("L1_3", index.lowestCommonAncestor(find(root, "L1_3"), find(root, "L1_3")).getName());
+        assertEquals(3, index.getDepth(find(root, "L1_2_1_1")));
+    }
+
+    @Test
+    public void lowestCommonAncestors() throws Exception {
+        TreeNode<String> root = buildGraph();
+        LowestCommonAncestorIndex<String> index = new LowestCommonAncestorIndex<>(root);
+        List<TreeNode<String>> first = Arrays.asList(find(root, "L1_2_2"), find(root, "L1_1"));
+        List<TreeNode<String>> second = Arrays.asList(find(root, "L1_2_1_1"), find(root, "L1_3"));
+        List<TreeNode<String>> ancestors = index.lowestCommonAncestors(first, second);
+        assertEquals("L1_2", ancestors.get(0).getName());
+        assertEquals("root", ancestors.get(1).getName());
+
+        int[] numbers = index.lowestCommonAncestors(
+                new int[]{index.getPreOrderNumber(find(root, "L1_2_2"))},
+                new int[]{index.getPreOrderNumber(find(root, "L1_2_3"))});
+        assertEquals("L1_2", index.getNode(numbers[0]).getName());
+    }
+
+    @Test
+    public void indexIsRebuiltAfterChange() throws Exception {
+        TreeNode<String> root = buildGraph();
+        LowestCommonAncestorIndex<String> index = new LowestCommonAncestorIndex<>(root);
+        assertEquals("root", index.lowestCommonAncestor(find(root, "L1_1"), find(root, "L1_3")).getName());
+        TreeNode<String> leaf = new TreeNodeImpl<>("New_Leaf");
+        find(root, "L1_2_3").addChild(leaf);
+        assertEquals("L1_2", index.lowestCommonAncestor(leaf, find(root, "L1_2_1_1")).getName());
+    }
+
+    private TreeNode<String> find(TreeNode<String> root, String name) {
+        return root.findNodesWithName(name).get(0);
+    }
+
+    protected TreeNode<String> buildGraph() {
+        TreeNode<String> root = new TreeNodeImpl<String>("root");
+        TreeNode<String> L1_1 = new TreeNodeImpl<String>("L1_1");
+        TreeNode<String> L1_2 = new TreeNodeImpl<String>("L1_2");
+        TreeNode<String> L1_3 = new TreeNodeImpl<String>("L1_3");
+        TreeNode<String> L1_2_1 = new TreeNodeImpl<String>("L1_2_1");
+        TreeNode<String> L1_2_2 = new TreeNodeImpl<String>("L1_2_2");
+        TreeNode<String> L1_2_3 = new TreeNodeImpl<String>("L1_2_3");
+        TreeNode<String> L1_2_1_1 = new TreeNodeImpl<String>("L1_2_1_1");
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        root.addChild(L1_3);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        L1_2.addChild(L1_2_3);
+        L1_2_1.addChild(L1_2_1_1);
+        return root;
+    }
+}
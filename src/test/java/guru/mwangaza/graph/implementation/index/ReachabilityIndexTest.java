@@ -0,0 +1,144 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.exception.InvalidStateException;
+import guru.mwangaza.graph.implementation.GraphNodeImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReachabilityIndexTest {
+
+    @Test
+    public void isReachableInTree() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph(false);
+        ReachabilityIndex<String> index = new ReachabilityIndex<>(nodes.get("A"));
+        assertEquals(5, index.size());
+        assertTrue(index.isReachable(nodes.get("A"), nodes.get("E")));
+        assertTrue(index.isReachable(nodes.get("B"), nodes.get("E")));
+        assertTrue(index.isReachable(nodes.get("C"), nodes.get("C")));
+        assertFalse(index.isReachable(nodes.get("C"), nodes.get("E")));
+        assertFalse(index.isReachable(nodes.get("E"), nodes.get("A")));
+        assertTrue(index.isDescendantOf(nodes.get("D"), nodes.get("A")));
+        assertFalse(index.isDescendantOf(nodes.get("D"), nodes.get("D")));
+    }
+
+    @Test
+    public void isReachableInDag() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph(true);
+        ReachabilityIndex<String> index = new ReachabilityIndex<>(nodes.get("A"));
+        assertTrue(index.isReachable(nodes.get("C"), nodes.get("E")));
+        assertTrue(index.isReachable(nodes.get("B"), nodes.get("E")));
+        assertFalse(index.isReachable(nodes.get("E"), nodes.get("C")));
+    }
+
+    @Test
+    public void addEdge() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph(true);
+        ReachabilityIndex<String> index = new ReachabilityIndex<>(nodes.get("A"));
+        GraphNode<String> f = new GraphNodeImpl<>("F");
+        GraphNode<String> g = new GraphNodeImpl<>("G");
+        f.addChild(g);
+        index.addEdge(nodes.get("E"), f);
+        assertEquals(7, index.size());
+        assertTrue(index.isReachable(nodes.get("C"), g));
+        assertTrue(index.isReachable(nodes.get("A"), f));
+        assertFalse(index.isReachable(g, nodes.get("E")));
+        assertFalse(index.isReachable(nodes.get("C"), nodes.get("D")));
+        index.addEdge(nodes.get("C"), nodes.get("D"));
+        assertTrue(index.isReachable(nodes.get("C"), nodes.get("D")));
+        assertTrue(index.isReachable(nodes.get("A"), g));
+    }
+
+    @Test
+    public void addLeafToTree() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph(false);
+        ReachabilityIndex<String> index = new ReachabilityIndex<>(nodes.get("A"));
+        GraphNode<String> f = new GraphNodeImpl<>("F");
+        GraphNode<String> g = new GraphNodeImpl<>("G");
+        index.addEdge(nodes.get("D"), f);
+        index.addEdge(f, g);
+        assertEquals(7, index.size());
+        assertTrue(index.isReachable(nodes.get("A"), g));
+        assertTrue(index.isReachable(nodes.get("D"), f));
+        assertTrue(index.isReachable(f, g));
+        assertTrue(index.isDescendantOf(g, nodes.get("B")));
+        assertFalse(index.isReachable(nodes.get("C"), f));
+        assertFalse(index.isReachable(nodes.get("E"), g));
+        assertFalse(index.isReachable(g, f));
+        assertFalse(index.isReachable(f, nodes.get("E")));
+
+        index.addEdge(nodes.get("C"), nodes.get("E"));
+        assertTrue(index.isReachable(nodes.get("C"), nodes.get("E")));
+        assertTrue(index.isReachable(nodes.get("B"), g));
+        assertFalse(index.isReachable(nodes.get("C"), g));
+    }
+
+    @Test
+    public void addLeafChainsBeyondTheAnchorDepth() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph(false);
+        ReachabilityIndex<String> index = new ReachabilityIndex<>(nodes.get("A"));
+        List<GraphNode<String>> chain = new ArrayList<>();
+        GraphNode<String> parent = nodes.get("E");
+        for(int i = 0; i < 3 * ReachabilityIndex.MAX_ANCHOR_DEPTH; i++) {
+            GraphNode<String> leaf = new GraphNodeImpl<>("L" + i);
+            index.addEdge(parent, leaf);
+            index.addEdge(parent, new GraphNodeImpl<String>("S" + i));
+            chain.add(leaf);
+            parent = leaf;
+        }
+        assertEquals(5 + 6 * ReachabilityIndex.MAX_ANCHOR_DEPTH, index.size());
+        GraphNode<String> last = chain.get(chain.size() - 1);
+        assertTrue(index.isReachable(nodes.get("A"), last));
+        assertTrue(index.isReachable(chain.get(2), last));
+        assertTrue(index.isDescendantOf(chain.get(ReachabilityIndex.MAX_ANCHOR_DEPTH + 1), chain.get(ReachabilityIndex.MAX_ANCHOR_DEPTH - 1)));
+        assertFalse(index.isReachable(last, chain.get(2)));
+        assertFalse(index.isReachable(nodes.get("C"), last));
+        assertFalse(index.isReachable(chain.get(chain.size() - 2).getChildren().get(1), last));
+    }
+
+    @Test(expected = InvalidStateException.class)
+    public void addEdgeRejectsCycle() throws Exception {
+        Map<String, GraphNode<String>> nodes = buildGraph(false);
+        ReachabilityIndex<String> index = new ReachabilityIndex<>(nodes.get("A"));
+        index.addEdge(nodes.get("E"), nodes.get("B"));
+    }
+
+    /**
+     * A -> B -> D -> E, A -> C and optionally C -> E
+     */
+    protected Map<String, GraphNode<String>> buildGraph(boolean shared) {
+        Map<String, GraphNode<String>> nodes = new HashMap<>();
+        for(String name : new String[]{"A", "B", "C", "D", "E"}) {
+            nodes.put(name, new GraphNodeImpl<String>(name));
+        }
+        nodes.get("A").addChild(nodes.get("B"));
+        nodes.get("A").addChild(nodes.get("C"));
+        nodes.get("B").addChild(nodes.get("D"));
+        nodes.get("D").addChild(nodes.get("E"));
+        if(shared) {
+            nodes.get("C").addChild(nodes.get("E"));
+        }
+        return nodes;
+    }
+}
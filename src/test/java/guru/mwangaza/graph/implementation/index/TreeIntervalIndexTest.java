@@ -0,0 +1,85 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.index;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TreeIntervalIndexTest {
+
+    @Test
+    public void isAncestorOf() throws Exception {
+        TreeNode<String> root = buildGraph();
+        TreeIntervalIndex<String> index = new TreeIntervalIndex<>(root);
+        TreeNode<String> L1_2 = root.findNodesWithName("L1_2").get(0);
+        TreeNode<String> L1_2_1_1 = root.findNodesWithName("L1_2_1_1").get(0);
+        TreeNode<String> L1_3 = root.findNodesWithName("L1_3").get(0);
+        assertTrue(index.isAncestorOf(root, L1_2_1_1));
+        assertTrue(index.isAncestorOf(L1_2, L1_2_1_1));
+        assertTrue(index.isDescendantOf(L1_2_1_1, L1_2));
+        assertFalse(index.isAncestorOf(L1_3, L1_2_1_1));
+        assertFalse(index.isAncestorOf(L1_2, L1_2));
+        assertFalse(index.isAncestorOf(L1_2_1_1, root));
+    }
+
+    @Test
+    public void getSubtreeNodeCountAndDepth() throws Exception {
+        TreeNode<String> root = buildGraph();
+        TreeIntervalIndex<String> index = new TreeIntervalIndex<>(root);
+        TreeNode<String> L1_2 = root.findNodesWithName("L1_2").get(0);
+        assertEquals(root.getSubtreeNodeCount(), index.getSubtreeNodeCount(root));
+        assertEquals(5, index.getSubtreeNodeCount(L1_2));
+        assertEquals(0, index.getDepth(root));
+        assertEquals(1, index.getDepth(L1_2));
+        assertEquals(3, index.getDepth(root.findNodesWithName("L1_2_1_1").get(0)));
+    }
+
+    @Test
+    public void labelsAreRecomputedAfterChange() throws Exception {
+        TreeNode<String> root = buildGraph();
+        TreeIntervalIndex<String> index = new TreeIntervalIndex<>(root);
+        TreeNode<String> L1_2_1_1 = root.findNodesWithName("L1_2_1_1").get(0);
+        assertEquals(8, index.getSubtreeNodeCount(root));
+        TreeNode<String> leaf = new TreeNodeImpl<>("New_Leaf");
+        L1_2_1_1.addChild(leaf);
+        assertTrue(index.contains(leaf));
+        assertEquals(9, index.getSubtreeNodeCount(root));
+        assertEquals(4, index.getDepth(leaf));
+        assertTrue(index.isAncestorOf(root, leaf));
+    }
+
+    protected TreeNode<String> buildGraph() {
+        TreeNode<String> root = new TreeNodeImpl<String>("root");
+        TreeNode<String> L1_1 = new TreeNodeImpl<String>("L1_1");
+        TreeNode<String> L1_2 = new TreeNodeImpl<String>("L1_2");
+        TreeNode<String> L1_3 = new TreeNodeImpl<String>("L1_3");
+        TreeNode<String> L1_2_1 = new TreeNodeImpl<String>("L1_2_1");
+        TreeNode<String> L1_2_2 = new TreeNodeImpl<String>("L1_2_2");
+        TreeNode<String> L1_2_3 = new TreeNodeImpl<String>("L1_2_3");
+        TreeNode<String> L1_2_1_1 = new TreeNodeImpl<String>("L1_2_1_1");
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        root.addChild(L1_3);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        L1_2.addChild(L1_2_3);
+        L1_2_1.addChild(L1_2_1_1);
+        return root;
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.json;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class TreeJsonTest {
+
+    @Test
+    public void nestedRoundTrip() throws Exception {
+        StringWriter out = new StringWriter();
+        new TreeJsonWriter<Object>().write(buildGraph(), out);
+        assertEquals("{\"name\":\"root\",\"payload\":1,\"children\":["
+                + "{\"name\":\"L1_1\",\"payload\":\"say \\\"hi\\\"\\n\",\"properties\":{\"tags\":[\"a\",true,null]}},"
+                + "{\"name\":\"L1_2\",\"payloadName\":\"l1_2\",\"children\":[{\"name\":\"L1_2_1\",\"payload\":2.5}]}]}", out.toString());
+
+        TreeNode<Object> copy = new TreeJsonReader<Object>().read(new StringReader(out.toString()));
+        assertEquals(buildGraph().getPathsFromNode(), copy.getPathsFromNode());
+        assertEquals(1L, copy.getPayload());
+        TreeNode<Object> L1_1 = copy.getFirstChild();
+        assertEquals("say \"hi\"\n", L1_1.getPayload());
+        assertEquals(Arrays.asList("a", true, null), L1_1.getProperties().get("tags"));
+        TreeNode<Object> L1_2 = copy.getChildren().get(1);
+        assertEquals("l1_2", L1_2.getPayloadName());
+        assertEquals(2.5, L1_2.getFirstChild().getPayload());
+        assertSame(L1_2, L1_2.getFirstChild().getParent());
+    }
+
+    @Test
+    public void ndjsonRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TreeJsonWriter<Object>().writeNdjson(buildGraph(), out);
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("{\"path\":\"root.L1_2.L1_2_1\",\"payload\":2.5}", lines[3]);
+
+        TreeNode<Object> copy = new TreeJsonReader<Object>().readNdjson(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(buildGraph().getPathsFromNode(), copy.getPathsFromNode());
+        assertEquals("l1_2", copy.getChildren().get(1).getPayloadName());
+
+        TreeNode<Object> sparse = new TreeJsonReader<Object>().readNdjson(new StringReader("{\"path\":\"r.a.b\",\"payload\":1}\n{\"path\":\"r.a\",\"payload\":2}\n"));
+        assertEquals(Collections.singletonList("r.a.b"), sparse.getPathsFromNode());
+        assertEquals(2L, sparse.getFirstChild().getPayload());
+        assertNull(new TreeJsonReader<Object>().readNdjson(new StringReader("  \n")));
+    }
+
+    @Test
+    public void ndjsonKeepsSiblingsWithTheSameName() throws Exception {
+        TreeNodeImpl<Object> root = new TreeNodeImpl<>("root");
+        TreeNodeImpl<Object> first = new TreeNodeImpl<>("item");
+        TreeNodeImpl<Object> second = new TreeNodeImpl<>("item");
+        first.setPayload("one");
+        second.setPayload("two");
+        first.addChild(new TreeNodeImpl<>("x"));
+        second.addChild(new TreeNodeImpl<>("y"));
+        root.addChild(first);
+        root.addChild(second);
+        StringWriter out = new StringWriter();
+        new TreeJsonWriter<Object>().writeNdjson(root, out);
+
+        TreeNode<Object> copy = new TreeJsonReader<Object>().readNdjson(new StringReader(out.toString()));
+        assertEquals(2, copy.getChildren().size());
+        assertEquals("one", copy.getChildren().get(0).getPayload());
+        assertEquals("two", copy.getChildren().get(1).getPayload());
+        assertEquals("x", copy.getChildren().get(0).getFirstChild().getName());
+        assertEquals("y", copy.getChildren().get(1).getFirstChild().getName());
+        assertEquals(root.getPathsFromNode(), copy.getPathsFromNode());
+    }
+
+    @Test
+    public void pluggableCodecs() throws Exception {
+        TreeNodeImpl<int[]> root = new TreeNodeImpl<>("root");
+        root.setPayload(new int[]{1, 2});
+        JsonCodec<int[]> codec = new JsonCodec<int[]>() {
+            @Override
+            public Object encode(int[] value) {
+                return value[0] + "/" + value[1];
+            }
+
+            @Override
+            public int[] decode(Object json) {
+                String[] parts = ((String)json).split("/");
+                return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+            }
+        };
+        TreeJsonWriter<int[]> writer = new TreeJsonWriter<>();
+        writer.setPayloadCodec(codec);
+        StringWriter out = new StringWriter();
+        writer.write(root, out);
+        assertEquals("{\"name\":\"root\",\"payload\":\"1/2\"}", out.toString());
+        TreeJsonReader<int[]> reader = new TreeJsonReader<>();
+        reader.setPayloadCodec(codec);
+        assertArrayEquals(new int[]{1, 2}, reader.read(new StringReader(out.toString())).getPayload());
+    }
+
+    @Test
+    public void malformedInput() throws Exception {
+        for(String input : Arrays.asList("{\"name\":\"a\"", "{\"name\" \"a\"}", "{\"children\":[]}", "[1]")) {
+            try {
+                new TreeJsonReader<Object>().read(new StringReader(input));
+                fail(input);
+            } catch(IllegalArgumentException e) {
+                //Expected
+            }
+        }
+    }
+
+    protected TreeNodeImpl<Object> buildGraph() {
+        TreeNodeImpl<Object> root = new TreeNodeImpl<>("root");
+        TreeNode<Object> L1_1 = new TreeNodeImpl<>("L1_1");
+        TreeNode<Object> L1_2 = new TreeNodeImpl<>("L1_2");
+        TreeNode<Object> L1_2_1 = new TreeNodeImpl<>("L1_2_1");
+        root.setPayload(1);
+        L1_1.setPayload("say \"hi\"\n");
+        L1_1.addProperty("tags", Arrays.asList("a", true, null));
+        L1_2.setPayloadName("l1_2");
+        L1_2_1.setPayload(2.5);
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        L1_2.addChild(L1_2_1);
+        return root;
+    }
+}
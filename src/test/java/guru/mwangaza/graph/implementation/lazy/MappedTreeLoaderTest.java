@@ -0,0 +1,132 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.lazy;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.exception.InvalidStateException;
+import guru.mwangaza.graph.implementation.LazyTreeNodeImpl;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class MappedTreeLoaderTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("tree", ".bin");
+        MappedTreeWriter<String> writer = new MappedTreeWriter<>(payload -> payload.getBytes(StandardCharsets.UTF_8));
+        assertEquals(5, writer.write(buildGraph(), file));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.delete(file);
+    }
+
+    @Test
+    public void nodesAreMaterializedOnFirstAccess() throws Exception {
+        try(MappedTreeLoader<String> loader = MappedTreeLoader.open(file, bytes -> new String(bytes, StandardCharsets.UTF_8))) {
+            assertEquals(5, loader.getNodeCount());
+            LazyTreeNodeImpl<String> root = loader.createRoot();
+            assertEquals("root", root.getName());
+            assertEquals("p-root", root.getPayload());
+            assertFalse(root.isLoaded());
+            assertEquals(1, loader.getMaterializedCount());
+
+            TreeNode<String> L1_2 = root.getChildren().get(1);
+            assertEquals(3, loader.getMaterializedCount());
+            assertEquals("L1_\u00e92", L1_2.getName());
+            assertNull(L1_2.getPayload());
+            assertTrue(root.getFirstChild().isLeaf());
+            assertEquals(3, loader.getMaterializedCount());
+            assertEquals("p-L1_2_2", L1_2.getChildren().get(1).getPayload());
+            assertEquals(buildGraph().getPathsFromNode(), root.getPathsFromNode());
+            assertEquals(5, loader.getMaterializedCount());
+
+            root.unload();
+            assertEquals(2, root.getChildren().size());
+            assertEquals(7, loader.getMaterializedCount());
+        }
+    }
+
+    @Test
+    public void smallSegments() throws Exception {
+        MappedTreeLoader<String> loader = MappedTreeLoader.open(file, null, 16);
+        LazyTreeNodeImpl<String> root = loader.createRoot();
+        assertEquals(buildGraph().getPathsFromNode(), root.getPathsFromNode());
+        assertNull(root.getPayload());
+        loader.close();
+        root.unload();
+        try {
+            root.getChildren();
+            fail();
+        } catch(InvalidStateException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void pathDelimiterIsKept() throws Exception {
+        TreeNode<String> tree = buildGraph();
+        tree.setPathDelimiter("/");
+        for(TreeNode<String> node : tree.getChildren()) {
+            node.setPathDelimiter("/");
+            for(TreeNode<String> child : node.getChildren()) {
+                child.setPathDelimiter("/");
+            }
+        }
+        new MappedTreeWriter<String>(payload -> payload.getBytes(StandardCharsets.UTF_8)).write(tree, file);
+        try(MappedTreeLoader<String> loader = MappedTreeLoader.open(file, bytes -> new String(bytes, StandardCharsets.UTF_8))) {
+            LazyTreeNodeImpl<String> root = loader.createRoot();
+            assertEquals(tree.getPathsFromNode(), root.getPathsFromNode());
+            assertEquals("root/L1_\u00e92/L1_2_2", root.getChildren().get(1).getChildren().get(1).getPathFromRoot());
+            assertEquals("p-L1_2_2", root.getChildren().get(1).getChildren().get(1).getPayload());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws Exception {
+        Files.write(file, "not a tree file at all, really not".getBytes(StandardCharsets.UTF_8));
+        MappedTreeLoader.open(file, null);
+    }
+
+    protected TreeNode<String> buildGraph() {
+        TreeNode<String> root = new TreeNodeImpl<>("root");
+        TreeNode<String> L1_1 = new TreeNodeImpl<>("L1_1");
+        TreeNode<String> L1_2 = new TreeNodeImpl<>("L1_\u00e92");
+        TreeNode<String> L1_2_1 = new TreeNodeImpl<>("L1_2_1");
+        TreeNode<String> L1_2_2 = new TreeNodeImpl<>("L1_2_2");
+        root.setPayload("p-root");
+        L1_1.setPayload("p-L1_1");
+        L1_2_1.setPayload("p-L1_2_1");
+        L1_2_2.setPayload("p-L1_2_2");
+        root.addChild(L1_1);
+        root.addChild(L1_2);
+        L1_2.addChild(L1_2_1);
+        L1_2.addChild(L1_2_2);
+        return root;
+    }
+}
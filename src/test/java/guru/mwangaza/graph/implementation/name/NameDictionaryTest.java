@@ -0,0 +1,79 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.name;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NameDictionaryTest {
+
+    @Test
+    public void internAndSymbols() throws Exception {
+        NameDictionary dictionary = new NameDictionary();
+        String name = dictionary.intern(new String("Name"));
+        assertSame(name, dictionary.intern(new String("Name")));
+        int symbol = dictionary.getSymbol("Name");
+        assertEquals("Name", dictionary.getName(symbol));
+        int lower = dictionary.getSymbol("name");
+        assertNotEquals(symbol, lower);
+        assertEquals(dictionary.getKey(symbol), dictionary.getKey(lower));
+        assertEquals(dictionary.getKey(symbol), dictionary.findKey("NAME"));
+        assertEquals(NameDictionary.NO_SYMBOL, dictionary.findKey("Other"));
+        assertEquals(NameDictionary.NO_SYMBOL, dictionary.findSymbol("NAME"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void treeNamesAreInterned() throws Exception {
+        NameDictionary dictionary = new NameDictionary();
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("Root");
+        root.setNameDictionary(dictionary);
+        root.buildPathFromCurrentNode("Root.a.b", "1");
+        root.buildPathFromCurrentNode("Root.c.b", "2");
+        root.buildPathFromCurrentNode("Root.A.b", "3");
+        assertEquals(2, root.getChildren().size());
+        TreeNode<String> first = root.getFirstChild().getFirstChild();
+        TreeNode<String> second = root.getChildren().get(1).getFirstChild();
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getPayloadName(), second.getPayloadName());
+        assertEquals("3", first.getPayload());
+        assertTrue(first.isNameEqualTo("B"));
+        assertTrue(root.childWithNameAlreadyExists(new TreeNodeImpl<String>("C")));
+
+        TreeNodeImpl<String> added = new TreeNodeImpl<>(new String("B"));
+        root.addChild(added);
+        assertSame(dictionary, added.getNameDictionary());
+        assertSame(first.getName(), added.getName());
+        assertEquals(9, dictionary.size());
+    }
+
+    @Test
+    public void namesAreComparedByDictionaryKey() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("Root");
+        root.setNameDictionary(new NameDictionary());
+        assertTrue(root.isNameEqualTo(new String("Root")));
+        assertTrue(root.isNameEqualTo("ROOT"));
+        assertFalse(root.isNameEqualTo("Other"));
+
+        TreeNodeImpl<String> sensitive = new TreeNodeImpl<>("Root");
+        sensitive.setNameDictionary(new NameDictionary(NameNormalizer.CASE_SENSITIVE));
+        assertTrue(sensitive.isNameEqualTo(new String("Root")));
+        assertFalse(sensitive.isNameEqualTo("ROOT"));
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.name;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import guru.mwangaza.graph.implementation.event.TreeChangeEvent;
+import guru.mwangaza.graph.implementation.event.TreeChangeListener;
+import guru.mwangaza.graph.implementation.property.PropertySchema;
+import guru.mwangaza.graph.implementation.property.PropertyStore;
+import guru.mwangaza.graph.implementation.property.PropertyType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class NameNormalizerTest {
+
+    @Test
+    public void normalizers() throws Exception {
+        assertEquals("abc", NameNormalizer.CASE_INSENSITIVE.normalize("AbC"));
+        String lower = "abc";
+        assertSame(lower, NameNormalizer.CASE_INSENSITIVE.normalize(lower));
+        assertEquals("AbC", NameNormalizer.CASE_SENSITIVE.normalize("AbC"));
+        NameNormalizer turkish = NameNormalizer.forLocale(new Locale("tr"));
+        assertEquals(turkish.normalize("I"), turkish.normalize("\u0131"));
+        assertNotEquals(turkish.normalize("I"), turkish.normalize("i"));
+        assertEquals(turkish, NameNormalizer.forLocale(new Locale("tr")));
+    }
+
+    @Test
+    public void caseInsensitiveTree() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("Root");
+        root.setNameNormalizer(NameNormalizer.CASE_INSENSITIVE);
+        root.buildPathFromCurrentNode("root.a.b", "1");
+        root.buildPathFromCurrentNode("ROOT.A.c", "2");
+        assertEquals(1, root.getChildren().size());
+        TreeNodeImpl<String> a = (TreeNodeImpl<String>)root.getFirstChild();
+        assertEquals("a", a.getNameKey());
+        assertSame(NameNormalizer.CASE_INSENSITIVE, a.getNameNormalizer());
+        assertEquals(2, a.getChildren().size());
+        assertEquals(1, root.findNodesWithName("B").size());
+        assertTrue(root.childWithNameAlreadyExists(new TreeNodeImpl<String>("A")));
+    }
+
+    @Test
+    public void caseSensitiveTree() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("Root");
+        root.setNameNormalizer(NameNormalizer.CASE_SENSITIVE);
+        root.addChild(new TreeNodeImpl<String>("Node"));
+        root.addChildIfNotExist(new TreeNodeImpl<String>("node"));
+        root.addChildIfNotExist(new TreeNodeImpl<String>("Node"));
+        assertEquals(2, root.getChildren().size());
+        assertFalse(root.getFirstChild().isNameEqualTo("NODE"));
+        assertEquals(1, root.findNodesWithName("node").size());
+
+        TreeNode<String> copy = root.deepClone();
+        assertTrue(copy.childWithNameAlreadyExists(new TreeNodeImpl<String>("node")));
+        assertFalse(copy.childWithNameAlreadyExists(new TreeNodeImpl<String>("NODE")));
+    }
+
+    @Test
+    public void setChildrenSharesTreeSettings() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("Root");
+        root.setNameNormalizer(NameNormalizer.CASE_SENSITIVE);
+        root.setPropertyStore(new PropertyStore<String>(new PropertySchema().declare("size", PropertyType.INT)));
+        TreeNodeImpl<String> child = new TreeNodeImpl<>("Node");
+        root.setChildren(new ArrayList<TreeNode<String>>(Collections.singletonList(child)));
+        assertSame(NameNormalizer.CASE_SENSITIVE, child.getNameNormalizer());
+        assertSame(root.getPropertyStore(), child.getPropertyStore());
+        assertFalse(child.isNameEqualTo("NODE"));
+    }
+
+    @Test
+    public void listenersSurviveSettingChanges() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("Root");
+        List<TreeChangeEvent<String>> events = new ArrayList<>();
+        TreeChangeListener<String> listener = events::addAll;
+        root.addTreeChangeListener(listener);
+        NameDictionary dictionary = new NameDictionary();
+        root.setNameDictionary(dictionary);
+        root.setNameNormalizer(NameNormalizer.CASE_INSENSITIVE);
+        TreeNodeImpl<String> child = new TreeNodeImpl<>("Node");
+        root.addChild(child);
+        assertSame(dictionary, child.getNameDictionary());
+        assertEquals(1, events.size());
+
+        root.setNameDictionary(null);
+        child.setName("Renamed");
+        assertEquals(2, events.size());
+        assertNull(child.getNameDictionary());
+        assertSame(NameNormalizer.CASE_INSENSITIVE, child.getNameNormalizer());
+
+        root.removeTreeChangeListener(listener);
+        child.setName("Node");
+        assertEquals(2, events.size());
+        assertSame(NameNormalizer.CASE_INSENSITIVE, root.getNameNormalizer());
+    }
+}
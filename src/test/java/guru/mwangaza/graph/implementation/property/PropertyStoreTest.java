@@ -0,0 +1,96 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.property;
+
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PropertyStoreTest {
+
+    private PropertySchema schema() {
+        return new PropertySchema()
+                .declare("count", PropertyType.INT)
+                .declare("weight", PropertyType.DOUBLE)
+                .declare("active", PropertyType.BOOLEAN)
+                .declare("label", PropertyType.STRING);
+    }
+
+    @Test
+    public void declaredPropertiesAreStoredInColumns() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("Root");
+        TreeNodeImpl<String> child = new TreeNodeImpl<>("Child");
+        child.addProperty("count", 3);
+        child.addProperty("note", "kept in node");
+        root.addChild(child);
+        PropertyStore<String> store = new PropertyStore<>(schema());
+        root.setPropertyStore(store);
+
+        assertEquals(3, store.getIntColumn("count").getInt(child.getPropertyRow()));
+        Map<String, Object> properties = child.getProperties();
+        assertEquals(3, properties.get("count"));
+        assertEquals("kept in node", properties.get("note"));
+        assertEquals("{count=3, note=kept in node}", properties.toString());
+
+        properties.put("weight", 1.5);
+        TreeNodeImpl<String> added = new TreeNodeImpl<>("Added");
+        root.addChild(added);
+        assertSame(store, added.getPropertyStore());
+        added.addProperty("weight", 4.0);
+        added.addProperty("active", true);
+
+        BitSet heavy = store.getDoubleColumn("weight").select(weight -> weight > 2.0);
+        assertEquals(1, store.getNodes(heavy).size());
+        assertSame(added, store.getNodes(heavy).get(0));
+        assertSame(added, store.getNodes(store.getBooleanColumn("active").select(true)).get(0));
+
+        properties.remove("count");
+        assertFalse(child.getProperties().containsKey("count"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void valuesAreTypeChecked() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("Root");
+        root.setPropertyStore(new PropertyStore<String>(schema()));
+        root.addProperty("count", "three");
+    }
+
+    @Test
+    public void copiesAndDetachedNodesKeepTheirValues() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("Root");
+        root.appendPathToCurrentNode("a.b", "payload");
+        PropertyStore<String> store = new PropertyStore<>(schema());
+        root.setPropertyStore(store);
+        TreeNode<String> b = root.getFirstChild().getFirstChild();
+        b.addProperty("label", "leaf");
+        assertEquals(3, store.getRowCount());
+
+        TreeNode<String> copy = root.deepClone();
+        assertNull(((TreeNodeImpl<String>)copy).getPropertyStore());
+        assertEquals("leaf", copy.getFirstChild().getFirstChild().getProperties().get("label"));
+
+        ((TreeNodeImpl<String>)b).setPropertyStore(null);
+        assertEquals("leaf", b.getProperties().get("label"));
+        List<TreeNode<String>> labelled = store.getNodes(store.getObjectColumn("label").select(label -> true));
+        assertTrue(labelled.isEmpty());
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.GraphNode;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.GraphNodeImpl;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import guru.mwangaza.graph.implementation.index.NameIndex;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class NodeQueryTest {
+
+    @Test
+    public void childAndDescendantSteps() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        assertEquals("[orders]", names(NodeQuery.compile("root.orders").find(root)));
+        assertEquals("[item, item, item]", names(NodeQuery.compile("root.orders..item").find(root)));
+        assertEquals("[o1, o2]", names(NodeQuery.compile("root.orders.*").find(root)));
+        assertEquals("[item, item, item, item]", names(NodeQuery.compile("..ITEM").find(root)));
+        assertEquals("[]", names(NodeQuery.compile("other.orders").find(root)));
+        assertEquals("[item]", names(NodeQuery.compile("root/archive//item", "/").find(root)));
+    }
+
+    @Test
+    public void predicates() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        assertEquals("[o1, o2]", payloads(NodeQuery.compile("..item[@status='shipped']").find(root)));
+        assertEquals("[o2, archive]", payloads(NodeQuery.compile("..item[@quantity >= 10]").find(root)));
+        assertEquals("[o2]", payloads(NodeQuery.compile("..item[@quantity >= 10 and @status = 'shipped']").find(root)));
+        assertEquals("[o1, o2]", payloads(NodeQuery.compile("..item[@status != 'open' or payload ^= 'arch'][@quantity < 100]").find(root)));
+        assertEquals("[o1]", payloads(NodeQuery.compile("..item[not(@quantity > 1)]").find(root)));
+        assertEquals("[archive]", payloads(NodeQuery.compile("..*[payload = 'archive']").find(root)));
+        assertEquals("[o1, o2, o1, archive]", payloads(NodeQuery.compile("..item[@quantity]").find(root)));
+        assertEquals("[o2]", payloads(NodeQuery.compile("..item[@weight > 1.5]").find(root)));
+    }
+
+    @Test
+    public void resultsAreStreamedAndLimited() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        NodeQuery query = NodeQuery.compile("..item");
+        assertEquals("o1", query.findFirst(root).getPayload());
+        assertEquals(2, query.find(root, 2).size());
+        assertEquals(4, query.stream(root).count());
+        assertEquals("[o1, o2]", query.stream(root).map(TreeNode::getPayload).distinct().limit(2).collect(Collectors.toList()).toString());
+        Iterator<TreeNode<String>> iterator = NodeQuery.compile("..nothing").iterator(root);
+        assertFalse(iterator.hasNext());
+        assertTrue(query.explain().startsWith("descendants(item)"));
+    }
+
+    @Test
+    public void nameIndexAnswersDescendantSteps() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        NameIndex<String> index = new NameIndex<>(root);
+        NodeQuery query = NodeQuery.compile("root.orders..item[@status='shipped']");
+        List<TreeNode<String>> expected = query.find(root);
+        List<TreeNode<String>> indexed = new ArrayList<>();
+        query.iterator(root, index).forEachRemaining(indexed::add);
+        assertEquals(expected, indexed);
+
+        root.getFirstChild().getFirstChild().getFirstChild().setName("line");
+        assertEquals(1, query.stream(root, index).count());
+        assertEquals(1, NodeQuery.compile("..line").stream(root, index).count());
+    }
+
+    @Test
+    public void graphsAndCache() throws Exception {
+        GraphNode<String> a = new GraphNodeImpl<>("A");
+        GraphNode<String> b = new GraphNodeImpl<>("B");
+        GraphNode<String> c = new GraphNodeImpl<>("C");
+        GraphNode<String> d = new GraphNodeImpl<>("D");
+        a.addChild(b);
+        a.addChild(c);
+        b.addChild(d);
+        c.addChild(d);
+        assertEquals(1, NodeQuery.compile("A..D").find(a).size());
+        assertEquals(1, NodeQuery.compile("A.*.D").stream(a).count());
+
+        NodeQueryCache cache = new NodeQueryCache(2);
+        NodeQuery query = cache.compile("A..D");
+        assertSame(query, cache.compile("A..D"));
+        assertNotSame(query, cache.compile("A//D", "/"));
+        cache.compile("B");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedQueriesAreRejected() throws Exception {
+        NodeQuery.compile("root.orders[@status = ]");
+    }
+
+    /**
+     * root
+     *   orders
+     *     o1: item(shipped, 1, 0.5), o1 note
+     *     o2: item(shipped, 10, 2.0), item(open, 5)
+     *   archive
+     *     item(closed, 100)
+     */
+    private TreeNodeImpl<String> buildTree() {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("root");
+        TreeNodeImpl<String> orders = child(root, "orders", null);
+        TreeNodeImpl<String> o1 = child(orders, "o1", null);
+        TreeNodeImpl<String> item = child(o1, "item", "o1");
+        item.addProperty("status", "shipped");
+        item.addProperty("quantity", 1);
+        item.addProperty("weight", 0.5);
+        child(o1, "note", null);
+        TreeNodeImpl<String> o2 = child(orders, "o2", null);
+        item = child(o2, "item", "o2");
+        item.addProperty("status", "shipped");
+        item.addProperty("quantity", 10);
+        item.addProperty("weight", 2.0);
+        item = child(o2, "item", "o1");
+        item.addProperty("status", "open");
+        item.addProperty("quantity", 5L);
+        TreeNodeImpl<String> archive = child(root, "archive", null);
+        item = child(archive, "item", "archive");
+        item.addProperty("status", "closed");
+        item.addProperty("quantity", 100);
+        return root;
+    }
+
+    private TreeNodeImpl<String> child(TreeNodeImpl<String> parent, String name, String payload) {
+        TreeNodeImpl<String> child = new TreeNodeImpl<>(name);
+        child.setPayload(payload);
+        parent.addChild(child);
+        return child;
+    }
+
+    private String names(List<TreeNode<String>> nodes) {
+        return nodes.stream().map(TreeNode::getName).collect(Collectors.toList()).toString();
+    }
+
+    private String payloads(List<TreeNode<String>> nodes) {
+        return nodes.stream().map(TreeNode::getPayload).collect(Collectors.toList()).toString();
+    }
+}
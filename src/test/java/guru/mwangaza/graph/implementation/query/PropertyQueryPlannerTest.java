@@ -0,0 +1,207 @@
+/**
+ * Copyright 2017 Claude Nanjo.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package guru.mwangaza.graph.implementation.query;
+
+import guru.mwangaza.graph.api.Criterion;
+import guru.mwangaza.graph.api.TreeNode;
+import guru.mwangaza.graph.implementation.TreeNodeImpl;
+import guru.mwangaza.graph.implementation.index.HashPropertyIndex;
+import guru.mwangaza.graph.implementation.index.SortedPropertyIndex;
+import guru.mwangaza.graph.implementation.property.PropertySchema;
+import guru.mwangaza.graph.implementation.property.PropertyStore;
+import guru.mwangaza.graph.implementation.property.PropertyType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static guru.mwangaza.graph.implementation.query.Criteria.*;
+import static org.junit.Assert.*;
+
+public class PropertyQueryPlannerTest {
+
+    @Test
+    public void criteriaCompose() throws Exception {
+        TreeNodeImpl<String> node = new TreeNodeImpl<>("Node");
+        node.addProperty("status", "active");
+        node.addProperty("size", 5);
+        assertTrue(Criteria.<TreeNode<String>, String>and(propertyEquals("status", "active"), propertyBetween("size", 1, 5)).matches(node));
+        assertFalse(Criteria.<TreeNode<String>, String>propertyRange("size", 1, true, 5, false).matches(node));
+        assertTrue(Criteria.<TreeNode<String>, String>or(propertyEquals("status", "closed"), propertyPrefix("status", "act")).matches(node));
+        assertTrue(Criteria.<TreeNode<String>, String>not(propertyEquals("missing", 1)).matches(node));
+        assertFalse(Criteria.<TreeNode<String>, String>propertyBetween("status", 1, 5).matches(node));
+    }
+
+    @Test
+    public void indexesAnswerQueriesAndFollowChanges() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        PropertyQueryPlanner<String> planner = new PropertyQueryPlanner<>(root);
+        HashPropertyIndex<String> statusIndex = planner.createHashIndex("status");
+        SortedPropertyIndex<String> sizeIndex = planner.createSortedIndex("size");
+
+        assertEquals("[n0, n3, n6, n9]", names(planner.find(propertyEquals("status", "s0"))));
+        assertTrue(planner.explain(propertyEquals("status", "s0")).startsWith("INDEX HashPropertyIndex(status)"));
+        assertEquals("[n2, n3, n4]", names(planner.find(propertyRange("size", 2, true, 5, false))));
+        assertEquals("[n0, n1, n3, n5, n6, n7, n9]", names(planner.find(or(propertyEquals("status", "s0"), propertyEquals("parity", "odd")))));
+        assertTrue(planner.explain(or(propertyEquals("status", "s0"), propertyEquals("parity", "odd"))).startsWith("SCAN"));
+        assertEquals("[n3, n9]", names(planner.find(and(propertyEquals("parity", "odd"), propertyEquals("status", "s0")))));
+        assertTrue(planner.explain(and(propertyEquals("parity", "odd"), propertyEquals("status", "s0"))).startsWith("FILTER"));
+
+        TreeNode<String> n4 = root.findNodesWithName("n4").get(0);
+        n4.addProperty("status", "s0");
+        assertEquals("[n0, n3, n4, n6, n9]", names(planner.find(propertyEquals("status", "s0"))));
+        Map<String, Object> properties = new HashMap<>(n4.getProperties());
+        properties.remove("size");
+        n4.setProperties(properties);
+        assertEquals("[n2, n3]", names(planner.find(propertyRange("size", 2, true, 5, false))));
+
+        TreeNodeImpl<String> added = new TreeNodeImpl<>("n10");
+        added.addProperty("status", "s0");
+        root.addChild(added);
+        assertEquals(6, statusIndex.findEqual("s0").size());
+        assertEquals(3, statusIndex.getDistinctValueCount());
+
+        planner.dropIndexes("status");
+        assertTrue(planner.explain(propertyEquals("status", "s0")).startsWith("SCAN"));
+        assertEquals("[n0, n10, n3, n4, n6, n9]", names(planner.find(propertyEquals("status", "s0"))));
+        sizeIndex.detach();
+        root.getFirstChild().addProperty("size", 3);
+        assertEquals("[n0, n3]", names(sizeIndex.findEqual(3)));
+    }
+
+    @Test
+    public void indexesFollowStructuralChangesWithoutRebuilding() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        HashPropertyIndex<String> index = new HashPropertyIndex<>(root, "status");
+        assertEquals("[n0, n3, n6, n9]", names(index.findEqual("s0")));
+        // Written past the notifications, so only a rebuild would find it
+        root.findNodesWithName("n1").get(0).getProperties().put("status", "s0");
+
+        TreeNodeImpl<String> branch = new TreeNodeImpl<>("branch");
+        TreeNodeImpl<String> leaf = new TreeNodeImpl<>("leaf");
+        leaf.addProperty("status", "s0");
+        branch.addChild(leaf);
+        root.getFirstChild().addChild(branch);
+        root.removeChild(root.findNodesWithName("n3").get(0));
+        assertEquals("[leaf, n0, n6, n9]", names(index.findEqual("s0")));
+
+        root.batch(batch -> {
+            root.removeChild(root.findNodesWithName("n6").get(0));
+            branch.addChild(new TreeNodeImpl<>("empty"));
+            leaf.addProperty("status", "s1");
+        });
+        assertEquals("[n0, n9]", names(index.findEqual("s0")));
+        assertEquals("[leaf, n1, n4, n7]", names(index.findEqual("s1")));
+
+        root.batch(batch -> {
+            root.getFirstChild().removeChild(branch);
+            batch.rollback();
+        });
+        assertEquals("[n0, n1, n9]", names(index.findEqual("s0")));
+        assertEquals("[leaf, n4, n7]", names(index.findEqual("s1")));
+    }
+
+    @Test
+    public void orderedIndexesAnswerPrefixes() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        PropertyQueryPlanner<String> planner = new PropertyQueryPlanner<>(root);
+        planner.createSortedIndex("label");
+        root.getFirstChild().addProperty("label", "label-10");
+        assertEquals("[n0, n1]", names(planner.find(propertyPrefix("label", "label-1"))));
+        assertEquals("[]", names(planner.find(propertyPrefix("label", "other"))));
+        assertEquals("[n8, n9]", names(planner.find(propertyRange("label", "label-8", true, null, false))));
+    }
+
+    @Test
+    public void indexesMatchScansOnMixedNumericTypes() throws Exception {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("root");
+        Object[] values = {5, 5L, 5.0, (short)5, 2, 3.5, 7L, 7.25f};
+        for(int i = 0; i < values.length; i++) {
+            TreeNodeImpl<String> child = new TreeNodeImpl<>("n" + i);
+            child.addProperty("n", values[i]);
+            root.addChild(child);
+        }
+        List<Criterion<TreeNode<String>, String>> criteria = new ArrayList<>();
+        criteria.add(propertyEquals("n", 5L));
+        criteria.add(propertyEquals("n", 5));
+        criteria.add(propertyEquals("n", 5.0));
+        criteria.add(propertyEquals("n", 3.5f));
+        criteria.add(propertyRange("n", 3L, true, 7.0, true));
+        criteria.add(propertyRange("n", 3.5, false, 7L, false));
+        List<String> scanned = new ArrayList<>();
+        PropertyQueryPlanner<String> planner = new PropertyQueryPlanner<>(root);
+        for(Criterion<TreeNode<String>, String> criterion : criteria) {
+            scanned.add(names(planner.find(criterion)));
+        }
+        assertEquals("[n0, n1, n2, n3]", scanned.get(0));
+        assertEquals("[n0, n1, n2, n3, n5, n6]", scanned.get(4));
+
+        planner.createHashIndex("n");
+        for(int i = 0; i < 4; i++) {
+            assertTrue(planner.explain(criteria.get(i)).startsWith("INDEX HashPropertyIndex(n)"));
+            assertEquals(scanned.get(i), names(planner.find(criteria.get(i))));
+        }
+        planner.dropIndexes("n");
+        planner.createSortedIndex("n");
+        for(int i = 0; i < criteria.size(); i++) {
+            assertTrue(planner.explain(criteria.get(i)).startsWith("INDEX SortedPropertyIndex(n)"));
+            assertEquals(scanned.get(i), names(planner.find(criteria.get(i))));
+        }
+
+        root.getFirstChild().addProperty("n", 6L);
+        assertEquals("[n1, n2, n3]", names(planner.find(propertyEquals("n", 5))));
+    }
+
+    @Test
+    public void declaredPropertiesAreScannedByColumn() throws Exception {
+        TreeNodeImpl<String> root = buildTree();
+        root.setPropertyStore(new PropertyStore<String>(new PropertySchema().declare("size", PropertyType.INT)));
+        PropertyQueryPlanner<String> planner = new PropertyQueryPlanner<>(root);
+        assertTrue(planner.explain(propertyBetween("size", 7, 9)).startsWith("COLUMN SCAN(size)"));
+        assertEquals("[n7, n8, n9]", names(planner.find(propertyBetween("size", 7, 9))));
+
+        PropertyQueryPlanner<String> subtreePlanner = new PropertyQueryPlanner<>(root.getFirstChild());
+        assertEquals("[]", names(subtreePlanner.find(propertyBetween("size", 7, 9))));
+    }
+
+    /**
+     * A root with ten children n0..n9, each with a status s(i % 3), a size i, a parity and a label.
+     */
+    private TreeNodeImpl<String> buildTree() {
+        TreeNodeImpl<String> root = new TreeNodeImpl<>("root");
+        for(int i = 0; i < 10; i++) {
+            TreeNodeImpl<String> child = new TreeNodeImpl<>("n" + i);
+            child.addProperty("status", "s" + (i % 3));
+            child.addProperty("size", i);
+            child.addProperty("parity", i % 2 == 0 ? "even" : "odd");
+            child.addProperty("label", "label-" + i);
+            root.addChild(child);
+        }
+        return root;
+    }
+
+    private String names(List<TreeNode<String>> nodes) {
+        List<String> names = new ArrayList<>();
+        for(TreeNode<String> node : nodes) {
+            names.add(node.getName());
+        }
+        Collections.sort(names);
+        return names.toString();
+    }
+}